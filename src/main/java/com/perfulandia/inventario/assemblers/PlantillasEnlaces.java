@@ -0,0 +1,55 @@
+package com.perfulandia.inventario.assemblers;
+
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.LinkRelation;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/*
+ * Enlaces resueltos una vez por solicitud para los ensambladores. linkTo(methodOn(...)) crea un proxy del
+ * controlador y vuelve a resolver el mapeo y la URI base en cada llamada; en un listado eso se repetía dos
+ * veces por elemento. Acá el enlace con ID se resuelve con un ID de muestra, se parte en lo que va antes
+ * y después del ID, y por elemento solo se concatena; el resultado es el mismo href que daría linkTo.
+ */
+final class PlantillasEnlaces {
+
+    private static final Long MUESTRA = Long.MIN_VALUE;
+
+    private PlantillasEnlaces() {
+    }
+
+    /* Plantilla de un enlace cuyo único dato variable es el ID */
+    record ConId(String prefijo, String sufijo) {
+
+        static ConId de(Function<Long, Link> enlace) {
+            String href = enlace.apply(MUESTRA).getHref();
+            int posicion = href.lastIndexOf(MUESTRA.toString());
+            return new ConId(href.substring(0, posicion), href.substring(posicion + MUESTRA.toString().length()));
+        }
+
+        Link expandir(long id, LinkRelation relacion) {
+            return Link.of(prefijo + id + sufijo, relacion);
+        }
+    }
+
+    /*
+     * Las plantillas se guardan como atributo de la solicitud en curso, porque la URI base depende de ella
+     * (host, puerto, encabezados X-Forwarded); fuera de una solicitud se resuelven en cada llamada
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T porSolicitud(String clave, Supplier<T> resolver) {
+        RequestAttributes atributos = RequestContextHolder.getRequestAttributes();
+        if (atributos == null) {
+            return resolver.get();
+        }
+        T guardadas = (T) atributos.getAttribute(clave, RequestAttributes.SCOPE_REQUEST);
+        if (guardadas == null) {
+            guardadas = resolver.get();
+            atributos.setAttribute(clave, guardadas, RequestAttributes.SCOPE_REQUEST);
+        }
+        return guardadas;
+    }
+}
@@ -1,5 +1,7 @@
 package com.perfulandia.inventario.assemblers;
 
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
 import org.springframework.hateoas.server.RepresentationModelAssembler;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
@@ -12,6 +14,11 @@ import com.perfulandia.inventario.model.Producto;
 @Component
 public class ProductoModelAssembler implements RepresentationModelAssembler<Producto, ProductoModel> {
 
+    private static final String PLANTILLAS = ProductoModelAssembler.class.getName() + ".plantillas";
+
+    /* Enlaces de un producto resueltos una vez por solicitud (ver PlantillasEnlaces) */
+    private record Plantillas(PlantillasEnlaces.ConId self, Link todos) { }
+
     @Override
     @org.springframework.lang.NonNull
     public ProductoModel toModel(Producto producto) {
@@ -20,13 +27,24 @@ public class ProductoModelAssembler implements RepresentationModelAssembler<Prod
         model.setNombre(producto.getNombre());
         model.setStock(producto.getStock());
         model.setPrecio(producto.getPrecio());
+        model.setVersion(producto.getVersion());
 
-        model.add(linkTo(methodOn(ProductoController.class).
-        obtenerProductoPorId(producto.getId())).withSelfRel());
+        Plantillas plantillas = plantillas();
+        if (producto.getId() == null) {
+            model.add(linkTo(methodOn(ProductoController.class).
+            obtenerProductoPorId(null, null)).withSelfRel());
+        } else {
+            model.add(plantillas.self().expandir(producto.getId(), IanaLinkRelations.SELF));
+        }
 
-        model.add(linkTo(methodOn(ProductoController.class).
-        listarProductos()).withRel("todos-los-productos"));
+        model.add(plantillas.todos());
 
         return model;
     }
+
+    private static Plantillas plantillas() {
+        return PlantillasEnlaces.porSolicitud(PLANTILLAS, () -> new Plantillas(
+            PlantillasEnlaces.ConId.de(id -> linkTo(methodOn(ProductoController.class).obtenerProductoPorId(id, null)).withSelfRel()),
+            linkTo(methodOn(ProductoController.class).listarProductos(null, null)).withRel("todos-los-productos")));
+    }
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 package com.perfulandia.inventario.assemblers;
 
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
 import org.springframework.hateoas.server.RepresentationModelAssembler;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
@@ -13,6 +15,11 @@ import com.perfulandia.inventario.model.Resena;
 @Component
 public class ResenaModelAssembler implements RepresentationModelAssembler<Resena, ResenaModel> {
 
+    private static final String PLANTILLAS = ResenaModelAssembler.class.getName() + ".plantillas";
+
+    /* Enlaces de una reseña resueltos una vez por solicitud (ver PlantillasEnlaces) */
+    private record Plantillas(PlantillasEnlaces.ConId self, Link todas) { }
+
     @Override
     @org.springframework.lang.NonNull
     public ResenaModel toModel(Resena resena) {
@@ -24,13 +31,23 @@ public class ResenaModelAssembler implements RepresentationModelAssembler<Resena
         model.setIdUsuario(resena.getIdUsuario());
         model.setNombreUsuario(resena.getNombreUsuario());
 
-        model.add(linkTo(methodOn(ResenaController.class)
-                .obtenerResenaPorId(resena.getId())).withSelfRel());
+        Plantillas plantillas = plantillas();
+        if (resena.getId() == null) {
+            model.add(linkTo(methodOn(ResenaController.class)
+                    .obtenerResenaPorId(null)).withSelfRel());
+        } else {
+            model.add(plantillas.self().expandir(resena.getId(), IanaLinkRelations.SELF));
+        }
 
-        model.add(linkTo(methodOn(ResenaController.class)
-                .listarResenas()).withRel("todas-las-resenas"));
+        model.add(plantillas.todas());
 
         return model;
     }
+
+    private static Plantillas plantillas() {
+        return PlantillasEnlaces.porSolicitud(PLANTILLAS, () -> new Plantillas(
+            PlantillasEnlaces.ConId.de(id -> linkTo(methodOn(ResenaController.class).obtenerResenaPorId(id)).withSelfRel()),
+            linkTo(methodOn(ResenaController.class).listarResenas(null, null)).withRel("todas-las-resenas")));
+    }
     
 }
@@ -0,0 +1,10 @@
+package com.perfulandia.inventario.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/* Activa la autoconfiguración de cachés (Caffeine, según spring.cache.* en application.properties) */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+}
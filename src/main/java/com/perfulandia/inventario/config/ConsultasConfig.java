@@ -0,0 +1,36 @@
+package com.perfulandia.inventario.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.perfulandia.inventario.service.RegistroConsultasService;
+
+/* Registro de consultas lentas: envuelve el DataSource en DataSourceMedido y publica /actuator/consultas */
+@Configuration
+@ConditionalOnProperty(name = "inventario.consultas.habilitado", havingValue = "true", matchIfMissing = true)
+public class ConsultasConfig {
+
+    // static: los BeanPostProcessor se crean antes que el resto de la configuración
+    @Bean
+    public static BeanPostProcessor dataSourceMedido(ObjectProvider<RegistroConsultasService> registro) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String nombre) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof DataSourceMedido)) {
+                    return new DataSourceMedido(dataSource, registro.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public ConsultasEndpoint consultasEndpoint(RegistroConsultasService registro) {
+        return new ConsultasEndpoint(registro);
+    }
+}
@@ -0,0 +1,37 @@
+package com.perfulandia.inventario.config;
+
+import java.util.List;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+
+import com.perfulandia.inventario.dto.ResumenConsulta;
+import com.perfulandia.inventario.service.RegistroConsultasService;
+
+/*
+ * /actuator/consultas: las huellas de SQL que más pesan (?orden=total|p99|maximo|cantidad&limite=20);
+ * DELETE vacía el registro, por ejemplo antes de medir un pico
+ */
+@Endpoint(id = "consultas")
+public class ConsultasEndpoint {
+
+    private static final int LIMITE_POR_DEFECTO = 20;
+
+    private final RegistroConsultasService registro;
+
+    public ConsultasEndpoint(RegistroConsultasService registro) {
+        this.registro = registro;
+    }
+
+    @ReadOperation
+    public List<ResumenConsulta> principales(@Nullable String orden, @Nullable Integer limite) {
+        return registro.principales(orden, limite != null ? limite : LIMITE_POR_DEFECTO);
+    }
+
+    @DeleteOperation
+    public void limpiar() {
+        registro.limpiar();
+    }
+}
@@ -0,0 +1,113 @@
+package com.perfulandia.inventario.config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import com.perfulandia.inventario.service.RegistroConsultasService;
+
+/*
+ * DataSource que entrega conexiones envueltas en un proxy: cada execute* de sus sentencias se mide y se
+ * pasa al registro de consultas con su SQL (el de prepareStatement, o el del execute en un Statement).
+ * Lo usan por igual Hibernate y JdbcTemplate. Como DelegatingDataSource, unwrap sigue llegando al pool.
+ */
+public class DataSourceMedido extends DelegatingDataSource {
+
+    private final RegistroConsultasService registro;
+
+    public DataSourceMedido(DataSource destino, RegistroConsultasService registro) {
+        super(destino);
+        this.registro = registro;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return conexion(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String usuario, String clave) throws SQLException {
+        return conexion(super.getConnection(usuario, clave));
+    }
+
+    private Connection conexion(Connection conexion) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {Connection.class},
+            (proxy, metodo, argumentos) -> {
+                // Identidad del proxy: Spring compara la conexión de la transacción con la que se libera
+                if (metodo.getName().equals("equals")) {
+                    return proxy == argumentos[0];
+                }
+                if (metodo.getName().equals("hashCode")) {
+                    return System.identityHashCode(proxy);
+                }
+                Object resultado = invocar(conexion, metodo, argumentos);
+                return switch (metodo.getName()) {
+                    case "prepareCall" -> sentencia(resultado, CallableStatement.class, (String) argumentos[0]);
+                    case "prepareStatement" -> sentencia(resultado, PreparedStatement.class, (String) argumentos[0]);
+                    case "createStatement" -> sentencia(resultado, Statement.class, null);
+                    default -> resultado;
+                };
+            });
+    }
+
+    private Object sentencia(Object sentencia, Class<?> tipo, String sql) {
+        return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {tipo},
+            new SentenciaMedida(sentencia, sql));
+    }
+
+    private final class SentenciaMedida implements InvocationHandler {
+
+        private final Object sentencia;
+        private final String sqlPreparado;
+        private final String huellaPreparada; // el SQL preparado no cambia: se normaliza una vez
+        private String ultimoLote; // Statement.addBatch(sql): se informa el último del lote
+
+        SentenciaMedida(Object sentencia, String sqlPreparado) {
+            this.sentencia = sentencia;
+            this.sqlPreparado = sqlPreparado;
+            this.huellaPreparada = sqlPreparado != null ? RegistroConsultasService.huella(sqlPreparado) : null;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method metodo, Object[] argumentos) throws Throwable {
+            String nombre = metodo.getName();
+            if (nombre.equals("addBatch") && argumentos != null && argumentos.length == 1) {
+                ultimoLote = (String) argumentos[0];
+            }
+            if (!nombre.startsWith("execute")) {
+                return invocar(sentencia, metodo, argumentos);
+            }
+            long inicio = System.nanoTime();
+            try {
+                return invocar(sentencia, metodo, argumentos);
+            } finally {
+                long nanos = System.nanoTime() - inicio;
+                if (sqlPreparado != null) {
+                    registro.registrar(sqlPreparado, huellaPreparada, nanos);
+                } else {
+                    // Statement: el SQL llega en cada execute y se normaliza en cada uno
+                    registro.registrar(argumentos != null && argumentos.length > 0 && argumentos[0] instanceof String texto
+                        ? texto : ultimoLote, nanos);
+                }
+            }
+        }
+    }
+
+    private static Object invocar(Object destino, Method metodo, Object[] argumentos) throws Throwable {
+        try {
+            return metodo.invoke(destino, argumentos);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
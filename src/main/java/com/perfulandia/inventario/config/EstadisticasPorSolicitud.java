@@ -0,0 +1,59 @@
+package com.perfulandia.inventario.config;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.internal.StatisticsImpl;
+
+/*
+ * Estadísticas de Hibernate (hibernate.generate_statistics) que además cuentan, por hilo, las sentencias
+ * preparadas y las entidades cargadas mientras hay una solicitud abierta con iniciar(). Las estadísticas
+ * globales son de toda la fábrica de sesiones y no se pueden separar por solicitud cuando hay varias a la
+ * vez. Solo ven lo que pasa por Hibernate: las consultas de JdbcTemplate no se cuentan.
+ */
+public class EstadisticasPorSolicitud extends StatisticsImpl {
+
+    public record Contadores(long sentencias, long entidades) {
+    }
+
+    // [0] sentencias, [1] entidades; null fuera de una solicitud
+    private static final ThreadLocal<long[]> EN_CURSO = new ThreadLocal<>();
+
+    public EstadisticasPorSolicitud(SessionFactoryImplementor sessionFactory) {
+        super(sessionFactory);
+    }
+
+    public static void iniciar() {
+        EN_CURSO.set(new long[2]);
+    }
+
+    /* Contadores de la solicitud del hilo actual; deja de contar hasta el siguiente iniciar() */
+    public static Contadores terminar() {
+        long[] contadores = EN_CURSO.get();
+        EN_CURSO.remove();
+        return contadores != null ? new Contadores(contadores[0], contadores[1]) : new Contadores(0, 0);
+    }
+
+    @Override
+    public void prepareStatement() {
+        super.prepareStatement();
+        sumar(0);
+    }
+
+    @Override
+    public void loadEntity(String entityName) {
+        super.loadEntity(entityName);
+        sumar(1);
+    }
+
+    @Override
+    public void fetchEntity(String entityName) {
+        super.fetchEntity(entityName);
+        sumar(1);
+    }
+
+    private static void sumar(int contador) {
+        long[] contadores = EN_CURSO.get();
+        if (contadores != null) {
+            contadores[contador]++;
+        }
+    }
+}
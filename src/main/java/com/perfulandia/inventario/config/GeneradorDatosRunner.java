@@ -0,0 +1,59 @@
+package com.perfulandia.inventario.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import com.perfulandia.inventario.service.GeneradorDatosService;
+
+/*
+ * Con el perfil generador, al arrancar llena la base con datos sintéticos (ver GeneradorDatosService y
+ * application-generador.properties) y termina; con inventario.generador.salir=false sigue atendiendo.
+ *   mvn spring-boot:run -Dspring-boot.run.profiles=dev,generador -Dspring-boot.run.arguments="--inventario.generador.productos=1000000"
+ */
+@Component
+@Profile("generador")
+public class GeneradorDatosRunner implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(GeneradorDatosRunner.class);
+
+    private final GeneradorDatosService generador;
+    private final ConfigurableApplicationContext contexto;
+    private final int productos;
+    private final long resenas;
+    private final double zipf;
+    private final long semilla;
+    private final boolean salir;
+
+    public GeneradorDatosRunner(GeneradorDatosService generador, ConfigurableApplicationContext contexto,
+                                @Value("${inventario.generador.productos:100000}") int productos,
+                                @Value("${inventario.generador.resenas:1000000}") long resenas,
+                                @Value("${inventario.generador.zipf:1.1}") double zipf,
+                                @Value("${inventario.generador.semilla:42}") long semilla,
+                                @Value("${inventario.generador.salir:true}") boolean salir) {
+        this.generador = generador;
+        this.contexto = contexto;
+        this.productos = productos;
+        this.resenas = resenas;
+        this.zipf = zipf;
+        this.semilla = semilla;
+        this.salir = salir;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        log.info("Generando {} productos y {} reseñas (zipf {}, semilla {})", productos, resenas, zipf, semilla);
+        GeneradorDatosService.ResultadoGeneracion resultado = generador.generar(productos, resenas, zipf, semilla);
+        log.info("Generados {} productos desde el ID {} y {} reseñas en {} ms", resultado.productos(),
+            resultado.primerIdProducto(), resultado.resenas(), resultado.milisegundos());
+        if (salir) {
+            System.exit(SpringApplication.exit(contexto));
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.perfulandia.inventario.config;
+
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.perfulandia.inventario.service.IdempotenciaService;
+
+/* Aplica la Idempotency-Key solo a los endpoints que modifican stock de un producto */
+@Configuration
+public class IdempotenciaConfig {
+
+    @Bean
+    public FilterRegistrationBean<IdempotenciaFilter> idempotenciaFilter(IdempotenciaService idempotencia) {
+        FilterRegistrationBean<IdempotenciaFilter> registro = new FilterRegistrationBean<>(new IdempotenciaFilter(idempotencia));
+        registro.addUrlPatterns("/api/v2/productos/rebajarStock/*", "/api/v2/productos/reponer/*",
+            "/api/v2/productos/stock/reposiciones");
+        return registro;
+    }
+}
@@ -0,0 +1,194 @@
+package com.perfulandia.inventario.config;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.perfulandia.inventario.model.RespuestaIdempotente;
+import com.perfulandia.inventario.service.IdempotenciaService;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+
+/*
+ * Filtro de Idempotency-Key para los endpoints que modifican stock (ver IdempotenciaConfig).
+ * La primera solicitud con una clave se ejecuta normalmente y su respuesta (estado, tipo y cuerpo)
+ * se guarda; un reintento con la misma clave recibe esa misma respuesta sin llegar al controlador,
+ * así que no vuelve a tocar el stock. Las respuestas 5xx no se guardan para permitir reintentar.
+ */
+public class IdempotenciaFilter extends OncePerRequestFilter {
+
+    public static final String CABECERA = "Idempotency-Key";
+    public static final String CABECERA_REPETIDA = "Idempotency-Replayed";
+    private static final int LARGO_MAXIMO_CLAVE = 100;
+
+    private final IdempotenciaService idempotencia;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    public IdempotenciaFilter(IdempotenciaService idempotencia) {
+        this.idempotencia = idempotencia;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getHeader(CABECERA) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String clave = request.getHeader(CABECERA).trim();
+        if (clave.isEmpty() || clave.length() > LARGO_MAXIMO_CLAVE) {
+            escribirError(response, HttpStatus.BAD_REQUEST,
+                "La cabecera " + CABECERA + " debe tener entre 1 y " + LARGO_MAXIMO_CLAVE + " caracteres");
+            return;
+        }
+
+        byte[] cuerpo = request.getInputStream().readAllBytes();
+        String huella = huella(request, cuerpo);
+
+        Optional<RespuestaIdempotente> previa;
+        try {
+            previa = idempotencia.reservar(clave);
+        } catch (IllegalStateException e) {
+            escribirError(response, HttpStatus.CONFLICT, e.getMessage()); // 409: el primer intento sigue en curso
+            return;
+        }
+
+        if (previa.isPresent()) {
+            if (!previa.get().getHuella().equals(huella)) {
+                escribirError(response, HttpStatus.UNPROCESSABLE_ENTITY,
+                    "La " + CABECERA + " ya se usó con una solicitud distinta"); // 422
+                return;
+            }
+            reproducir(previa.get(), response);
+            return;
+        }
+
+        ContentCachingResponseWrapper respuesta = new ContentCachingResponseWrapper(response);
+        RespuestaIdempotente guardada = null;
+        try {
+            chain.doFilter(new CuerpoLeido(request, cuerpo), respuesta);
+            if (respuesta.getStatus() < 500) {
+                String tipo = respuesta.getContentType();
+                guardada = new RespuestaIdempotente(clave, huella, respuesta.getStatus(), tipo,
+                    new String(respuesta.getContentAsByteArray(), charset(tipo)), LocalDateTime.now());
+            }
+        } finally {
+            idempotencia.completar(clave, guardada);
+            respuesta.copyBodyToResponse();
+        }
+    }
+
+    private void reproducir(RespuestaIdempotente guardada, HttpServletResponse response) throws IOException {
+        response.setStatus(guardada.getEstado());
+        response.setHeader(CABECERA_REPETIDA, "true");
+        if (guardada.getTipoContenido() != null) {
+            response.setContentType(guardada.getTipoContenido());
+        }
+        if (guardada.getCuerpo() != null) {
+            response.getOutputStream().write(guardada.getCuerpo().getBytes(charset(guardada.getTipoContenido())));
+        }
+    }
+
+    private void escribirError(HttpServletResponse response, HttpStatus estado, String mensaje) throws IOException {
+        response.setStatus(estado.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getOutputStream().write(mapper.writeValueAsBytes(Map.of("error", mensaje)));
+    }
+
+    /* El charset declarado en el Content-Type, o UTF-8 (el de JSON) si no viene */
+    private static Charset charset(String tipoContenido) {
+        if (tipoContenido == null) {
+            return StandardCharsets.UTF_8;
+        }
+        Charset declarado = MediaType.parseMediaType(tipoContenido).getCharset();
+        return declarado != null ? declarado : StandardCharsets.UTF_8;
+    }
+
+    private static String huella(HttpServletRequest request, byte[] cuerpo) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            StringBuilder solicitud = new StringBuilder(request.getMethod()).append(' ').append(request.getRequestURI());
+            new TreeMap<>(request.getParameterMap()).forEach((nombre, valores) ->
+                solicitud.append('&').append(nombre).append('=').append(String.join(",", valores)));
+            sha.update(solicitud.append('\n').toString().getBytes(StandardCharsets.UTF_8));
+            sha.update(cuerpo);
+            return HexFormat.of().formatHex(sha.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    /* El cuerpo ya se leyó para calcular la huella; el controlador lo vuelve a leer desde esta copia */
+    private static final class CuerpoLeido extends HttpServletRequestWrapper {
+
+        private final byte[] cuerpo;
+
+        private CuerpoLeido(HttpServletRequest request, byte[] cuerpo) {
+            super(request);
+            this.cuerpo = cuerpo;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream entrada = new ByteArrayInputStream(cuerpo);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return entrada.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return entrada.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return entrada.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                // El cuerpo ya está en memoria: se avisa de inmediato que hay datos y, si el listener los leyó
+                // todos, que la lectura terminó
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    try {
+                        if (!isFinished()) {
+                            listener.onDataAvailable();
+                        }
+                        if (isFinished()) {
+                            listener.onAllDataRead();
+                        }
+                    } catch (IOException e) {
+                        listener.onError(e);
+                    }
+                }
+            };
+        }
+    }
+}
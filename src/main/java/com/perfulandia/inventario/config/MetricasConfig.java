@@ -0,0 +1,30 @@
+package com.perfulandia.inventario.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.stat.spi.StatisticsFactory;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/* Estadísticas de Hibernate contadas por solicitud y el filtro que las publica por endpoint */
+@Configuration
+public class MetricasConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer estadisticasPorSolicitud() {
+        return propiedades -> {
+            propiedades.put(AvailableSettings.GENERATE_STATISTICS, true);
+            propiedades.put(AvailableSettings.STATS_BUILDER, (StatisticsFactory) EstadisticasPorSolicitud::new);
+            // Sin el resumen que Hibernate escribe en el log al cerrar cada sesión cuando hay estadísticas
+            propiedades.put(AvailableSettings.LOG_SESSION_METRICS, false);
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<MetricasSolicitudFilter> metricasSolicitudFilter(MeterRegistry registro) {
+        return new FilterRegistrationBean<>(new MetricasSolicitudFilter(registro));
+    }
+}
@@ -0,0 +1,51 @@
+package com.perfulandia.inventario.config;
+
+import java.io.IOException;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.perfulandia.inventario.service.MetricasInventarioService;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/*
+ * Registra por solicitud las sentencias SQL preparadas y las entidades cargadas por Hibernate
+ * (EstadisticasPorSolicitud) en inventario.solicitud.sentencias e inventario.solicitud.entidades,
+ * con la etiqueta endpoint de MetricasInventarioService. El total por endpoint dice cuál ocupa más
+ * la base y el máximo cuál hace más consultas en una sola solicitud.
+ */
+public class MetricasSolicitudFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry registro;
+
+    public MetricasSolicitudFilter(MeterRegistry registro) {
+        this.registro = registro;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        EstadisticasPorSolicitud.iniciar();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            EstadisticasPorSolicitud.Contadores contadores = EstadisticasPorSolicitud.terminar();
+            String endpoint = MetricasInventarioService.endpoint(request);
+            DistributionSummary.builder("inventario.solicitud.sentencias")
+                .baseUnit("sentencias")
+                .tag("endpoint", endpoint)
+                .register(registro)
+                .record(contadores.sentencias());
+            DistributionSummary.builder("inventario.solicitud.entidades")
+                .baseUnit("entidades")
+                .tag("endpoint", endpoint)
+                .register(registro)
+                .record(contadores.entidades());
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.perfulandia.inventario.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/* Habilita las tareas periódicas del servicio (p. ej. el barrido de retenciones vencidas) */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
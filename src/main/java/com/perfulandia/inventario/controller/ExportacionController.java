@@ -0,0 +1,53 @@
+package com.perfulandia.inventario.controller;
+
+import java.io.IOException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.perfulandia.inventario.service.ExportacionService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
+
+/* Exportación completa de productos y reseñas en NDJSON, escrita en la respuesta a medida que se lee */
+@RestController
+@RequestMapping("/api/v2")
+@Tag(name = "Exportación", description = "Descarga de todos los productos o reseñas, un objeto JSON por línea")
+public class ExportacionController {
+
+  public static final String NDJSON = "application/x-ndjson";
+
+  @Autowired
+  private ExportacionService exportacionService;
+
+  @GetMapping(value = "/productos/export", produces = NDJSON)
+  @Operation(summary = "Exportar todos los productos en NDJSON, en orden de ID y con su stock vigente")
+  @ApiResponses(value = {
+    @ApiResponse(responseCode = "200", description = "Productos exportados, uno por línea")
+  })
+  public void exportarProductos(HttpServletResponse response) throws IOException {
+    prepararRespuesta(response);
+    exportacionService.exportarProductos(response.getOutputStream()); // 200 OK
+  }
+
+  @GetMapping(value = "/resenas/export", produces = NDJSON)
+  @Operation(summary = "Exportar todas las reseñas en NDJSON, en orden de ID")
+  @ApiResponses(value = {
+    @ApiResponse(responseCode = "200", description = "Reseñas exportadas, una por línea")
+  })
+  public void exportarResenas(HttpServletResponse response) throws IOException {
+    prepararRespuesta(response);
+    exportacionService.exportarResenas(response.getOutputStream()); // 200 OK
+  }
+
+  private void prepararRespuesta(HttpServletResponse response) {
+    response.setContentType(NDJSON);
+    response.setCharacterEncoding("UTF-8");
+  }
+}
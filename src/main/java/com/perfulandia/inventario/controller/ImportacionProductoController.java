@@ -0,0 +1,60 @@
+package com.perfulandia.inventario.controller;
+
+import java.io.IOException;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.perfulandia.inventario.dto.ResultadoImportacion;
+import com.perfulandia.inventario.service.ImportacionProductoService;
+import com.perfulandia.inventario.service.ImportacionProductoService.Formato;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+
+/* Carga masiva del catálogo de proveedores en CSV o NDJSON */
+@RestController
+@RequestMapping("/api/v2/productos/import")
+@Tag(name = "Importación de productos", description = "Carga masiva del catálogo con alta o actualización por nombre")
+public class ImportacionProductoController {
+
+  public static final String NDJSON = "application/x-ndjson";
+
+  @Autowired
+  private ImportacionProductoService importacionService;
+
+  @PostMapping(consumes = {"text/csv", NDJSON})
+  @Operation(summary = "Importar productos desde CSV (encabezado nombre,stock,precio) o NDJSON (un objeto por línea)",
+    requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(
+      required = true,
+      content = {
+        @Content(mediaType = "text/csv", examples = @ExampleObject(value = "nombre,stock,precio\nPerfume Floral,10,19990")),
+        @Content(mediaType = NDJSON, examples = @ExampleObject(value = "{\"nombre\": \"Perfume Floral\", \"stock\": 10, \"precio\": 19990}"))
+      }))
+  @ApiResponses(value = {
+    @ApiResponse(responseCode = "200", description = "Importación procesada; las filas rechazadas se informan con su línea y motivo"),
+    @ApiResponse(responseCode = "400", description = "El CSV no tiene un encabezado válido")
+  })
+  public ResponseEntity<?> importar(HttpServletRequest request) {
+    Formato formato = MediaType.parseMediaType(request.getContentType()).isCompatibleWith(MediaType.valueOf(NDJSON))
+        ? Formato.NDJSON : Formato.CSV;
+    try {
+        ResultadoImportacion resultado = importacionService.importar(request.getInputStream(), formato);
+        return ResponseEntity.ok(resultado); // 200 OK
+    } catch (IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage())); // 400 Bad Request
+    } catch (IOException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", "No se pudo leer el cuerpo de la solicitud")); // 400 Bad Request
+    }
+  }
+}
@@ -0,0 +1,47 @@
+package com.perfulandia.inventario.controller;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.perfulandia.inventario.model.MovimientoStock;
+import com.perfulandia.inventario.service.MovimientoStockService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+/* Consulta del diario de movimientos de stock y compactación a demanda */
+@RestController
+@RequestMapping("/api/v2/productos/stock/movimientos")
+@Tag(name = "Movimientos de stock", description = "Historial de rebajas, reposiciones y ajustes de stock")
+public class MovimientoStockController {
+
+  @Autowired
+  private MovimientoStockService movimientoStockService;
+
+  @GetMapping("/{idProducto}")
+  @Operation(summary = "Últimos movimientos de stock de un producto, del más reciente al más antiguo")
+  public ResponseEntity<List<MovimientoStock>> listar(@PathVariable Long idProducto,
+        @Parameter(description = "Cantidad máxima de movimientos") @RequestParam(defaultValue = "50") int limite) {
+    if (limite < 1 || limite > 1000) {
+        return ResponseEntity.badRequest().build(); // 400 Bad Request
+    }
+    return ResponseEntity.ok(movimientoStockService.listar(idProducto, limite)); // 200 OK
+  }
+
+  @PostMapping("/compactar")
+  @Operation(summary = "Incorporar ahora los movimientos pendientes a producto.stock")
+  public ResponseEntity<Map<String, Object>> compactar() {
+    int compactados = movimientoStockService.compactar();
+    return ResponseEntity.ok(Map.of("compactados", compactados)); // 200 OK
+  }
+}
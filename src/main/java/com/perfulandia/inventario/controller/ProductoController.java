@@ -1,13 +1,17 @@
 package com.perfulandia.inventario.controller;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -17,16 +21,25 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import com.perfulandia.inventario.assemblers.ProductoModelAssembler;
+import com.perfulandia.inventario.dto.LineaStock;
 import com.perfulandia.inventario.dto.ProductoModel;
+import com.perfulandia.inventario.dto.ReposicionMasivaRequest;
+import com.perfulandia.inventario.dto.ReservaStockRequest;
+import com.perfulandia.inventario.exception.ConflictoVersionException;
+import com.perfulandia.inventario.exception.ProductoNoEncontradoException;
+import com.perfulandia.inventario.exception.ReservaRechazadaException;
 import com.perfulandia.inventario.model.Producto;
 import com.perfulandia.inventario.service.ProductoService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.enums.ParameterIn;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.ExampleObject;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -48,27 +61,42 @@ public class ProductoController {
   @Autowired
   private ProductoModelAssembler assembler;
 
+  private static final int LIMITE_PAGINA = 50;
+  private static final int LIMITE_MAXIMO_PAGINA = 500;
+
   
 //----------------------------EndPoint CRUD----------------------------//
   @GetMapping("/all")
-  @Operation(summary = "Listar todos los productos")
+  @Operation(summary = "Listar productos por páginas",
+    description = "Página de productos en orden de ID. Para la siguiente página se sigue el link next (after = último ID de esta página)")
   @ApiResponses(value = {
     @ApiResponse(responseCode = "200", description = "Lista de productos obtenida correctamente",
       content = @Content(mediaType = "application/json",
         schema = @Schema(implementation = Producto.class))),
     @ApiResponse(responseCode = "400", description = "Error al obtener la lista de productos")
   })
-  public ResponseEntity<CollectionModel<ProductoModel>> listarProductos() {
+  public ResponseEntity<CollectionModel<ProductoModel>> listarProductos(
+        @Parameter(description = "Devolver productos con ID mayor a este (cursor)") @RequestParam(required = false) Long after,
+        @Parameter(description = "Tamaño de la página, entre 1 y " + LIMITE_MAXIMO_PAGINA) @RequestParam(required = false) Integer limit) {
+   int limite = limit != null ? limit : LIMITE_PAGINA;
+   if (limite < 1 || limite > LIMITE_MAXIMO_PAGINA) {
+        return ResponseEntity.badRequest().build(); // 400 Bad Request
+   }
    try {
-        List<Producto> productos = productoService.listar();
+        // Se pide una fila extra solo para saber si hay una página siguiente
+        List<Producto> productos = productoService.listarPagina(after, limite + 1);
+        boolean haySiguiente = productos.size() > limite;
         List<ProductoModel> modelos = productos.stream()
+            .limit(limite)
             .map(assembler::toModel)
             .toList();
-        return ResponseEntity.ok(CollectionModel.of(modelos, 
-        linkTo(methodOn(ProductoController.class)
-        .listarProductos()).withSelfRel()
-        )
-      ); // 200 OK
+        CollectionModel<ProductoModel> pagina = CollectionModel.of(modelos,
+            linkTo(methodOn(ProductoController.class).listarProductos(after, limit)).withSelfRel());
+        if (haySiguiente) {
+            Long ultimo = modelos.get(modelos.size() - 1).getId();
+            pagina.add(linkTo(methodOn(ProductoController.class).listarProductos(ultimo, limite)).withRel(IanaLinkRelations.NEXT));
+        }
+        return ResponseEntity.ok(pagina); // 200 OK
     } catch (Exception e) {
         return ResponseEntity.badRequest().build(); // 400 Bad Request
     }
@@ -76,6 +104,7 @@ public class ProductoController {
 
   @PostMapping("/crear")
   @Operation(summary = "Crear un nuevo producto",
+    description = "Con ID se trata como edición del producto, con las mismas reglas que PUT /{id}",
     requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(
         description = "Objeto Producto a crear",
         required = true,
@@ -95,19 +124,33 @@ public class ProductoController {
     @ApiResponse(responseCode = "201", description = "Producto creado correctamente",
       content = @Content(mediaType = "application/json", 
                           schema = @Schema(implementation = Producto.class))),
-    @ApiResponse(responseCode = "400", description = "Solicitud incorrecta, datos inválidos")
+    @ApiResponse(responseCode = "400", description = "Solicitud incorrecta, datos inválidos"),
+    @ApiResponse(responseCode = "404", description = "Se indicó un ID de producto que no existe"),
+    @ApiResponse(responseCode = "409", description = "Se indicó una versión que ya no es la vigente")
   })
-  public ResponseEntity<ProductoModel> guardarProducto(@Valid @RequestBody Producto producto) {
-    Producto guardado = productoService.guardar(producto);
+  public ResponseEntity<?> guardarProducto(@Valid @RequestBody Producto producto) {
+    Producto guardado;
+    try {
+        guardado = productoService.guardar(producto);
+    } catch (ProductoNoEncontradoException e) {
+        return ResponseEntity.notFound().build(); //404 Not Found
+    } catch (ConflictoVersionException e) {
+        return conflicto(e); // 409 Conflict
+    }
     ProductoModel model = assembler.toModel(guardado);
 
     return ResponseEntity
-            .created(linkTo(methodOn(ProductoController.class).obtenerProductoPorId(guardado.getId())).toUri())
+            .created(linkTo(methodOn(ProductoController.class).obtenerProductoPorId(guardado.getId(), null)).toUri())
             .body(model); // Link al producto recién creado
 }
 
   @PutMapping("/{id}")
   @Operation(summary = "Actualizar un producto existente",
+    description = "El stock del cuerpo solo se escribe si la solicitud prueba que el cliente leyó el vigente: con la versión "
+      + "del cuerpo, o con If-Match (el ETag de GET /{id}) en los productos en modo caliente, fragmentados o con diario, "
+      + "cuya versión no cambia con cada rebaja. Si no, se actualizan nombre y precio y el stock queda como está",
+    parameters = @Parameter(in = ParameterIn.HEADER, name = "If-Match", required = false,
+      description = "ETag leído del producto; si ya no es el vigente se responde 409"),
     requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(
         description = "Datos actualizados del producto",
         required = true,
@@ -118,40 +161,58 @@ public class ProductoController {
       content = @Content(mediaType = "application/json", 
                           schema = @Schema(implementation = Producto.class))),
     @ApiResponse(responseCode = "404", description = "Producto no encontrado"),
+    @ApiResponse(responseCode = "409", description = "La versión enviada ya no es la vigente; se informa la versión actual",
+      content = @Content(mediaType = "application/json",
+        examples = @ExampleObject(value = "{\"error\": \"El producto con ID: 1 fue modificado por otra operación (versión actual: 7)\", \"idProducto\": 1, \"versionActual\": 7}"))),
     @ApiResponse(responseCode = "400", description = "Solicitud incorrecta")
   })
-  public ResponseEntity<ProductoModel> actualizarProducto(@PathVariable Long id, 
-    @RequestBody @Valid Producto productoActualizado) {
+  public ResponseEntity<?> actualizarProducto(@PathVariable Long id, 
+    @RequestBody @Valid Producto productoActualizado,
+    @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
     try {
-        Producto existente = productoService.buscarPorId(id);
-        if (existente != null) {
-            existente.setNombre(productoActualizado.getNombre());
-            existente.setPrecio(productoActualizado.getPrecio());
-            existente.setStock(productoActualizado.getStock());
-            Producto actualizado = productoService.guardar(existente);
-            return ResponseEntity.ok(assembler.toModel(actualizado)); // 
-        } else {
-            return ResponseEntity.notFound().build(); //404 Not Found
-        }
+        // Si el cuerpo trae la versión leída (o If-Match el ETag), solo se aplica si el producto no cambió desde entonces
+        Producto actualizado = productoService.actualizar(id, productoActualizado, productoActualizado.getVersion(), ifMatch);
+        return ResponseEntity.ok(assembler.toModel(actualizado)); // 200 OK
+    } catch (ProductoNoEncontradoException e) {
+        return ResponseEntity.notFound().build(); //404 Not Found
+    } catch (ConflictoVersionException e) {
+        return conflicto(e); // 409 Conflict
     } catch (Exception e) {
         return ResponseEntity.badRequest().build(); // 400 Bad Request
     }
 }
 
+  private static ResponseEntity<Map<String, Object>> conflicto(ConflictoVersionException e) {
+    Map<String, Object> cuerpo = new HashMap<>();
+    cuerpo.put("error", e.getMessage());
+    cuerpo.put("idProducto", e.getIdProducto());
+    cuerpo.put("versionActual", e.getVersionActual());
+    return ResponseEntity.status(HttpStatus.CONFLICT).body(cuerpo);
+}
+
   @GetMapping("/{id}")
-  @Operation(summary = "Obtener un producto por ID")
+  @Operation(summary = "Obtener un producto por ID",
+    description = "La respuesta lleva un ETag (versión y stock del producto); con If-None-Match se responde 304 si no cambió",
+    parameters = @Parameter(in = ParameterIn.HEADER, name = "If-None-Match", required = false,
+      description = "ETag de una respuesta anterior"))
   @ApiResponses(value = {
     @ApiResponse(responseCode = "200", description = "Producto encontrado",
       content = @Content(mediaType = "application/json", 
                           schema = @Schema(implementation = Producto.class))),
+    @ApiResponse(responseCode = "304", description = "El producto no cambió desde el ETag enviado"),
     @ApiResponse(responseCode = "404", description = "Producto no encontrado"),
     @ApiResponse(responseCode = "400", description = "Error en la solicitud")
   })
-  public ResponseEntity<ProductoModel> obtenerProductoPorId(@PathVariable Long id) {
+  public ResponseEntity<ProductoModel> obtenerProductoPorId(@PathVariable Long id, WebRequest request) {
     try {
+        // El ETag se compara antes de armar el producto: si coincide no se arma ni se serializa nada
+        String etiqueta = productoService.etiquetaPorId(id);
+        if (etiqueta != null && request.checkNotModified(etiqueta)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etiqueta).build(); // 304 Not Modified
+        }
         Producto producto = productoService.buscarPorId(id);
         if (producto != null) {
-            return ResponseEntity.ok(assembler.toModel(producto));
+            return ResponseEntity.ok().eTag(ProductoService.etiqueta(producto)).body(assembler.toModel(producto));
         } else {
             return ResponseEntity.notFound().build();
         }
@@ -183,6 +244,8 @@ public class ProductoController {
   @PatchMapping("/rebajarStock/{id}") 
   @Operation(
     summary = "Rebajar stock de un producto",
+    parameters = @Parameter(in = ParameterIn.HEADER, name = "Idempotency-Key", required = false,
+      description = "Clave única del intento; un reintento con la misma clave repite la respuesta sin volver a rebajar"),
     requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(
         description = "JSON con la cantidad a rebajar (ejemplo: { \"cantidad\": 3 })",
         required = true,
@@ -195,7 +258,8 @@ public class ProductoController {
     @ApiResponse(responseCode = "200", description = "Stock actualizado correctamente",
       content = @Content(mediaType = "application/json",
         schema = @Schema(implementation = Producto.class))),
-    @ApiResponse(responseCode = "400", description = "Solicitud incorrecta")
+    @ApiResponse(responseCode = "404", description = "Producto no encontrado"),
+    @ApiResponse(responseCode = "400", description = "Stock insuficiente o solicitud incorrecta")
   })
   public ResponseEntity<?> rebajarStock(@PathVariable Long id,
          @RequestBody Map<String, Integer> body) {
@@ -209,14 +273,94 @@ public class ProductoController {
             "producto", productoModel
         )
         )); // 200 con links
+    } catch (ProductoNoEncontradoException e) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage())); // 404 Not Found
     } catch (RuntimeException e) {
         return ResponseEntity.badRequest().body(Map.of("error", e.getMessage())); // 400 Bad Request
     }
 }
  
+/*EndPoint para reservar (descontar) todas las lineas de un pedido en una sola llamada */
+  @PostMapping("/stock/reservas")
+  @Operation(summary = "Reservar stock para un pedido de varias líneas (todo o nada)",
+    requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(
+        description = "Líneas del pedido con el producto y la cantidad a descontar",
+        required = true,
+        content = @Content(
+        mediaType = "application/json",
+        examples = @ExampleObject(
+            value = """
+            {
+              "lineas": [
+                { "idProducto": 1, "cantidad": 2 },
+                { "idProducto": 3, "cantidad": 1 }
+              ]
+            }
+            """
+        )
+    )))
+  @ApiResponses(value = {
+    @ApiResponse(responseCode = "200", description = "Todas las líneas fueron descontadas"),
+    @ApiResponse(responseCode = "409", description = "Alguna línea no se pudo aplicar; no se descontó nada"),
+    @ApiResponse(responseCode = "400", description = "Solicitud incorrecta")
+  })
+  public ResponseEntity<?> reservarStock(@RequestBody ReservaStockRequest request) {
+    if (request.getLineas() == null || request.getLineas().isEmpty()
+        || request.getLineas().stream().anyMatch(l -> l == null || l.getIdProducto() == null)) {
+        return ResponseEntity.badRequest().body(Map.of("error", "El pedido debe incluir líneas con idProducto")); // 400
+    }
+    try {
+        List<LineaStock> aplicadas = productoService.reservarStock(request.getLineas());
+        long totalUnidades = aplicadas.stream().mapToLong(LineaStock::getCantidad).sum();
+
+        return ResponseEntity.ok(Map.of(
+            "mensaje", "Stock reservado correctamente",
+            "lineas", aplicadas,
+            "totalUnidades", totalUnidades
+        )); // 200 OK
+    } catch (ReservaRechazadaException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+            "error", e.getMessage(),
+            "lineasFallidas", e.getLineasFallidas()
+        )); // 409 Conflict, el pedido completo se revirtio
+    }
+}
+
+/*EndPoint para reponer en bloque las lineas de una guia de recepcion */
+  @PostMapping("/stock/reposiciones")
+  @Operation(summary = "Reponer stock de muchos productos en una sola solicitud",
+    description = "Aplica las líneas en tramos y devuelve un resumen; las líneas que no se pudieron aplicar se informan en fallidas",
+    parameters = @Parameter(in = ParameterIn.HEADER, name = "Idempotency-Key", required = false,
+      description = "Clave única del intento; un reintento con la misma clave repite la respuesta sin volver a reponer"),
+    requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(
+      required = true,
+      content = @Content(examples = @ExampleObject(value = """
+            {
+              "lineas": [
+                { "idProducto": 1, "cantidad": 24 },
+                { "idProducto": 3, "cantidad": 12 }
+              ]
+            }
+            """
+        )
+    )))
+  @ApiResponses(value = {
+    @ApiResponse(responseCode = "200", description = "Reposición procesada"),
+    @ApiResponse(responseCode = "400", description = "Solicitud incorrecta")
+  })
+  public ResponseEntity<?> reponerStockMasivo(@RequestBody ReposicionMasivaRequest request) {
+    if (request.getLineas() == null || request.getLineas().isEmpty()
+        || request.getLineas().stream().anyMatch(l -> l == null || l.getIdProducto() == null)) {
+        return ResponseEntity.badRequest().body(Map.of("error", "La reposición debe incluir líneas con idProducto")); // 400
+    }
+    return ResponseEntity.ok(productoService.reponerStockMasivo(request.getLineas())); // 200 OK
+}
+
 /*EndPoint para reponer unidades al inventario */
   @PatchMapping("/reponer/{id}")
-  @Operation(summary = "Reponer stock de un producto")
+  @Operation(summary = "Reponer stock de un producto",
+    parameters = @Parameter(in = ParameterIn.HEADER, name = "Idempotency-Key", required = false,
+      description = "Clave única del intento; un reintento con la misma clave repite la respuesta sin volver a reponer"))
   @ApiResponses(value = {
     @ApiResponse(responseCode = "200", description = "Stock repuesto correctamente"),
     @ApiResponse(responseCode = "400", description = "Solicitud incorrecta")
@@ -243,7 +387,9 @@ public class ProductoController {
 
   /*EndPoint para buscar por nombre de producto*/
   @GetMapping("/buscar")
-  @Operation(summary = "Buscar productos por nombre", parameters = {
+  @Operation(summary = "Buscar productos por nombre",
+    description = "Búsqueda aproximada: ignora mayúsculas y tildes, tolera errores de tipeo y ordena por relevancia",
+    parameters = {
     @Parameter(name = "nombre", description = "Nombre, o parte de este, del producto a buscar", required = true)
   })
   @ApiResponses(value = {
@@ -353,23 +499,46 @@ public class ProductoController {
     }
 }
 
-  /*Este endpoint devuelve un resumen del inventario, incluyendo el stock total y la cantidad de productos. */
+  /*Este endpoint devuelve un resumen del inventario: cantidad de productos, stock total y valor, sumados por la base.
+    Con productos=true agrega una página del listado (cursor after/limit como en /all) y el cursor de la siguiente */
   @GetMapping("/reporte/resumen")
-  @Operation(summary = "Obtener resumen del inventario")
+  @Operation(summary = "Obtener resumen del inventario",
+    description = "Totales calculados por la base sin cargar los productos. El listado es opcional y paginado: "
+      + "productos=true&after=&limit=; si hay más, siguienteAfter trae el cursor de la próxima página")
   @ApiResponses(value = {
     @ApiResponse(responseCode = "200", description = "Resumen del inventario obtenido correctamente",
       content = @Content(mediaType = "application/json",
         schema = @Schema(implementation = Map.class))),
     @ApiResponse(responseCode = "400", description = "Error al obtener el resumen del inventario")
   })
-  public ResponseEntity<Map<String, Object>> obtenerResumen() {
+  public ResponseEntity<Map<String, Object>> obtenerResumen(
+        @Parameter(description = "Incluir una página del listado de productos") @RequestParam(defaultValue = "false") boolean productos,
+        @Parameter(description = "Listar productos con ID mayor a este (cursor)") @RequestParam(required = false) Long after,
+        @Parameter(description = "Tamaño de la página, entre 1 y " + LIMITE_MAXIMO_PAGINA) @RequestParam(required = false) Integer limit) {
+    int limite = limit != null ? limit : LIMITE_PAGINA;
+    if (limite < 1 || limite > LIMITE_MAXIMO_PAGINA) {
+        return ResponseEntity.badRequest().body(Map.of("error", "limit debe estar entre 1 y " + LIMITE_MAXIMO_PAGINA)); // 400 Bad Request
+    }
     try {
         Map<String, Object> resumen = productoService.obtenerResumenInventario();
-        return ResponseEntity.ok(resumen != null ? resumen : Map.of()); // 200 OK
+        if (!productos) {
+            return ResponseEntity.ok(resumen != null ? resumen : Map.of()); // 200 OK
+        }
+        Map<String, Object> conListado = new HashMap<>(resumen != null ? resumen : Map.of());
+        List<Producto> pagina = productoService.listarPagina(after, limite + 1); // una fila extra indica si hay otra página
+        List<ProductoModel> modelos = pagina.stream()
+            .limit(limite)
+            .map(assembler::toModel)
+            .toList();
+        conListado.put("productos", modelos);
+        if (pagina.size() > limite) {
+            conListado.put("siguienteAfter", modelos.get(modelos.size() - 1).getId());
+        }
+        return ResponseEntity.ok(conListado); // 200 OK
     } catch (Exception e) {
         return ResponseEntity.badRequest().body(Map.of(
             "error", "No se pudo generar el resumen del inventario"
         )); // 400 Bad Request con mensaje controlado
     }
   }
-}
\ No newline at end of file
+}
@@ -6,8 +6,10 @@ import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.IanaLinkRelations;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -16,7 +18,9 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import com.perfulandia.inventario.assemblers.ResenaModelAssembler;
 import com.perfulandia.inventario.dto.ResenaModel;
@@ -24,6 +28,8 @@ import com.perfulandia.inventario.model.Resena;
 import com.perfulandia.inventario.service.ResenaService;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.enums.ParameterIn;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.ExampleObject;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -43,6 +49,11 @@ public class ResenaController {
     @Autowired
     private ResenaModelAssembler assembler;
 
+    private static final int LIMITE_PAGINA = 50;
+    private static final int LIMITE_MAXIMO_PAGINA = 500;
+    private static final int LIMITE_BUSQUEDA = 10;
+    private static final int LIMITE_MAXIMO_BUSQUEDA = 100;
+
     //--------------------ENDPOINTS CRUD----------------------------//
     @PostMapping("/crear")
     @Operation(summary = "Crear una reseña", 
@@ -78,24 +89,35 @@ public class ResenaController {
                 .body(resenaModel); // Retorna 201 Created con la reseña creada
     }
 
-    // Listar todas las reseñas
+    // Listar las reseñas por páginas (cursor por ID)
     @GetMapping("/all")
-    @Operation(summary = "Listar todas las reseñas", 
-            description = "Obtiene una lista de todas las reseñas disponibles")
+    @Operation(summary = "Listar reseñas por páginas", 
+            description = "Página de reseñas en orden de ID. Para la siguiente página se sigue el link next (after = último ID de esta página)")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Lista de reseñas obtenida exitosamente (posiblemente vacía)",
             content = @Content(schema = @Schema(implementation = Resena.class))),
         @ApiResponse(responseCode = "400", description = "Solicitud inválida")
     })
-    public ResponseEntity<CollectionModel<ResenaModel>> listarResenas() {
+    public ResponseEntity<CollectionModel<ResenaModel>> listarResenas(
+            @Parameter(description = "Devolver reseñas con ID mayor a este (cursor)") @RequestParam(required = false) Long after,
+            @Parameter(description = "Tamaño de la página, entre 1 y " + LIMITE_MAXIMO_PAGINA) @RequestParam(required = false) Integer limit) {
+        int limite = limit != null ? limit : LIMITE_PAGINA;
+        if (limite < 1 || limite > LIMITE_MAXIMO_PAGINA) {
+            return ResponseEntity.badRequest().build(); // Retorna 400 Bad Request si el tamaño está fuera de rango
+        }
         try {
-            List<Resena> resenas = resenaService.listar();
+            List<Resena> resenas = resenaService.listarPagina(after, limite + 1); // una fila extra indica si hay otra página
             List<ResenaModel> resenasModel = resenas.stream()
+                .limit(limite)
                 .map(assembler::toModel) // Utiliza el ensamblador para convertir Resena a ResenaModel
                 .toList(); // Convierte la lista de Resena a ResenaModel usando el ensamblador
-            return ResponseEntity.ok(CollectionModel.of(resenasModel, 
-            linkTo(methodOn(ResenaController.class)
-            .listarResenas()).withSelfRel())); // Retorna 200 OK con la lista de reseñas
+            CollectionModel<ResenaModel> pagina = CollectionModel.of(resenasModel,
+                linkTo(methodOn(ResenaController.class).listarResenas(after, limit)).withSelfRel());
+            if (resenas.size() > limite) {
+                Long ultimo = resenasModel.get(resenasModel.size() - 1).getId();
+                pagina.add(linkTo(methodOn(ResenaController.class).listarResenas(ultimo, limite)).withRel(IanaLinkRelations.NEXT));
+            }
+            return ResponseEntity.ok(pagina); // Retorna 200 OK con la página de reseñas
         } catch (Exception e) {
             return ResponseEntity.badRequest().build(); // Retorna 400 Bad Request en caso de error
         }
@@ -202,25 +224,65 @@ public class ResenaController {
     // Listar reseñas por producto ID
     @GetMapping("/producto/{idProducto}")
     @Operation(summary = "Listar reseñas por producto", 
-            description = "Obtiene una lista de reseñas realizadas para un producto específico")
+            description = "Obtiene una lista de reseñas realizadas para un producto específico. La respuesta lleva un ETag "
+                + "que cambia con cualquier reseña del producto; con If-None-Match se responde 304 si no cambió",
+            parameters = @Parameter(in = ParameterIn.HEADER, name = "If-None-Match", required = false,
+                description = "ETag de una respuesta anterior"))
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Lista de reseñas del producto obtenida exitosamente",
             content = @Content(schema = @Schema(implementation = Resena.class))),
+        @ApiResponse(responseCode = "304", description = "Las reseñas del producto no cambiaron desde el ETag enviado"),
         @ApiResponse(responseCode = "404", description = "Producto no encontrado")
     })
-    public ResponseEntity<List<ResenaModel>> listarPorProducto(@PathVariable Long idProducto) {
+    public ResponseEntity<List<ResenaModel>> listarPorProducto(@PathVariable Long idProducto, WebRequest request) {
         try {
+            // La versión se lee antes que las reseñas: si cambian entre medio, el ETag queda atrasado y la
+            // próxima solicitud las vuelve a traer
+            String etiqueta = "\"" + resenaService.versionResenasDeProducto(idProducto) + "\"";
+            if (request.checkNotModified(etiqueta)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etiqueta).build(); // Retorna 304 sin leer las reseñas
+            }
             List<Resena> resenas = resenaService.listarPorProductoId(idProducto);
             List<ResenaModel> resenasModel = resenas.stream()
                 .map(assembler::toModel) 
                 .toList();
-            return ResponseEntity.ok(resenasModel); // Retorna 200 OK 
+            return ResponseEntity.ok().eTag(etiqueta).body(resenasModel); // Retorna 200 OK 
         } catch (Exception e) {
             return ResponseEntity.badRequest().build(); // Retorna 400 
         }
     }
 
 
+    // Buscar texto en los comentarios
+    @GetMapping("/buscar")
+    @Operation(summary = "Buscar reseñas por texto", 
+            description = "Busca en los comentarios sin distinguir tildes, plurales ni género (\"duración\" encuentra \"duraciones\"). "
+                + "Devuelve las reseñas más relevantes primero (puntaje BM25), opcionalmente de un producto o con una calificación")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Reseñas encontradas, de la más a la menos relevante (posiblemente vacía)",
+            content = @Content(schema = @Schema(implementation = Resena.class))),
+        @ApiResponse(responseCode = "400", description = "Solicitud inválida")
+    })
+    public ResponseEntity<List<ResenaModel>> buscarResenas(
+            @Parameter(description = "Texto a buscar en los comentarios") @RequestParam String q,
+            @Parameter(description = "Solo reseñas de este producto") @RequestParam(required = false) Long idProducto,
+            @Parameter(description = "Solo reseñas con esta calificación (1 a 5)") @RequestParam(required = false) Integer calificacion,
+            @Parameter(description = "Cantidad máxima de resultados, entre 1 y " + LIMITE_MAXIMO_BUSQUEDA) @RequestParam(required = false) Integer limit) {
+        int limite = limit != null ? limit : LIMITE_BUSQUEDA;
+        if (limite < 1 || limite > LIMITE_MAXIMO_BUSQUEDA || (calificacion != null && (calificacion < 1 || calificacion > 5))) {
+            return ResponseEntity.badRequest().build(); // Retorna 400 Bad Request si los filtros están fuera de rango
+        }
+        try {
+            List<ResenaModel> resenasModel = resenaService.buscarEnComentarios(q, idProducto, calificacion, limite).stream()
+                .map(assembler::toModel)
+                .toList();
+            return ResponseEntity.ok(resenasModel); // Retorna 200 OK con las reseñas en orden de relevancia
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build(); // Retorna 400 Bad Request en caso de error
+        }
+    }
+
+
     //---------LOGICA DE NEGOCIO----------------
 
     // 🔹 Obtener promedio de calificación de un producto
@@ -259,5 +321,17 @@ public class ResenaController {
         }
     }
 
+    // 🔹 Reconstruir los agregados de reseñas (promedio, cantidad e histograma por producto)
+    @PostMapping("/agregados/reconstruir")
+    @Operation(summary = "Reconstruir agregados de reseñas", 
+            description = "Recalcula desde la tabla de reseñas la cantidad, suma e histograma de calificaciones de cada producto, por tramos")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Agregados reconstruidos; informa cuántos productos tienen reseñas")
+    })
+    public ResponseEntity<Map<String, Object>> reconstruirAgregados() {
+        int productos = resenaService.reconstruirAgregados();
+        return ResponseEntity.ok(Map.of("productosConResenas", productos)); // Retorna 200 OK
+    }
+
 
 }
@@ -0,0 +1,132 @@
+package com.perfulandia.inventario.controller;
+
+import java.time.Duration;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.perfulandia.inventario.dto.RetencionRequest;
+import com.perfulandia.inventario.exception.ProductoNoEncontradoException;
+import com.perfulandia.inventario.exception.RetencionNoActivaException;
+import com.perfulandia.inventario.exception.RetencionNoEncontradaException;
+import com.perfulandia.inventario.exception.StockInsuficienteException;
+import com.perfulandia.inventario.model.RetencionStock;
+import com.perfulandia.inventario.service.RetencionStockService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+/* Controller de retenciones temporales de stock durante el checkout */
+@RestController
+@RequestMapping("/api/v2/retenciones")
+@Tag(name = "Retenciones de stock", description = "Apartar, confirmar y liberar unidades mientras se procesa el pago")
+public class RetencionStockController {
+
+  @Autowired
+  private RetencionStockService retencionService;
+
+  @PostMapping("/crear")
+  @Operation(summary = "Retener unidades de un producto",
+    requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(
+        description = "Producto, cantidad y vigencia opcional en segundos",
+        required = true,
+        content = @Content(
+        mediaType = "application/json",
+        examples = @ExampleObject(
+            value = """
+            {
+              "idProducto": 1,
+              "cantidad": 2,
+              "ttlSegundos": 600
+            }
+            """
+        )
+    )))
+  @ApiResponses(value = {
+    @ApiResponse(responseCode = "201", description = "Retención creada",
+      content = @Content(mediaType = "application/json",
+                          schema = @Schema(implementation = RetencionStock.class))),
+    @ApiResponse(responseCode = "404", description = "Producto no encontrado"),
+    @ApiResponse(responseCode = "409", description = "No hay unidades disponibles"),
+    @ApiResponse(responseCode = "400", description = "Solicitud incorrecta")
+  })
+  public ResponseEntity<?> retener(@RequestBody RetencionRequest request) {
+    if (request.getIdProducto() == null || (request.getTtlSegundos() != null && request.getTtlSegundos() <= 0)) {
+        return ResponseEntity.badRequest().body(Map.of("error", "idProducto es obligatorio y ttlSegundos debe ser positivo"));
+    }
+    try {
+        Duration ttl = request.getTtlSegundos() != null ? Duration.ofSeconds(request.getTtlSegundos()) : null;
+        RetencionStock retencion = retencionService.retener(request.getIdProducto(), request.getCantidad(), ttl);
+        return ResponseEntity.status(HttpStatus.CREATED).body(retencion); // 201 Created
+    } catch (ProductoNoEncontradoException e) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage())); // 404
+    } catch (StockInsuficienteException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage())); // 409
+    } catch (IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage())); // 400
+    }
+  }
+
+  @PatchMapping("/{id}/confirmar")
+  @Operation(summary = "Confirmar una retención y descontar el stock")
+  @ApiResponses(value = {
+    @ApiResponse(responseCode = "200", description = "Retención confirmada, stock descontado"),
+    @ApiResponse(responseCode = "404", description = "Retención no encontrada"),
+    @ApiResponse(responseCode = "409", description = "La retención ya no está activa o no alcanza el stock")
+  })
+  public ResponseEntity<?> confirmar(@PathVariable Long id) {
+    try {
+        return ResponseEntity.ok(retencionService.confirmar(id)); // 200 OK
+    } catch (RetencionNoEncontradaException e) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage())); // 404
+    } catch (RetencionNoActivaException | StockInsuficienteException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage())); // 409
+    }
+  }
+
+  @PatchMapping("/{id}/liberar")
+  @Operation(summary = "Liberar una retención sin descontar stock")
+  @ApiResponses(value = {
+    @ApiResponse(responseCode = "200", description = "Retención liberada"),
+    @ApiResponse(responseCode = "404", description = "Retención no encontrada"),
+    @ApiResponse(responseCode = "409", description = "La retención ya no está activa")
+  })
+  public ResponseEntity<?> liberar(@PathVariable Long id) {
+    try {
+        return ResponseEntity.ok(retencionService.liberar(id)); // 200 OK
+    } catch (RetencionNoEncontradaException e) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage())); // 404
+    } catch (RetencionNoActivaException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage())); // 409
+    }
+  }
+
+  /*EndPoint que devuelve el disponible de un producto: stock menos unidades retenidas */
+  @GetMapping("/disponible/{idProducto}")
+  @Operation(summary = "Obtener stock disponible (stock - retenido) de un producto")
+  @ApiResponses(value = {
+    @ApiResponse(responseCode = "200", description = "Disponible calculado"),
+    @ApiResponse(responseCode = "404", description = "Producto no encontrado")
+  })
+  public ResponseEntity<Map<String, Object>> disponible(@PathVariable Long idProducto) {
+    try {
+        return ResponseEntity.ok(retencionService.consultarDisponible(idProducto)); // 200 OK
+    } catch (ProductoNoEncontradoException e) {
+        return ResponseEntity.notFound().build(); // 404
+    }
+  }
+}
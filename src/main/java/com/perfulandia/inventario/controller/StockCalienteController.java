@@ -0,0 +1,74 @@
+package com.perfulandia.inventario.controller;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.perfulandia.inventario.exception.ProductoNoEncontradoException;
+import com.perfulandia.inventario.service.StockCalienteService;
+import com.perfulandia.inventario.service.StockFragmentadoService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+/* Administración del modo stock caliente (SKU de alta demanda con contadores en memoria) */
+@RestController
+@RequestMapping("/api/v2/productos/stock/caliente")
+@Tag(name = "Stock caliente", description = "Registrar SKU de alta demanda para rebajas en memoria con volcado diferido")
+public class StockCalienteController {
+
+  @Autowired
+  private StockCalienteService stockCalienteService;
+
+  @Autowired
+  private StockFragmentadoService stockFragmentadoService;
+
+  @GetMapping
+  @Operation(summary = "Listar SKU en modo stock caliente con su stock en memoria y delta pendiente")
+  public ResponseEntity<List<Map<String, Object>>> listar() {
+    return ResponseEntity.ok(stockCalienteService.listar()); // 200 OK
+  }
+
+  @PostMapping("/{id}")
+  @Operation(summary = "Registrar un producto en modo stock caliente")
+  @ApiResponses(value = {
+    @ApiResponse(responseCode = "200", description = "Producto registrado"),
+    @ApiResponse(responseCode = "404", description = "Producto no encontrado"),
+    @ApiResponse(responseCode = "409", description = "El modo stock caliente no está habilitado o el producto está fragmentado")
+  })
+  public ResponseEntity<?> registrar(@PathVariable Long id) {
+    if (stockFragmentadoService.gestiona(id)) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+            .body(Map.of("error", "El producto " + id + " tiene el stock fragmentado en ranuras")); // 409
+    }
+    try {
+        int stock = stockCalienteService.registrar(id);
+        return ResponseEntity.ok(Map.of("idProducto", id, "stock", stock)); // 200 OK
+    } catch (ProductoNoEncontradoException e) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage())); // 404
+    } catch (IllegalStateException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage())); // 409
+    }
+  }
+
+  @DeleteMapping("/{id}")
+  @Operation(summary = "Sacar un producto del modo stock caliente (vuelca sus deltas pendientes)")
+  @ApiResponses(value = {
+    @ApiResponse(responseCode = "204", description = "Producto desregistrado")
+  })
+  public ResponseEntity<Void> desregistrar(@PathVariable Long id) {
+    stockCalienteService.desregistrar(id);
+    return ResponseEntity.noContent().build(); // 204 sin contenido
+  }
+}
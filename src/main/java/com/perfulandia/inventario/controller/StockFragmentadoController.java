@@ -0,0 +1,79 @@
+package com.perfulandia.inventario.controller;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.perfulandia.inventario.exception.ProductoNoEncontradoException;
+import com.perfulandia.inventario.model.RanuraStock;
+import com.perfulandia.inventario.service.StockFragmentadoService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+/* Administración del stock fragmentado en ranuras (SKU de venta flash) */
+@RestController
+@RequestMapping("/api/v2/productos/stock/ranuras")
+@Tag(name = "Stock fragmentado", description = "Repartir el stock de un producto en ranuras para bajar la contención")
+public class StockFragmentadoController {
+
+  @Autowired
+  private StockFragmentadoService stockFragmentadoService;
+
+  @GetMapping("/{id}")
+  @Operation(summary = "Listar las ranuras de un producto con su stock")
+  public ResponseEntity<List<Map<String, Object>>> listar(@PathVariable Long id) {
+    return ResponseEntity.ok(stockFragmentadoService.listar(id)); // 200 OK
+  }
+
+  @PostMapping("/{id}")
+  @Operation(summary = "Fragmentar (o volver a fragmentar) el stock de un producto en ranuras")
+  @ApiResponses(value = {
+    @ApiResponse(responseCode = "200", description = "Stock repartido en las ranuras"),
+    @ApiResponse(responseCode = "400", description = "Cantidad de ranuras fuera de rango"),
+    @ApiResponse(responseCode = "404", description = "Producto no encontrado"),
+    @ApiResponse(responseCode = "409", description = "El producto está en modo stock caliente")
+  })
+  public ResponseEntity<?> fragmentar(@PathVariable Long id,
+        @Parameter(description = "Cantidad de ranuras", required = true) @RequestParam int ranuras) {
+    try {
+        List<RanuraStock> creadas = stockFragmentadoService.fragmentar(id, ranuras);
+        int stock = creadas.stream().mapToInt(RanuraStock::getStock).sum();
+        return ResponseEntity.ok(Map.of("idProducto", id, "ranuras", creadas.size(), "stock", stock)); // 200 OK
+    } catch (ProductoNoEncontradoException e) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage())); // 404
+    } catch (IllegalStateException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage())); // 409
+    } catch (IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage())); // 400
+    }
+  }
+
+  @DeleteMapping("/{id}")
+  @Operation(summary = "Devolver el stock de las ranuras al producto y dejar de fragmentarlo")
+  @ApiResponses(value = {
+    @ApiResponse(responseCode = "200", description = "Stock unificado"),
+    @ApiResponse(responseCode = "404", description = "Producto no encontrado")
+  })
+  public ResponseEntity<?> unificar(@PathVariable Long id) {
+    try {
+        int stock = stockFragmentadoService.unificar(id);
+        return ResponseEntity.ok(Map.of("idProducto", id, "stock", stock)); // 200 OK
+    } catch (ProductoNoEncontradoException e) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage())); // 404
+    }
+  }
+}
@@ -0,0 +1,15 @@
+package com.perfulandia.inventario.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/* Fila del archivo importado que se rechazó, con su número de línea y el motivo */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ErrorImportacion {
+
+    private long linea;
+    private String motivo;
+}
@@ -0,0 +1,16 @@
+package com.perfulandia.inventario.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/* Una fila del catálogo a importar; los campos son objetos para distinguir los que faltan */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FilaImportacion {
+
+    private String nombre;
+    private Integer stock;
+    private Double precio;
+}
@@ -0,0 +1,20 @@
+package com.perfulandia.inventario.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/* Línea de un pedido que no se pudo aplicar y el motivo */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LineaFallida {
+
+    public static final String PRODUCTO_NO_ENCONTRADO = "PRODUCTO_NO_ENCONTRADO";
+    public static final String STOCK_INSUFICIENTE = "STOCK_INSUFICIENTE";
+    public static final String CANTIDAD_INVALIDA = "CANTIDAD_INVALIDA";
+
+    private Long idProducto;
+    private int cantidad;
+    private String motivo;
+}
@@ -0,0 +1,15 @@
+package com.perfulandia.inventario.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/* Una línea de pedido: producto y cantidad de unidades a mover */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LineaStock {
+
+    private Long idProducto;
+    private int cantidad;
+}
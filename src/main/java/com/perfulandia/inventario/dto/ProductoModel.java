@@ -15,4 +15,5 @@ public class ProductoModel extends RepresentationModel<ProductoModel> {
     private String nombre;
     private int stock;
     private double precio;
+    private Long version;
 }
@@ -0,0 +1,16 @@
+package com.perfulandia.inventario.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/* Líneas de una guía de recepción del proveedor: producto y unidades recibidas */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReposicionMasivaRequest {
+
+    private List<LineaStock> lineas;
+}
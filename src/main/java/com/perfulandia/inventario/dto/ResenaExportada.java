@@ -0,0 +1,19 @@
+package com.perfulandia.inventario.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/* Fila de la exportación de reseñas: los datos de la reseña con el ID del producto, sin cargar el producto */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResenaExportada {
+
+    private Long id;
+    private String comentario;
+    private int calificacion;
+    private Long idProducto;
+    private Long idUsuario;
+    private String nombreUsuario;
+}
@@ -0,0 +1,15 @@
+package com.perfulandia.inventario.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservaStockRequest {
+
+    private List<LineaStock> lineas;
+}
@@ -0,0 +1,20 @@
+package com.perfulandia.inventario.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+
+/*
+ * Resumen de una importación de catálogo. procesadas = insertadas + actualizadas + rechazadas;
+ * errores detalla las filas rechazadas hasta el máximo configurado (rechazadas siempre es el total).
+ */
+@Data
+public class ResultadoImportacion {
+
+    private long procesadas;
+    private long insertadas;
+    private long actualizadas;
+    private long rechazadas;
+    private List<ErrorImportacion> errores = new ArrayList<>();
+}
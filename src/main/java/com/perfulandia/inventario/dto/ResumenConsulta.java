@@ -0,0 +1,19 @@
+package com.perfulandia.inventario.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/* Tiempos acumulados de una huella de SQL en el registro de consultas (tiempos en milisegundos) */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResumenConsulta {
+
+    private String huella;
+    private long cantidad;
+    private double totalMs;
+    private double promedioMs;
+    private double p99Ms;
+    private double maximoMs;
+}
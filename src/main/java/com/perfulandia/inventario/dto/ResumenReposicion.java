@@ -0,0 +1,16 @@
+package com.perfulandia.inventario.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+
+/* Resumen de una reposición masiva; las líneas de un mismo producto se cuentan juntas en productosRepuestos */
+@Data
+public class ResumenReposicion {
+
+    private int lineasRecibidas;
+    private int productosRepuestos;
+    private long unidadesRepuestas;
+    private List<LineaFallida> fallidas = new ArrayList<>();
+}
@@ -0,0 +1,15 @@
+package com.perfulandia.inventario.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RetencionRequest {
+
+    private Long idProducto;
+    private int cantidad;
+    private Long ttlSegundos; // opcional, si no viene se usa el valor configurado
+}
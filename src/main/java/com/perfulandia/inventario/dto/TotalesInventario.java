@@ -0,0 +1,16 @@
+package com.perfulandia.inventario.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/* Totales del inventario calculados por la base en una sola fila: cantidad de productos, stock y valor (stock × precio) */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TotalesInventario {
+
+    private Long totalProductos;
+    private Long totalStock;
+    private Double valorInventario;
+}
@@ -0,0 +1,22 @@
+package com.perfulandia.inventario.exception;
+
+/* El producto cambió desde que el cliente lo leyó (la versión enviada ya no es la vigente) */
+public class ConflictoVersionException extends RuntimeException {
+
+    private final Long idProducto;
+    private final Long versionActual;
+
+    public ConflictoVersionException(Long idProducto, Long versionActual) {
+        super("El producto con ID: " + idProducto + " fue modificado por otra operación (versión actual: " + versionActual + ")");
+        this.idProducto = idProducto;
+        this.versionActual = versionActual;
+    }
+
+    public Long getIdProducto() {
+        return idProducto;
+    }
+
+    public Long getVersionActual() {
+        return versionActual;
+    }
+}
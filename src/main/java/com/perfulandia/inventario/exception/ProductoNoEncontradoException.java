@@ -0,0 +1,16 @@
+package com.perfulandia.inventario.exception;
+
+/* Se lanza cuando una operación de stock apunta a un producto que no existe */
+public class ProductoNoEncontradoException extends RuntimeException {
+
+    private final Long idProducto;
+
+    public ProductoNoEncontradoException(Long idProducto) {
+        super("Producto no encontrado con ID: " + idProducto);
+        this.idProducto = idProducto;
+    }
+
+    public Long getIdProducto() {
+        return idProducto;
+    }
+}
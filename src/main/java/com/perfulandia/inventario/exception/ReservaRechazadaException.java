@@ -0,0 +1,20 @@
+package com.perfulandia.inventario.exception;
+
+import java.util.List;
+
+import com.perfulandia.inventario.dto.LineaFallida;
+
+/* Se lanza cuando alguna línea de una reserva no se puede aplicar; provoca el rollback de todo el pedido */
+public class ReservaRechazadaException extends RuntimeException {
+
+    private final List<LineaFallida> lineasFallidas;
+
+    public ReservaRechazadaException(List<LineaFallida> lineasFallidas) {
+        super("La reserva fue rechazada: " + lineasFallidas.size() + " línea(s) no se pudieron aplicar");
+        this.lineasFallidas = List.copyOf(lineasFallidas);
+    }
+
+    public List<LineaFallida> getLineasFallidas() {
+        return lineasFallidas;
+    }
+}
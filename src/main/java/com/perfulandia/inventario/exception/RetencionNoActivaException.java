@@ -0,0 +1,11 @@
+package com.perfulandia.inventario.exception;
+
+import com.perfulandia.inventario.model.EstadoRetencion;
+
+/* La retención existe pero ya fue confirmada, liberada o expiró */
+public class RetencionNoActivaException extends RuntimeException {
+
+    public RetencionNoActivaException(Long idRetencion, EstadoRetencion estado) {
+        super("La retención con ID: " + idRetencion + " no está activa (estado " + estado + ")");
+    }
+}
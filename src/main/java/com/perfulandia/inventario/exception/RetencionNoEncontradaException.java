@@ -0,0 +1,8 @@
+package com.perfulandia.inventario.exception;
+
+public class RetencionNoEncontradaException extends RuntimeException {
+
+    public RetencionNoEncontradaException(Long idRetencion) {
+        super("Retención no encontrada con ID: " + idRetencion);
+    }
+}
@@ -0,0 +1,16 @@
+package com.perfulandia.inventario.exception;
+
+/* Se lanza cuando el producto existe pero no tiene unidades suficientes para la rebaja */
+public class StockInsuficienteException extends RuntimeException {
+
+    private final Long idProducto;
+
+    public StockInsuficienteException(Long idProducto) {
+        super("Stock insuficiente para el producto con ID: " + idProducto);
+        this.idProducto = idProducto;
+    }
+
+    public Long getIdProducto() {
+        return idProducto;
+    }
+}
@@ -0,0 +1,50 @@
+package com.perfulandia.inventario.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/* Totales de las reseñas de un producto, mantenidos al escribir cada reseña: cantidad, suma de
+   calificaciones y cuántas reseñas tiene con cada calificación de 1 a 5, más un contador que sube con
+   cada reseña del producto creada, editada o eliminada (el ETag de su listado) */
+@Entity
+@Data
+@Table(name = "agregado_resena")
+@AllArgsConstructor
+@NoArgsConstructor
+
+public class AgregadoResena {
+
+    @Id
+    @Column(name = "id_producto")
+    private Long idProducto;
+
+    @Column(nullable = false)
+    private long cantidad;
+
+    @Column(nullable = false)
+    private long suma;
+
+    @Column(nullable = false)
+    private long estrellas1;
+
+    @Column(nullable = false)
+    private long estrellas2;
+
+    @Column(nullable = false)
+    private long estrellas3;
+
+    @Column(nullable = false)
+    private long estrellas4;
+
+    @Column(nullable = false)
+    private long estrellas5;
+
+    // No es @Version: lo incrementan las sentencias de AgregadoResenaRepository, no Hibernate
+    @Column(nullable = false)
+    private long version;
+}
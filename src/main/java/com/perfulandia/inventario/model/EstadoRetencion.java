@@ -0,0 +1,9 @@
+package com.perfulandia.inventario.model;
+
+/* Ciclo de vida de una retención de stock */
+public enum EstadoRetencion {
+    ACTIVA,
+    CONFIRMADA,
+    LIBERADA,
+    EXPIRADA
+}
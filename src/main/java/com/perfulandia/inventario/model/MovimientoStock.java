@@ -0,0 +1,55 @@
+package com.perfulandia.inventario.model;
+
+import java.time.LocalDateTime;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/*
+ * Movimiento de stock (solo se inserta). Mientras no esté compactado, su cantidad se suma a
+ * producto.stock para obtener el stock vigente; el compactador lo incorpora a producto.stock y lo marca.
+ */
+@Entity
+@Data
+@Table(name = "movimiento_stock", indexes = {
+    @Index(name = "idx_movimiento_producto", columnList = "id_producto, compactado"),
+    @Index(name = "idx_movimiento_compactado", columnList = "compactado, id")
+})
+@AllArgsConstructor
+@NoArgsConstructor
+
+public class MovimientoStock {
+
+    @Schema(accessMode = Schema.AccessMode.READ_ONLY)
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "id_producto", nullable = false)
+    private Long idProducto;
+
+    /* Delta con signo: negativo en las rebajas */
+    @Column(nullable = false)
+    private int cantidad;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private TipoMovimiento tipo;
+
+    @Column(nullable = false)
+    private boolean compactado;
+
+    @Column(name = "creado_en", nullable = false)
+    private LocalDateTime creadoEn;
+}
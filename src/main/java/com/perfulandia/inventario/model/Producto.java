@@ -6,14 +6,16 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
 @Data
-@Table(name = "producto")
+@Table(name = "producto", indexes = @Index(name = "idx_producto_nombre", columnList = "nombre")) // la importación busca por nombre
 @AllArgsConstructor
 @NoArgsConstructor
 
@@ -33,5 +35,12 @@ public class Producto {
    @Column(nullable = false)
    private double precio;
 
-   
+   /* Control de concurrencia optimista: cada escritura de la fila la incrementa */
+   @Version
+   @Column(nullable = false)
+   private Long version;
+
+   public Producto(Long id, String nombre, int stock, double precio) {
+      this(id, nombre, stock, precio, null);
+   }
 }
\ No newline at end of file
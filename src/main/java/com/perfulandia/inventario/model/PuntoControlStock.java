@@ -0,0 +1,26 @@
+package com.perfulandia.inventario.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/* Última secuencia de la bitácora de stock que ya quedó aplicada en la tabla producto */
+@Entity
+@Data
+@Table(name = "punto_control_stock")
+@AllArgsConstructor
+@NoArgsConstructor
+
+public class PuntoControlStock {
+
+    @Id
+    @Column(length = 50)
+    private String nombre;
+
+    @Column(name = "ultimo_seq", nullable = false)
+    private long ultimoSeq;
+}
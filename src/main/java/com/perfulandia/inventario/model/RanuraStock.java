@@ -0,0 +1,36 @@
+package com.perfulandia.inventario.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/* Parte del stock de un producto fragmentado; el stock del producto es la suma de sus ranuras */
+@Entity
+@Data
+@Table(name = "ranura_stock",
+       uniqueConstraints = @UniqueConstraint(name = "uk_ranura_producto", columnNames = {"id_producto", "ranura"}))
+@AllArgsConstructor
+@NoArgsConstructor
+
+public class RanuraStock {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "id_producto", nullable = false)
+    private Long idProducto;
+
+    @Column(nullable = false)
+    private int ranura;
+
+    @Column(nullable = false)
+    private int stock;
+}
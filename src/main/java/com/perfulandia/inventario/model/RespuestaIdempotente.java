@@ -0,0 +1,42 @@
+package com.perfulandia.inventario.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/* Respuesta ya entregada para una Idempotency-Key; un reintento con la misma clave la recibe tal cual */
+@Entity
+@Data
+@Table(name = "respuesta_idempotente", indexes = @Index(name = "idx_idempotente_creada", columnList = "creada_en"))
+@AllArgsConstructor
+@NoArgsConstructor
+
+public class RespuestaIdempotente {
+
+    @Id
+    @Column(length = 100)
+    private String clave;
+
+    /* SHA-256 de método, ruta y cuerpo: la misma clave no puede reutilizarse para otra operación */
+    @Column(nullable = false, length = 64)
+    private String huella;
+
+    @Column(nullable = false)
+    private int estado;
+
+    @Column(name = "tipo_contenido", length = 100)
+    private String tipoContenido;
+
+    @Column(columnDefinition = "TEXT")
+    private String cuerpo;
+
+    @Column(name = "creada_en", nullable = false)
+    private LocalDateTime creadaEn;
+}
@@ -0,0 +1,48 @@
+package com.perfulandia.inventario.model;
+
+import java.time.LocalDateTime;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/* Unidades apartadas para un checkout mientras se procesa el pago */
+@Entity
+@Data
+@Table(name = "retencion_stock", indexes = @Index(name = "idx_retencion_estado", columnList = "estado"))
+@AllArgsConstructor
+@NoArgsConstructor
+
+public class RetencionStock {
+
+    @Schema(accessMode = Schema.AccessMode.READ_ONLY)
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "id_producto", nullable = false)
+    private Long idProducto;
+
+    @Column(nullable = false)
+    private int cantidad;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private EstadoRetencion estado;
+
+    @Column(name = "expira_en", nullable = false)
+    private LocalDateTime expiraEn;
+
+    @Column(name = "creada_en", nullable = false)
+    private LocalDateTime creadaEn;
+}
@@ -0,0 +1,8 @@
+package com.perfulandia.inventario.model;
+
+/* Origen de un movimiento de stock registrado en movimiento_stock */
+public enum TipoMovimiento {
+    REBAJA,
+    REPOSICION,
+    AJUSTE
+}
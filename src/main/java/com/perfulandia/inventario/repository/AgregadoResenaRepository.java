@@ -0,0 +1,51 @@
+package com.perfulandia.inventario.repository;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.perfulandia.inventario.model.AgregadoResena;
+
+@Repository
+public interface AgregadoResenaRepository extends JpaRepository<AgregadoResena, Long> {
+
+    /* Suma (delta = 1) o resta (delta = -1) una reseña con esa calificación en una sola sentencia: crea la
+       fila del producto si no existe y si existe la incrementa en la base, sin leerla antes, así dos
+       reseñas simultáneas del mismo producto no se pisan. ON DUPLICATE KEY UPDATE es de MySQL; H2 lo
+       acepta en MODE=MySQL. */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "INSERT INTO agregado_resena "
+         + "(id_producto, cantidad, suma, estrellas1, estrellas2, estrellas3, estrellas4, estrellas5, version) VALUES "
+         + "(:idProducto, :delta, :calificacion * :delta, "
+         + "CASE WHEN :calificacion = 1 THEN :delta ELSE 0 END, CASE WHEN :calificacion = 2 THEN :delta ELSE 0 END, "
+         + "CASE WHEN :calificacion = 3 THEN :delta ELSE 0 END, CASE WHEN :calificacion = 4 THEN :delta ELSE 0 END, "
+         + "CASE WHEN :calificacion = 5 THEN :delta ELSE 0 END, 1) "
+         + "ON DUPLICATE KEY UPDATE cantidad = cantidad + :delta, suma = suma + :calificacion * :delta, version = version + 1, "
+         + "estrellas1 = estrellas1 + CASE WHEN :calificacion = 1 THEN :delta ELSE 0 END, "
+         + "estrellas2 = estrellas2 + CASE WHEN :calificacion = 2 THEN :delta ELSE 0 END, "
+         + "estrellas3 = estrellas3 + CASE WHEN :calificacion = 3 THEN :delta ELSE 0 END, "
+         + "estrellas4 = estrellas4 + CASE WHEN :calificacion = 4 THEN :delta ELSE 0 END, "
+         + "estrellas5 = estrellas5 + CASE WHEN :calificacion = 5 THEN :delta ELSE 0 END",
+         nativeQuery = true)
+    int acumular(@Param("idProducto") Long idProducto, @Param("calificacion") int calificacion, @Param("delta") int delta);
+
+    /* Solo sube la versión de las reseñas del producto: se usa cuando una edición no cambia los totales
+       (mismo producto y calificación, otro comentario) */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "INSERT INTO agregado_resena "
+         + "(id_producto, cantidad, suma, estrellas1, estrellas2, estrellas3, estrellas4, estrellas5, version) "
+         + "VALUES (:idProducto, 0, 0, 0, 0, 0, 0, 0, 1) "
+         + "ON DUPLICATE KEY UPDATE version = version + 1",
+         nativeQuery = true)
+    int incrementarVersion(@Param("idProducto") Long idProducto);
+
+    @Query("SELECT a.version FROM AgregadoResena a WHERE a.idProducto = :idProducto")
+    Optional<Long> obtenerVersion(@Param("idProducto") Long idProducto);
+
+    List<AgregadoResena> findByCantidadGreaterThanOrderByIdProducto(long cantidad);
+}
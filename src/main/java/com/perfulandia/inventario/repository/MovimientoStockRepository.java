@@ -0,0 +1,45 @@
+package com.perfulandia.inventario.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.perfulandia.inventario.model.MovimientoStock;
+
+@Repository
+public interface MovimientoStockRepository extends JpaRepository<MovimientoStock, Long> {
+
+    List<MovimientoStock> findByIdProductoOrderByIdDesc(Long idProducto, Limit limite);
+
+    /* Último snapshot más la cola sin compactar, en una sola sentencia para no cruzarse con una compactación */
+    @Query("SELECT p.stock + COALESCE((SELECT SUM(m.cantidad) FROM MovimientoStock m "
+         + "WHERE m.idProducto = p.id AND m.compactado = false), 0) FROM Producto p WHERE p.id = :id")
+    Optional<Long> obtenerStockVigente(@Param("id") Long idProducto);
+
+    @Query("SELECT SUM(m.cantidad) FROM MovimientoStock m WHERE m.compactado = false")
+    Long sumarPendientes();
+
+    /* Pares [idProducto, stock vigente] de los productos con cola sin compactar, snapshot y cola en una sentencia */
+    @Query("SELECT p.id, p.stock + SUM(m.cantidad) FROM MovimientoStock m JOIN Producto p ON p.id = m.idProducto "
+         + "WHERE m.compactado = false GROUP BY p.id, p.stock")
+    List<Object[]> obtenerStockVigenteConPendientes();
+
+    @Query("SELECT m.id FROM MovimientoStock m WHERE m.compactado = false ORDER BY m.id")
+    List<Long> buscarPendientes(Limit limite);
+
+    /* Pares [idProducto, delta neto] de los movimientos indicados, ordenados por producto */
+    @Query("SELECT m.idProducto, SUM(m.cantidad) FROM MovimientoStock m WHERE m.id IN :ids "
+         + "GROUP BY m.idProducto ORDER BY m.idProducto")
+    List<Object[]> sumarPorProducto(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("UPDATE MovimientoStock m SET m.compactado = true WHERE m.id IN :ids")
+    int marcarCompactados(@Param("ids") Collection<Long> ids);
+}
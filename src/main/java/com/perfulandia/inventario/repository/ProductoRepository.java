@@ -1,12 +1,27 @@
 package com.perfulandia.inventario.repository;
 
+import com.perfulandia.inventario.dto.TotalesInventario;
 import com.perfulandia.inventario.model.Producto;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 
 @Repository
 public interface ProductoRepository extends JpaRepository<Producto, Long> {
@@ -18,7 +33,59 @@ public interface ProductoRepository extends JpaRepository<Producto, Long> {
     List<Producto> findByPrecioLessThan(double precio);
     @Query("SELECT SUM(p.stock) FROM Producto p")
     Integer obtenerStockTotal();
+
+    /* Resumen agregado en la base: devuelve una fila sin traer productos a memoria */
+    @Query("SELECT new com.perfulandia.inventario.dto.TotalesInventario(COUNT(p), COALESCE(SUM(p.stock), 0L), "
+         + "COALESCE(SUM(p.stock * p.precio), 0.0)) FROM Producto p")
+    TotalesInventario obtenerTotales();
     List<Producto> findByStockGreaterThan(int cantidad);
 
+    /* Rebaja condicional en una sola sentencia: solo descuenta si alcanza el stock sin tocar las
+       unidades retenidas. Devuelve 1 si se aplicó y 0 si el producto no existe o no alcanza. */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Producto p SET p.stock = p.stock - :cantidad, p.version = p.version + 1 "
+         + "WHERE p.id = :id AND p.stock - :retenido >= :cantidad")
+    int rebajarStockSiDisponible(@Param("id") Long id, @Param("cantidad") int cantidad, @Param("retenido") int retenido);
+
+    /* Página por cursor: WHERE id > :id ORDER BY id LIMIT n, resuelta sobre la clave primaria */
+    List<Producto> findByIdGreaterThanOrderByIdAsc(Long id, Limit limite);
+
+    /* Recorrido completo para la exportación: cursor hacia adelante que trae las filas de a 1000 (en MySQL
+       requiere useCursorFetch=true en la URL) y entidades de solo lectura, sin copia para detectar cambios.
+       Debe consumirse dentro de una transacción y cerrarse al terminar. */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p FROM Producto p ORDER BY p.id")
+    Stream<Producto> recorrerTodos();
+
+    @Query("SELECT p.stock FROM Producto p WHERE p.id = :id")
+    Optional<Integer> obtenerStockPorId(@Param("id") Long id);
+
+    /* Pares [id, stock] de los productos indicados */
+    @Query("SELECT p.id, p.stock FROM Producto p WHERE p.id IN :ids")
+    List<Object[]> obtenerStockPorIds(@Param("ids") Collection<Long> ids);
+
+    /* Ternas [id, stock, precio] de los productos indicados */
+    @Query("SELECT p.id, p.stock, p.precio FROM Producto p WHERE p.id IN :ids")
+    List<Object[]> obtenerStockYPrecioPorIds(@Param("ids") Collection<Long> ids);
+
+    /* Actualiza los datos del producto sin tocar la columna stock; solo si la versión coincide (o no se indica) */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Producto p SET p.nombre = :nombre, p.precio = :precio, p.version = p.version + 1 "
+         + "WHERE p.id = :id AND (:version IS NULL OR p.version = :version)")
+    int actualizarDatos(@Param("id") Long id, @Param("nombre") String nombre, @Param("precio") double precio,
+                        @Param("version") Long version);
+
+    @Query("SELECT p.version FROM Producto p WHERE p.id = :id")
+    Optional<Long> obtenerVersionPorId(@Param("id") Long id);
+
+    /* Lee el producto con bloqueo de escritura; se usa al mover su stock a ranuras o de vuelta */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Producto p WHERE p.id = :id")
+    Optional<Producto> bloquearPorId(@Param("id") Long id);
 
 }
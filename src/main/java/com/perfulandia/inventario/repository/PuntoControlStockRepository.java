@@ -0,0 +1,10 @@
+package com.perfulandia.inventario.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.perfulandia.inventario.model.PuntoControlStock;
+
+@Repository
+public interface PuntoControlStockRepository extends JpaRepository<PuntoControlStock, String> {
+}
@@ -0,0 +1,61 @@
+package com.perfulandia.inventario.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.perfulandia.inventario.model.RanuraStock;
+
+import jakarta.persistence.LockModeType;
+
+@Repository
+public interface RanuraStockRepository extends JpaRepository<RanuraStock, Long> {
+
+    List<RanuraStock> findByIdProductoOrderByRanura(Long idProducto);
+
+    /* Ranuras del producto bloqueadas para escritura, siempre en el mismo orden para no caer en deadlock */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM RanuraStock r WHERE r.idProducto = :idProducto ORDER BY r.ranura")
+    List<RanuraStock> bloquearPorProducto(@Param("idProducto") Long idProducto);
+
+    /* Pares [idProducto, cantidad de ranuras] de todos los productos fragmentados */
+    @Query("SELECT r.idProducto, COUNT(r) FROM RanuraStock r GROUP BY r.idProducto")
+    List<Object[]> contarRanurasPorProducto();
+
+    /* Pares [idProducto, suma de sus ranuras] de todos los productos fragmentados */
+    @Query("SELECT r.idProducto, SUM(r.stock) FROM RanuraStock r GROUP BY r.idProducto")
+    List<Object[]> sumarAgrupadoPorProducto();
+
+    @Query("SELECT SUM(r.stock) FROM RanuraStock r WHERE r.idProducto = :idProducto")
+    Long sumarPorProducto(@Param("idProducto") Long idProducto);
+
+    @Query("SELECT SUM(r.stock) FROM RanuraStock r")
+    Long sumarTodas();
+
+    /* Igual que la rebaja de producto: una sola sentencia que solo descuenta si la ranura alcanza */
+    @Transactional
+    @Modifying
+    @Query("UPDATE RanuraStock r SET r.stock = r.stock - :cantidad "
+         + "WHERE r.idProducto = :idProducto AND r.ranura = :ranura AND r.stock >= :cantidad")
+    int rebajarSiDisponible(@Param("idProducto") Long idProducto,
+                            @Param("ranura") int ranura,
+                            @Param("cantidad") int cantidad);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE RanuraStock r SET r.stock = r.stock + :cantidad WHERE r.idProducto = :idProducto AND r.ranura = :ranura")
+    int reponer(@Param("idProducto") Long idProducto,
+                @Param("ranura") int ranura,
+                @Param("cantidad") int cantidad);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM RanuraStock r WHERE r.idProducto = :idProducto")
+    int eliminarPorProducto(@Param("idProducto") Long idProducto);
+}
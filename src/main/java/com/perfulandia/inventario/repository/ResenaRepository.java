@@ -1,14 +1,23 @@
 package com.perfulandia.inventario.repository;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.perfulandia.inventario.dto.ResenaExportada;
 import com.perfulandia.inventario.model.Resena;
 
+import jakarta.persistence.QueryHint;
+
 @Repository
 public interface ResenaRepository extends JpaRepository<Resena, Long> {
     // Aquí puedes agregar métodos personalizados si es necesario
@@ -19,11 +28,20 @@ public interface ResenaRepository extends JpaRepository<Resena, Long> {
 
     List<Resena> findByCalificacion(int calificacion);
 
-    @Query("SELECT AVG(r.calificacion) FROM Resena r WHERE r.producto.id = :productoId")
-    Double promedioCalificacionPorProducto(@Param("productoId") Long productoId);
-    
-    @Query("SELECT r.producto.id, COUNT(r) FROM Resena r GROUP BY r.producto.id")
-    List<Object[]> cantidadResenasPorProducto();
-
-
+    /* Página por cursor: WHERE id > :id ORDER BY id LIMIT n, resuelta sobre la clave primaria */
+    List<Resena> findByIdGreaterThanOrderByIdAsc(Long id, Limit limite);
+
+    /* Recorrido completo para la exportación, proyectado a filas planas: no crea entidades ni proxies del
+       producto, así que el contexto de persistencia no crece. Cursor hacia adelante de a 1000 filas. */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.perfulandia.inventario.dto.ResenaExportada(r.id, r.comentario, r.calificacion, "
+         + "r.producto.id, r.idUsuario, r.nombreUsuario) FROM Resena r ORDER BY r.id")
+    Stream<ResenaExportada> recorrerParaExportar();
+
+    /* La reseña tal como está guardada, sin volcar antes los cambios pendientes de la sesión: al
+       actualizar se necesitan la calificación y el producto anteriores para corregir los agregados */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "COMMIT"))
+    @Query("SELECT new com.perfulandia.inventario.dto.ResenaExportada(r.id, r.comentario, r.calificacion, "
+         + "r.producto.id, r.idUsuario, r.nombreUsuario) FROM Resena r WHERE r.id = :id")
+    Optional<ResenaExportada> buscarGuardada(@Param("id") Long id);
 }
@@ -0,0 +1,21 @@
+package com.perfulandia.inventario.repository;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.perfulandia.inventario.model.RespuestaIdempotente;
+
+@Repository
+public interface RespuestaIdempotenteRepository extends JpaRepository<RespuestaIdempotente, String> {
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM RespuestaIdempotente r WHERE r.creadaEn < :limite")
+    int eliminarCreadasAntesDe(@Param("limite") LocalDateTime limite);
+}
@@ -0,0 +1,35 @@
+package com.perfulandia.inventario.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.perfulandia.inventario.model.EstadoRetencion;
+import com.perfulandia.inventario.model.RetencionStock;
+
+@Repository
+public interface RetencionStockRepository extends JpaRepository<RetencionStock, Long> {
+
+    List<RetencionStock> findByEstado(EstadoRetencion estado);
+
+    /* Transición de estado protegida: solo se aplica si la retención sigue en el estado esperado */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE RetencionStock r SET r.estado = :nuevo WHERE r.id = :id AND r.estado = :actual")
+    int cambiarEstado(@Param("id") Long id,
+                      @Param("actual") EstadoRetencion actual,
+                      @Param("nuevo") EstadoRetencion nuevo);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE RetencionStock r SET r.estado = :nuevo WHERE r.id IN :ids AND r.estado = :actual")
+    int cambiarEstadoEnLote(@Param("ids") Collection<Long> ids,
+                            @Param("actual") EstadoRetencion actual,
+                            @Param("nuevo") EstadoRetencion nuevo);
+}
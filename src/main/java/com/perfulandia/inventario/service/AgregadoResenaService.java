@@ -0,0 +1,124 @@
+package com.perfulandia.inventario.service;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.perfulandia.inventario.model.AgregadoResena;
+import com.perfulandia.inventario.repository.AgregadoResenaRepository;
+
+import jakarta.annotation.PostConstruct;
+
+/*
+ * Agregados de reseñas por producto (agregado_resena): cantidad, suma de calificaciones e histograma
+ * de 1 a 5 estrellas. ResenaService los ajusta en la misma transacción en que escribe la reseña, así el
+ * promedio y el reporte de cantidades se leen de una fila por producto en vez de recorrer resena.
+ * La reconstrucción los recalcula desde resena por tramos de IDs de producto, cada tramo en su propia
+ * transacción; al arrancar se ejecuta sola si la tabla está vacía (primera vez que existe).
+ * La versión de cada fila sube con cualquier cambio en las reseñas del producto y es el ETag del listado
+ * de sus reseñas: se compara sin leerlas.
+ */
+@Service
+public class AgregadoResenaService {
+
+    private static final String RECALCULAR =
+        "INSERT INTO agregado_resena (id_producto, cantidad, suma, estrellas1, estrellas2, estrellas3, estrellas4, estrellas5) "
+      + "SELECT id_producto, COUNT(*), SUM(calificacion), "
+      + "SUM(CASE WHEN calificacion = 1 THEN 1 ELSE 0 END), SUM(CASE WHEN calificacion = 2 THEN 1 ELSE 0 END), "
+      + "SUM(CASE WHEN calificacion = 3 THEN 1 ELSE 0 END), SUM(CASE WHEN calificacion = 4 THEN 1 ELSE 0 END), "
+      + "SUM(CASE WHEN calificacion = 5 THEN 1 ELSE 0 END) "
+      + "FROM resena WHERE id_producto >= ? AND id_producto < ? GROUP BY id_producto";
+
+    private final AgregadoResenaRepository repository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaccion;
+    private final int lote;
+    private final boolean reconstruirAlIniciar;
+
+    public AgregadoResenaService(AgregadoResenaRepository repository,
+                                 JdbcTemplate jdbcTemplate,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${inventario.agregados-resena.lote:1000}") int lote,
+                                 @Value("${inventario.agregados-resena.reconstruir-al-iniciar:false}") boolean reconstruirAlIniciar) {
+        this.repository = repository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.lote = lote;
+        this.reconstruirAlIniciar = reconstruirAlIniciar;
+    }
+
+    @PostConstruct
+    public void inicializar() {
+        if (reconstruirAlIniciar || repository.count() == 0) {
+            reconstruir();
+        }
+    }
+
+    /* Suma o resta una reseña; debe llamarse dentro de la transacción que escribe la reseña */
+    public void registrar(Long idProducto, int calificacion, int delta) {
+        repository.acumular(idProducto, calificacion, delta);
+    }
+
+    /* Sube la versión sin cambiar los totales (una edición que solo cambia el comentario) */
+    public void registrarEdicion(Long idProducto) {
+        repository.incrementarVersion(idProducto);
+    }
+
+    /* Versión de las reseñas del producto; 0 si nunca tuvo */
+    public long version(Long idProducto) {
+        return repository.obtenerVersion(idProducto).orElse(0L);
+    }
+
+    /* Promedio de calificación del producto, o null si no tiene reseñas */
+    public Double promedio(Long idProducto) {
+        return repository.findById(idProducto)
+            .filter(agregado -> agregado.getCantidad() > 0)
+            .map(agregado -> (double) agregado.getSuma() / agregado.getCantidad())
+            .orElse(null);
+    }
+
+    /* Agregados de los productos que tienen al menos una reseña, en orden de ID */
+    public List<AgregadoResena> conResenas() {
+        return repository.findByCantidadGreaterThanOrderByIdProducto(0);
+    }
+
+    /*
+     * Recalcula todos los agregados desde resena y devuelve cuántos productos quedaron con reseñas.
+     * Cada tramo cubre hasta lote IDs de producto a partir del siguiente ID con reseñas o agregado (los
+     * huecos entre IDs se saltan): borra los agregados del tramo e inserta los recalculados. Las filas
+     * recalculadas llevan como versión la hora de inicio en milisegundos, mayor que cualquier contador
+     * anterior, así ningún ETag ya entregado vuelve a coincidir.
+     */
+    public int reconstruir() {
+        long version = System.currentTimeMillis();
+        int productos = 0;
+        Long desde = siguienteId(Long.MIN_VALUE);
+        while (desde != null) {
+            long inicio = desde;
+            long fin = inicio + lote;
+            productos += transaccion.execute(status -> {
+                jdbcTemplate.update("DELETE FROM agregado_resena WHERE id_producto >= ? AND id_producto < ?", inicio, fin);
+                int recalculados = jdbcTemplate.update(RECALCULAR, inicio, fin);
+                jdbcTemplate.update("UPDATE agregado_resena SET version = ? WHERE id_producto >= ? AND id_producto < ?", version, inicio, fin);
+                return recalculados;
+            });
+            desde = siguienteId(fin - 1);
+        }
+        return productos;
+    }
+
+    private Long siguienteId(long despuesDe) {
+        Long enResenas = jdbcTemplate.queryForObject(
+            "SELECT MIN(id_producto) FROM resena WHERE id_producto > ?", Long.class, despuesDe);
+        Long enAgregados = jdbcTemplate.queryForObject(
+            "SELECT MIN(id_producto) FROM agregado_resena WHERE id_producto > ?", Long.class, despuesDe);
+        if (enResenas == null || enAgregados == null) {
+            return enResenas != null ? enResenas : enAgregados;
+        }
+        return Math.min(enResenas, enAgregados);
+    }
+}
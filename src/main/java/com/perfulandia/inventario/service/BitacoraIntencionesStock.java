@@ -0,0 +1,164 @@
+package com.perfulandia.inventario.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/*
+ * Bitácora de intenciones del modo stock caliente: cada movimiento se anota (seq;idProducto;delta)
+ * antes de confirmarlo al cliente. Se escribe en segmentos; al volcar a la base se rota el segmento
+ * y los cerrados se borran cuando el volcado confirma, así el archivo no crece sin límite.
+ * Con fsync la sincronización es agrupada: la escritura y el force van bajo candados distintos, y
+ * un force cubre todas las líneas escritas hasta ese momento; quien esperaba y ya quedó cubierto
+ * vuelve sin forzar. Así los SKU calientes no se serializan detrás del fsync de cada movimiento.
+ */
+class BitacoraIntencionesStock implements AutoCloseable {
+
+    private static final String PREFIJO = "stock-caliente-";
+    private static final String EXTENSION = ".log";
+
+    record Intencion(long seq, long idProducto, int delta) {
+    }
+
+    private final Path directorio;
+    private final boolean sincronizar;
+    // Orden de candados: sincronizacion y luego this (escritura, rotación y cierre)
+    private final Object sincronizacion = new Object();
+    private FileChannel segmento;
+    private Path rutaSegmento;
+    private long siguienteSegmento;
+    private long escritas;      // bajo this
+    private long sincronizadas; // bajo sincronizacion
+
+    BitacoraIntencionesStock(Path directorio, boolean sincronizar) throws IOException {
+        this.directorio = directorio;
+        this.sincronizar = sincronizar;
+        Files.createDirectories(directorio);
+        this.siguienteSegmento = System.currentTimeMillis();
+    }
+
+    /* Segmentos presentes en disco, en orden de creación */
+    synchronized List<Path> segmentos() throws IOException {
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            return archivos
+                .filter(p -> p.getFileName().toString().startsWith(PREFIJO) && p.getFileName().toString().endsWith(EXTENSION))
+                .sorted()
+                .toList();
+        }
+    }
+
+    /* Lee todas las intenciones de los segmentos dados; una última línea incompleta (escritura cortada) se ignora */
+    List<Intencion> leer(List<Path> segmentos) throws IOException {
+        List<Intencion> intenciones = new ArrayList<>();
+        for (Path segmento : segmentos) {
+            try (BufferedReader lector = Files.newBufferedReader(segmento, StandardCharsets.UTF_8)) {
+                String linea;
+                while ((linea = lector.readLine()) != null) {
+                    String[] partes = linea.split(";");
+                    if (partes.length != 3) {
+                        continue;
+                    }
+                    try {
+                        intenciones.add(new Intencion(
+                            Long.parseLong(partes[0]), Long.parseLong(partes[1]), Integer.parseInt(partes[2])));
+                    } catch (NumberFormatException e) {
+                        // línea truncada por una caída a mitad de escritura
+                    }
+                }
+            }
+        }
+        return intenciones;
+    }
+
+    /* Vuelve cuando la línea está escrita y, con fsync, sincronizada en disco */
+    void registrar(long seq, long idProducto, int delta) throws IOException {
+        ByteBuffer linea = ByteBuffer.wrap((seq + ";" + idProducto + ";" + delta + "\n").getBytes(StandardCharsets.UTF_8));
+        long numero;
+        synchronized (this) {
+            if (segmento == null) {
+                abrirSegmento();
+            }
+            while (linea.hasRemaining()) {
+                segmento.write(linea);
+            }
+            numero = ++escritas;
+        }
+        if (sincronizar) {
+            sincronizarHasta(numero);
+        }
+    }
+
+    // Un solo force para todo lo escrito hasta ahora; si otro ya cubrió la línea no se fuerza de nuevo
+    private void sincronizarHasta(long numero) throws IOException {
+        synchronized (sincronizacion) {
+            if (sincronizadas >= numero) {
+                return;
+            }
+            FileChannel canal;
+            long hasta;
+            synchronized (this) {
+                canal = segmento;
+                hasta = escritas;
+            }
+            // rotar también toma sincronizacion, así el canal no se cierra durante el force
+            canal.force(false);
+            sincronizadas = hasta;
+        }
+    }
+
+    /* Cierra el segmento actual y devuelve su ruta; la siguiente escritura abre uno nuevo */
+    Path rotar() throws IOException {
+        synchronized (sincronizacion) {
+            synchronized (this) {
+                if (segmento == null) {
+                    return null;
+                }
+                if (sincronizar) {
+                    segmento.force(false); // cerrar no sincroniza: lo escrito y aún no forzado se asegura aquí
+                    sincronizadas = escritas;
+                }
+                segmento.close();
+                segmento = null;
+                Path cerrado = rutaSegmento;
+                rutaSegmento = null;
+                return cerrado;
+            }
+        }
+    }
+
+    void eliminar(List<Path> segmentos) throws IOException {
+        for (Path segmento : segmentos) {
+            Files.deleteIfExists(segmento);
+        }
+    }
+
+    private void abrirSegmento() throws IOException {
+        rutaSegmento = directorio.resolve(String.format("%s%020d%s", PREFIJO, siguienteSegmento++, EXTENSION));
+        segmento = FileChannel.open(rutaSegmento,
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (sincronizacion) {
+            synchronized (this) {
+                if (segmento != null) {
+                    if (sincronizar) {
+                        segmento.force(false);
+                        sincronizadas = escritas;
+                    }
+                    segmento.close();
+                    segmento = null;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.perfulandia.inventario.service;
+
+import java.util.Optional;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.perfulandia.inventario.model.Producto;
+import com.perfulandia.inventario.repository.ProductoRepository;
+
+/*
+ * Caché de productos por ID delante de ProductoRepository (caché "productos", acotada por tamaño y TTL;
+ * ver spring.cache.caffeine.spec). Guarda una copia desacoplada de la fila y entrega otra copia en cada
+ * lectura, así nadie modifica la entrada compartida. Las entradas se descartan cuando llega un
+ * ProductosModificadosEvento, después del commit de la transacción que escribió, o en el momento si no
+ * había transacción. La carga es atómica por clave: un descarte que llega mientras se carga la entrada
+ * espera a que termine y la elimina, así una lectura anterior al commit no queda guardada.
+ */
+@Service
+public class CacheProductoService {
+
+    public static final String CACHE = "productos";
+
+    private final ProductoRepository repository;
+    private final Cache cache;
+
+    public CacheProductoService(ProductoRepository repository, CacheManager cacheManager) {
+        this.repository = repository;
+        this.cache = cacheManager.getCache(CACHE);
+        if (this.cache == null) {
+            throw new IllegalStateException("No está configurada la caché '" + CACHE + "' (spring.cache.cache-names)");
+        }
+    }
+
+    public Optional<Producto> buscar(Long id) {
+        // Un ID inexistente también se guarda (como null) para que las consultas repetidas no lleguen a la base
+        Producto guardado = cache.get(id, () -> repository.findById(id).map(CacheProductoService::copia).orElse(null));
+        return Optional.ofNullable(guardado).map(CacheProductoService::copia);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void descartar(ProductosModificadosEvento evento) {
+        if (evento.ids() == null) {
+            cache.clear();
+        } else {
+            evento.ids().forEach(cache::evict);
+        }
+    }
+
+    private static Producto copia(Producto producto) {
+        return new Producto(producto.getId(), producto.getNombre(), producto.getStock(), producto.getPrecio(), producto.getVersion());
+    }
+}
@@ -0,0 +1,355 @@
+package com.perfulandia.inventario.service;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.perfulandia.inventario.model.Producto;
+
+import jakarta.annotation.PostConstruct;
+
+/*
+ * Modelo de lectura en memoria del catálogo para los filtros por stock y precio y el stock total.
+ * Guarda las columnas en arreglos primitivos ordenados por ID (id, stock, precio, versión, y el nombre
+ * para armar la respuesta), así un filtro es un recorrido secuencial de un int[] o double[] sin tocar la
+ * base, y el stock total es un acumulado que se ajusta en cada cambio. Los valores son los de la tabla
+ * producto. Los SKU cuyo stock no está entero en la columna (modo caliente, ranuras, diario) cambian sin
+ * avisar al catálogo, así que su stock efectivo no se guarda en las columnas: quien filtra o suma lo pasa
+ * al momento (un mapa por ID, normalmente chico) y reemplaza al de la columna en esa lectura.
+ *
+ * Las escrituras no pagan nada extra: ProductosModificadosEvento solo anota los IDs como pendientes, y
+ * la próxima lectura los relee de la base en tramos (WHERE id IN) antes de filtrar. Si los pendientes
+ * pasan de un cuarto del catálogo, o el aviso es "cualquier producto", se recarga entero.
+ */
+@Service
+public class CatalogoColumnarService {
+
+    private static final int LOTE_LECTURA = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final boolean habilitado;
+    private final ReentrantReadWriteLock candado = new ReentrantReadWriteLock();
+    private final Object sincronizacion = new Object();
+    private final Set<Long> pendientes = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean recargaPendiente;
+    private Columnas columnas = new Columnas();
+
+    public CatalogoColumnarService(JdbcTemplate jdbcTemplate,
+                                   @Value("${inventario.catalogo-columnar.habilitado:true}") boolean habilitado) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.habilitado = habilitado;
+    }
+
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        if (habilitado) {
+            recargar();
+        }
+    }
+
+    /* Carga todas las filas de producto y reemplaza las columnas; los filtros siguen sobre las anteriores mientras tanto */
+    public void recargar() {
+        synchronized (sincronizacion) {
+            recargaPendiente = false;
+            pendientes.clear(); // lo que se escriba desde acá vuelve a anotarse
+            Columnas nuevas = new Columnas();
+            jdbcTemplate.query(conexion -> {
+                    PreparedStatement consulta = conexion.prepareStatement(
+                        "SELECT id, nombre, stock, precio, version FROM producto ORDER BY id");
+                    consulta.setFetchSize(LOTE_LECTURA); // recorre toda la tabla: de a tramos, no entera en memoria
+                    return consulta;
+                },
+                fila -> {
+                    nuevas.aplicar(fila.getLong("id"), fila.getString("nombre"), fila.getInt("stock"),
+                        fila.getDouble("precio"), fila.getLong("version"));
+                });
+            candado.writeLock().lock();
+            try {
+                columnas = nuevas;
+            } finally {
+                candado.writeLock().unlock();
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void anotar(ProductosModificadosEvento evento) {
+        if (!habilitado) {
+            return;
+        }
+        if (evento.ids() == null) {
+            recargaPendiente = true;
+        } else {
+            pendientes.addAll(evento.ids());
+        }
+    }
+
+    /* Productos con stock menor a cantidad, en orden de ID */
+    public List<Producto> stockMenorA(int cantidad) {
+        return stockMenorA(cantidad, Map.of());
+    }
+
+    /* Igual, con el stock efectivo de los IDs de stockEfectivo en lugar del de la columna */
+    public List<Producto> stockMenorA(int cantidad, Map<Long, Integer> stockEfectivo) {
+        return porStock(Integer.MIN_VALUE, cantidad, stockEfectivo);
+    }
+
+    /* Productos con stock mayor a cantidad, en orden de ID */
+    public List<Producto> stockMayorA(int cantidad) {
+        return stockMayorA(cantidad, Map.of());
+    }
+
+    /* Igual, con el stock efectivo de los IDs de stockEfectivo en lugar del de la columna */
+    public List<Producto> stockMayorA(int cantidad, Map<Long, Integer> stockEfectivo) {
+        if (cantidad == Integer.MAX_VALUE) {
+            return List.of();
+        }
+        return porStock(cantidad + 1, Integer.MAX_VALUE, stockEfectivo);
+    }
+
+    /* Productos con precio menor al dado, en orden de ID */
+    public List<Producto> precioMenorA(double precio) {
+        ponerAlDia();
+        candado.readLock().lock();
+        try {
+            Columnas c = columnas;
+            List<Producto> resultado = new ArrayList<>();
+            for (int i = 0; i < c.tamano; i++) {
+                if (c.precios[i] < precio && c.nombres[i] != null) {
+                    resultado.add(c.producto(i));
+                }
+            }
+            return resultado;
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    /* Suma de producto.stock de todo el catálogo */
+    public long stockTotal() {
+        return stockTotal(Map.of());
+    }
+
+    /* Suma del catálogo con el stock efectivo de los IDs de stockEfectivo en lugar del de la columna */
+    public long stockTotal(Map<Long, Integer> stockEfectivo) {
+        ponerAlDia();
+        candado.readLock().lock();
+        try {
+            Columnas c = columnas;
+            long total = c.stockTotal;
+            for (Map.Entry<Long, Integer> entrada : stockEfectivo.entrySet()) {
+                int fila = Arrays.binarySearch(c.ids, 0, c.tamano, entrada.getKey());
+                if (fila >= 0 && c.nombres[fila] != null) {
+                    total += entrada.getValue() - c.stocks[fila];
+                }
+            }
+            return total;
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    public int tamano() {
+        ponerAlDia();
+        candado.readLock().lock();
+        try {
+            return columnas.vigentes();
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    // stock en [minimo, tope): el tope es excluyente salvo Integer.MAX_VALUE, que incluye todo lo mayor.
+    // Los IDs reemplazados se recorren ordenados a la par de las filas, sin buscar cada fila en el mapa
+    private List<Producto> porStock(int minimo, int tope, Map<Long, Integer> stockEfectivo) {
+        long[] reemplazados = stockEfectivo.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+        ponerAlDia();
+        candado.readLock().lock();
+        try {
+            Columnas c = columnas;
+            boolean sinTope = tope == Integer.MAX_VALUE;
+            List<Producto> resultado = new ArrayList<>();
+            int siguiente = 0;
+            for (int i = 0; i < c.tamano; i++) {
+                while (siguiente < reemplazados.length && reemplazados[siguiente] < c.ids[i]) {
+                    siguiente++;
+                }
+                boolean reemplazado = siguiente < reemplazados.length && reemplazados[siguiente] == c.ids[i];
+                int stock = reemplazado ? stockEfectivo.get(c.ids[i]) : c.stocks[i];
+                if (stock >= minimo && (sinTope || stock < tope) && c.nombres[i] != null) {
+                    Producto producto = c.producto(i);
+                    producto.setStock(stock);
+                    resultado.add(producto);
+                }
+            }
+            return resultado;
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    /*
+     * Relee las filas anotadas. Cada ID se saca de los pendientes antes de leerlo, así una escritura
+     * confirmada durante la lectura lo vuelve a anotar y se relee la próxima vez; las relecturas van en
+     * serie, por lo que una lectura anterior nunca pisa a una posterior.
+     */
+    private void ponerAlDia() {
+        if (!recargaPendiente && pendientes.isEmpty()) {
+            return;
+        }
+        synchronized (sincronizacion) {
+            if (recargaPendiente || pendientes.size() > Math.max(LOTE_LECTURA, columnas.vigentes() / 4)) {
+                recargar();
+                return;
+            }
+            List<Long> ids = new ArrayList<>();
+            for (Iterator<Long> it = pendientes.iterator(); it.hasNext(); ) {
+                ids.add(it.next());
+                it.remove();
+            }
+            for (int desde = 0; desde < ids.size(); desde += LOTE_LECTURA) {
+                List<Long> tramo = ids.subList(desde, Math.min(desde + LOTE_LECTURA, ids.size()));
+                Map<Long, Producto> leidos = new HashMap<>();
+                namedJdbcTemplate.query("SELECT id, nombre, stock, precio, version FROM producto WHERE id IN (:ids)",
+                    Map.of("ids", tramo),
+                    fila -> {
+                        leidos.put(fila.getLong("id"), new Producto(fila.getLong("id"), fila.getString("nombre"),
+                            fila.getInt("stock"), fila.getDouble("precio"), fila.getLong("version")));
+                    });
+                candado.writeLock().lock();
+                try {
+                    for (Long id : tramo) {
+                        Producto leido = leidos.get(id);
+                        if (leido == null) {
+                            columnas.quitar(id); // se eliminó
+                        } else {
+                            columnas.aplicar(id, leido.getNombre(), leido.getStock(), leido.getPrecio(), leido.getVersion());
+                        }
+                    }
+                    if (columnas.requiereCompactar()) {
+                        columnas.compactar();
+                    }
+                } finally {
+                    candado.writeLock().unlock();
+                }
+            }
+        }
+    }
+
+    /*
+     * Columnas del catálogo, sin sincronización propia. Las filas están ordenadas por ID (búsqueda
+     * binaria para ubicar una fila); un producto eliminado queda como baja (nombre null) hasta que las
+     * bajas pasan de un cuarto de las vigentes y se compacta en el lugar.
+     */
+    private static final class Columnas {
+
+        private long[] ids = new long[1024];
+        private int[] stocks = new int[1024];
+        private double[] precios = new double[1024];
+        private long[] versiones = new long[1024];
+        private String[] nombres = new String[1024];
+        private int tamano;
+        private int bajas;
+        private long stockTotal;
+
+        void aplicar(long id, String nombre, int stock, double precio, long version) {
+            int posicion = Arrays.binarySearch(ids, 0, tamano, id);
+            if (posicion >= 0) {
+                if (nombres[posicion] == null) {
+                    bajas--;
+                } else {
+                    stockTotal -= stocks[posicion];
+                }
+            } else {
+                posicion = -posicion - 1;
+                insertar(posicion);
+                ids[posicion] = id;
+            }
+            nombres[posicion] = nombre;
+            stocks[posicion] = stock;
+            precios[posicion] = precio;
+            versiones[posicion] = version;
+            stockTotal += stock;
+        }
+
+        void quitar(long id) {
+            int posicion = Arrays.binarySearch(ids, 0, tamano, id);
+            if (posicion >= 0 && nombres[posicion] != null) {
+                stockTotal -= stocks[posicion];
+                nombres[posicion] = null;
+                bajas++;
+            }
+        }
+
+        int vigentes() {
+            return tamano - bajas;
+        }
+
+        Producto producto(int fila) {
+            return new Producto(ids[fila], nombres[fila], stocks[fila], precios[fila], versiones[fila]);
+        }
+
+        boolean requiereCompactar() {
+            return bajas > 1024 && bajas > vigentes() / 4;
+        }
+
+        void compactar() {
+            int destino = 0;
+            for (int fila = 0; fila < tamano; fila++) {
+                if (nombres[fila] != null) {
+                    ids[destino] = ids[fila];
+                    stocks[destino] = stocks[fila];
+                    precios[destino] = precios[fila];
+                    versiones[destino] = versiones[fila];
+                    nombres[destino] = nombres[fila];
+                    destino++;
+                }
+            }
+            Arrays.fill(nombres, destino, tamano, null);
+            tamano = destino;
+            bajas = 0;
+        }
+
+        // Los IDs nuevos casi siempre son mayores que todos (se agregan al final); uno confirmado fuera de
+        // orden desplaza las filas siguientes
+        private void insertar(int posicion) {
+            if (tamano == ids.length) {
+                int capacidad = tamano * 2;
+                ids = Arrays.copyOf(ids, capacidad);
+                stocks = Arrays.copyOf(stocks, capacidad);
+                precios = Arrays.copyOf(precios, capacidad);
+                versiones = Arrays.copyOf(versiones, capacidad);
+                nombres = Arrays.copyOf(nombres, capacidad);
+            }
+            if (posicion < tamano) {
+                int mover = tamano - posicion;
+                System.arraycopy(ids, posicion, ids, posicion + 1, mover);
+                System.arraycopy(stocks, posicion, stocks, posicion + 1, mover);
+                System.arraycopy(precios, posicion, precios, posicion + 1, mover);
+                System.arraycopy(versiones, posicion, versiones, posicion + 1, mover);
+                System.arraycopy(nombres, posicion, nombres, posicion + 1, mover);
+            }
+            tamano++;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.perfulandia.inventario.service;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+
+/*
+ * Reintenta operaciones internas que fallan por conflicto de versión (@Version de Producto).
+ * Entre intentos espera un tiempo al azar entre 0 y base * 2^intento (con tope), así los hilos que
+ * chocaron sobre la misma fila no vuelven a chocar en el mismo instante. La operación debe releer
+ * el producto en cada intento. Cada reintento se cuenta en inventario.reintentos.
+ */
+@Service
+public class EjecutorReintentos {
+
+    private final int maxIntentos;
+    private final long esperaBaseMs;
+    private final long esperaMaximaMs;
+    private final MetricasInventarioService metricas;
+
+    public EjecutorReintentos(@Value("${inventario.reintentos.max-intentos:5}") int maxIntentos,
+                              @Value("${inventario.reintentos.espera-base-ms:10}") long esperaBaseMs,
+                              @Value("${inventario.reintentos.espera-max-ms:200}") long esperaMaximaMs,
+                              MetricasInventarioService metricas) {
+        if (maxIntentos < 1) {
+            throw new IllegalArgumentException("inventario.reintentos.max-intentos debe ser al menos 1");
+        }
+        this.maxIntentos = maxIntentos;
+        this.esperaBaseMs = esperaBaseMs;
+        this.esperaMaximaMs = esperaMaximaMs;
+        this.metricas = metricas;
+    }
+
+    public <T> T ejecutar(Supplier<T> operacion) {
+        for (int intento = 1; ; intento++) {
+            try {
+                return operacion.get();
+            } catch (OptimisticLockingFailureException e) {
+                if (intento >= maxIntentos) {
+                    throw e;
+                }
+                metricas.reintento();
+                esperar(intento);
+            }
+        }
+    }
+
+    public void ejecutar(Runnable operacion) {
+        ejecutar(() -> {
+            operacion.run();
+            return null;
+        });
+    }
+
+    private void esperar(int intento) {
+        long tope = Math.min(esperaMaximaMs, esperaBaseMs << Math.min(intento, 20));
+        if (tope <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(tope + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Reintento interrumpido", e);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.perfulandia.inventario.service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.perfulandia.inventario.repository.ProductoRepository;
+import com.perfulandia.inventario.repository.ResenaRepository;
+
+import jakarta.persistence.EntityManager;
+
+/*
+ * Exportación completa de productos y reseñas en NDJSON (un objeto JSON por línea).
+ * Las filas se leen con un cursor hacia adelante y se escriben en la salida a medida que llegan, sin
+ * armar listas: cada producto se desacopla del contexto de persistencia antes de escribirse y las
+ * reseñas se leen ya proyectadas, así la memoria usada no depende de cuántas filas haya.
+ */
+@Service
+public class ExportacionService {
+
+    private static final int BUFFER_SALIDA = 64 * 1024;
+
+    private final ProductoRepository productoRepository;
+    private final ResenaRepository resenaRepository;
+    private final StockCalienteService stockCaliente;
+    private final StockFragmentadoService stockFragmentado;
+    private final MovimientoStockService movimientos;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate lectura;
+
+    public ExportacionService(ProductoRepository productoRepository,
+                              ResenaRepository resenaRepository,
+                              StockCalienteService stockCaliente,
+                              StockFragmentadoService stockFragmentado,
+                              MovimientoStockService movimientos,
+                              EntityManager entityManager,
+                              ObjectMapper objectMapper,
+                              PlatformTransactionManager transactionManager) {
+        this.productoRepository = productoRepository;
+        this.resenaRepository = resenaRepository;
+        this.stockCaliente = stockCaliente;
+        this.stockFragmentado = stockFragmentado;
+        this.movimientos = movimientos;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.lectura = new TransactionTemplate(transactionManager);
+        this.lectura.setReadOnly(true);
+    }
+
+    /*
+     * Escribe todos los productos en orden de ID con su stock vigente y devuelve cuántos se exportaron.
+     * Con el diario de movimientos se compacta la cola antes de abrir el cursor, así producto.stock ya
+     * incluye lo pendiente sin consultar el diario fila por fila.
+     */
+    public long exportarProductos(OutputStream salida) throws IOException {
+        if (movimientos.isHabilitado()) {
+            movimientos.compactar();
+        }
+        return escribir(salida, () -> productoRepository.recorrerTodos().map(producto -> {
+            entityManager.detach(producto);
+            Integer vigente = stockGestionado(producto.getId());
+            if (vigente != null) {
+                producto.setStock(vigente);
+            }
+            return producto;
+        }));
+    }
+
+    public long exportarResenas(OutputStream salida) throws IOException {
+        return escribir(salida, resenaRepository::recorrerParaExportar);
+    }
+
+    private Integer stockGestionado(Long id) {
+        Integer enMemoria = stockCaliente.stockActual(id);
+        return enMemoria != null ? enMemoria : stockFragmentado.stockActual(id);
+    }
+
+    private <T> long escribir(OutputStream salida, Supplier<Stream<T>> filas) throws IOException {
+        OutputStream buffer = new BufferedOutputStream(salida, BUFFER_SALIDA);
+        try {
+            Long escritas = lectura.execute(status -> {
+                long total = 0;
+                try (Stream<T> cursor = filas.get()) {
+                    Iterator<T> it = cursor.iterator();
+                    while (it.hasNext()) {
+                        buffer.write(objectMapper.writeValueAsBytes(it.next()));
+                        buffer.write('\n');
+                        total++;
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return total;
+            });
+            buffer.flush();
+            return escritas;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
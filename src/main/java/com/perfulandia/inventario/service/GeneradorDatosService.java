@@ -0,0 +1,263 @@
+package com.perfulandia.inventario.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import net.datafaker.Faker;
+
+/*
+ * Genera un catálogo sintético de productos y reseñas con forma de producción, para pruebas de carga y
+ * benchmarks. Es determinista: la misma semilla, los mismos tamaños y el mismo lote dan las mismas filas
+ * con los mismos IDs (sobre las mismas tablas de partida), sin importar cuántos hilos escriban.
+ *
+ * - Precio log-normal (mediana $35.000, terminado en 990) y stock mezclado: una parte agotada, la mayoría
+ *   con pocas unidades y unos pocos con miles.
+ * - Reseñas por producto con ley de Zipf: los productos se ordenan al azar y el de puesto r recibe una parte
+ *   proporcional a 1 / r^s del total (redondeo acumulado, así la suma es exacta); las calificaciones
+ *   tienen la forma de J habitual (muchas de 5, luego de 1).
+ *
+ * Los productos se reparten en tramos de lote; cada tramo arma sus filas con su propio Random (semilla
+ * derivada de la general y del número de tramo) y las escribe con JDBC en lotes, en su propia transacción.
+ * Los IDs se asignan a partir del mayor existente. Al terminar se recalculan los agregados de reseñas y se
+ * avisa a las cachés e índices en memoria que relean todo.
+ */
+@Service
+public class GeneradorDatosService {
+
+    private static final String[] NOTAS = {
+        "Rosa", "Vainilla", "Oud", "Sándalo", "Bergamota", "Jazmín", "Ámbar", "Pachulí", "Cítrico", "Lavanda",
+        "Almizcle", "Cuero", "Iris", "Neroli", "Vetiver", "Tabaco", "Higo", "Coco", "Té Verde", "Azahar"
+    };
+    private static final String[] ESTILOS = {
+        "Noir", "Intense", "Blanc", "Sport", "Nuit", "Essence", "Absolu", "Légère", "Privé", "Royal", "Aqua", "Elixir"
+    };
+    private static final String[] CONCENTRACIONES = {"Eau de Parfum", "Eau de Toilette", "Parfum", "Eau de Cologne"};
+    private static final int[] MILILITROS = {30, 50, 75, 100, 125, 200};
+
+    private static final String[][] FRASES = {
+        {"Se evapora en menos de una hora.", "El aroma no se parece a la descripción.", "Llegó con el frasco roto.",
+            "Demasiado fuerte, me dio dolor de cabeza.", "No lo volvería a comprar."},
+        {"La duración es bastante pobre.", "El olor cambia mucho al secarse.", "Esperaba más por el precio.",
+            "Es muy dulce para mi gusto."},
+        {"Aroma agradable pero dura poco.", "Cumple, aunque nada especial.", "Bien para usar de día.",
+            "La salida es linda, el fondo no tanto."},
+        {"Muy buen aroma y buena duración.", "Lo uso para la oficina y me encanta.", "Buena relación precio calidad.",
+            "Notas frescas, ideal para el verano.", "Llegó rápido y bien embalado."},
+        {"Excelente, dura todo el día.", "Mi perfume favorito, ya voy en el tercer frasco.", "Me lo elogian siempre.",
+            "Aroma elegante y muy duradero.", "Perfecto para regalar.", "Intenso y sofisticado, vale cada peso."}
+    };
+    // Acumulado de la forma de J: 1 estrella 12 %, 2 estrellas 6 %, 3 estrellas 10 %, 4 estrellas 24 %, 5 estrellas 48 %
+    private static final double[] CALIFICACIONES_ACUMULADAS = {0.12, 0.18, 0.28, 0.52, 1.0};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaccion;
+    private final AgregadoResenaService agregados;
+    private final ApplicationEventPublisher eventos;
+    private final int lote;
+    private final int hilos;
+
+    public GeneradorDatosService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                 AgregadoResenaService agregados, ApplicationEventPublisher eventos,
+                                 @Value("${inventario.generador.lote:5000}") int lote,
+                                 @Value("${inventario.generador.hilos:0}") int hilos) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.agregados = agregados;
+        this.eventos = eventos;
+        this.lote = lote;
+        this.hilos = hilos > 0 ? hilos : Runtime.getRuntime().availableProcessors();
+    }
+
+    public record ResultadoGeneracion(int productos, long resenas, long primerIdProducto, long milisegundos) {
+    }
+
+    /* Inserta la cantidad pedida de productos y exactamente resenas reseñas, repartidas con exponente zipf */
+    public ResultadoGeneracion generar(int productos, long resenas, double zipf, long semilla) {
+        if (productos < 1 || resenas < 0 || zipf <= 0) {
+            throw new IllegalArgumentException("Se necesita al menos un producto, reseñas >= 0 y exponente > 0");
+        }
+        long inicio = System.currentTimeMillis();
+        long primerProducto = siguienteId("producto");
+        long primeraResena = siguienteId("resena");
+        long usuarios = Math.max(1000, resenas / 5);
+
+        int[] conteos = conteosPorProducto(productos, resenas, zipf, semilla);
+        int tramos = (productos + lote - 1) / lote;
+        long[] primeraResenaDelTramo = new long[tramos];
+        long acumulado = primeraResena;
+        for (int tramo = 0; tramo < tramos; tramo++) {
+            primeraResenaDelTramo[tramo] = acumulado;
+            for (int i = tramo * lote; i < Math.min(productos, (tramo + 1) * lote); i++) {
+                acumulado += conteos[i];
+            }
+        }
+
+        ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+        try {
+            List<Future<?>> pendientes = new ArrayList<>(tramos);
+            for (int tramo = 0; tramo < tramos; tramo++) {
+                int numero = tramo;
+                pendientes.add(ejecutor.submit(() -> transaccion.executeWithoutResult(status ->
+                    escribirTramo(numero, productos, primerProducto, primeraResenaDelTramo[numero], conteos, usuarios, semilla))));
+            }
+            for (Future<?> pendiente : pendientes) {
+                pendiente.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Generación interrumpida", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Falló la generación de un tramo", e.getCause());
+        } finally {
+            ejecutor.shutdownNow();
+        }
+
+        agregados.reconstruir();
+        eventos.publishEvent(ProductosModificadosEvento.todos());
+        eventos.publishEvent(ResenasModificadasEvento.todas());
+        return new ResultadoGeneracion(productos, resenas, primerProducto, System.currentTimeMillis() - inicio);
+    }
+
+    /*
+     * Reseñas de cada producto (por posición, 0 = primer producto generado). Los puestos de popularidad se
+     * reparten con un Fisher-Yates sembrado; el producto de puesto r recibe round(total * W(r) / W(n)) -
+     * round(total * W(r-1) / W(n)), con W(r) la suma de 1 / k^s para k hasta r.
+     */
+    private static int[] conteosPorProducto(int productos, long resenas, double zipf, long semilla) {
+        int[] puestos = new int[productos];
+        for (int i = 0; i < productos; i++) {
+            puestos[i] = i;
+        }
+        Random azar = new Random(semilla);
+        for (int i = productos - 1; i > 0; i--) {
+            int j = azar.nextInt(i + 1);
+            int temporal = puestos[i];
+            puestos[i] = puestos[j];
+            puestos[j] = temporal;
+        }
+
+        double total = 0;
+        for (int r = 1; r <= productos; r++) {
+            total += Math.pow(r, -zipf);
+        }
+        int[] porPuesto = new int[productos];
+        double peso = 0;
+        long asignadas = 0;
+        for (int r = 1; r <= productos; r++) {
+            peso += Math.pow(r, -zipf);
+            long hasta = r == productos ? resenas : Math.round(resenas * (peso / total));
+            porPuesto[r - 1] = (int) (hasta - asignadas);
+            asignadas = hasta;
+        }
+
+        int[] conteos = new int[productos];
+        for (int i = 0; i < productos; i++) {
+            conteos[i] = porPuesto[puestos[i]];
+        }
+        return conteos;
+    }
+
+    private void escribirTramo(int tramo, int productos, long primerProducto, long primeraResena,
+                               int[] conteos, long usuarios, long semilla) {
+        Random azar = new Random(semilla * 0x9E3779B97F4A7C15L + tramo);
+        Faker faker = new Faker(new Locale("es"), azar);
+        int desde = tramo * lote;
+        int hasta = Math.min(productos, desde + lote);
+
+        List<Object[]> filas = new ArrayList<>(hasta - desde);
+        for (int i = desde; i < hasta; i++) {
+            filas.add(new Object[] {primerProducto + i, nombre(faker, azar), stock(azar), precio(azar)});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO producto (id, nombre, stock, precio, version) VALUES (?, ?, ?, ?, 0)", filas);
+
+        filas.clear();
+        long idResena = primeraResena;
+        for (int i = desde; i < hasta; i++) {
+            for (int k = 0; k < conteos[i]; k++) {
+                int calificacion = calificacion(azar);
+                filas.add(new Object[] {idResena++, comentario(azar, calificacion), calificacion, primerProducto + i,
+                    1 + (long) (azar.nextDouble() * usuarios), faker.name().fullName()});
+                if (filas.size() == lote) {
+                    insertarResenas(filas);
+                }
+            }
+        }
+        insertarResenas(filas);
+    }
+
+    private void insertarResenas(List<Object[]> filas) {
+        if (!filas.isEmpty()) {
+            jdbcTemplate.batchUpdate(
+                "INSERT INTO resena (id, comentario, calificacion, id_producto, id_usuario, nombre_usuario) VALUES (?, ?, ?, ?, ?, ?)",
+                filas);
+            filas.clear();
+        }
+    }
+
+    private static String nombre(Faker faker, Random azar) {
+        return faker.name().lastName() + " " + NOTAS[azar.nextInt(NOTAS.length)] + " " + ESTILOS[azar.nextInt(ESTILOS.length)]
+            + " " + CONCENTRACIONES[azar.nextInt(CONCENTRACIONES.length)] + " " + MILILITROS[azar.nextInt(MILILITROS.length)] + " ml";
+    }
+
+    // 8 % agotado, la mayoría entre 1 y unas 200 unidades (exponencial de media 40) y 2 % de alto volumen
+    private static int stock(Random azar) {
+        double tipo = azar.nextDouble();
+        if (tipo < 0.08) {
+            return 0;
+        }
+        if (tipo > 0.98) {
+            return 1000 + azar.nextInt(9000);
+        }
+        return 1 + (int) Math.min(5000, -Math.log(1 - azar.nextDouble()) * 40);
+    }
+
+    // Log-normal con mediana 35.000 y sigma 0,6, acotado a [3.990, 499.990] y terminado en 990
+    private static double precio(Random azar) {
+        double precio = Math.exp(Math.log(35_000) + 0.6 * azar.nextGaussian());
+        precio = Math.max(3_000, Math.min(499_000, precio));
+        return Math.floor(precio / 1000) * 1000 + 990;
+    }
+
+    private static int calificacion(Random azar) {
+        double valor = azar.nextDouble();
+        for (int i = 0; i < CALIFICACIONES_ACUMULADAS.length; i++) {
+            if (valor < CALIFICACIONES_ACUMULADAS[i]) {
+                return i + 1;
+            }
+        }
+        return 5;
+    }
+
+    // Una a tres frases de la calificación, sin repetir
+    private static String comentario(Random azar, int calificacion) {
+        String[] frases = FRASES[calificacion - 1];
+        int cantidad = 1 + azar.nextInt(3);
+        int primera = azar.nextInt(frases.length);
+        StringBuilder texto = new StringBuilder();
+        for (int i = 0; i < cantidad && i < frases.length; i++) {
+            if (i > 0) {
+                texto.append(' ');
+            }
+            texto.append(frases[(primera + i) % frases.length]);
+        }
+        return texto.toString();
+    }
+
+    private long siguienteId(String tabla) {
+        Long mayor = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + tabla, Long.class);
+        return (mayor != null ? mayor : 0) + 1;
+    }
+}
@@ -0,0 +1,164 @@
+package com.perfulandia.inventario.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.perfulandia.inventario.model.RespuestaIdempotente;
+import com.perfulandia.inventario.repository.RespuestaIdempotenteRepository;
+
+/*
+ * Almacén de respuestas por Idempotency-Key.
+ * Las respuestas recientes viven en un LRU acotado en memoria (un reintento cuesta una búsqueda en
+ * un mapa); la tabla respuesta_idempotente es el respaldo para reintentos que llegan después de un
+ * reinicio o cuando la entrada ya salió del LRU. Mientras una clave se está procesando, los reintentos
+ * concurrentes esperan su resultado en vez de ejecutar la operación por segunda vez.
+ */
+@Service
+public class IdempotenciaService {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotenciaService.class);
+
+    private final RespuestaIdempotenteRepository repository;
+    private final int maxEntradas;
+    private final Duration ttl;
+    private final Duration esperaMaxima;
+
+    private final Map<String, RespuestaIdempotente> recientes;
+    private final Map<String, CompletableFuture<RespuestaIdempotente>> enCurso = new ConcurrentHashMap<>();
+
+    public IdempotenciaService(RespuestaIdempotenteRepository repository,
+                               @Value("${inventario.idempotencia.max-entradas:10000}") int maxEntradas,
+                               @Value("${inventario.idempotencia.ttl-segundos:86400}") long ttlSegundos,
+                               @Value("${inventario.idempotencia.espera-ms:10000}") long esperaMs) {
+        this.repository = repository;
+        this.maxEntradas = maxEntradas;
+        this.ttl = Duration.ofSeconds(ttlSegundos);
+        this.esperaMaxima = Duration.ofMillis(esperaMs);
+        // accessOrder = true: la entrada menos usada es la primera en salir cuando se supera el máximo
+        this.recientes = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, RespuestaIdempotente> eldest) {
+                return size() > IdempotenciaService.this.maxEntradas;
+            }
+        };
+    }
+
+    /* Respuesta guardada y vigente para la clave, primero en memoria y luego en la tabla */
+    public Optional<RespuestaIdempotente> buscar(String clave) {
+        synchronized (recientes) {
+            RespuestaIdempotente enMemoria = recientes.get(clave);
+            if (enMemoria != null) {
+                if (vigente(enMemoria)) {
+                    return Optional.of(enMemoria);
+                }
+                recientes.remove(clave);
+            }
+        }
+
+        Optional<RespuestaIdempotente> guardada = repository.findById(clave).filter(this::vigente);
+        guardada.ifPresent(this::recordar);
+        return guardada;
+    }
+
+    /*
+     * Reserva la clave para procesarla. Devuelve vacío si quien llama debe ejecutar la operación
+     * (y luego llamar a completar); si ya hay una respuesta, o la produce otro hilo mientras se espera,
+     * se devuelve esa respuesta para reproducirla.
+     */
+    public Optional<RespuestaIdempotente> reservar(String clave) {
+        while (true) {
+            Optional<RespuestaIdempotente> guardada = buscar(clave);
+            if (guardada.isPresent()) {
+                return guardada;
+            }
+
+            CompletableFuture<RespuestaIdempotente> propio = new CompletableFuture<>();
+            CompletableFuture<RespuestaIdempotente> ajeno = enCurso.putIfAbsent(clave, propio);
+            if (ajeno == null) {
+                return Optional.empty();
+            }
+
+            RespuestaIdempotente resultado = esperar(clave, ajeno);
+            if (resultado != null) {
+                return Optional.of(resultado);
+            }
+            // El otro intento terminó sin respuesta guardable (p. ej. un 5xx): se vuelve a competir por la clave
+        }
+    }
+
+    /* Libera la clave reservada; si hay respuesta se guarda y se entrega a los reintentos que esperaban */
+    public void completar(String clave, RespuestaIdempotente respuesta) {
+        try {
+            if (respuesta != null) {
+                recordar(respuesta);
+                try {
+                    repository.save(respuesta);
+                } catch (RuntimeException e) {
+                    // La respuesta sigue disponible en memoria; solo se pierde el respaldo tras un reinicio
+                    log.warn("No se pudo persistir la respuesta idempotente {}: {}", clave, e.getMessage());
+                }
+            }
+        } finally {
+            CompletableFuture<RespuestaIdempotente> reserva = enCurso.remove(clave);
+            if (reserva != null) {
+                reserva.complete(respuesta);
+            }
+        }
+    }
+
+    /* Barrido periódico de respuestas vencidas en memoria y en la tabla */
+    @Scheduled(fixedDelayString = "${inventario.idempotencia.barrido-ms:60000}")
+    public int purgarVencidas() {
+        synchronized (recientes) {
+            Iterator<RespuestaIdempotente> it = recientes.values().iterator();
+            while (it.hasNext()) {
+                if (!vigente(it.next())) {
+                    it.remove();
+                }
+            }
+        }
+        return repository.eliminarCreadasAntesDe(LocalDateTime.now().minus(ttl));
+    }
+
+    public int cantidadEnMemoria() {
+        synchronized (recientes) {
+            return recientes.size();
+        }
+    }
+
+    private void recordar(RespuestaIdempotente respuesta) {
+        synchronized (recientes) {
+            recientes.put(respuesta.getClave(), respuesta);
+        }
+    }
+
+    private boolean vigente(RespuestaIdempotente respuesta) {
+        return respuesta.getCreadaEn().plus(ttl).isAfter(LocalDateTime.now());
+    }
+
+    private RespuestaIdempotente esperar(String clave, CompletableFuture<RespuestaIdempotente> reserva) {
+        try {
+            return reserva.get(esperaMaxima.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Espera interrumpida para la Idempotency-Key " + clave, e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("La solicitud con Idempotency-Key " + clave + " sigue en proceso", e);
+        }
+    }
+}
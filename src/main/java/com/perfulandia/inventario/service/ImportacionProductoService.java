@@ -0,0 +1,326 @@
+package com.perfulandia.inventario.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.perfulandia.inventario.dto.ErrorImportacion;
+import com.perfulandia.inventario.dto.FilaImportacion;
+import com.perfulandia.inventario.dto.ResultadoImportacion;
+import com.perfulandia.inventario.model.Producto;
+
+/*
+ * Importación masiva del catálogo desde CSV o NDJSON.
+ * El archivo se lee línea a línea desde el cuerpo de la solicitud (no se carga entero en memoria) y las
+ * filas válidas se escriben en lotes con JDBC batch, cada lote en su propia transacción. Los productos
+ * se identifican por nombre: si ya existe se actualizan stock y precio, si no se inserta. El ID lo sigue
+ * asignando la base (IDENTITY): el lote no necesita las claves generadas, así que el INSERT se envía en
+ * batch igual; lo que IDENTITY impide es el batching de Hibernate, que aquí no se usa.
+ */
+@Service
+public class ImportacionProductoService {
+
+    public enum Formato { CSV, NDJSON }
+
+    private static final int LARGO_MAXIMO_NOMBRE = 255;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transaccion;
+    private final ProductoService productoService;
+    private final StockCalienteService stockCaliente;
+    private final StockFragmentadoService stockFragmentado;
+    private final MovimientoStockService movimientos;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventos;
+    private final int lote;
+    private final int maxErrores;
+
+    public ImportacionProductoService(JdbcTemplate jdbcTemplate,
+                                      PlatformTransactionManager transactionManager,
+                                      ProductoService productoService,
+                                      StockCalienteService stockCaliente,
+                                      StockFragmentadoService stockFragmentado,
+                                      MovimientoStockService movimientos,
+                                      ObjectMapper objectMapper,
+                                      ApplicationEventPublisher eventos,
+                                      @Value("${inventario.importacion.lote:1000}") int lote,
+                                      @Value("${inventario.importacion.max-errores:1000}") int maxErrores) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.productoService = productoService;
+        this.stockCaliente = stockCaliente;
+        this.stockFragmentado = stockFragmentado;
+        this.movimientos = movimientos;
+        this.objectMapper = objectMapper;
+        this.eventos = eventos;
+        this.lote = lote;
+        this.maxErrores = maxErrores;
+    }
+
+    /* Lee el archivo completo y devuelve el resumen; solo un CSV sin encabezado válido rechaza la importación entera */
+    public ResultadoImportacion importar(InputStream entrada, Formato formato) {
+        ResultadoImportacion resultado = new ResultadoImportacion();
+        List<FilaPendiente> pendientes = new ArrayList<>(lote);
+        try (BufferedReader lector = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8))) {
+            Map<String, Integer> columnas = null;
+            String linea;
+            long numero = 0;
+            while ((linea = lector.readLine()) != null) {
+                numero++;
+                if (numero == 1 && linea.startsWith("\uFEFF")) {
+                    linea = linea.substring(1); // BOM de archivos exportados desde planillas
+                }
+                if (linea.isBlank()) {
+                    continue;
+                }
+                if (formato == Formato.CSV && columnas == null) {
+                    columnas = leerEncabezado(linea);
+                    continue;
+                }
+
+                resultado.setProcesadas(resultado.getProcesadas() + 1);
+                try {
+                    FilaImportacion fila = formato == Formato.CSV ? leerCsv(linea, columnas) : leerNdjson(linea);
+                    validar(fila);
+                    pendientes.add(new FilaPendiente(numero, fila, null));
+                } catch (IllegalArgumentException e) {
+                    rechazar(resultado, numero, e.getMessage());
+                }
+                if (pendientes.size() >= lote) {
+                    escribirLote(pendientes, resultado);
+                    pendientes.clear();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer el archivo de importación", e);
+        }
+        if (!pendientes.isEmpty()) {
+            escribirLote(pendientes, resultado);
+        }
+        return resultado;
+    }
+
+    /*
+     * Escribe un lote: busca por nombre los productos existentes, actualiza esos y agrega el resto.
+     * Si un nombre se repite dentro del lote gana la última fila. Los productos cuyo stock se lleva
+     * fuera de producto.stock (caliente, fragmentado o diario) se actualizan uno a uno por ProductoService,
+     * que aplica la diferencia como ajuste en vez de pisar la columna. El archivo manda sobre el stock, igual
+     * que el UPDATE del lote: se pasa como precondición el ETag vigente, y si una rebaja entra entre medio la
+     * fila se rechaza en vez de calcular la diferencia sobre un stock viejo.
+     */
+    private void escribirLote(List<FilaPendiente> pendientes, ResultadoImportacion resultado) {
+        Map<String, FilaPendiente> porNombre = new LinkedHashMap<>();
+        for (FilaPendiente pendiente : pendientes) {
+            if (porNombre.put(pendiente.fila().getNombre(), pendiente) != null) {
+                resultado.setActualizadas(resultado.getActualizadas() + 1); // reemplazada por una fila posterior
+            }
+        }
+
+        List<Object[]> actualizaciones = new ArrayList<>();
+        List<Object[]> inserciones = new ArrayList<>();
+        List<FilaPendiente> conStockGestionado = new ArrayList<>();
+        try {
+            transaccion.executeWithoutResult(status -> {
+                Map<String, List<Long>> existentes = buscarPorNombre(porNombre.keySet());
+                for (FilaPendiente pendiente : porNombre.values()) {
+                    FilaImportacion fila = pendiente.fila();
+                    List<Long> ids = existentes.get(fila.getNombre());
+                    if (ids == null) {
+                        inserciones.add(new Object[] {fila.getNombre(), fila.getStock(), fila.getPrecio()});
+                        continue;
+                    }
+                    for (Long id : ids) {
+                        if (stockGestionado(id)) {
+                            conStockGestionado.add(new FilaPendiente(pendiente.linea(), fila, id));
+                        } else {
+                            actualizaciones.add(new Object[] {fila.getStock(), fila.getPrecio(), id});
+                        }
+                    }
+                }
+                jdbcTemplate.batchUpdate("UPDATE producto SET stock = ?, precio = ?, version = version + 1 WHERE id = ?",
+                    actualizaciones);
+                jdbcTemplate.batchUpdate("INSERT INTO producto (nombre, stock, precio, version) VALUES (?, ?, ?, 0)",
+                    inserciones);
+                List<Long> modificados = new ArrayList<>(actualizaciones.stream().map(fila -> (Long) fila[2]).toList());
+                if (!inserciones.isEmpty()) {
+                    // El batch no devuelve las claves generadas: se leen por nombre (indexado) para avisar las altas
+                    List<String> nombres = inserciones.stream().map(fila -> (String) fila[0]).toList();
+                    buscarPorNombre(nombres).values().forEach(modificados::addAll);
+                }
+                eventos.publishEvent(new ProductosModificadosEvento(modificados));
+            });
+        } catch (RuntimeException e) {
+            // El lote se revirtió completo: se informan todas sus filas
+            for (FilaPendiente pendiente : porNombre.values()) {
+                rechazar(resultado, pendiente.linea(), "Error al escribir el lote: " + e.getMessage());
+            }
+            return;
+        }
+        resultado.setInsertadas(resultado.getInsertadas() + inserciones.size());
+        resultado.setActualizadas(resultado.getActualizadas() + porNombre.size() - inserciones.size());
+
+        for (FilaPendiente pendiente : conStockGestionado) {
+            FilaImportacion fila = pendiente.fila();
+            try {
+                productoService.actualizar(pendiente.id(),
+                    new Producto(pendiente.id(), fila.getNombre(), fila.getStock(), fila.getPrecio()), null,
+                    productoService.etiquetaPorId(pendiente.id()));
+            } catch (RuntimeException e) {
+                resultado.setActualizadas(resultado.getActualizadas() - 1);
+                rechazar(resultado, pendiente.linea(), "No se pudo actualizar el producto " + pendiente.id() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private Map<String, List<Long>> buscarPorNombre(Collection<String> nombres) {
+        Map<String, List<Long>> existentes = new HashMap<>();
+        namedJdbcTemplate.query("SELECT id, nombre FROM producto WHERE nombre IN (:nombres)",
+            Map.of("nombres", nombres),
+            fila -> {
+                existentes.computeIfAbsent(fila.getString("nombre"), n -> new ArrayList<>()).add(fila.getLong("id"));
+            });
+        return existentes;
+    }
+
+    private boolean stockGestionado(Long id) {
+        return stockCaliente.gestiona(id) || stockFragmentado.gestiona(id) || movimientos.isHabilitado();
+    }
+
+    private void rechazar(ResultadoImportacion resultado, long linea, String motivo) {
+        resultado.setRechazadas(resultado.getRechazadas() + 1);
+        if (resultado.getErrores().size() < maxErrores) {
+            resultado.getErrores().add(new ErrorImportacion(linea, motivo));
+        }
+    }
+
+    /* Ubica las columnas nombre, stock y precio en cualquier orden; otras columnas se ignoran */
+    private static Map<String, Integer> leerEncabezado(String linea) {
+        Map<String, Integer> columnas = new HashMap<>();
+        List<String> campos = separarCsv(linea);
+        for (int i = 0; i < campos.size(); i++) {
+            columnas.put(campos.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String requerida : List.of("nombre", "stock", "precio")) {
+            if (!columnas.containsKey(requerida)) {
+                throw new IllegalArgumentException("El encabezado del CSV debe incluir las columnas nombre, stock y precio");
+            }
+        }
+        return columnas;
+    }
+
+    private static FilaImportacion leerCsv(String linea, Map<String, Integer> columnas) {
+        List<String> campos = separarCsv(linea);
+        return new FilaImportacion(
+            campo(campos, columnas.get("nombre")),
+            entero(campo(campos, columnas.get("stock"))),
+            decimal(campo(campos, columnas.get("precio"))));
+    }
+
+    private FilaImportacion leerNdjson(String linea) {
+        try {
+            return objectMapper.readValue(linea, FilaImportacion.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("JSON inválido: " + e.getOriginalMessage());
+        }
+    }
+
+    private static void validar(FilaImportacion fila) {
+        if (fila.getNombre() == null || fila.getNombre().isBlank()) {
+            throw new IllegalArgumentException("El nombre es obligatorio");
+        }
+        fila.setNombre(fila.getNombre().trim());
+        if (fila.getNombre().length() > LARGO_MAXIMO_NOMBRE) {
+            throw new IllegalArgumentException("El nombre supera los " + LARGO_MAXIMO_NOMBRE + " caracteres");
+        }
+        if (fila.getStock() == null || fila.getStock() < 0) {
+            throw new IllegalArgumentException("El stock es obligatorio y no puede ser negativo");
+        }
+        if (fila.getPrecio() == null || fila.getPrecio() < 0 || fila.getPrecio().isNaN() || fila.getPrecio().isInfinite()) {
+            throw new IllegalArgumentException("El precio es obligatorio y no puede ser negativo");
+        }
+    }
+
+    private static String campo(List<String> campos, int indice) {
+        return indice < campos.size() ? campos.get(indice) : null;
+    }
+
+    private static Integer entero(String valor) {
+        if (valor == null || valor.isBlank()) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(valor.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Stock inválido: " + valor);
+        }
+    }
+
+    private static Double decimal(String valor) {
+        if (valor == null || valor.isBlank()) {
+            return null;
+        }
+        try {
+            return Double.valueOf(valor.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Precio inválido: " + valor);
+        }
+    }
+
+    /* Separa una línea CSV por comas respetando comillas dobles ("" dentro de un campo es una comilla) */
+    static List<String> separarCsv(String linea) {
+        List<String> campos = new ArrayList<>();
+        StringBuilder actual = new StringBuilder();
+        boolean entreComillas = false;
+        for (int i = 0; i < linea.length(); i++) {
+            char c = linea.charAt(i);
+            if (entreComillas) {
+                if (c == '"' && i + 1 < linea.length() && linea.charAt(i + 1) == '"') {
+                    actual.append('"');
+                    i++;
+                } else if (c == '"') {
+                    entreComillas = false;
+                } else {
+                    actual.append(c);
+                }
+            } else if (c == '"') {
+                entreComillas = true;
+            } else if (c == ',') {
+                campos.add(actual.toString());
+                actual.setLength(0);
+            } else {
+                actual.append(c);
+            }
+        }
+        if (entreComillas) {
+            throw new IllegalArgumentException("Comillas sin cerrar");
+        }
+        campos.add(actual.toString());
+        return campos;
+    }
+
+    /* Fila válida a la espera de su lote; id se completa cuando ya existe un producto con ese nombre */
+    private record FilaPendiente(long linea, FilaImportacion fila, Long id) {
+    }
+}
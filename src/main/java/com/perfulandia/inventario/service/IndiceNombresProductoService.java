@@ -0,0 +1,423 @@
+package com.perfulandia.inventario.service;
+
+import java.sql.PreparedStatement;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import jakarta.annotation.PostConstruct;
+
+/*
+ * Índice en memoria de trigramas sobre producto.nombre para /buscar.
+ * Los nombres se normalizan (minúsculas, sin tildes, solo letras y dígitos) y cada palabra se parte en
+ * trigramas con relleno ("  rosa " -> "  r", " ro", "ros", "osa", "sa "); cada trigrama apunta a la lista
+ * ordenada de productos que lo contienen. Una consulta coincide con un nombre si comparte al menos
+ * umbral * (trigramas de la consulta), lo que tolera errores de tipeo y fragmentos de palabra; la última
+ * palabra de la consulta vale como prefijo. Por palomar, un nombre que cumple el umbral aparece en alguna
+ * de las listas más cortas, así que solo esas se recorren para juntar candidatos.
+ *
+ * Se carga entero al arrancar y se mantiene con ProductosModificadosEvento después de cada commit,
+ * releyendo nombre y versión de los productos avisados (una versión menor a la indexada se ignora).
+ * Un cambio de nombre deja la entrada anterior como baja; cuando las bajas pasan de un cuarto de las
+ * vigentes el índice se reconstruye desde memoria.
+ */
+@Service
+public class IndiceNombresProductoService {
+
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int LOTE_LECTURA = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final double umbral;
+    private final ReentrantReadWriteLock candado = new ReentrantReadWriteLock();
+
+    private Indice indice = new Indice();
+
+    public IndiceNombresProductoService(JdbcTemplate jdbcTemplate,
+                                        @Value("${inventario.busqueda.umbral:0.4}") double umbral) {
+        if (umbral <= 0 || umbral > 1) {
+            throw new IllegalArgumentException("inventario.busqueda.umbral debe estar entre 0 (excluido) y 1");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.umbral = umbral;
+    }
+
+    /* Carga el índice completo desde la tabla y lo reemplaza; las búsquedas siguen sobre el anterior mientras tanto */
+    @PostConstruct
+    public void recargar() {
+        Indice nuevo = new Indice();
+        jdbcTemplate.query(conexion -> {
+                PreparedStatement consulta = conexion.prepareStatement("SELECT id, nombre, version FROM producto");
+                consulta.setFetchSize(LOTE_LECTURA); // recorre toda la tabla: de a tramos, no entera en memoria
+                return consulta;
+            },
+            fila -> {
+                nuevo.indexar(fila.getLong("id"), fila.getString("nombre"), fila.getLong("version"));
+            });
+        nuevo.recortar();
+        candado.writeLock().lock();
+        try {
+            indice = nuevo;
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    /* IDs de hasta limite productos cuyo nombre coincide con el texto, del más al menos relevante */
+    public List<Long> buscar(String texto, int limite) {
+        candado.readLock().lock();
+        try {
+            return indice.buscar(normalizar(texto), limite, umbral);
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    public void indexar(long id, String nombre, long version) {
+        candado.writeLock().lock();
+        try {
+            indice.indexar(id, nombre, version);
+            compactarSiConviene();
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    public void quitar(long id) {
+        candado.writeLock().lock();
+        try {
+            indice.quitar(id);
+            compactarSiConviene();
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    public int tamano() {
+        candado.readLock().lock();
+        try {
+            return indice.vigentes();
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void sincronizar(ProductosModificadosEvento evento) {
+        if (evento.soloStock()) {
+            return;
+        }
+        if (evento.ids() == null) {
+            recargar();
+            return;
+        }
+        List<Long> ids = List.copyOf(evento.ids());
+        for (int desde = 0; desde < ids.size(); desde += LOTE_LECTURA) {
+            List<Long> tramo = ids.subList(desde, Math.min(desde + LOTE_LECTURA, ids.size()));
+            Map<Long, Object[]> leidas = new HashMap<>();
+            namedJdbcTemplate.query("SELECT id, nombre, version FROM producto WHERE id IN (:ids)",
+                Map.of("ids", tramo),
+                fila -> {
+                    leidas.put(fila.getLong("id"), new Object[] {fila.getString("nombre"), fila.getLong("version")});
+                });
+            candado.writeLock().lock();
+            try {
+                for (Long id : tramo) {
+                    Object[] fila = leidas.get(id);
+                    if (fila == null) {
+                        indice.quitar(id); // se eliminó
+                    } else {
+                        indice.indexar(id, (String) fila[0], (Long) fila[1]);
+                    }
+                }
+                compactarSiConviene();
+            } finally {
+                candado.writeLock().unlock();
+            }
+        }
+    }
+
+    /* Minúsculas, sin tildes ni diéresis y con cualquier otro carácter convertido en un espacio */
+    public static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String sinMarcas = MARCAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return SEPARADORES.matcher(sinMarcas.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    // Se llama con el candado de escritura tomado
+    private void compactarSiConviene() {
+        if (indice.requiereCompactar()) {
+            indice = indice.compactado();
+            indice.recortar();
+        }
+    }
+
+    /* Trigramas distintos del texto normalizado, ordenados; con prefijo la última palabra no lleva relleno final */
+    private static long[] trigramas(String normalizado, boolean prefijo) {
+        if (normalizado.isEmpty()) {
+            return new long[0];
+        }
+        String[] palabras = normalizado.split(" ");
+        long[] codigos = new long[normalizado.length() + 3 * palabras.length];
+        int cantidad = 0;
+        for (int p = 0; p < palabras.length; p++) {
+            String relleno = "  " + palabras[p] + (prefijo && p == palabras.length - 1 ? "" : " ");
+            for (int i = 0; i + 3 <= relleno.length(); i++) {
+                codigos[cantidad++] = ((long) relleno.charAt(i) << 32) | ((long) relleno.charAt(i + 1) << 16) | relleno.charAt(i + 2);
+            }
+        }
+        Arrays.sort(codigos, 0, cantidad);
+        int distintos = 0;
+        for (int i = 0; i < cantidad; i++) {
+            if (distintos == 0 || codigos[distintos - 1] != codigos[i]) {
+                codigos[distintos++] = codigos[i];
+            }
+        }
+        return Arrays.copyOf(codigos, distintos);
+    }
+
+    /* Lista de entradas (posiciones) que contienen un trigrama; se agregan en orden creciente */
+    private static final class Lista {
+
+        private int[] entradas = new int[4];
+        private int tamano;
+
+        void agregar(int entrada) {
+            if (tamano == entradas.length) {
+                entradas = Arrays.copyOf(entradas, Math.max(4, tamano * 2));
+            }
+            entradas[tamano++] = entrada;
+        }
+
+        /* Primera posición desde la dada cuyo valor es >= objetivo: salto exponencial y luego búsqueda binaria */
+        int avanzar(int desde, int objetivo) {
+            int salto = 1;
+            int hasta = desde;
+            while (hasta < tamano && entradas[hasta] < objetivo) {
+                desde = hasta + 1;
+                hasta += salto;
+                salto <<= 1;
+            }
+            int posicion = Arrays.binarySearch(entradas, desde, Math.min(hasta + 1, tamano), objetivo);
+            return posicion >= 0 ? posicion : -posicion - 1;
+        }
+    }
+
+    private static final Lista VACIA = new Lista();
+
+    private record Resultado(long id, double cobertura, boolean contiene, double similitud) { }
+
+    // Primero más trigramas de la consulta presentes, luego los nombres que contienen la consulta tal
+    // cual, luego los más parecidos en largo (menos trigramas sobrantes), y por último el ID
+    private static final Comparator<Resultado> RELEVANCIA = (a, b) -> {
+        int orden = Double.compare(b.cobertura(), a.cobertura());
+        if (orden == 0) {
+            orden = Boolean.compare(b.contiene(), a.contiene());
+        }
+        if (orden == 0) {
+            orden = Double.compare(b.similitud(), a.similitud());
+        }
+        return orden != 0 ? orden : Long.compare(a.id(), b.id());
+    };
+
+    /*
+     * Estructura del índice, sin sincronización propia. Cada nombre indexado ocupa una entrada nueva
+     * (posición en los arreglos); un producto renombrado o eliminado deja su entrada como baja (nombre
+     * null) y las listas la siguen apuntando hasta la próxima compactación.
+     */
+    private static final class Indice {
+
+        private long[] ids = new long[1024];
+        private long[] versiones = new long[1024];
+        private String[] nombres = new String[1024];
+        private int[] cantidadTrigramas = new int[1024];
+        private int entradas;
+        private int bajas;
+        private final Map<Long, Integer> entradaPorId = new HashMap<>();
+        private final Map<Long, Lista> listas = new HashMap<>();
+
+        void indexar(long id, String nombre, long version) {
+            String normalizado = normalizar(nombre);
+            Integer actual = entradaPorId.get(id);
+            if (actual != null) {
+                if (versiones[actual] > version) {
+                    return; // llegó tarde una lectura anterior a la ya indexada
+                }
+                versiones[actual] = version;
+                if (nombres[actual].equals(normalizado)) {
+                    return;
+                }
+                darDeBaja(actual);
+            }
+            int entrada = nuevaEntrada();
+            ids[entrada] = id;
+            versiones[entrada] = version;
+            nombres[entrada] = normalizado;
+            long[] codigos = trigramas(normalizado, false);
+            cantidadTrigramas[entrada] = codigos.length;
+            for (long codigo : codigos) {
+                listas.computeIfAbsent(codigo, c -> new Lista()).agregar(entrada);
+            }
+            entradaPorId.put(id, entrada);
+        }
+
+        void quitar(long id) {
+            Integer actual = entradaPorId.remove(id);
+            if (actual != null) {
+                darDeBaja(actual);
+            }
+        }
+
+        int vigentes() {
+            return entradas - bajas;
+        }
+
+        /* Ajusta las listas a su tamaño después de una carga completa (crecen al doble al llenarse) */
+        void recortar() {
+            for (Lista lista : listas.values()) {
+                lista.entradas = Arrays.copyOf(lista.entradas, lista.tamano);
+            }
+        }
+
+        boolean requiereCompactar() {
+            return bajas > 1024 && bajas > vigentes() / 4;
+        }
+
+        Indice compactado() {
+            Indice nuevo = new Indice();
+            for (int entrada = 0; entrada < entradas; entrada++) {
+                if (nombres[entrada] != null) {
+                    nuevo.indexar(ids[entrada], nombres[entrada], versiones[entrada]);
+                }
+            }
+            return nuevo;
+        }
+
+        /*
+         * Busca por niveles: primero los nombres que tienen todos los trigramas de la consulta, luego la
+         * mitad del camino hasta el umbral y por último el umbral. Como la relevancia ordena primero por
+         * trigramas compartidos, si un nivel ya junta limite resultados los niveles más permisivos no
+         * pueden desplazarlos y no se recorren; las consultas generales terminan en el primer nivel, que
+         * solo mira la lista más corta.
+         */
+        List<Long> buscar(String consulta, int limite, double umbral) {
+            long[] codigos = trigramas(consulta, true);
+            if (codigos.length == 0 || limite <= 0) {
+                return List.of();
+            }
+            Lista[] porTrigrama = new Lista[codigos.length];
+            for (int i = 0; i < codigos.length; i++) {
+                porTrigrama[i] = listas.getOrDefault(codigos[i], VACIA);
+            }
+            Arrays.sort(porTrigrama, Comparator.comparingInt(lista -> lista.tamano));
+
+            int total = codigos.length;
+            int minimo = Math.max(1, (int) Math.ceil(total * umbral));
+            PriorityQueue<Resultado> mejores = null;
+            int anterior = 0;
+            for (int nivel : new int[] {total, (total + minimo) / 2, minimo}) {
+                if (nivel == anterior) {
+                    continue;
+                }
+                anterior = nivel;
+                mejores = new PriorityQueue<>(RELEVANCIA.reversed());
+                if (recorrer(porTrigrama, consulta, nivel, limite, mejores) >= limite) {
+                    break;
+                }
+            }
+            List<Resultado> ordenados = new ArrayList<>(mejores);
+            ordenados.sort(RELEVANCIA);
+            return ordenados.stream().map(Resultado::id).toList();
+        }
+
+        /*
+         * Junta en mejores los limite nombres más relevantes que comparten al menos minimo trigramas y
+         * devuelve cuántos lo cumplen. Los candidatos salen, en orden creciente, de la unión de las
+         * listas más cortas (por palomar alcanza con total - minimo + 1 de ellas); en las demás se avanza
+         * un cursor que nunca retrocede, así cada lista se recorre a lo sumo una vez por nivel.
+         */
+        private int recorrer(Lista[] porTrigrama, String consulta, int minimo, int limite, PriorityQueue<Resultado> mejores) {
+            int total = porTrigrama.length;
+            int fuentes = total - minimo + 1;
+            int[] cursores = new int[total];
+            int encontrados = 0;
+            while (true) {
+                int entrada = Integer.MAX_VALUE;
+                for (int i = 0; i < fuentes; i++) {
+                    if (cursores[i] < porTrigrama[i].tamano) {
+                        entrada = Math.min(entrada, porTrigrama[i].entradas[cursores[i]]);
+                    }
+                }
+                if (entrada == Integer.MAX_VALUE) {
+                    return encontrados;
+                }
+                int compartidos = 0;
+                for (int i = 0; i < fuentes; i++) {
+                    if (cursores[i] < porTrigrama[i].tamano && porTrigrama[i].entradas[cursores[i]] == entrada) {
+                        compartidos++;
+                        cursores[i]++;
+                    }
+                }
+                for (int i = fuentes; i < total && compartidos + (total - i) >= minimo; i++) {
+                    cursores[i] = porTrigrama[i].avanzar(cursores[i], entrada);
+                    if (cursores[i] < porTrigrama[i].tamano && porTrigrama[i].entradas[cursores[i]] == entrada) {
+                        compartidos++;
+                    }
+                }
+                if (compartidos < minimo || nombres[entrada] == null) {
+                    continue;
+                }
+                encontrados++;
+                double cobertura = (double) compartidos / total;
+                double similitud = (double) compartidos / (total + cantidadTrigramas[entrada] - compartidos);
+                // Si ni conteniendo la consulta supera al peor de los que ya están, no hace falta mirar el nombre
+                if (mejores.size() == limite
+                        && RELEVANCIA.compare(new Resultado(ids[entrada], cobertura, true, similitud), mejores.peek()) >= 0) {
+                    continue;
+                }
+                Resultado resultado = new Resultado(ids[entrada], cobertura, nombres[entrada].contains(consulta), similitud);
+                if (mejores.size() < limite) {
+                    mejores.add(resultado);
+                } else if (RELEVANCIA.compare(resultado, mejores.peek()) < 0) {
+                    mejores.poll();
+                    mejores.add(resultado);
+                }
+            }
+        }
+
+        private void darDeBaja(int entrada) {
+            nombres[entrada] = null;
+            bajas++;
+        }
+
+        private int nuevaEntrada() {
+            if (entradas == ids.length) {
+                int capacidad = entradas * 2;
+                ids = Arrays.copyOf(ids, capacidad);
+                versiones = Arrays.copyOf(versiones, capacidad);
+                nombres = Arrays.copyOf(nombres, capacidad);
+                cantidadTrigramas = Arrays.copyOf(cantidadTrigramas, capacidad);
+            }
+            return entradas++;
+        }
+    }
+}
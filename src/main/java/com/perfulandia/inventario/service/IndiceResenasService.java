@@ -0,0 +1,468 @@
+package com.perfulandia.inventario.service;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import jakarta.annotation.PostConstruct;
+
+/*
+ * Índice invertido en memoria sobre resena.comentario para /api/v2/resenas/buscar.
+ * Los comentarios se normalizan como los nombres de producto (minúsculas, sin tildes), se descartan las
+ * palabras vacías del castellano y cada palabra se reduce con un stemmer liviano (plural y género:
+ * "duraciones" -> "duracion", "perfectas" -> "perfect"). Cada término apunta a la lista ordenada de
+ * entradas que lo contienen, con su frecuencia; el puntaje es BM25 (k1 = 1.2, b = 0.75) y los filtros
+ * por producto y calificación se aplican al recorrer las listas, sin cambiar las estadísticas del corpus.
+ *
+ * Se carga entero al arrancar y se mantiene con ResenasModificadasEvento después de cada commit,
+ * releyendo las reseñas avisadas. Lectura y aplicación de un aviso van en serie, así una relectura
+ * anterior no puede pisar a una posterior. Como en el índice de nombres, una reseña editada o eliminada
+ * deja su entrada como baja hasta que las bajas pasan de un cuarto de las vigentes.
+ */
+@Service
+public class IndiceResenasService {
+
+    private static final int LOTE_LECTURA = 1000;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private static final Set<String> PALABRAS_VACIAS = Set.of(
+        "a", "al", "algo", "ante", "asi", "aun", "cada", "como", "con", "contra", "cual", "cuando", "de", "del",
+        "desde", "donde", "e", "el", "ella", "ellas", "ellos", "en", "entre", "era", "es", "esa", "ese", "eso",
+        "esta", "estas", "este", "esto", "estos", "fue", "ha", "han", "hay", "he", "la", "las", "le", "les",
+        "lo", "los", "me", "mi", "mis", "mucho", "muy", "ni", "no", "nos", "o", "otra", "otro", "para", "pero",
+        "poco", "por", "porque", "que", "se", "si", "sin", "sobre", "son", "su", "sus", "te", "tiene", "todo",
+        "tu", "un", "una", "uno", "unos", "ya", "y", "yo");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final ReentrantReadWriteLock candado = new ReentrantReadWriteLock();
+    private final Object sincronizacion = new Object();
+
+    private Indice indice = new Indice();
+
+    public IndiceResenasService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    }
+
+    /* Reseña encontrada con su puntaje BM25 */
+    public record Coincidencia(long id, double puntaje) { }
+
+    /* Carga el índice completo desde la tabla y lo reemplaza; las búsquedas siguen sobre el anterior mientras tanto */
+    @PostConstruct
+    public void recargar() {
+        synchronized (sincronizacion) {
+            Indice nuevo = new Indice();
+            jdbcTemplate.query(conexion -> {
+                    PreparedStatement consulta = conexion.prepareStatement(
+                        "SELECT id, comentario, calificacion, id_producto FROM resena");
+                    consulta.setFetchSize(LOTE_LECTURA); // recorre toda la tabla: de a tramos, no entera en memoria
+                    return consulta;
+                },
+                fila -> {
+                    nuevo.indexar(fila.getLong("id"), fila.getString("comentario"),
+                        fila.getInt("calificacion"), fila.getLong("id_producto"));
+                });
+            nuevo.recortar();
+            candado.writeLock().lock();
+            try {
+                indice = nuevo;
+            } finally {
+                candado.writeLock().unlock();
+            }
+        }
+    }
+
+    /*
+     * Hasta limite reseñas cuyo comentario tiene alguno de los términos del texto, de mayor a menor
+     * puntaje; idProducto y calificacion (null = sin filtro) restringen los resultados
+     */
+    public List<Coincidencia> buscar(String texto, Long idProducto, Integer calificacion, int limite) {
+        Map<String, Integer> terminos = terminos(texto);
+        candado.readLock().lock();
+        try {
+            return indice.buscar(terminos.keySet(), idProducto, calificacion, limite);
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    public void indexar(long id, String comentario, int calificacion, long idProducto) {
+        candado.writeLock().lock();
+        try {
+            indice.indexar(id, comentario, calificacion, idProducto);
+            compactarSiConviene();
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    public void quitar(long id) {
+        candado.writeLock().lock();
+        try {
+            indice.quitar(id);
+            compactarSiConviene();
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    public int tamano() {
+        candado.readLock().lock();
+        try {
+            return indice.vigentes();
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void sincronizar(ResenasModificadasEvento evento) {
+        if (evento.ids() == null) {
+            recargar();
+            return;
+        }
+        synchronized (sincronizacion) {
+            List<Long> ids = List.copyOf(evento.ids());
+            for (int desde = 0; desde < ids.size(); desde += LOTE_LECTURA) {
+                List<Long> tramo = ids.subList(desde, Math.min(desde + LOTE_LECTURA, ids.size()));
+                Map<Long, Object[]> leidas = new HashMap<>();
+                namedJdbcTemplate.query("SELECT id, comentario, calificacion, id_producto FROM resena WHERE id IN (:ids)",
+                    Map.of("ids", tramo),
+                    fila -> {
+                        leidas.put(fila.getLong("id"), new Object[] {
+                            fila.getString("comentario"), fila.getInt("calificacion"), fila.getLong("id_producto")});
+                    });
+                candado.writeLock().lock();
+                try {
+                    for (Long id : tramo) {
+                        Object[] fila = leidas.get(id);
+                        if (fila == null) {
+                            indice.quitar(id); // se eliminó
+                        } else {
+                            indice.indexar(id, (String) fila[0], (Integer) fila[1], (Long) fila[2]);
+                        }
+                    }
+                    compactarSiConviene();
+                } finally {
+                    candado.writeLock().unlock();
+                }
+            }
+        }
+    }
+
+    /* Términos del texto (sin palabras vacías y reducidos) con su frecuencia, en orden de aparición */
+    public static Map<String, Integer> terminos(String texto) {
+        Map<String, Integer> frecuencias = new LinkedHashMap<>();
+        String normalizado = IndiceNombresProductoService.normalizar(texto);
+        if (normalizado.isEmpty()) {
+            return frecuencias;
+        }
+        for (String palabra : normalizado.split(" ")) {
+            if (!PALABRAS_VACIAS.contains(palabra)) {
+                frecuencias.merge(raiz(palabra), 1, Integer::sum);
+            }
+        }
+        return frecuencias;
+    }
+
+    /*
+     * Stemmer liviano para castellano (variante del de Savoy): solo quita la vocal final de género y el
+     * plural ("dulces" y "dulce" -> "dulc", "flores" -> "flor"), así que no une familias de palabras
+     * ("dura" y "duracion" siguen distintas) pero tampoco confunde palabras que solo se parecen. Las
+     * palabras de menos de cinco letras quedan tal cual.
+     */
+    private static String raiz(String palabra) {
+        int largo = palabra.length();
+        if (largo < 5) {
+            return palabra;
+        }
+        char ultima = palabra.charAt(largo - 1);
+        if (ultima == 'o' || ultima == 'a' || ultima == 'e') {
+            return palabra.substring(0, largo - 1);
+        }
+        if (ultima == 's') {
+            char penultima = palabra.charAt(largo - 2);
+            if (palabra.endsWith("eses")) {
+                return palabra.substring(0, largo - 2); // meses -> mes
+            }
+            if (penultima == 'o' || penultima == 'a' || penultima == 'e') {
+                return palabra.substring(0, largo - 2);
+            }
+        }
+        return palabra;
+    }
+
+    // Se llama con el candado de escritura tomado
+    private void compactarSiConviene() {
+        if (indice.requiereCompactar()) {
+            indice = indice.compactado();
+            indice.recortar();
+        }
+    }
+
+    /* Entradas (posiciones) que contienen un término y su frecuencia en cada una; se agregan en orden creciente */
+    private static final class Lista {
+
+        private int[] entradas = new int[4];
+        private int[] frecuencias = new int[4];
+        private int tamano;
+        private int vigentes;
+
+        void agregar(int entrada, int frecuencia) {
+            if (tamano == entradas.length) {
+                entradas = Arrays.copyOf(entradas, Math.max(4, tamano * 2));
+                frecuencias = Arrays.copyOf(frecuencias, entradas.length);
+            }
+            entradas[tamano] = entrada;
+            frecuencias[tamano++] = frecuencia;
+            vigentes++;
+        }
+
+        /* Primera posición desde la dada cuyo valor es >= objetivo: salto exponencial y luego búsqueda binaria */
+        int avanzar(int desde, int objetivo) {
+            int salto = 1;
+            int hasta = desde;
+            while (hasta < tamano && entradas[hasta] < objetivo) {
+                desde = hasta + 1;
+                hasta += salto;
+                salto <<= 1;
+            }
+            int posicion = Arrays.binarySearch(entradas, desde, Math.min(hasta + 1, tamano), objetivo);
+            return posicion >= 0 ? posicion : -posicion - 1;
+        }
+    }
+
+    // Mayor puntaje primero y, a igual puntaje, la reseña más antigua
+    private static final Comparator<Coincidencia> RELEVANCIA = Comparator
+        .comparingDouble(Coincidencia::puntaje).reversed()
+        .thenComparingLong(Coincidencia::id);
+
+    /*
+     * Estructura del índice, sin sincronización propia. Cada reseña indexada ocupa una entrada nueva y
+     * guarda sus términos con la frecuencia de cada uno, para descontarlos de las listas al darla de baja
+     * y para reconstruir el índice al compactar sin volver a la base.
+     */
+    private static final class Indice {
+
+        private long[] ids = new long[1024];
+        private long[] productos = new long[1024];
+        private byte[] calificaciones = new byte[1024];
+        private int[] largos = new int[1024];
+        private String[][] terminosPorEntrada = new String[1024][];
+        private int[][] frecuenciasPorEntrada = new int[1024][];
+        private int entradas;
+        private int bajas;
+        private long largoTotal;
+        private final Map<Long, Integer> entradaPorId = new HashMap<>();
+        private final Map<String, Lista> listas = new HashMap<>();
+        private final Map<Long, Lista> porProducto = new HashMap<>();
+
+        void indexar(long id, String comentario, int calificacion, long idProducto) {
+            Map<String, Integer> frecuencias = terminos(comentario);
+            String[] terminos = new String[frecuencias.size()];
+            int[] cantidades = new int[frecuencias.size()];
+            int i = 0;
+            for (Map.Entry<String, Integer> termino : frecuencias.entrySet()) {
+                terminos[i] = termino.getKey();
+                cantidades[i++] = termino.getValue();
+            }
+            indexar(id, terminos, cantidades, calificacion, idProducto);
+        }
+
+        void quitar(long id) {
+            Integer actual = entradaPorId.remove(id);
+            if (actual != null) {
+                darDeBaja(actual);
+            }
+        }
+
+        int vigentes() {
+            return entradas - bajas;
+        }
+
+        /* Ajusta las listas a su tamaño después de una carga completa (crecen al doble al llenarse) */
+        void recortar() {
+            for (Lista lista : listas.values()) {
+                lista.entradas = Arrays.copyOf(lista.entradas, lista.tamano);
+                lista.frecuencias = Arrays.copyOf(lista.frecuencias, lista.tamano);
+            }
+            for (Lista lista : porProducto.values()) {
+                lista.entradas = Arrays.copyOf(lista.entradas, lista.tamano);
+                lista.frecuencias = Arrays.copyOf(lista.frecuencias, lista.tamano);
+            }
+        }
+
+        boolean requiereCompactar() {
+            return bajas > 1024 && bajas > vigentes() / 4;
+        }
+
+        Indice compactado() {
+            Indice nuevo = new Indice();
+            for (int entrada = 0; entrada < entradas; entrada++) {
+                if (terminosPorEntrada[entrada] != null) {
+                    nuevo.indexar(ids[entrada], terminosPorEntrada[entrada], frecuenciasPorEntrada[entrada],
+                        calificaciones[entrada], productos[entrada]);
+                }
+            }
+            return nuevo;
+        }
+
+        /*
+         * Recorre en orden creciente la unión de las listas de los términos buscados (documento a
+         * documento) y guarda los limite mejores en un montículo. Con filtro de producto, si el producto
+         * tiene menos reseñas que la suma de las listas, los candidatos salen de sus reseñas y en cada
+         * lista de términos se avanza un cursor que nunca retrocede.
+         */
+        List<Coincidencia> buscar(Set<String> consulta, Long idProducto, Integer calificacion, int limite) {
+            if (consulta.isEmpty() || limite <= 0 || vigentes() == 0) {
+                return List.of();
+            }
+            List<Lista> presentes = new ArrayList<>();
+            for (String termino : consulta) {
+                Lista lista = listas.get(termino);
+                if (lista != null && lista.vigentes > 0) {
+                    presentes.add(lista);
+                }
+            }
+            if (presentes.isEmpty()) {
+                return List.of();
+            }
+            int total = presentes.size();
+            Lista[] porTermino = presentes.toArray(new Lista[0]);
+            double[] idf = new double[total];
+            long recorrido = 0;
+            int documentos = vigentes();
+            for (int t = 0; t < total; t++) {
+                int df = porTermino[t].vigentes;
+                idf[t] = Math.log(1 + (documentos - df + 0.5) / (df + 0.5));
+                recorrido += porTermino[t].tamano;
+            }
+            double largoPromedio = (double) largoTotal / documentos;
+
+            Lista delProducto = idProducto != null ? porProducto.get(idProducto) : null;
+            if (idProducto != null && delProducto == null) {
+                return List.of();
+            }
+            PriorityQueue<Coincidencia> mejores = new PriorityQueue<>(RELEVANCIA.reversed());
+            int[] cursores = new int[total];
+            if (delProducto != null && delProducto.tamano < recorrido) {
+                for (int p = 0; p < delProducto.tamano; p++) {
+                    int entrada = delProducto.entradas[p];
+                    double puntaje = 0;
+                    for (int t = 0; t < total; t++) {
+                        cursores[t] = porTermino[t].avanzar(cursores[t], entrada);
+                        if (cursores[t] < porTermino[t].tamano && porTermino[t].entradas[cursores[t]] == entrada) {
+                            puntaje += aporte(idf[t], porTermino[t].frecuencias[cursores[t]], largos[entrada], largoPromedio);
+                        }
+                    }
+                    considerar(entrada, puntaje, idProducto, calificacion, limite, mejores);
+                }
+            } else {
+                while (true) {
+                    int entrada = Integer.MAX_VALUE;
+                    for (int t = 0; t < total; t++) {
+                        if (cursores[t] < porTermino[t].tamano) {
+                            entrada = Math.min(entrada, porTermino[t].entradas[cursores[t]]);
+                        }
+                    }
+                    if (entrada == Integer.MAX_VALUE) {
+                        break;
+                    }
+                    double puntaje = 0;
+                    for (int t = 0; t < total; t++) {
+                        if (cursores[t] < porTermino[t].tamano && porTermino[t].entradas[cursores[t]] == entrada) {
+                            puntaje += aporte(idf[t], porTermino[t].frecuencias[cursores[t]], largos[entrada], largoPromedio);
+                            cursores[t]++;
+                        }
+                    }
+                    considerar(entrada, puntaje, idProducto, calificacion, limite, mejores);
+                }
+            }
+            List<Coincidencia> ordenados = new ArrayList<>(mejores);
+            ordenados.sort(RELEVANCIA);
+            return ordenados;
+        }
+
+        private static double aporte(double idf, int frecuencia, int largo, double largoPromedio) {
+            return idf * frecuencia * (K1 + 1) / (frecuencia + K1 * (1 - B + B * largo / largoPromedio));
+        }
+
+        private void considerar(int entrada, double puntaje, Long idProducto, Integer calificacion, int limite,
+                                PriorityQueue<Coincidencia> mejores) {
+            if (puntaje <= 0 || terminosPorEntrada[entrada] == null
+                    || (idProducto != null && productos[entrada] != idProducto)
+                    || (calificacion != null && calificaciones[entrada] != calificacion)) {
+                return;
+            }
+            if (mejores.size() == limite) {
+                Coincidencia peor = mejores.peek();
+                if (puntaje < peor.puntaje() || (puntaje == peor.puntaje() && ids[entrada] > peor.id())) {
+                    return;
+                }
+                mejores.poll();
+            }
+            mejores.add(new Coincidencia(ids[entrada], puntaje));
+        }
+
+        private void indexar(long id, String[] terminos, int[] cantidades, int calificacion, long idProducto) {
+            Integer actual = entradaPorId.get(id);
+            if (actual != null) {
+                darDeBaja(actual);
+            }
+            int entrada = nuevaEntrada();
+            int largo = 0;
+            for (int i = 0; i < terminos.length; i++) {
+                listas.computeIfAbsent(terminos[i], t -> new Lista()).agregar(entrada, cantidades[i]);
+                largo += cantidades[i];
+            }
+            ids[entrada] = id;
+            productos[entrada] = idProducto;
+            calificaciones[entrada] = (byte) calificacion;
+            largos[entrada] = largo;
+            terminosPorEntrada[entrada] = terminos;
+            frecuenciasPorEntrada[entrada] = cantidades;
+            largoTotal += largo;
+            porProducto.computeIfAbsent(idProducto, p -> new Lista()).agregar(entrada, 1);
+            entradaPorId.put(id, entrada);
+        }
+
+        private void darDeBaja(int entrada) {
+            for (String termino : terminosPorEntrada[entrada]) {
+                listas.get(termino).vigentes--;
+            }
+            porProducto.get(productos[entrada]).vigentes--;
+            largoTotal -= largos[entrada];
+            terminosPorEntrada[entrada] = null;
+            frecuenciasPorEntrada[entrada] = null;
+            bajas++;
+        }
+
+        private int nuevaEntrada() {
+            if (entradas == ids.length) {
+                int capacidad = entradas * 2;
+                ids = Arrays.copyOf(ids, capacidad);
+                productos = Arrays.copyOf(productos, capacidad);
+                calificaciones = Arrays.copyOf(calificaciones, capacidad);
+                largos = Arrays.copyOf(largos, capacidad);
+                terminosPorEntrada = Arrays.copyOf(terminosPorEntrada, capacidad);
+                frecuenciasPorEntrada = Arrays.copyOf(frecuenciasPorEntrada, capacidad);
+            }
+            return entradas++;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.perfulandia.inventario.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+import com.perfulandia.inventario.exception.ProductoNoEncontradoException;
+import com.perfulandia.inventario.exception.StockInsuficienteException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+
+/*
+ * Métricas de dominio en Micrometer (/actuator/metrics/<nombre>), todas con la etiqueta endpoint: método y
+ * patrón de la ruta que atiende la solicitud en curso ("PATCH /api/v2/productos/rebajarStock/{id}"), o
+ * "ninguno" si la operación no viene de una solicitud (tareas programadas, arranque, ruta inexistente).
+ *   inventario.stock.operacion    timer    operacion (rebajar, reponer), resultado (ok, no_encontrado,
+ *                                           stock_insuficiente, error)
+ *   inventario.stock.rechazos     contador operacion, motivo (no_encontrado, stock_insuficiente)
+ *   inventario.reintentos         contador reintentos por conflicto de versión (EjecutorReintentos)
+ *   inventario.resenas.escritura  timer    operacion (guardar, actualizar, eliminar), resultado (ok, error)
+ *   inventario.reportes           timer    reporte (resumen-inventario, cantidad-resenas-por-producto)
+ * Las sentencias y entidades por solicitud las registra MetricasSolicitudFilter.
+ */
+@Service
+public class MetricasInventarioService {
+
+    public static final String SIN_ENDPOINT = "ninguno";
+
+    private final MeterRegistry registro;
+
+    public MetricasInventarioService(MeterRegistry registro) {
+        this.registro = registro;
+    }
+
+    /* Mide una operación de stock; los rechazos por producto inexistente o stock insuficiente se cuentan aparte */
+    public <T> T medirStock(String operacion, Supplier<T> accion) {
+        long inicio = System.nanoTime();
+        String resultado = "error";
+        try {
+            T valor = accion.get();
+            resultado = "ok";
+            return valor;
+        } catch (ProductoNoEncontradoException e) {
+            resultado = "no_encontrado";
+            throw e;
+        } catch (StockInsuficienteException e) {
+            resultado = "stock_insuficiente";
+            throw e;
+        } finally {
+            String endpoint = endpointActual();
+            if (!resultado.equals("ok") && !resultado.equals("error")) {
+                Counter.builder("inventario.stock.rechazos")
+                    .tags("operacion", operacion, "motivo", resultado, "endpoint", endpoint)
+                    .register(registro)
+                    .increment();
+            }
+            Timer.builder("inventario.stock.operacion")
+                .tags("operacion", operacion, "resultado", resultado, "endpoint", endpoint)
+                .register(registro)
+                .record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public void medirStock(String operacion, Runnable accion) {
+        medirStock(operacion, () -> {
+            accion.run();
+            return null;
+        });
+    }
+
+    public <T> T medirResena(String operacion, Supplier<T> accion) {
+        long inicio = System.nanoTime();
+        String resultado = "error";
+        try {
+            T valor = accion.get();
+            resultado = "ok";
+            return valor;
+        } finally {
+            Timer.builder("inventario.resenas.escritura")
+                .tags("operacion", operacion, "resultado", resultado, "endpoint", endpointActual())
+                .register(registro)
+                .record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public <T> T medirReporte(String reporte, Supplier<T> accion) {
+        long inicio = System.nanoTime();
+        try {
+            return accion.get();
+        } finally {
+            Timer.builder("inventario.reportes")
+                .tags("reporte", reporte, "endpoint", endpointActual())
+                .register(registro)
+                .record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public void reintento() {
+        Counter.builder("inventario.reintentos")
+            .tag("endpoint", endpointActual())
+            .register(registro)
+            .increment();
+    }
+
+    /* Endpoint de la solicitud del hilo actual; el patrón lo deja Spring MVC al elegir el controlador */
+    public static String endpointActual() {
+        RequestAttributes atributos = RequestContextHolder.getRequestAttributes();
+        return atributos instanceof ServletRequestAttributes servlet ? endpoint(servlet.getRequest()) : SIN_ENDPOINT;
+    }
+
+    public static String endpoint(HttpServletRequest request) {
+        Object patron = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return patron != null ? request.getMethod() + " " + patron : SIN_ENDPOINT;
+    }
+}
@@ -0,0 +1,200 @@
+package com.perfulandia.inventario.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.perfulandia.inventario.exception.ProductoNoEncontradoException;
+import com.perfulandia.inventario.exception.StockInsuficienteException;
+import com.perfulandia.inventario.model.MovimientoStock;
+import com.perfulandia.inventario.model.TipoMovimiento;
+import com.perfulandia.inventario.repository.MovimientoStockRepository;
+
+/*
+ * Diario de movimientos de stock (movimiento_stock).
+ * Con el diario habilitado, rebajas y reposiciones insertan una fila en vez de actualizar producto.stock,
+ * así las compras de un mismo producto no compiten por su fila. El stock vigente es el último snapshot
+ * (producto.stock) más la cola sin compactar; para validar rebajas sin sumar la cola en cada llamada se
+ * mantiene un contador por producto en memoria, cargado desde la base la primera vez que se usa.
+ * Un compactador periódico incorpora la cola a producto.stock en lotes y marca los movimientos, que
+ * quedan como historial.
+ */
+@Service
+public class MovimientoStockService {
+
+    private final MovimientoStockRepository repository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaccion;
+    private final ApplicationEventPublisher eventos;
+    private final boolean habilitado;
+    private final int lote;
+
+    private final Map<Long, AtomicInteger> contadores = new ConcurrentHashMap<>();
+
+    public MovimientoStockService(MovimientoStockRepository repository,
+                                  JdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager,
+                                  ApplicationEventPublisher eventos,
+                                  @Value("${inventario.movimientos.habilitado:false}") boolean habilitado,
+                                  @Value("${inventario.movimientos.lote:1000}") int lote) {
+        this.repository = repository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.eventos = eventos;
+        this.habilitado = habilitado;
+        this.lote = lote;
+    }
+
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+
+    /* Stock vigente (snapshot + cola), o null si el diario no está habilitado */
+    public Integer stockActual(Long idProducto) {
+        return habilitado ? contador(idProducto).get() : null;
+    }
+
+    /* Rebaja validando contra el contador en memoria y registra el movimiento */
+    public void rebajar(Long idProducto, int cantidad, int retenido) {
+        AtomicInteger contador = contador(idProducto);
+        int actual;
+        do {
+            actual = contador.get();
+            if (actual - retenido < cantidad) {
+                throw new StockInsuficienteException(idProducto);
+            }
+        } while (!contador.compareAndSet(actual, actual - cantidad));
+
+        registrar(contador, idProducto, -cantidad, TipoMovimiento.REBAJA);
+    }
+
+    public void reponer(Long idProducto, int cantidad) {
+        AtomicInteger contador = contador(idProducto);
+        contador.addAndGet(cantidad);
+        registrar(contador, idProducto, cantidad, TipoMovimiento.REPOSICION);
+    }
+
+    /* Corrección manual del stock (p. ej. al editar el producto); el delta puede ser negativo */
+    public void ajustar(Long idProducto, int delta) {
+        AtomicInteger contador = contador(idProducto);
+        contador.addAndGet(delta);
+        registrar(contador, idProducto, delta, TipoMovimiento.AJUSTE);
+    }
+
+    /* Suma de la cola sin compactar, para que los totales leídos de producto cuadren */
+    public long pendienteTotal() {
+        if (!habilitado) {
+            return 0;
+        }
+        Long suma = repository.sumarPendientes();
+        return suma != null ? suma : 0;
+    }
+
+    /* Stock vigente de los productos con movimientos sin compactar; los demás tienen el suyo en producto.stock */
+    public Map<Long, Integer> stockPorProducto() {
+        if (!habilitado) {
+            return Map.of();
+        }
+        Map<Long, Integer> resultado = new HashMap<>();
+        for (Object[] fila : repository.obtenerStockVigenteConPendientes()) {
+            resultado.put((Long) fila[0], ((Number) fila[1]).intValue());
+        }
+        return resultado;
+    }
+
+    public List<MovimientoStock> listar(Long idProducto, int limite) {
+        return repository.findByIdProductoOrderByIdDesc(idProducto, Limit.of(limite));
+    }
+
+    /* El producto se eliminó: su contador no debe sobrevivir a un producto nuevo con el mismo ID */
+    public void olvidar(Long idProducto) {
+        contadores.remove(idProducto);
+    }
+
+    /* El producto pasa a otro modo de stock (caliente o fragmentado): se compacta su cola y se suelta el contador */
+    public void retirar(Long idProducto) {
+        if (habilitado) {
+            compactar();
+            contadores.remove(idProducto);
+        }
+    }
+
+    /*
+     * Compactación: toma los movimientos pendientes en lotes por ID, suma el delta neto por producto,
+     * lo aplica a producto.stock y marca el lote en la misma transacción. Se marcan filas concretas
+     * (no "hasta el ID x") porque con IDENTITY un ID menor puede confirmarse después de uno mayor.
+     */
+    @Scheduled(fixedDelayString = "${inventario.movimientos.compactar-ms:5000}")
+    public synchronized int compactar() {
+        if (!habilitado) {
+            return 0;
+        }
+        int total = 0;
+        int compactados;
+        do {
+            compactados = transaccion.execute(status -> {
+                List<Long> ids = repository.buscarPendientes(Limit.of(lote));
+                if (ids.isEmpty()) {
+                    return 0;
+                }
+                List<Object[]> filas = new ArrayList<>();
+                List<Long> productos = new ArrayList<>();
+                for (Object[] neto : repository.sumarPorProducto(ids)) {
+                    filas.add(new Object[] {((Number) neto[1]).intValue(), neto[0]});
+                    productos.add((Long) neto[0]);
+                }
+                jdbcTemplate.batchUpdate("UPDATE producto SET stock = stock + ?, version = version + 1 WHERE id = ?", filas);
+                eventos.publishEvent(ProductosModificadosEvento.stock(productos));
+                repository.marcarCompactados(ids);
+                return ids.size();
+            });
+            total += compactados;
+        } while (compactados == lote);
+        return total;
+    }
+
+    private AtomicInteger contador(Long idProducto) {
+        if (!habilitado) {
+            throw new IllegalStateException("El diario de movimientos de stock no está habilitado");
+        }
+        return contadores.computeIfAbsent(idProducto, id -> new AtomicInteger(
+            repository.obtenerStockVigente(id)
+                .orElseThrow(() -> new ProductoNoEncontradoException(id))
+                .intValue()));
+    }
+
+    /* Inserta el movimiento; si no se guarda (o la transacción que lo incluye se revierte) se deshace en el contador */
+    private void registrar(AtomicInteger contador, Long idProducto, int delta, TipoMovimiento tipo) {
+        try {
+            repository.save(new MovimientoStock(null, idProducto, delta, tipo, false, LocalDateTime.now()));
+        } catch (RuntimeException e) {
+            contador.addAndGet(-delta);
+            throw e;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int estado) {
+                    if (estado == STATUS_ROLLED_BACK) {
+                        contador.addAndGet(-delta);
+                    }
+                }
+            });
+        }
+    }
+}
@@ -1,12 +1,38 @@
 package com.perfulandia.inventario.service;
 
 import com.perfulandia.inventario.repository.ProductoRepository;
+import com.perfulandia.inventario.dto.LineaFallida;
+import com.perfulandia.inventario.dto.LineaStock;
+import com.perfulandia.inventario.dto.ResumenReposicion;
+import com.perfulandia.inventario.dto.TotalesInventario;
+import com.perfulandia.inventario.exception.ConflictoVersionException;
+import com.perfulandia.inventario.exception.ProductoNoEncontradoException;
+import com.perfulandia.inventario.exception.ReservaRechazadaException;
+import com.perfulandia.inventario.exception.StockInsuficienteException;
 import com.perfulandia.inventario.model.Producto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.IntPredicate;
 
 
 
@@ -14,102 +40,651 @@ import java.util.Map;
 public class ProductoService {
 
     private final ProductoRepository repository;
+    private final RetencionStockService retenciones;
+    private final StockCalienteService stockCaliente;
+    private final StockFragmentadoService stockFragmentado;
+    private final MovimientoStockService movimientos;
+    private final EjecutorReintentos reintentos;
+    private final CacheProductoService cache;
+    private final IndiceNombresProductoService indiceNombres;
+    private final CatalogoColumnarService catalogo;
+    private final MetricasInventarioService metricas;
+    private final ApplicationEventPublisher eventos;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaccion;
+    private final int loteReposicion;
+    private final int maxResultadosBusqueda;
 //----------------------------CRUD----------------------------//
-    public ProductoService(ProductoRepository repository) {
+    public ProductoService(ProductoRepository repository, RetencionStockService retenciones,
+                           StockCalienteService stockCaliente, StockFragmentadoService stockFragmentado,
+                           MovimientoStockService movimientos, EjecutorReintentos reintentos,
+                           CacheProductoService cache, IndiceNombresProductoService indiceNombres,
+                           CatalogoColumnarService catalogo, MetricasInventarioService metricas,
+                           ApplicationEventPublisher eventos,
+                           JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                           @Value("${inventario.reposicion.lote:500}") int loteReposicion,
+                           @Value("${inventario.busqueda.max-resultados:50}") int maxResultadosBusqueda) {
         this.repository = repository;
+        this.retenciones = retenciones;
+        this.stockCaliente = stockCaliente;
+        this.stockFragmentado = stockFragmentado;
+        this.movimientos = movimientos;
+        this.reintentos = reintentos;
+        this.cache = cache;
+        this.indiceNombres = indiceNombres;
+        this.catalogo = catalogo;
+        this.metricas = metricas;
+        this.eventos = eventos;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.loteReposicion = loteReposicion;
+        this.maxResultadosBusqueda = maxResultadosBusqueda;
     }
 
+    /* Un producto con ID se trata como edicion, con la version que traiga (ver actualizar) */
     public Producto guardar(Producto producto) {
-        return repository.save(producto);
+        if (producto.getId() != null) {
+            return actualizar(producto.getId(), producto, producto.getVersion());
+        }
+        Producto guardado = repository.save(producto);
+        if (guardado.getId() != null) {
+            // El ID nuevo pudo quedar en cache como inexistente si alguien lo consulto antes de crearse
+            eventos.publishEvent(ProductosModificadosEvento.de(guardado.getId()));
+        }
+        return guardado;
+    }
+
+    /*
+     * Actualiza nombre, precio y stock del producto.
+     * Con versionEsperada (la que el cliente leyo) la escritura solo se aplica si nadie modifico el
+     * producto desde entonces; si no, se lanza ConflictoVersionException con la version vigente y no se
+     * reintenta, porque el cliente debe releer antes de decidir. Sin version se reintenta ante conflictos
+     * internos (p. ej. una rebaja que se confirma entre la lectura y la escritura).
+     * El stock del cuerpo solo se escribe si la precondicion cubre el stock que el cliente leyo; si no, se
+     * ignora, porque un cliente con una lectura vieja pisaria las rebajas confirmadas despues. Sin version
+     * nunca la cubre; en los SKU gestionados (caliente, ranuras, diario) la version tampoco, porque no cambia
+     * con cada rebaja, y hace falta etiquetaEsperada: el ETag leido, con version y stock efectivo.
+     */
+    public Producto actualizar(Long id, Producto datos, Long versionEsperada) {
+        return actualizar(id, datos, versionEsperada, null);
+    }
+
+    public Producto actualizar(Long id, Producto datos, Long versionEsperada, String etiquetaEsperada) {
+        Producto actualizado = versionEsperada != null || etiquetaEsperada != null
+            ? aplicarActualizacion(id, datos, versionEsperada, etiquetaEsperada)
+            : reintentos.ejecutar(() -> aplicarActualizacion(id, datos, null, null));
+        eventos.publishEvent(ProductosModificadosEvento.de(id));
+        return actualizado;
+    }
+
+    private Producto aplicarActualizacion(Long id, Producto datos, Long versionEsperada, String etiquetaEsperada) {
+        // Si el stock se lleva fuera de producto.stock (memoria, ranuras o diario), guardar la entidad completa
+        // pisaria la columna; se actualizan nombre y precio y el stock va como ajuste por su propio camino
+        Integer vigente = stockGestionado(id);
+        if (vigente != null) {
+            Long version = versionEsperada;
+            if (etiquetaEsperada != null) {
+                Producto actual = repository.findById(id)
+                    .orElseThrow(() -> new ProductoNoEncontradoException(id));
+                if (!etiquetaEsperada.equals(etiqueta(copiaConStock(actual, vigente)))) {
+                    throw new ConflictoVersionException(id, actual.getVersion());
+                }
+                version = versionEsperada != null ? versionEsperada : actual.getVersion();
+            }
+            if (repository.actualizarDatos(id, datos.getNombre(), datos.getPrecio(), version) == 0) {
+                Long versionActual = repository.obtenerVersionPorId(id)
+                    .orElseThrow(() -> new ProductoNoEncontradoException(id));
+                throw new ConflictoVersionException(id, versionActual);
+            }
+            if (etiquetaEsperada != null) {
+                // Ajuste sobre el stock que el cliente leyo: una rebaja que entra despues de comparar se conserva
+                ajustarStock(id, datos.getStock() - vigente);
+            }
+            return repository.findById(id).map(this::conStockEfectivo).orElse(null); // la cache aun tiene la fila anterior
+        }
+
+        Producto existente = repository.findById(id)
+            .orElseThrow(() -> new ProductoNoEncontradoException(id));
+        if ((versionEsperada != null && !versionEsperada.equals(existente.getVersion()))
+                || (etiquetaEsperada != null && !etiquetaEsperada.equals(etiqueta(existente)))) {
+            throw new ConflictoVersionException(id, existente.getVersion());
+        }
+        boolean conPrecondicion = versionEsperada != null || etiquetaEsperada != null;
+        existente.setNombre(datos.getNombre());
+        existente.setPrecio(datos.getPrecio());
+        if (conPrecondicion) {
+            existente.setStock(datos.getStock());
+        }
+        try {
+            // El UPDATE lleva "WHERE version = ?": si otra escritura se confirmo despues de la lectura, falla
+            return repository.save(existente);
+        } catch (OptimisticLockingFailureException e) {
+            if (!conPrecondicion) {
+                throw e; // lo reintenta el ejecutor releyendo el producto
+            }
+            throw new ConflictoVersionException(id, repository.obtenerVersionPorId(id).orElse(null));
+        }
     }
 
     public List<Producto> listar() {
         return repository.findAll();
     }
 
+    /* Hasta limite productos con ID mayor a despuesDe (null = desde el principio), en orden de ID y con su stock vigente */
+    public List<Producto> listarPagina(Long despuesDe, int limite) {
+        return repository.findByIdGreaterThanOrderByIdAsc(despuesDe != null ? despuesDe : 0L, Limit.of(limite)).stream()
+            .map(this::conStockEfectivo)
+            .toList();
+    }
+
     public void eliminar(Long id) {
         repository.deleteById(id);
+        movimientos.olvidar(id);
+        eventos.publishEvent(ProductosModificadosEvento.de(id));
     }
 
+    /* Lectura por la cache de productos; el stock que no vive en la columna se calcula aparte en cada lectura */
     public Producto buscarPorId(Long id) {
-        return repository.findById(id).orElse(null);
+        return cache.buscar(id).map(this::conStockEfectivo).orElse(null);
+    }
+
+    /* ETag del producto: la versión de la fila y el stock efectivo, que en modo caliente, ranuras o diario
+       cambia sin que cambie la versión hasta el volcado */
+    public static String etiqueta(Producto producto) {
+        return "\"" + producto.getVersion() + "-" + producto.getStock() + "\"";
+    }
+
+    /* ETag vigente del producto, de la fila en caché sin armar la respuesta; null si no existe */
+    public String etiquetaPorId(Long id) {
+        return cache.buscar(id).map(this::conStockEfectivo).map(ProductoService::etiqueta).orElse(null);
     }    
     
+    /* Búsqueda aproximada por nombre sobre el índice de trigramas (sin recorrer la tabla), ordenada por
+       relevancia; los productos encontrados se leen por la cache */
     public List<Producto> buscarPorNombre(String nombre) {
-        return repository.findByNombreContainingIgnoreCase(nombre);
+        return indiceNombres.buscar(nombre, maxResultadosBusqueda).stream()
+            .map(this::buscarPorId)
+            .filter(Objects::nonNull)
+            .toList();
     }
 
     //-----------Logica de negocio----------------//
 
     /* metodo que verifique que existe el producto y que lo rebaje del inventario */
+    // La rebaja se hace con un UPDATE condicional (stock - retenido >= cantidad) para que dos compras
+    // simultaneas no puedan leer el mismo stock y pisarse, ni consumir unidades apartadas por una
+    // retencion activa; solo si no se aplica se distingue el motivo
     public Producto rebajarStock(Long id, int cantidad) {
-    Producto producto = repository.findById(id).orElse(null);
+    return metricas.medirStock("rebajar", () -> rebajar(id, cantidad));
+    }
+
+    private Producto rebajar(Long id, int cantidad) {
+    if (cantidad <= 0) {
+        throw new IllegalArgumentException("La cantidad a rebajar debe ser mayor a cero");
+    }
+    // El retenido se lee y la rebaja se aplica bajo el candado del producto que toma retener: una
+    // retencion no puede colarse entre ambas y quedar apartada sobre unidades ya vendidas
+    // El camino por la base va bajo el candado de lectura del modo caliente: registrar no lee la columna en medio
+    // Y bajo el de fragmentar: una rebaja que eligio el diario no escribe despues de que se retiro su cola
+    return retenciones.conRetenido(id, retenido -> stockCaliente.excluyendoRegistro(
+        () -> stockFragmentado.excluyendoFragmentar(() -> rebajar(id, cantidad, retenido))));
+    }
+
+    private Producto rebajar(Long id, int cantidad, int retenido) {
+    // SKU en modo stock caliente: la rebaja se resuelve en memoria y se vuelca despues en lote
+    Integer enMemoria = stockCaliente.rebajar(id, cantidad, retenido);
+    if (enMemoria != null) {
+        return cache.buscar(id)
+            .map(producto -> copiaConStock(producto, enMemoria))
+            .orElseThrow(() -> new ProductoNoEncontradoException(id));
+    }
+
+    // SKU fragmentado: la rebaja se reparte entre las ranuras del producto
+    if (stockFragmentado.gestiona(id)) {
+        stockFragmentado.rebajar(id, cantidad, retenido);
+        return buscarPorId(id);
+    }
+
+    // Con el diario habilitado la rebaja es un INSERT en movimiento_stock, sin tocar la fila del producto
+    if (movimientos.isHabilitado()) {
+        movimientos.rebajar(id, cantidad, retenido);
+        return buscarPorId(id);
+    }
+
+    int filas = repository.rebajarStockSiDisponible(id, cantidad, retenido);
 
-    if (producto == null) {
-        throw new RuntimeException("Producto no encontrado con ID: " + id);
+    if (filas == 0) {
+        if (!repository.existsById(id)) {
+            throw new ProductoNoEncontradoException(id);
+        }
+        throw new StockInsuficienteException(id);
     }
+    eventos.publishEvent(ProductosModificadosEvento.stock(id));
 
-    if (producto.getStock() < cantidad) {
-        throw new RuntimeException("Stock insuficiente para el producto con ID: " + id);
+    return repository.findById(id)
+        .orElseThrow(() -> new ProductoNoEncontradoException(id));
     }
 
-    producto.setStock(producto.getStock() - cantidad);
-    return repository.save(producto);
+    /* Metodo que rebaja todas las lineas de un pedido en una sola transaccion (todo o nada) */
+    // Cada linea se valida antes de agruparlas: una cantidad negativa no puede descontarse de otra linea
+    // del mismo producto. Las lineas validas se suman por producto (en long: la suma no se desborda) y
+    // se aplican en orden de ID, asi dos pedidos concurrentes bloquean las filas en el mismo orden y no
+    // pueden quedar en deadlock. Si alguna linea falla se siguen evaluando las demas para informarlas
+    // todas, tal como llegaron, y luego se hace rollback del pedido completo.
+    @Transactional
+    public List<LineaStock> reservarStock(List<LineaStock> lineas) {
+    Map<Long, Long> porProducto = new TreeMap<>();
+    boolean hayInvalidas = false;
+    for (LineaStock linea : lineas) {
+        if (linea.getCantidad() <= 0) {
+            hayInvalidas = true;
+        } else {
+            porProducto.merge(linea.getIdProducto(), (long) linea.getCantidad(), Long::sum);
+        }
+    }
+
+    List<LineaStock> aplicadas = new ArrayList<>();
+    List<LineaStock> enMemoria = new ArrayList<>(); // lineas de SKU calientes, fuera de la transaccion
+    Map<Long, String> rechazados = new HashMap<>(); // motivo por producto
+
+    // Primero las lineas que se descuentan en memoria (toman el candado de las retenciones por un instante) y
+    // despues las que bloquean filas, en orden de ID. Los candados de estas ultimas se toman todos antes de
+    // bloquear la primera fila y se sueltan al terminar el pedido: el pedido nunca espera un candado con
+    // filas bloqueadas, y una retencion del mismo producto espera su commit
+    List<Map.Entry<Long, Long>> orden = new ArrayList<>(porProducto.size());
+    List<Long> conFilas = new ArrayList<>();
+    for (Map.Entry<Long, Long> entrada : porProducto.entrySet()) {
+        if (seDescuentaEnMemoria(entrada.getKey())) {
+            orden.add(entrada);
+        } else {
+            conFilas.add(entrada.getKey());
+        }
+    }
+    int primeraConFilas = orden.size();
+    for (Long id : conFilas) {
+        orden.add(Map.entry(id, porProducto.get(id)));
+    }
+
+    try {
+        for (int i = 0; i < orden.size(); i++) {
+            if (i == primeraConFilas) {
+                retenciones.bloquearHastaFinDeTransaccion(conFilas);
+            }
+            Map.Entry<Long, Long> entrada = orden.get(i);
+            Long id = entrada.getKey();
+            long cantidad = entrada.getValue();
+            String motivo = cantidad > Integer.MAX_VALUE
+                ? LineaFallida.CANTIDAD_INVALIDA
+                : aplicarLinea(id, (int) cantidad, enMemoria);
+
+            if (motivo == null) {
+                aplicadas.add(new LineaStock(id, (int) cantidad));
+            } else {
+                rechazados.put(id, motivo);
+            }
+        }
+    } catch (RuntimeException e) {
+        compensar(enMemoria);
+        throw e;
+    }
+
+    if (hayInvalidas || !rechazados.isEmpty()) {
+        compensar(enMemoria); // el rollback no alcanza a los contadores en memoria
+        List<LineaFallida> fallidas = new ArrayList<>();
+        for (LineaStock linea : lineas) {
+            String motivo = linea.getCantidad() <= 0 ? LineaFallida.CANTIDAD_INVALIDA : rechazados.get(linea.getIdProducto());
+            if (motivo != null) {
+                fallidas.add(new LineaFallida(linea.getIdProducto(), linea.getCantidad(), motivo));
+            }
+        }
+        throw new ReservaRechazadaException(fallidas);
+    }
+    return aplicadas;
+    }
+
+    /* Aplica el total de un producto del pedido (mayor a cero); devuelve null si se desconto o el motivo del rechazo */
+    private String aplicarLinea(Long id, int cantidad, List<LineaStock> enMemoria) {
+    try {
+        // Caliente y diario descuentan al instante en memoria: retenido y rebaja van bajo el candado de retener
+        boolean enContador = retenciones.conRetenido(id, retenido -> {
+            if (stockCaliente.rebajar(id, cantidad, retenido) != null) {
+                enMemoria.add(new LineaStock(id, cantidad));
+                return true;
+            }
+            return stockFragmentado.excluyendoFragmentar(() -> {
+                if (!stockFragmentado.gestiona(id) && movimientos.isHabilitado()) {
+                    movimientos.rebajar(id, cantidad, retenido); // si el pedido se revierte, el contador se restaura al rollback
+                    return true;
+                }
+                return false;
+            });
+        });
+        if (enContador) {
+            return null;
+        }
+    } catch (StockInsuficienteException e) {
+        return LineaFallida.STOCK_INSUFICIENTE;
+    } catch (ProductoNoEncontradoException e) {
+        return LineaFallida.PRODUCTO_NO_ENCONTRADO;
+    }
+    // Ranuras y columna: reservarStock ya tiene el candado del producto hasta el final del pedido, asi
+    // que el retenido leido aqui no cambia antes de que el UPDATE se confirme
+    int retenido = retenciones.retenido(id);
+    if (stockFragmentado.gestiona(id)) {
+        try {
+            stockFragmentado.rebajar(id, cantidad, retenido);
+            return null;
+        } catch (StockInsuficienteException e) {
+            return LineaFallida.STOCK_INSUFICIENTE;
+        }
+    }
+    if (repository.rebajarStockSiDisponible(id, cantidad, retenido) == 1) {
+        eventos.publishEvent(ProductosModificadosEvento.stock(id)); // se entrega al confirmar el pedido y se descarta si se revierte
+        return null;
+    }
+    return repository.existsById(id) ? LineaFallida.STOCK_INSUFICIENTE : LineaFallida.PRODUCTO_NO_ENCONTRADO;
+    }
+
+    private boolean seDescuentaEnMemoria(Long id) {
+    return stockCaliente.gestiona(id) || (!stockFragmentado.gestiona(id) && movimientos.isHabilitado());
+    }
+
+    // Los contadores se restauran despues del rollback, cuando el pedido ya solto sus filas: reponer toma el
+    // candado de lectura del modo caliente y no debe esperarlo mientras una rebaja directa espera esas filas
+    private void compensar(List<LineaStock> enMemoria) {
+    if (enMemoria.isEmpty()) {
+        return;
+    }
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+        reponerEnMemoria(enMemoria);
+        return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCompletion(int estado) {
+            if (estado != STATUS_COMMITTED) {
+                reponerEnMemoria(enMemoria);
+            }
+        }
+    });
+    }
+
+    private void reponerEnMemoria(List<LineaStock> enMemoria) {
+    for (LineaStock linea : enMemoria) {
+        stockCaliente.reponer(linea.getIdProducto(), linea.getCantidad());
+    }
     }
 
     /* Metodo que verifique que existe el producto y que lo reponga al inventario */
     public void reponerStock(Long idProducto, int cantidad) {
-    Producto producto = repository.findById(idProducto)
-        .orElseThrow(() -> new RuntimeException("Producto no encontrado con ID: " + idProducto));
+    metricas.medirStock("reponer", () -> reponer(idProducto, cantidad));
+    }
+
+    private void reponer(Long idProducto, int cantidad) {
+    stockCaliente.excluyendoRegistro(() -> stockFragmentado.excluyendoFragmentar(() -> {
+        reponerSinRegistro(idProducto, cantidad);
+        return null;
+    }));
+    }
+
+    private void reponerSinRegistro(Long idProducto, int cantidad) {
+    if (stockCaliente.reponer(idProducto, cantidad) != null) {
+        return;
+    }
+    if (stockFragmentado.gestiona(idProducto)) {
+        stockFragmentado.reponer(idProducto, cantidad);
+        return;
+    }
+    if (movimientos.isHabilitado()) {
+        movimientos.reponer(idProducto, cantidad);
+        return;
+    }
+    // Lectura y escritura de la entidad: si otra operacion cambia la fila entre medio, se relee y reintenta
+    reintentos.ejecutar(() -> {
+        Producto producto = repository.findById(idProducto)
+            .orElseThrow(() -> new ProductoNoEncontradoException(idProducto));
+
+        producto.setStock(producto.getStock() + cantidad);
+        repository.save(producto);
+    });
+    eventos.publishEvent(ProductosModificadosEvento.stock(idProducto));
+    }
+
+    /* Metodo que repone las lineas de una guia de recepcion en tramos, sin leer ni guardar cada producto */
+    // Las lineas se agrupan por producto y cada tramo de productos con stock en la columna se aplica con un
+    // UPDATE stock = stock + ? en batch, en su propia transaccion; los tramos ya aplicados no se revierten
+    // si uno posterior falla. Los productos en modo caliente, fragmentado o con diario van por su camino.
+    public ResumenReposicion reponerStockMasivo(List<LineaStock> lineas) {
+    ResumenReposicion resumen = new ResumenReposicion();
+    resumen.setLineasRecibidas(lineas.size());
+
+    Map<Long, Integer> porProducto = new TreeMap<>(); // orden de ID: mismo orden de bloqueo que reservarStock
+    for (LineaStock linea : lineas) {
+        if (linea.getCantidad() <= 0) {
+            resumen.getFallidas().add(new LineaFallida(linea.getIdProducto(), linea.getCantidad(), LineaFallida.CANTIDAD_INVALIDA));
+        } else {
+            porProducto.merge(linea.getIdProducto(), linea.getCantidad(), Integer::sum);
+        }
+    }
 
-    producto.setStock(producto.getStock() + cantidad);
-    repository.save(producto);
+    List<LineaStock> enTabla = new ArrayList<>();
+    for (Map.Entry<Long, Integer> entrada : porProducto.entrySet()) {
+        Long id = entrada.getKey();
+        if (stockCaliente.gestiona(id) || stockFragmentado.gestiona(id) || movimientos.isHabilitado()) {
+            try {
+                reponerStock(id, entrada.getValue());
+                contarRepuesto(resumen, entrada.getValue());
+            } catch (ProductoNoEncontradoException e) {
+                resumen.getFallidas().add(new LineaFallida(id, entrada.getValue(), LineaFallida.PRODUCTO_NO_ENCONTRADO));
+            }
+        } else {
+            enTabla.add(new LineaStock(id, entrada.getValue()));
+        }
     }
- 
+
+    for (int desde = 0; desde < enTabla.size(); desde += loteReposicion) {
+        List<LineaStock> tramo = enTabla.subList(desde, Math.min(desde + loteReposicion, enTabla.size()));
+        // Bajo el candado de lectura del modo caliente; un producto registrado despues de clasificarlo va por su contador
+        Set<Long> existentes = stockCaliente.excluyendoRegistro(() -> transaccion.execute(status -> reponerTramo(tramo)));
+        for (LineaStock linea : tramo) {
+            if (existentes.contains(linea.getIdProducto())) {
+                contarRepuesto(resumen, linea.getCantidad());
+            } else if (stockCaliente.gestiona(linea.getIdProducto())) {
+                reponerStock(linea.getIdProducto(), linea.getCantidad());
+                contarRepuesto(resumen, linea.getCantidad());
+            } else {
+                resumen.getFallidas().add(new LineaFallida(linea.getIdProducto(), linea.getCantidad(), LineaFallida.PRODUCTO_NO_ENCONTRADO));
+            }
+        }
+    }
+    return resumen;
+    }
+
+    /* Bloquea en orden de ID los productos del tramo que existen y les suma las unidades en un solo batch */
+    private Set<Long> reponerTramo(List<LineaStock> tramo) {
+    List<Long> ids = tramo.stream().map(LineaStock::getIdProducto).filter(id -> !stockCaliente.gestiona(id)).toList();
+    if (ids.isEmpty()) {
+        return Set.of();
+    }
+    Set<Long> existentes = new HashSet<>(new NamedParameterJdbcTemplate(jdbcTemplate).queryForList(
+        "SELECT id FROM producto WHERE id IN (:ids) ORDER BY id FOR UPDATE", Map.of("ids", ids), Long.class));
+
+    List<Object[]> filas = new ArrayList<>(existentes.size());
+    for (LineaStock linea : tramo) {
+        if (existentes.contains(linea.getIdProducto())) {
+            filas.add(new Object[] {linea.getCantidad(), linea.getIdProducto()});
+        }
+    }
+    jdbcTemplate.batchUpdate("UPDATE producto SET stock = stock + ?, version = version + 1 WHERE id = ?", filas);
+    eventos.publishEvent(ProductosModificadosEvento.stock(existentes));
+    return existentes;
+    }
+
+    private static void contarRepuesto(ResumenReposicion resumen, int cantidad) {
+    resumen.setProductosRepuestos(resumen.getProductosRepuestos() + 1);
+    resumen.setUnidadesRepuestas(resumen.getUnidadesRepuestas() + cantidad);
+    }
+
+    // Los filtros por stock y precio y el stock total se resuelven en el catalogo columnar en memoria
+    // (inventario.catalogo-columnar.habilitado); deshabilitado, con las consultas sobre la tabla
+
     /*Metodo para listar productos con stock bajo */
     public List<Producto> listarStockBajo(int cantidad) {
-    return repository.findByStockLessThan(cantidad);
+    if (catalogo.isHabilitado()) {
+        return catalogo.stockMenorA(cantidad, stockEfectivoGestionados());
+    }
+    return filtrarPorStockEfectivo(repository.findByStockLessThan(cantidad), stock -> stock < cantidad);
     }
    
     /*Metodo para listar productos con precio bajo */
     // Este método devuelve una lista de productos cuyo precio es menor al precio especificado    
     public List<Producto> listarPorPrecioMenorA(double precio) {
-    return repository.findByPrecioLessThan(precio);
+    return catalogo.isHabilitado() ? catalogo.precioMenorA(precio) : repository.findByPrecioLessThan(precio);
     }
    
     /*Metodo para obtener el stock total */
     // Este método devuelve el stock total de todos los productos
     public Integer obtenerStockTotal() {
-    return repository.obtenerStockTotal();
+    if (catalogo.isHabilitado()) {
+        // el catalogo reemplaza la columna por el stock efectivo de los SKU gestionados: no se suman las correcciones
+        return (int) catalogo.stockTotal(stockEfectivoGestionados());
+    }
+    Integer total = repository.obtenerStockTotal();
+    int pendiente = stockCaliente.pendienteTotal(); // deltas en memoria aun no volcados a la tabla
+    long enRanuras = stockFragmentado.stockTotal(); // los productos fragmentados tienen su stock en ranura_stock
+    long enDiario = movimientos.pendienteTotal(); // movimientos aun no compactados en producto.stock
+    if (pendiente == 0 && enRanuras == 0 && enDiario == 0) {
+        return total;
+    }
+    return (int) ((total != null ? total : 0) + pendiente + enRanuras + enDiario);
     }
 
     /*Metodo para obtener el resumen del inventario */
-    // Este método devuelve un resumen del inventario, incluyendo el stock total y la cantidad de productos
+    // Cantidad de productos, stock total y valor del inventario, sumados por la base en una sola consulta
+    // (sin cargar los productos) y corregidos con el stock efectivo de los SKU gestionados, valorizado a su
+    // precio; el listado de productos se pide aparte, paginado
     public Map<String, Object> obtenerResumenInventario() {
-    List<Producto> productos = repository.findAll();
+    return metricas.medirReporte("resumen-inventario", this::resumenInventario);
+    }
 
-    int totalStock = productos.stream().mapToInt(Producto::getStock).sum();
-    double valorInventario = productos.stream()
-            .mapToDouble(p -> p.getStock() * p.getPrecio())
-            .sum();
+    private Map<String, Object> resumenInventario() {
+    TotalesInventario totales = repository.obtenerTotales();
+    Map<Long, Integer> efectivo = stockEfectivoGestionados();
+    if (!efectivo.isEmpty()) {
+        long stock = totales.getTotalStock();
+        double valor = totales.getValorInventario();
+        for (Object[] fila : repository.obtenerStockYPrecioPorIds(efectivo.keySet())) {
+            int diferencia = efectivo.get((Long) fila[0]) - ((Number) fila[1]).intValue();
+            stock += diferencia;
+            valor += diferencia * ((Number) fila[2]).doubleValue();
+        }
+        totales = new TotalesInventario(totales.getTotalProductos(), stock, valor);
+    }
 
     Map<String, Object> resultado = new HashMap<>();
-    resultado.put("productos", productos);
-    resultado.put("totalStock", totalStock);
-    resultado.put("valorInventario", valorInventario);
+    resultado.put("totalProductos", totales.getTotalProductos());
+    resultado.put("totalStock", totales.getTotalStock());
+    resultado.put("valorInventario", totales.getValorInventario());
 
     return resultado;
 }
 
     /*Metodo que devuelve todos los productos sin stock */
     public List<Producto> listarSinStock() {
-        return repository.findByStockLessThan(1);
+        return listarStockBajo(1);
     }
 
     /*Metodo que devuelve todos los productos con stock */
     // Este método devuelve una lista de productos cuyo stock es mayor a 0
     public List<Producto> listarConStock() {
-    return repository.findByStockGreaterThan(0);
+    if (catalogo.isHabilitado()) {
+        return catalogo.stockMayorA(0, stockEfectivoGestionados());
+    }
+    return filtrarPorStockEfectivo(repository.findByStockGreaterThan(0), stock -> stock > 0);
+    }
+
+    // La consulta filtra por producto.stock; los SKU gestionados se sacan de ese resultado y se evaluan por su
+    // stock efectivo (un fragmentado tiene 0 en la columna y sus unidades en las ranuras)
+    private List<Producto> filtrarPorStockEfectivo(List<Producto> porColumna, IntPredicate criterio) {
+    Map<Long, Integer> efectivo = stockEfectivoGestionados();
+    if (efectivo.isEmpty()) {
+        return porColumna;
+    }
+    List<Producto> resultado = new ArrayList<>();
+    for (Producto producto : porColumna) {
+        if (!efectivo.containsKey(producto.getId())) {
+            resultado.add(producto);
+        }
+    }
+    List<Long> gestionados = efectivo.entrySet().stream()
+        .filter(entrada -> criterio.test(entrada.getValue()))
+        .map(Map.Entry::getKey)
+        .toList();
+    for (Producto producto : repository.findAllById(gestionados)) {
+        resultado.add(copiaConStock(producto, efectivo.get(producto.getId())));
+    }
+    resultado.sort(Comparator.comparing(Producto::getId));
+    return resultado;
+    }
+
+    /* Stock efectivo de los SKU cuyo stock no esta entero en producto.stock, por ID: el contador en modo
+       caliente, la suma de ranuras si esta fragmentado, o la columna mas lo que falta volcar o compactar.
+       Misma prioridad que stockGestionado; los demas productos tienen su stock en la columna */
+    private Map<Long, Integer> stockEfectivoGestionados() {
+    Map<Long, Integer> efectivo = new HashMap<>(movimientos.stockPorProducto());
+    Map<Long, Integer> sinVolcar = stockCaliente.pendientesSinContador();
+    if (!sinVolcar.isEmpty()) {
+        for (Object[] fila : repository.obtenerStockPorIds(sinVolcar.keySet())) {
+            Long id = (Long) fila[0];
+            efectivo.put(id, efectivo.getOrDefault(id, ((Number) fila[1]).intValue()) + sinVolcar.get(id));
+        }
+    }
+    efectivo.putAll(stockFragmentado.stockPorProducto());
+    efectivo.putAll(stockCaliente.stockPorProducto());
+    return efectivo;
+    }
+
+    private Producto conStockEfectivo(Producto producto) {
+        Integer vigente = stockGestionado(producto.getId());
+        return vigente != null ? copiaConStock(producto, vigente) : producto;
+    }
+
+    /* Stock vigente cuando no es solo producto.stock: el de memoria en modo caliente, la suma de
+       ranuras si esta fragmentado o snapshot + cola con el diario; null si basta con la columna */
+    private Integer stockGestionado(Long id) {
+        Integer enMemoria = stockCaliente.stockActual(id);
+        if (enMemoria != null) {
+            return enMemoria;
+        }
+        Integer enRanuras = stockFragmentado.stockActual(id);
+        if (enRanuras != null) {
+            return enRanuras;
+        }
+        return movimientos.isHabilitado() ? movimientos.stockActual(id) : null;
+    }
+
+    private void ajustarStock(Long id, int delta) {
+        if (delta == 0) {
+            return;
+        }
+        if (stockCaliente.reponer(id, delta) != null) {
+            return;
+        }
+        stockFragmentado.excluyendoFragmentar(() -> {
+            if (!stockFragmentado.gestiona(id)) {
+                movimientos.ajustar(id, delta);
+            } else if (delta > 0) {
+                stockFragmentado.reponer(id, delta);
+            } else {
+                stockFragmentado.rebajar(id, -delta, 0);
+            }
+            return null;
+        });
+    }
+
+    // Se devuelve una copia para no ensuciar la entidad administrada con un stock que no se debe escribir
+    private static Producto copiaConStock(Producto producto, int stock) {
+        return new Producto(producto.getId(), producto.getNombre(), stock, producto.getPrecio(), producto.getVersion());
     }
 
 
@@ -0,0 +1,33 @@
+package com.perfulandia.inventario.service;
+
+import java.util.Collection;
+import java.util.List;
+
+/*
+ * Aviso de que cambiaron filas de producto (stock, datos o versión). Lo publican los servicios que
+ * escriben la tabla y lo consumen la caché de productos, para descartar las entradas afectadas, y el
+ * índice de búsqueda por nombre. ids == null significa "cualquier producto". soloStock indica que solo
+ * se movió el stock (rebajas, reposiciones, volcados), así el índice de nombres no relee esas filas.
+ */
+public record ProductosModificadosEvento(Collection<Long> ids, boolean soloStock) {
+
+    public ProductosModificadosEvento(Collection<Long> ids) {
+        this(ids, false);
+    }
+
+    public static ProductosModificadosEvento de(Long id) {
+        return new ProductosModificadosEvento(List.of(id));
+    }
+
+    public static ProductosModificadosEvento todos() {
+        return new ProductosModificadosEvento(null);
+    }
+
+    public static ProductosModificadosEvento stock(Long id) {
+        return stock(List.of(id));
+    }
+
+    public static ProductosModificadosEvento stock(Collection<Long> ids) {
+        return new ProductosModificadosEvento(ids, true);
+    }
+}
@@ -0,0 +1,211 @@
+package com.perfulandia.inventario.service;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.perfulandia.inventario.dto.ResumenConsulta;
+
+/*
+ * Registro de las sentencias que ejecuta la aplicación, alimentado por el proxy JDBC del DataSource
+ * (DataSourceMedido). Reemplaza a spring.jpa.show-sql, que imprime cada sentencia:
+ *  - al log solo van las que superan umbral-ms (WARN) y una fracción muestreada del resto (INFO);
+ *  - cada sentencia se agrupa por su huella (el SQL sin literales, con las listas IN colapsadas) en una
+ *    tabla en memoria acotada a max-huellas (Caffeine: cuando se llena conserva las más frecuentes) con
+ *    cantidad, tiempo total, máximo y p99 (histograma logarítmico, error menor al 19%).
+ * El tiempo es el de ejecución de la sentencia, sin recorrer el ResultSet.
+ */
+@Service
+public class RegistroConsultasService {
+
+    private static final Logger log = LoggerFactory.getLogger(RegistroConsultasService.class);
+    private static final int LARGO_MAXIMO_HUELLA = 1000;
+
+    private final long umbralNanos;
+    private final double muestreo;
+    private final Cache<String, EstadisticaConsulta> huellas;
+
+    public RegistroConsultasService(@Value("${inventario.consultas.umbral-ms:200}") long umbralMs,
+                                    @Value("${inventario.consultas.muestreo:0}") double muestreo,
+                                    @Value("${inventario.consultas.max-huellas:500}") int maxHuellas) {
+        if (muestreo < 0 || muestreo > 1) {
+            throw new IllegalArgumentException("inventario.consultas.muestreo debe estar entre 0 y 1");
+        }
+        this.umbralNanos = TimeUnit.MILLISECONDS.toNanos(umbralMs);
+        this.muestreo = muestreo;
+        // Mantenimiento en el hilo que registra: sin tareas en el pool común por cada sentencia
+        this.huellas = Caffeine.newBuilder().maximumSize(maxHuellas).executor(Runnable::run).build();
+    }
+
+    public void registrar(String sql, long nanos) {
+        if (sql == null) {
+            return;
+        }
+        registrar(sql, huella(sql), nanos);
+    }
+
+    /* Con la huella ya calculada: una sentencia preparada la calcula una sola vez y no en cada ejecución */
+    public void registrar(String sql, String huella, long nanos) {
+        huellas.get(huella, clave -> new EstadisticaConsulta()).anotar(nanos);
+        if (nanos >= umbralNanos) {
+            log.warn("Consulta lenta ({} ms): {}", TimeUnit.NANOSECONDS.toMillis(nanos), sql);
+        } else if (muestreo > 0 && ThreadLocalRandom.current().nextDouble() < muestreo) {
+            log.info("Consulta muestreada ({} µs): {}", TimeUnit.NANOSECONDS.toMicros(nanos), sql);
+        }
+    }
+
+    /* Las huellas que más pesan según orden: total (tiempo acumulado, por defecto), p99, maximo o cantidad */
+    public List<ResumenConsulta> principales(String orden, int limite) {
+        Comparator<ResumenConsulta> criterio = switch (orden == null ? "total" : orden) {
+            case "total" -> Comparator.comparingDouble(ResumenConsulta::getTotalMs);
+            case "p99" -> Comparator.comparingDouble(ResumenConsulta::getP99Ms);
+            case "maximo" -> Comparator.comparingDouble(ResumenConsulta::getMaximoMs);
+            case "cantidad" -> Comparator.comparingLong(ResumenConsulta::getCantidad);
+            default -> throw new IllegalArgumentException("Orden desconocido: " + orden + " (total, p99, maximo o cantidad)");
+        };
+        huellas.cleanUp();
+        return huellas.asMap().entrySet().stream()
+            .map(entrada -> entrada.getValue().resumen(entrada.getKey()))
+            .sorted(criterio.reversed())
+            .limit(limite)
+            .toList();
+    }
+
+    public void limpiar() {
+        huellas.invalidateAll();
+    }
+
+    /* SQL sin literales (texto y números pasan a ?), con los espacios colapsados y las listas de ? en una sola */
+    public static String huella(String sql) {
+        StringBuilder huella = new StringBuilder(Math.min(sql.length(), LARGO_MAXIMO_HUELLA));
+        int i = 0;
+        while (i < sql.length() && huella.length() < LARGO_MAXIMO_HUELLA) {
+            char c = sql.charAt(i);
+            if (c == '\'') {
+                i = finDeTexto(sql, i);
+                agregarParametro(huella);
+                continue;
+            }
+            if (Character.isDigit(c) && !esParteDeNombre(huella)) {
+                while (i < sql.length() && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+                    i++;
+                }
+                agregarParametro(huella);
+                continue;
+            }
+            if (Character.isWhitespace(c)) {
+                if (huella.length() > 0 && huella.charAt(huella.length() - 1) != ' ') {
+                    huella.append(' ');
+                }
+            } else if (c == '?') {
+                agregarParametro(huella);
+            } else {
+                huella.append(c);
+            }
+            i++;
+        }
+        return huella.toString().trim();
+    }
+
+    // Posición siguiente a la comilla que cierra el texto ('' es una comilla escapada)
+    private static int finDeTexto(String sql, int inicio) {
+        int i = inicio + 1;
+        while (i < sql.length()) {
+            if (sql.charAt(i) == '\'') {
+                if (i + 1 < sql.length() && sql.charAt(i + 1) == '\'') {
+                    i += 2;
+                    continue;
+                }
+                return i + 1;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    // Un ? seguido de ", ?" se absorbe: IN (?, ?, ?) y IN (?) dan la misma huella
+    private static void agregarParametro(StringBuilder huella) {
+        int largo = huella.length();
+        if (largo >= 2 && huella.charAt(largo - 1) == ' ' && huella.charAt(largo - 2) == ',' && anteriorEsParametro(huella, largo - 2)) {
+            huella.setLength(largo - 2);
+        } else if (largo >= 1 && huella.charAt(largo - 1) == ',' && anteriorEsParametro(huella, largo - 1)) {
+            huella.setLength(largo - 1);
+        } else {
+            huella.append('?');
+        }
+    }
+
+    private static boolean anteriorEsParametro(StringBuilder huella, int coma) {
+        int i = coma - 1;
+        while (i >= 0 && huella.charAt(i) == ' ') {
+            i--;
+        }
+        return i >= 0 && huella.charAt(i) == '?';
+    }
+
+    // Un dígito pegado a letras o _ es parte de un nombre (p1_0, col2), no un literal
+    private static boolean esParteDeNombre(StringBuilder huella) {
+        if (huella.length() == 0) {
+            return false;
+        }
+        char anterior = huella.charAt(huella.length() - 1);
+        return Character.isLetterOrDigit(anterior) || anterior == '_' || anterior == '$';
+    }
+
+    /* Cantidad, total, máximo e histograma de tiempos de una huella; 4 cubetas por potencia de 2 en µs */
+    static final class EstadisticaConsulta {
+
+        private static final int CUBETAS = 4 * 40;
+
+        private final LongAdder cantidad = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maximoNanos = new AtomicLong();
+        private final AtomicLongArray histograma = new AtomicLongArray(CUBETAS);
+
+        void anotar(long nanos) {
+            cantidad.increment();
+            totalNanos.add(nanos);
+            maximoNanos.accumulateAndGet(nanos, Math::max);
+            histograma.incrementAndGet(cubeta(Math.max(1, nanos / 1000)));
+        }
+
+        ResumenConsulta resumen(String huella) {
+            long n = cantidad.sum();
+            double totalMs = totalNanos.sum() / 1e6;
+            double maximoMs = maximoNanos.get() / 1e6;
+            return new ResumenConsulta(huella, n, totalMs, n > 0 ? totalMs / n : 0, Math.min(p99Ms(n), maximoMs), maximoMs);
+        }
+
+        // Límite superior de la cubeta donde cae el 99% de las ejecuciones
+        private double p99Ms(long n) {
+            long objetivo = (long) Math.ceil(n * 0.99);
+            long acumulado = 0;
+            for (int i = 0; i < CUBETAS; i++) {
+                acumulado += histograma.get(i);
+                if (acumulado >= objetivo && acumulado > 0) {
+                    int exponente = i / 4;
+                    int fraccion = i % 4;
+                    return ((4 + fraccion + 1) * Math.pow(2, exponente) / 4) / 1000.0;
+                }
+            }
+            return 0;
+        }
+
+        private static int cubeta(long micros) {
+            int exponente = 63 - Long.numberOfLeadingZeros(micros);
+            int fraccion = exponente >= 2 ? (int) ((micros >>> (exponente - 2)) & 3) : (int) ((micros << (2 - exponente)) & 3);
+            return Math.min(CUBETAS - 1, exponente * 4 + fraccion);
+        }
+    }
+}
@@ -5,10 +5,18 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.perfulandia.inventario.dto.ResenaExportada;
+import com.perfulandia.inventario.model.AgregadoResena;
 import com.perfulandia.inventario.model.Resena;
+import com.perfulandia.inventario.repository.ProductoRepository;
 import com.perfulandia.inventario.repository.ResenaRepository;
 
 
@@ -16,21 +24,46 @@ import com.perfulandia.inventario.repository.ResenaRepository;
 public class ResenaService {
     
     private final ResenaRepository resenaRepository;
+    private final ProductoRepository productoRepository;
+    private final AgregadoResenaService agregados;
+    private final IndiceResenasService indice;
+    private final MetricasInventarioService metricas;
+    private final ApplicationEventPublisher eventos;
 
     /*------------CRUD---------- */
 
-    public ResenaService(ResenaRepository resenaRepository) {
+    public ResenaService(ResenaRepository resenaRepository, ProductoRepository productoRepository,
+                         AgregadoResenaService agregados, IndiceResenasService indice,
+                         MetricasInventarioService metricas, ApplicationEventPublisher eventos) {
         this.resenaRepository = resenaRepository;
+        this.productoRepository = productoRepository;
+        this.agregados = agregados;
+        this.indice = indice;
+        this.metricas = metricas;
+        this.eventos = eventos;
     }
 
+    /* Guardar, actualizar y eliminar ajustan los agregados del producto en la misma transacción y, tras
+       el commit, el índice de texto de los comentarios */
+    @Transactional
     public Resena guardar(Resena resena) {
-        return resenaRepository.save(resena);
+        return metricas.medirResena("guardar", () -> guardarConAgregados(resena));
     }
 
     public List<Resena> listar() {
         return resenaRepository.findAll();
     }
 
+    /* Hasta limite reseñas con ID mayor a despuesDe (null = desde el principio), en orden de ID */
+    public List<Resena> listarPagina(Long despuesDe, int limite) {
+        return resenaRepository.findByIdGreaterThanOrderByIdAsc(despuesDe != null ? despuesDe : 0L, Limit.of(limite));
+    }
+
+    /* Versión del listado de reseñas del producto, leída de su fila de agregados (sin leer las reseñas) */
+    public long versionResenasDeProducto(Long idProducto) {
+        return agregados.version(idProducto);
+    }
+
     public List<Resena> listarPorProductoId(Long idProducto) {
     return resenaRepository.findByProductoId(idProducto);
     }
@@ -43,32 +76,89 @@ public class ResenaService {
         return resenaRepository.findById(id);
     }
 
+    @Transactional
     public void eliminar(Long id) {
-        resenaRepository.deleteById(id);
+        metricas.medirResena("eliminar", () -> {
+            Optional<ResenaExportada> anterior = resenaRepository.buscarGuardada(id);
+            resenaRepository.deleteById(id);
+            anterior.ifPresent(previa -> agregados.registrar(previa.getIdProducto(), previa.getCalificacion(), -1));
+            eventos.publishEvent(ResenasModificadasEvento.de(id));
+            return null;
+        });
     }
 
+    @Transactional
     public Resena actualizar(Resena resena) {
-        return resenaRepository.save(resena);
+        return metricas.medirResena("actualizar", () -> guardarConAgregados(resena));
     }  
 
+    /* Promedio leído del agregado del producto (suma / cantidad), sin recorrer sus reseñas */
     public Double obtenerPromedioCalificacion(Long productoId) {
-    return resenaRepository.promedioCalificacionPorProducto(productoId);
+    return agregados.promedio(productoId);
     }
 
     public List<Map<String, Object>> obtenerCantidadResenasPorProducto() {
-        List<Object[]> resultados = resenaRepository.cantidadResenasPorProducto();
+        return metricas.medirReporte("cantidad-resenas-por-producto", this::cantidadResenasPorProducto);
+    }
+
+    private List<Map<String, Object>> cantidadResenasPorProducto() {
         List<Map<String, Object>> respuesta = new ArrayList<>();
 
-        for (Object[] fila : resultados) {
+        for (AgregadoResena agregado : agregados.conResenas()) {
             Map<String, Object> map = new HashMap<>();
-            map.put("idProducto", fila[0]);
-            map.put("cantidadResenas", fila[1]);
+            map.put("idProducto", agregado.getIdProducto());
+            map.put("cantidadResenas", agregado.getCantidad());
             respuesta.add(map);
     }
 
         return respuesta;
     }
 
+    /* Búsqueda de texto en los comentarios (BM25 sobre el índice invertido), de la más a la menos relevante */
+    public List<Resena> buscarEnComentarios(String texto, Long idProducto, Integer calificacion, int limite) {
+        List<Long> ids = indice.buscar(texto, idProducto, calificacion, limite).stream()
+            .map(IndiceResenasService.Coincidencia::id)
+            .toList();
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Resena> leidas = resenaRepository.findAllById(ids).stream()
+            .collect(Collectors.toMap(Resena::getId, Function.identity()));
+        return ids.stream().map(leidas::get).filter(resena -> resena != null).toList();
+    }
+
+    /* Recalcula los agregados desde la tabla resena; devuelve cuántos productos tienen reseñas */
+    public int reconstruirAgregados() {
+        return agregados.reconstruir();
+    }
+
+    // La calificación y el producto anteriores se leen de la base (no de la entidad, que puede venir ya
+    // modificada); si no cambiaron los totales quedan igual y solo sube la versión del producto.
+    // El producto llega del cliente solo con su ID (sin versión), y Hibernate no acepta asociar una
+    // entidad suelta sin versión: se reemplaza por una referencia al producto, sin leerlo
+    private Resena guardarConAgregados(Resena resena) {
+        if (resena.getProducto() != null && resena.getProducto().getId() != null) {
+            resena.setProducto(productoRepository.getReferenceById(resena.getProducto().getId()));
+        }
+        Optional<ResenaExportada> anterior = resena.getId() != null
+            ? resenaRepository.buscarGuardada(resena.getId())
+            : Optional.empty();
+        Resena guardada = resenaRepository.save(resena);
+        Long idProducto = guardada.getProducto().getId();
+        eventos.publishEvent(ResenasModificadasEvento.de(guardada.getId()));
+
+        if (anterior.isPresent()) {
+            ResenaExportada previa = anterior.get();
+            if (previa.getIdProducto().equals(idProducto) && previa.getCalificacion() == guardada.getCalificacion()) {
+                agregados.registrarEdicion(idProducto);
+                return guardada;
+            }
+            agregados.registrar(previa.getIdProducto(), previa.getCalificacion(), -1);
+        }
+        agregados.registrar(idProducto, guardada.getCalificacion(), 1);
+        return guardada;
+    }
+
 
 
 
@@ -0,0 +1,20 @@
+package com.perfulandia.inventario.service;
+
+import java.util.Collection;
+import java.util.List;
+
+/*
+ * Aviso de que cambiaron filas de resena (alta, edición o baja). Lo publica ResenaService y lo consume,
+ * después del commit, el índice de texto de los comentarios, que relee esas filas. ids == null significa
+ * "cualquier reseña" (el índice se recarga entero).
+ */
+public record ResenasModificadasEvento(Collection<Long> ids) {
+
+    public static ResenasModificadasEvento de(Long id) {
+        return new ResenasModificadasEvento(List.of(id));
+    }
+
+    public static ResenasModificadasEvento todas() {
+        return new ResenasModificadasEvento(null);
+    }
+}
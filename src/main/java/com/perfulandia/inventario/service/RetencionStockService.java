@@ -0,0 +1,344 @@
+package com.perfulandia.inventario.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntFunction;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.perfulandia.inventario.exception.ProductoNoEncontradoException;
+import com.perfulandia.inventario.exception.RetencionNoActivaException;
+import com.perfulandia.inventario.exception.RetencionNoEncontradaException;
+import com.perfulandia.inventario.exception.StockInsuficienteException;
+import com.perfulandia.inventario.model.EstadoRetencion;
+import com.perfulandia.inventario.model.RetencionStock;
+import com.perfulandia.inventario.repository.ProductoRepository;
+import com.perfulandia.inventario.repository.RetencionStockRepository;
+
+import jakarta.annotation.PostConstruct;
+
+/*
+ * Retenciones temporales de stock (reservar / confirmar / liberar).
+ * La tabla retencion_stock es el registro durable; las retenciones activas y el total retenido
+ * por producto se mantienen en memoria para calcular "disponible = stock - retenido" sin recorrer
+ * la tabla. Los vencimientos se ordenan en una DelayQueue: cada barrido solo mira la cabeza de la
+ * cola, así que cuesta O(1) cuando no hay nada vencido y no depende de cuántas retenciones haya abiertas.
+ */
+@Service
+public class RetencionStockService {
+
+    private static final int FRANJAS_CANDADO = 64;
+
+    private final RetencionStockRepository retencionRepository;
+    private final ProductoRepository productoRepository;
+    private final StockCalienteService stockCaliente;
+    private final StockFragmentadoService stockFragmentado;
+    private final MovimientoStockService movimientos;
+    private final TransactionTemplate transaccion;
+    private final ApplicationEventPublisher eventos;
+    private final Duration ttlPorDefecto;
+
+    private final Map<Long, RetencionActiva> activas = new ConcurrentHashMap<>();
+    private final Map<Long, Integer> retenidoPorProducto = new ConcurrentHashMap<>(); // sin entradas en 0
+    private final DelayQueue<Vencimiento> vencimientos = new DelayQueue<>();
+    private final ReentrantLock[] candados = new ReentrantLock[FRANJAS_CANDADO];
+
+    public RetencionStockService(RetencionStockRepository retencionRepository,
+                                 ProductoRepository productoRepository,
+                                 StockCalienteService stockCaliente,
+                                 StockFragmentadoService stockFragmentado,
+                                 MovimientoStockService movimientos,
+                                 PlatformTransactionManager transactionManager,
+                                 ApplicationEventPublisher eventos,
+                                 @Value("${inventario.retenciones.ttl-segundos:900}") long ttlSegundos) {
+        this.retencionRepository = retencionRepository;
+        this.productoRepository = productoRepository;
+        this.stockCaliente = stockCaliente;
+        this.stockFragmentado = stockFragmentado;
+        this.movimientos = movimientos;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.eventos = eventos;
+        this.ttlPorDefecto = Duration.ofSeconds(ttlSegundos);
+        for (int i = 0; i < FRANJAS_CANDADO; i++) {
+            candados[i] = new ReentrantLock();
+        }
+    }
+
+    /* Al arrancar se recuperan las retenciones que quedaron activas; las ya vencidas caen en el primer barrido */
+    @PostConstruct
+    public void cargarActivas() {
+        for (RetencionStock retencion : retencionRepository.findByEstado(EstadoRetencion.ACTIVA)) {
+            registrar(retencion);
+        }
+    }
+
+    /* Aparta unidades de un producto si el disponible (stock - retenido) alcanza */
+    public RetencionStock retener(Long idProducto, int cantidad, Duration ttl) {
+        if (cantidad <= 0) {
+            throw new IllegalArgumentException("La cantidad a retener debe ser mayor a cero");
+        }
+        Duration vigencia = ttl != null ? ttl : ttlPorDefecto;
+
+        ReentrantLock candado = candado(idProducto);
+        candado.lock();
+        try {
+            int stock = stockVigente(idProducto);
+
+            if (stock - retenido(idProducto) < cantidad) {
+                throw new StockInsuficienteException(idProducto);
+            }
+
+            LocalDateTime ahora = LocalDateTime.now();
+            RetencionStock retencion = retencionRepository.save(new RetencionStock(
+                null, idProducto, cantidad, EstadoRetencion.ACTIVA, ahora.plus(vigencia), ahora));
+            registrar(retencion, vigencia);
+            return retencion;
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    /* Convierte la retención en una rebaja definitiva de stock */
+    public RetencionStock confirmar(Long idRetencion) {
+        RetencionActiva retencion = tomarActiva(idRetencion);
+        ReentrantLock candado = candado(retencion.idProducto());
+        try {
+            candado.lock();
+            try {
+                transaccion.executeWithoutResult(status -> {
+                    if (retencionRepository.cambiarEstado(idRetencion, EstadoRetencion.ACTIVA, EstadoRetencion.CONFIRMADA) == 0) {
+                        throw new RetencionNoActivaException(idRetencion, buscarPorId(idRetencion).getEstado());
+                    }
+                    // Las unidades de esta retención ya están contadas en el retenido, se excluyen del resguardo
+                    int retenidoOtras = retenido(retencion.idProducto()) - retencion.cantidad();
+                    if (stockCaliente.rebajar(retencion.idProducto(), retencion.cantidad(), retenidoOtras) != null) {
+                        return;
+                    }
+                    boolean descontado = stockFragmentado.excluyendoFragmentar(() -> {
+                        if (stockFragmentado.gestiona(retencion.idProducto())) {
+                            stockFragmentado.rebajar(retencion.idProducto(), retencion.cantidad(), retenidoOtras);
+                            return true;
+                        }
+                        if (movimientos.isHabilitado()) {
+                            movimientos.rebajar(retencion.idProducto(), retencion.cantidad(), retenidoOtras);
+                            return true;
+                        }
+                        return false;
+                    });
+                    if (descontado) {
+                        return;
+                    }
+                    if (productoRepository.rebajarStockSiDisponible(retencion.idProducto(), retencion.cantidad(), retenidoOtras) == 0) {
+                        throw new StockInsuficienteException(retencion.idProducto());
+                    }
+                    eventos.publishEvent(ProductosModificadosEvento.stock(retencion.idProducto()));
+                });
+            } finally {
+                candado.unlock();
+            }
+        } catch (StockInsuficienteException e) {
+            reactivar(retencion); // sigue activa para que el cliente la libere o reintente
+            throw e;
+        } catch (RetencionNoActivaException e) {
+            descontarRetenido(retencion); // en la tabla ya no estaba activa, se deja de contar
+            throw e;
+        }
+        descontarRetenido(retencion);
+        return buscarPorId(idRetencion);
+    }
+
+    /* Aplica una rebaja directa con el retenido del producto leído bajo el mismo candado que retener,
+       así ninguna retención se cuela entre la lectura del retenido y la rebaja */
+    public <T> T conRetenido(Long idProducto, IntFunction<T> rebaja) {
+        ReentrantLock candado = candado(idProducto);
+        candado.lock();
+        try {
+            return rebaja.apply(retenido(idProducto));
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    /* Toma los candados de los productos y los suelta al terminar la transacción en curso. Una rebaja con
+       UPDATE dentro de una transacción más larga (un pedido) se ve recién al confirmarla, y retener lee el
+       stock confirmado: con el candado tomado hasta el final, una retención del mismo producto espera el
+       commit en vez de apartar unidades que el pedido ya consumió. Se toman en orden de franja y antes de
+       bloquear filas, así dos pedidos no se esperan en círculo */
+    public void bloquearHastaFinDeTransaccion(Collection<Long> idsProducto) {
+        if (idsProducto.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Los candados se sueltan al terminar la transacción: se necesita una transacción activa");
+        }
+        TreeSet<Integer> franjas = new TreeSet<>();
+        for (Long idProducto : idsProducto) {
+            franjas.add(franja(idProducto));
+        }
+        List<ReentrantLock> tomados = new ArrayList<>(franjas.size());
+        for (int franja : franjas) {
+            candados[franja].lock();
+            tomados.add(candados[franja]);
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int estado) {
+                tomados.forEach(ReentrantLock::unlock);
+            }
+        });
+    }
+
+    /* Devuelve las unidades al disponible sin tocar el stock */
+    public RetencionStock liberar(Long idRetencion) {
+        RetencionActiva retencion = tomarActiva(idRetencion);
+        retencionRepository.cambiarEstado(idRetencion, EstadoRetencion.ACTIVA, EstadoRetencion.LIBERADA);
+        descontarRetenido(retencion);
+        return buscarPorId(idRetencion);
+    }
+
+    /* Barrido periódico: saca de la cola solo lo vencido y lo marca EXPIRADA en un único UPDATE */
+    @Scheduled(fixedDelayString = "${inventario.retenciones.barrido-ms:1000}")
+    public int expirarVencidas() {
+        List<Long> vencidas = new ArrayList<>();
+        Vencimiento vencimiento;
+        while ((vencimiento = vencimientos.poll()) != null) {
+            RetencionActiva retencion = activas.remove(vencimiento.idRetencion());
+            if (retencion != null) { // las confirmadas o liberadas ya no están en el mapa
+                descontarRetenido(retencion);
+                vencidas.add(retencion.idRetencion());
+            }
+        }
+        if (!vencidas.isEmpty()) {
+            retencionRepository.cambiarEstadoEnLote(vencidas, EstadoRetencion.ACTIVA, EstadoRetencion.EXPIRADA);
+        }
+        return vencidas.size();
+    }
+
+    /* Unidades retenidas de un producto, desde memoria */
+    public int retenido(Long idProducto) {
+        return retenidoPorProducto.getOrDefault(idProducto, 0);
+    }
+
+    /* Disponible = stock - retenido; el retenido sale de memoria */
+    public Map<String, Object> consultarDisponible(Long idProducto) {
+        int stock = stockVigente(idProducto);
+        int retenido = retenido(idProducto);
+
+        Map<String, Object> resultado = new HashMap<>();
+        resultado.put("idProducto", idProducto);
+        resultado.put("stock", stock);
+        resultado.put("retenido", retenido);
+        resultado.put("disponible", Math.max(stock - retenido, 0));
+        return resultado;
+    }
+
+    public int cantidadActivas() {
+        return activas.size();
+    }
+
+    /* Productos con unidades retenidas; los que vuelven a 0 salen del mapa */
+    public int cantidadProductosConRetenido() {
+        return retenidoPorProducto.size();
+    }
+
+    public RetencionStock buscarPorId(Long idRetencion) {
+        return retencionRepository.findById(idRetencion)
+            .orElseThrow(() -> new RetencionNoEncontradaException(idRetencion));
+    }
+
+    /* Stock de memoria si el producto está en modo caliente, la suma de ranuras si está fragmentado,
+       el contador del diario si está habilitado; si no, una lectura por PK */
+    private int stockVigente(Long idProducto) {
+        Integer enMemoria = stockCaliente.stockActual(idProducto);
+        if (enMemoria != null) {
+            return enMemoria;
+        }
+        Integer enRanuras = stockFragmentado.stockActual(idProducto);
+        if (enRanuras != null) {
+            return enRanuras;
+        }
+        if (movimientos.isHabilitado()) {
+            return movimientos.stockActual(idProducto);
+        }
+        return productoRepository.obtenerStockPorId(idProducto)
+            .orElseThrow(() -> new ProductoNoEncontradoException(idProducto));
+    }
+
+    private RetencionActiva tomarActiva(Long idRetencion) {
+        RetencionActiva retencion = activas.remove(idRetencion);
+        if (retencion == null) {
+            throw new RetencionNoActivaException(idRetencion, buscarPorId(idRetencion).getEstado());
+        }
+        return retencion;
+    }
+
+    private void registrar(RetencionStock retencion) {
+        registrar(retencion, Duration.between(LocalDateTime.now(), retencion.getExpiraEn()));
+    }
+
+    private void registrar(RetencionStock retencion, Duration vigencia) {
+        RetencionActiva activa = new RetencionActiva(retencion.getId(), retencion.getIdProducto(), retencion.getCantidad(),
+            System.nanoTime() + vigencia.toNanos());
+        activas.put(activa.idRetencion(), activa);
+        retenidoPorProducto.merge(activa.idProducto(), activa.cantidad(), Integer::sum);
+        vencimientos.offer(new Vencimiento(activa.idRetencion(), activa.venceEnNanos()));
+    }
+
+    // Vuelve a activar una retención tomada con tomarActiva: su vencimiento pudo salir de la cola mientras no
+    // estaba en el mapa, así que se encola de nuevo con el mismo plazo (un duplicado ya no encuentra nada)
+    private void reactivar(RetencionActiva retencion) {
+        activas.put(retencion.idRetencion(), retencion);
+        vencimientos.offer(new Vencimiento(retencion.idRetencion(), retencion.venceEnNanos()));
+    }
+
+    // Suma y resta van dentro del mapa (merge / computeIfPresent): quitar la entrada que llega a 0 no puede
+    // perder una suma concurrente sobre el mismo producto
+    private void descontarRetenido(RetencionActiva retencion) {
+        retenidoPorProducto.computeIfPresent(retencion.idProducto(), (id, total) -> {
+            int restante = total - retencion.cantidad();
+            return restante != 0 ? restante : null;
+        });
+    }
+
+    private ReentrantLock candado(Long idProducto) {
+        return candados[franja(idProducto)];
+    }
+
+    private static int franja(Long idProducto) {
+        return Math.floorMod(idProducto.hashCode(), FRANJAS_CANDADO);
+    }
+
+    private record RetencionActiva(Long idRetencion, Long idProducto, int cantidad, long venceEnNanos) {
+    }
+
+    private record Vencimiento(Long idRetencion, long venceEnNanos) implements Delayed {
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(venceEnNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed otro) {
+            return Long.compare(venceEnNanos, ((Vencimiento) otro).venceEnNanos);
+        }
+    }
+}
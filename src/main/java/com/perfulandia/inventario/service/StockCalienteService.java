@@ -0,0 +1,365 @@
+package com.perfulandia.inventario.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.perfulandia.inventario.exception.ProductoNoEncontradoException;
+import com.perfulandia.inventario.exception.StockInsuficienteException;
+import com.perfulandia.inventario.model.PuntoControlStock;
+import com.perfulandia.inventario.repository.ProductoRepository;
+import com.perfulandia.inventario.repository.PuntoControlStockRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/*
+ * Modo "stock caliente" (opcional): para los SKU registrados el stock autoritativo vive en un
+ * contador atómico en memoria, así las rebajas no se serializan en el bloqueo de la fila producto.
+ * Cada movimiento se anota primero en una bitácora en disco y luego se acumula como delta neto;
+ * un volcado periódico aplica los deltas a la tabla producto en lote junto con el punto de control
+ * de la bitácora, en la misma transacción. Al arrancar se reaplica lo anotado después del último
+ * punto de control, de modo que una caída no pierde movimientos confirmados.
+ */
+@Service
+public class StockCalienteService {
+
+    private static final Logger log = LoggerFactory.getLogger(StockCalienteService.class);
+    static final String PUNTO_CONTROL = "stock-caliente";
+
+    private final ProductoRepository productoRepository;
+    private final PuntoControlStockRepository puntoControlRepository;
+    private final MovimientoStockService movimientos;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaccion;
+    private final ApplicationEventPublisher eventos;
+    private final boolean habilitado;
+    private final Path directorioBitacora;
+    private final boolean sincronizar;
+
+    // Las operaciones toman el candado de lectura; el volcado toma el de escritura solo para
+    // recoger los deltas y rotar la bitácora, así lo recogido coincide con lo anotado hasta "hasta"
+    private final ReentrantReadWriteLock candado = new ReentrantReadWriteLock();
+    private final Map<Long, Contador> contadores = new ConcurrentHashMap<>();
+    private final Map<Long, Integer> pendientesSinContador = new HashMap<>();
+    private final List<Path> segmentosPorBorrar = new ArrayList<>();
+    private final AtomicLong secuencia = new AtomicLong();
+    private BitacoraIntencionesStock bitacora;
+
+    public StockCalienteService(ProductoRepository productoRepository,
+                                PuntoControlStockRepository puntoControlRepository,
+                                MovimientoStockService movimientos,
+                                JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                ApplicationEventPublisher eventos,
+                                @Value("${inventario.stock-caliente.habilitado:false}") boolean habilitado,
+                                @Value("${inventario.stock-caliente.bitacora-dir:./data/stock-caliente}") String directorioBitacora,
+                                @Value("${inventario.stock-caliente.fsync:true}") boolean sincronizar) {
+        this.productoRepository = productoRepository;
+        this.puntoControlRepository = puntoControlRepository;
+        this.movimientos = movimientos;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.eventos = eventos;
+        this.habilitado = habilitado;
+        this.directorioBitacora = Path.of(directorioBitacora);
+        this.sincronizar = sincronizar;
+    }
+
+    /* Si quedó bitácora de una ejecución anterior se reaplica aunque el modo esté deshabilitado ahora */
+    @PostConstruct
+    public void iniciar() throws IOException {
+        if (!habilitado && !Files.isDirectory(directorioBitacora)) {
+            return;
+        }
+        bitacora = new BitacoraIntencionesStock(directorioBitacora, sincronizar);
+        recuperar();
+    }
+
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+
+    public boolean gestiona(Long idProducto) {
+        return contadores.containsKey(idProducto);
+    }
+
+    /* Carga el stock actual del producto en memoria; desde aquí todos sus movimientos pasan por el contador */
+    // Sincronizado con volcar (no lee la columna con deltas recogidos a medio aplicar) y bajo el candado de
+    // escritura (ningún movimiento en curso): la lectura de la columna y la instalación del contador son atómicas
+    public synchronized int registrar(Long idProducto) {
+        if (!habilitado || bitacora == null) {
+            throw new IllegalStateException("El modo stock caliente no está habilitado");
+        }
+        candado.writeLock().lock();
+        try {
+            Contador existente = contadores.get(idProducto);
+            if (existente != null) {
+                return existente.stock.get();
+            }
+            movimientos.retirar(idProducto); // la cola del diario debe estar en producto.stock antes de leerlo
+            int stock = productoRepository.obtenerStockPorId(idProducto)
+                .orElseThrow(() -> new ProductoNoEncontradoException(idProducto));
+            // Deltas de un registro anterior que aún no llegaron a la columna
+            stock += pendientesSinContador.getOrDefault(idProducto, 0);
+            contadores.put(idProducto, new Contador(stock));
+            return stock;
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    /* Saca el producto del modo caliente y vuelca sus deltas pendientes a la base */
+    public void desregistrar(Long idProducto) {
+        candado.writeLock().lock();
+        try {
+            Contador contador = contadores.remove(idProducto);
+            if (contador == null) {
+                return;
+            }
+            int delta = contador.pendiente.getAndSet(0);
+            if (delta != 0) {
+                pendientesSinContador.merge(idProducto, delta, Integer::sum);
+            }
+        } finally {
+            candado.writeLock().unlock();
+        }
+        volcar();
+    }
+
+    /* Ejecuta un movimiento sobre la base (producto no caliente) bajo el candado de lectura, así registrar
+       no lee la columna mientras ese movimiento está a medio aplicar */
+    public <T> T excluyendoRegistro(Supplier<T> movimiento) {
+        if (!habilitado) {
+            return movimiento.get();
+        }
+        candado.readLock().lock();
+        try {
+            return movimiento.get();
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    /* Stock en memoria del producto, o null si no está en modo caliente */
+    public Integer stockActual(Long idProducto) {
+        Contador contador = contadores.get(idProducto);
+        return contador != null ? contador.stock.get() : null;
+    }
+
+    /* Stock en memoria de cada SKU caliente */
+    public Map<Long, Integer> stockPorProducto() {
+        Map<Long, Integer> resultado = new HashMap<>();
+        contadores.forEach((id, contador) -> resultado.put(id, contador.stock.get()));
+        return resultado;
+    }
+
+    /* Deltas de productos que ya salieron del modo caliente y todavía no llegan a producto.stock */
+    public Map<Long, Integer> pendientesSinContador() {
+        candado.writeLock().lock();
+        try {
+            return new HashMap<>(pendientesSinContador);
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    /* Rebaja en memoria respetando las unidades retenidas. Devuelve el nuevo stock o null si el producto no es caliente */
+    public Integer rebajar(Long idProducto, int cantidad, int retenido) {
+        candado.readLock().lock();
+        try {
+            Contador contador = contadores.get(idProducto);
+            if (contador == null) {
+                return null;
+            }
+            int actual;
+            do {
+                actual = contador.stock.get();
+                if (actual - retenido < cantidad) {
+                    throw new StockInsuficienteException(idProducto);
+                }
+            } while (!contador.stock.compareAndSet(actual, actual - cantidad));
+
+            anotar(contador, idProducto, -cantidad);
+            return actual - cantidad;
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    /* Repone en memoria. Devuelve el nuevo stock o null si el producto no es caliente */
+    public Integer reponer(Long idProducto, int cantidad) {
+        candado.readLock().lock();
+        try {
+            Contador contador = contadores.get(idProducto);
+            if (contador == null) {
+                return null;
+            }
+            int nuevo = contador.stock.addAndGet(cantidad);
+            anotar(contador, idProducto, cantidad);
+            return nuevo;
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    /* Suma de los deltas aún no volcados, para que los totales leídos de la base cuadren */
+    public int pendienteTotal() {
+        candado.writeLock().lock();
+        try {
+            int total = pendientesSinContador.values().stream().mapToInt(Integer::intValue).sum();
+            for (Contador contador : contadores.values()) {
+                total += contador.pendiente.get();
+            }
+            return total;
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    public List<Map<String, Object>> listar() {
+        List<Map<String, Object>> resultado = new ArrayList<>();
+        new TreeMap<>(contadores).forEach((id, contador) -> {
+            Map<String, Object> fila = new HashMap<>();
+            fila.put("idProducto", id);
+            fila.put("stock", contador.stock.get());
+            fila.put("pendienteDeVolcar", contador.pendiente.get());
+            resultado.add(fila);
+        });
+        return resultado;
+    }
+
+    /* Volcado diferido: aplica los deltas netos en lote y avanza el punto de control en la misma transacción */
+    @Scheduled(fixedDelayString = "${inventario.stock-caliente.flush-ms:500}")
+    public synchronized int volcar() {
+        if (bitacora == null) {
+            return 0;
+        }
+        Map<Long, Integer> deltas = new TreeMap<>(); // orden por ID para bloquear filas siempre igual
+        long hasta;
+        candado.writeLock().lock();
+        try {
+            deltas.putAll(pendientesSinContador);
+            pendientesSinContador.clear();
+            contadores.forEach((id, contador) -> {
+                int delta = contador.pendiente.getAndSet(0);
+                if (delta != 0) {
+                    deltas.merge(id, delta, Integer::sum);
+                }
+            });
+            hasta = secuencia.get();
+            Path cerrado = bitacora.rotar();
+            if (cerrado != null) {
+                segmentosPorBorrar.add(cerrado);
+            }
+        } catch (IOException e) {
+            deltas.forEach((id, delta) -> pendientesSinContador.merge(id, delta, Integer::sum));
+            throw new UncheckedIOException(e);
+        } finally {
+            candado.writeLock().unlock();
+        }
+
+        if (deltas.isEmpty() && segmentosPorBorrar.isEmpty()) {
+            return 0;
+        }
+        try {
+            aplicar(deltas, hasta);
+            bitacora.eliminar(segmentosPorBorrar);
+            segmentosPorBorrar.clear();
+        } catch (RuntimeException | IOException e) {
+            // se reintenta en el próximo volcado; los segmentos se conservan hasta entonces
+            candado.writeLock().lock();
+            try {
+                deltas.forEach((id, delta) -> pendientesSinContador.merge(id, delta, Integer::sum));
+            } finally {
+                candado.writeLock().unlock();
+            }
+            log.warn("No se pudo volcar el stock caliente, se reintentará: {}", e.getMessage());
+        }
+        return deltas.size();
+    }
+
+    @PreDestroy
+    public void detener() throws IOException {
+        if (bitacora != null) {
+            volcar();
+            bitacora.close();
+        }
+    }
+
+    private void anotar(Contador contador, Long idProducto, int delta) {
+        try {
+            bitacora.registrar(secuencia.incrementAndGet(), idProducto, delta);
+        } catch (IOException e) {
+            contador.stock.addAndGet(-delta); // sin anotación no se confirma el movimiento
+            throw new UncheckedIOException("No se pudo anotar el movimiento de stock", e);
+        }
+        contador.pendiente.addAndGet(delta);
+    }
+
+    private void aplicar(Map<Long, Integer> deltas, long hasta) {
+        transaccion.executeWithoutResult(status -> {
+            if (!deltas.isEmpty()) {
+                List<Object[]> filas = new ArrayList<>(deltas.size());
+                deltas.forEach((id, delta) -> filas.add(new Object[] {delta, id}));
+                jdbcTemplate.batchUpdate("UPDATE producto SET stock = stock + ?, version = version + 1 WHERE id = ?", filas);
+                eventos.publishEvent(ProductosModificadosEvento.stock(List.copyOf(deltas.keySet())));
+            }
+            puntoControlRepository.save(new PuntoControlStock(PUNTO_CONTROL, hasta));
+        });
+    }
+
+    /* Reaplica lo anotado después del último punto de control y limpia la bitácora */
+    private void recuperar() throws IOException {
+        List<Path> segmentos = bitacora.segmentos();
+        long puntoControl = puntoControlRepository.findById(PUNTO_CONTROL)
+            .map(PuntoControlStock::getUltimoSeq)
+            .orElse(0L);
+
+        Map<Long, Integer> deltas = new TreeMap<>();
+        long maximo = puntoControl;
+        for (BitacoraIntencionesStock.Intencion intencion : bitacora.leer(segmentos)) {
+            maximo = Math.max(maximo, intencion.seq());
+            if (intencion.seq() > puntoControl) {
+                deltas.merge(intencion.idProducto(), intencion.delta(), Integer::sum);
+            }
+        }
+        secuencia.set(maximo);
+
+        if (!deltas.isEmpty()) {
+            log.info("Reaplicando {} producto(s) desde la bitácora de stock caliente", deltas.size());
+            aplicar(deltas, maximo);
+        }
+        bitacora.eliminar(segmentos);
+    }
+
+    private static final class Contador {
+        private final AtomicInteger stock;
+        private final AtomicInteger pendiente = new AtomicInteger();
+
+        private Contador(int stock) {
+            this.stock = new AtomicInteger(stock);
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package com.perfulandia.inventario.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.perfulandia.inventario.exception.ProductoNoEncontradoException;
+import com.perfulandia.inventario.exception.StockInsuficienteException;
+import com.perfulandia.inventario.model.Producto;
+import com.perfulandia.inventario.model.RanuraStock;
+import com.perfulandia.inventario.repository.ProductoRepository;
+import com.perfulandia.inventario.repository.RanuraStockRepository;
+
+import jakarta.annotation.PostConstruct;
+
+/*
+ * Stock fragmentado en ranuras para SKU de venta flash.
+ * El stock de un producto fragmentado se reparte en N filas de ranura_stock (producto.stock queda en 0)
+ * y cada rebaja elige una ranura al azar con un UPDATE condicional, así las compras simultáneas se
+ * reparten entre N filas en vez de hacer fila sobre una sola. Si ninguna ranura alcanza por sí sola,
+ * o hay unidades retenidas que obligan a mirar el total, se bloquean todas las ranuras del producto y
+ * se descuenta entre varias. Qué productos están fragmentados (y en cuántas ranuras) se mantiene en
+ * memoria para que los productos normales no paguen una consulta extra.
+ */
+@Service
+public class StockFragmentadoService {
+
+    private final RanuraStockRepository ranuraRepository;
+    private final ProductoRepository productoRepository;
+    private final StockCalienteService stockCaliente;
+    private final MovimientoStockService movimientos;
+    private final TransactionTemplate transaccion;
+    private final ApplicationEventPublisher eventos;
+    private final int maxRanuras;
+
+    private final Map<Long, Integer> ranurasPorProducto = new ConcurrentHashMap<>();
+    private final ReentrantReadWriteLock candado = new ReentrantReadWriteLock();
+
+    public StockFragmentadoService(RanuraStockRepository ranuraRepository,
+                                   ProductoRepository productoRepository,
+                                   StockCalienteService stockCaliente,
+                                   MovimientoStockService movimientos,
+                                   PlatformTransactionManager transactionManager,
+                                   ApplicationEventPublisher eventos,
+                                   @Value("${inventario.stock-fragmentado.max-ranuras:64}") int maxRanuras) {
+        this.ranuraRepository = ranuraRepository;
+        this.productoRepository = productoRepository;
+        this.stockCaliente = stockCaliente;
+        this.movimientos = movimientos;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.eventos = eventos;
+        this.maxRanuras = maxRanuras;
+    }
+
+    @PostConstruct
+    public void cargar() {
+        for (Object[] fila : ranuraRepository.contarRanurasPorProducto()) {
+            ranurasPorProducto.put((Long) fila[0], ((Number) fila[1]).intValue());
+        }
+    }
+
+    public boolean gestiona(Long idProducto) {
+        return ranurasPorProducto.containsKey(idProducto);
+    }
+
+    /* Ejecuta un movimiento del diario bajo el candado de lectura; fragmentar marca el producto con el de escritura */
+    // Quien decide ir al diario (no gestiona el producto) debe escribir en él dentro del mismo bloque: así,
+    // cuando fragmentar retira la cola del diario, ninguna escritura que lo vio sin fragmentar sigue en curso
+    public <T> T excluyendoFragmentar(Supplier<T> movimiento) {
+        if (!movimientos.isHabilitado()) {
+            return movimiento.get();
+        }
+        candado.readLock().lock();
+        try {
+            return movimiento.get();
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    /* Reparte el stock del producto (o el de sus ranuras actuales) en la cantidad de ranuras indicada */
+    public List<RanuraStock> fragmentar(Long idProducto, int ranuras) {
+        if (ranuras < 1 || ranuras > maxRanuras) {
+            throw new IllegalArgumentException("La cantidad de ranuras debe estar entre 1 y " + maxRanuras);
+        }
+        if (stockCaliente.gestiona(idProducto)) {
+            throw new IllegalStateException("El producto " + idProducto + " está en modo stock caliente");
+        }
+        // Se marca antes de retirar el diario y de la transacción. Bajo el candado de escritura: los
+        // movimientos que ya eligieron el diario terminan de escribir antes, y los siguientes ven el producto
+        // fragmentado y no dejan en la cola una fila que la compactación sumaría después a producto.stock.
+        // Una rebaja concurrente que no encuentre ranuras cae al camino con bloqueo, que espera el bloqueo
+        // del producto tomado aquí y luego ve las ranuras ya confirmadas
+        Integer anteriores;
+        candado.writeLock().lock();
+        try {
+            anteriores = ranurasPorProducto.put(idProducto, ranuras);
+        } finally {
+            candado.writeLock().unlock();
+        }
+        try {
+            movimientos.retirar(idProducto); // la cola del diario debe estar en producto.stock antes de repartirlo
+            return transaccion.execute(status -> {
+                Producto producto = productoRepository.bloquearPorId(idProducto)
+                    .orElseThrow(() -> new ProductoNoEncontradoException(idProducto));
+                int total = producto.getStock() + suma(ranuraRepository.bloquearPorProducto(idProducto));
+
+                ranuraRepository.eliminarPorProducto(idProducto);
+                List<RanuraStock> nuevas = new ArrayList<>();
+                for (int i = 0; i < ranuras; i++) {
+                    // El resto de la división se reparte de a una unidad entre las primeras ranuras
+                    int stock = total / ranuras + (i < total % ranuras ? 1 : 0);
+                    nuevas.add(new RanuraStock(null, idProducto, i, stock));
+                }
+                producto.setStock(0);
+                eventos.publishEvent(ProductosModificadosEvento.stock(idProducto));
+                return ranuraRepository.saveAll(nuevas);
+            });
+        } catch (RuntimeException e) {
+            if (anteriores != null) {
+                ranurasPorProducto.put(idProducto, anteriores);
+            } else {
+                ranurasPorProducto.remove(idProducto);
+            }
+            throw e;
+        }
+    }
+
+    /* Devuelve la suma de las ranuras a producto.stock y deja de fragmentar el producto */
+    public int unificar(Long idProducto) {
+        Integer stock = transaccion.execute(status -> {
+            Producto producto = productoRepository.bloquearPorId(idProducto)
+                .orElseThrow(() -> new ProductoNoEncontradoException(idProducto));
+            int total = producto.getStock() + suma(ranuraRepository.bloquearPorProducto(idProducto));
+            ranuraRepository.eliminarPorProducto(idProducto);
+            producto.setStock(total);
+            eventos.publishEvent(ProductosModificadosEvento.stock(idProducto));
+            return total;
+        });
+        ranurasPorProducto.remove(idProducto);
+        return stock;
+    }
+
+    /* Rebaja sobre una ranura al azar; si ninguna alcanza sola, o hay retenido, pasa al camino con bloqueo */
+    public void rebajar(Long idProducto, int cantidad, int retenido) {
+        Integer ranuras = ranurasPorProducto.get(idProducto);
+        if (ranuras != null && retenido == 0) {
+            int inicio = ThreadLocalRandom.current().nextInt(ranuras);
+            for (int i = 0; i < ranuras; i++) {
+                if (ranuraRepository.rebajarSiDisponible(idProducto, (inicio + i) % ranuras, cantidad) == 1) {
+                    return;
+                }
+            }
+        }
+        rebajarConBloqueo(idProducto, cantidad, retenido);
+    }
+
+    public void reponer(Long idProducto, int cantidad) {
+        Integer ranuras = ranurasPorProducto.get(idProducto);
+        if (ranuras != null
+                && ranuraRepository.reponer(idProducto, ThreadLocalRandom.current().nextInt(ranuras), cantidad) == 1) {
+            return;
+        }
+        // El producto se unificó entre medio: la reposición va a la fila del producto
+        transaccion.executeWithoutResult(status -> {
+            Producto producto = productoRepository.bloquearPorId(idProducto)
+                .orElseThrow(() -> new ProductoNoEncontradoException(idProducto));
+            List<RanuraStock> actuales = ranuraRepository.bloquearPorProducto(idProducto);
+            if (actuales.isEmpty()) {
+                producto.setStock(producto.getStock() + cantidad);
+                eventos.publishEvent(ProductosModificadosEvento.stock(idProducto));
+            } else {
+                actuales.get(0).setStock(actuales.get(0).getStock() + cantidad);
+            }
+        });
+    }
+
+    /* Suma de las ranuras, o null si el producto no está fragmentado */
+    public Integer stockActual(Long idProducto) {
+        if (!gestiona(idProducto)) {
+            return null;
+        }
+        Long suma = ranuraRepository.sumarPorProducto(idProducto);
+        return suma != null ? suma.intValue() : 0;
+    }
+
+    public long stockTotal() {
+        if (ranurasPorProducto.isEmpty()) {
+            return 0;
+        }
+        Long suma = ranuraRepository.sumarTodas();
+        return suma != null ? suma : 0;
+    }
+
+    /* Suma de las ranuras de cada producto fragmentado */
+    public Map<Long, Integer> stockPorProducto() {
+        if (ranurasPorProducto.isEmpty()) {
+            return Map.of();
+        }
+        Map<Long, Integer> resultado = new HashMap<>();
+        for (Object[] fila : ranuraRepository.sumarAgrupadoPorProducto()) {
+            resultado.put((Long) fila[0], ((Number) fila[1]).intValue());
+        }
+        return resultado;
+    }
+
+    public List<Map<String, Object>> listar(Long idProducto) {
+        List<Map<String, Object>> resultado = new ArrayList<>();
+        for (RanuraStock ranura : ranuraRepository.findByIdProductoOrderByRanura(idProducto)) {
+            Map<String, Object> fila = new HashMap<>();
+            fila.put("ranura", ranura.getRanura());
+            fila.put("stock", ranura.getStock());
+            resultado.add(fila);
+        }
+        return resultado;
+    }
+
+    /*
+     * Camino lento: bloquea el producto y todas sus ranuras, valida contra el total y descuenta
+     * recorriendo las ranuras en orden. Si el producto ya no tiene ranuras (se unificó), la rebaja
+     * se hace sobre la fila del producto.
+     */
+    private void rebajarConBloqueo(Long idProducto, int cantidad, int retenido) {
+        transaccion.executeWithoutResult(status -> {
+            Producto producto = productoRepository.bloquearPorId(idProducto)
+                .orElseThrow(() -> new ProductoNoEncontradoException(idProducto));
+            List<RanuraStock> actuales = ranuraRepository.bloquearPorProducto(idProducto);
+            int total = actuales.isEmpty() ? producto.getStock() : suma(actuales);
+            if (total - retenido < cantidad) {
+                throw new StockInsuficienteException(idProducto);
+            }
+            if (actuales.isEmpty()) {
+                producto.setStock(total - cantidad);
+                eventos.publishEvent(ProductosModificadosEvento.stock(idProducto));
+                return;
+            }
+            int restante = cantidad;
+            for (RanuraStock ranura : actuales) {
+                int tomado = Math.min(ranura.getStock(), restante);
+                ranura.setStock(ranura.getStock() - tomado);
+                restante -= tomado;
+                if (restante == 0) {
+                    break;
+                }
+            }
+        });
+    }
+
+    private static int suma(List<RanuraStock> ranuras) {
+        return ranuras.stream().mapToInt(RanuraStock::getStock).sum();
+    }
+}
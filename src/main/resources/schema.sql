@@ -1,3 +1,9 @@
+DROP TABLE IF EXISTS movimiento_stock;
+DROP TABLE IF EXISTS ranura_stock;
+DROP TABLE IF EXISTS respuesta_idempotente;
+DROP TABLE IF EXISTS punto_control_stock;
+DROP TABLE IF EXISTS retencion_stock;
+DROP TABLE IF EXISTS agregado_resena;
 DROP TABLE IF EXISTS resena;
 DROP TABLE IF EXISTS producto;
 
@@ -5,9 +11,12 @@ CREATE TABLE producto (
   id BIGINT AUTO_INCREMENT PRIMARY KEY,
   nombre VARCHAR(255) NOT NULL,
   stock INT NOT NULL,
-  precio DOUBLE NOT NULL
+  precio DOUBLE NOT NULL,
+  version BIGINT NOT NULL DEFAULT 0
 );
 
+CREATE INDEX idx_producto_nombre ON producto (nombre);
+
 CREATE TABLE resena (
   id BIGINT AUTO_INCREMENT PRIMARY KEY,
   comentario VARCHAR(255) NOT NULL,
@@ -16,3 +25,64 @@ CREATE TABLE resena (
   id_usuario BIGINT NOT NULL,
   nombre_usuario VARCHAR(255) NOT NULL
 );
+
+CREATE INDEX idx_resena_producto ON resena (id_producto);
+
+CREATE TABLE agregado_resena (
+  id_producto BIGINT PRIMARY KEY,
+  cantidad BIGINT NOT NULL,
+  suma BIGINT NOT NULL,
+  estrellas1 BIGINT NOT NULL,
+  estrellas2 BIGINT NOT NULL,
+  estrellas3 BIGINT NOT NULL,
+  estrellas4 BIGINT NOT NULL,
+  estrellas5 BIGINT NOT NULL,
+  version BIGINT NOT NULL DEFAULT 0
+);
+
+CREATE TABLE retencion_stock (
+  id BIGINT AUTO_INCREMENT PRIMARY KEY,
+  id_producto BIGINT NOT NULL,
+  cantidad INT NOT NULL,
+  estado VARCHAR(20) NOT NULL,
+  expira_en DATETIME(6) NOT NULL,
+  creada_en DATETIME(6) NOT NULL
+);
+
+CREATE INDEX idx_retencion_estado ON retencion_stock (estado);
+
+CREATE TABLE punto_control_stock (
+  nombre VARCHAR(50) PRIMARY KEY,
+  ultimo_seq BIGINT NOT NULL
+);
+
+CREATE TABLE respuesta_idempotente (
+  clave VARCHAR(100) PRIMARY KEY,
+  huella VARCHAR(64) NOT NULL,
+  estado INT NOT NULL,
+  tipo_contenido VARCHAR(100),
+  cuerpo TEXT,
+  creada_en DATETIME(6) NOT NULL
+);
+
+CREATE INDEX idx_idempotente_creada ON respuesta_idempotente (creada_en);
+
+CREATE TABLE ranura_stock (
+  id BIGINT AUTO_INCREMENT PRIMARY KEY,
+  id_producto BIGINT NOT NULL,
+  ranura INT NOT NULL,
+  stock INT NOT NULL,
+  CONSTRAINT uk_ranura_producto UNIQUE (id_producto, ranura)
+);
+
+CREATE TABLE movimiento_stock (
+  id BIGINT AUTO_INCREMENT PRIMARY KEY,
+  id_producto BIGINT NOT NULL,
+  cantidad INT NOT NULL,
+  tipo VARCHAR(20) NOT NULL,
+  compactado BOOLEAN NOT NULL,
+  creado_en DATETIME(6) NOT NULL
+);
+
+CREATE INDEX idx_movimiento_producto ON movimiento_stock (id_producto, compactado);
+CREATE INDEX idx_movimiento_compactado ON movimiento_stock (compactado, id);
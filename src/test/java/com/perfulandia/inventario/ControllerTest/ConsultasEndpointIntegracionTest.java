@@ -0,0 +1,47 @@
+package com.perfulandia.inventario.ControllerTest;
+
+import javax.sql.DataSource;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.perfulandia.inventario.config.DataSourceMedido;
+
+/* Registro de consultas sobre la aplicación completa: el DataSource queda envuelto y /actuator/consultas lista las huellas */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+class ConsultasEndpointIntegracionTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void testListaLasHuellasDeLasConsultasEjecutadas() throws Exception {
+        assertInstanceOf(DataSourceMedido.class, dataSource);
+        mockMvc.perform(delete("/actuator/consultas")).andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/api/v2/productos/reporte/resumen")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/v2/productos/reporte/resumen")).andExpect(status().isOk());
+
+        mockMvc.perform(get("/actuator/consultas").param("orden", "cantidad").param("limite", "5"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[*].huella", hasItem(startsWith("select count("))))
+            .andExpect(jsonPath("$[0].cantidad").isNumber())
+            .andExpect(jsonPath("$[0].p99Ms").isNumber());
+    }
+}
@@ -0,0 +1,77 @@
+package com.perfulandia.inventario.ControllerTest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.hateoas.Links;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import com.perfulandia.inventario.assemblers.ProductoModelAssembler;
+import com.perfulandia.inventario.assemblers.ResenaModelAssembler;
+import com.perfulandia.inventario.controller.ProductoController;
+import com.perfulandia.inventario.controller.ResenaController;
+import com.perfulandia.inventario.model.Producto;
+import com.perfulandia.inventario.model.Resena;
+
+/*
+ * Los enlaces armados desde las plantillas por solicitud son los mismos que arma linkTo elemento por
+ * elemento, en lo que HAL escribe de ellos (rel, href y si es plantilla); las affordances que agrega
+ * linkTo solo se escriben en HAL-FORMS, que la aplicación no habilita
+ */
+class EnlacesAssemblerTest {
+
+    private final ProductoModelAssembler productoAssembler = new ProductoModelAssembler();
+    private final ResenaModelAssembler resenaAssembler = new ResenaModelAssembler();
+
+    @AfterEach
+    void limpiar() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void testEnlacesDeProductoIgualesALinkTo() {
+        for (String host : new String[] {"localhost", "inventario.perfulandia.cl"}) {
+            iniciarSolicitud(host);
+            for (long id : new long[] {1L, 42L, Long.MAX_VALUE}) {
+                Links esperados = Links.of(
+                    linkTo(methodOn(ProductoController.class).obtenerProductoPorId(id, null)).withSelfRel(),
+                    linkTo(methodOn(ProductoController.class).listarProductos(null, null)).withRel("todos-los-productos"));
+
+                assertEquals(serializados(esperados), serializados(productoAssembler.toModel(new Producto(id, "Perfume", 1, 1000.0)).getLinks()));
+            }
+        }
+    }
+
+    @Test
+    void testEnlacesDeResenaIgualesALinkTo() {
+        for (String host : new String[] {"localhost", "inventario.perfulandia.cl"}) {
+            iniciarSolicitud(host);
+            for (long id : new long[] {1L, 7L}) {
+                Links esperados = Links.of(
+                    linkTo(methodOn(ResenaController.class).obtenerResenaPorId(id)).withSelfRel(),
+                    linkTo(methodOn(ResenaController.class).listarResenas(null, null)).withRel("todas-las-resenas"));
+
+                Resena resena = new Resena(id, "Rico", 5, new Producto(3L, "Perfume", 1, 1000.0), 9L, "Ana");
+                assertEquals(serializados(esperados), serializados(resenaAssembler.toModel(resena).getLinks()));
+            }
+        }
+    }
+
+    private static List<String> serializados(Links enlaces) {
+        return enlaces.stream()
+            .map(enlace -> enlace.getRel().value() + " " + enlace.getHref() + " " + enlace.isTemplated())
+            .toList();
+    }
+
+    private static void iniciarSolicitud(String host) {
+        MockHttpServletRequest solicitud = new MockHttpServletRequest();
+        solicitud.setServerName(host);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(solicitud));
+    }
+}
@@ -0,0 +1,124 @@
+package com.perfulandia.inventario.ControllerTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.perfulandia.inventario.model.Producto;
+import com.perfulandia.inventario.model.Resena;
+import com.perfulandia.inventario.repository.ProductoRepository;
+import com.perfulandia.inventario.repository.ResenaRepository;
+import com.perfulandia.inventario.service.ProductoService;
+import com.perfulandia.inventario.service.ResenaService;
+
+/* ETag e If-None-Match de GET /productos/{id} y /resenas/producto/{id} contra la aplicación completa sobre H2 */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+class EtagIntegracionTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private ProductoService productoService;
+
+    @Autowired
+    private ResenaService resenaService;
+
+    @MockitoSpyBean
+    private ResenaRepository resenaRepository;
+
+    @Test
+    void testProductoSinCambiosResponde304SinCuerpo() throws Exception {
+        Long id = crearProducto(10);
+        String etiqueta = etiqueta("/api/v2/productos/" + id);
+
+        mockMvc.perform(get("/api/v2/productos/" + id).header(HttpHeaders.IF_NONE_MATCH, etiqueta))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, etiqueta))
+            .andExpect(content().string(""));
+    }
+
+    @Test
+    void testCambioDeStockCambiaElEtagDelProducto() throws Exception {
+        Long id = crearProducto(10);
+        String antes = etiqueta("/api/v2/productos/" + id);
+
+        productoService.rebajarStock(id, 3);
+
+        mockMvc.perform(get("/api/v2/productos/" + id).header(HttpHeaders.IF_NONE_MATCH, antes))
+            .andExpect(status().isOk());
+        assertNotEquals(antes, etiqueta("/api/v2/productos/" + id));
+    }
+
+    @Test
+    void testProductoInexistenteSigueDando404() throws Exception {
+        mockMvc.perform(get("/api/v2/productos/999999").header(HttpHeaders.IF_NONE_MATCH, "\"0-0\""))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testListadoDeResenasSinCambiosNoLasLee() throws Exception {
+        Producto producto = productoRepository.save(new Producto(null, "Perfume con reseñas", 5, 9990.0, null));
+        resenaService.guardar(new Resena(null, "Muy rico", 5, producto, 1L, "Ana"));
+        String etiqueta = etiqueta("/api/v2/resenas/producto/" + producto.getId());
+        clearInvocations(resenaRepository);
+
+        mockMvc.perform(get("/api/v2/resenas/producto/" + producto.getId()).header(HttpHeaders.IF_NONE_MATCH, etiqueta))
+            .andExpect(status().isNotModified())
+            .andExpect(content().string(""));
+
+        verify(resenaRepository, never()).findByProductoId(any());
+    }
+
+    @Test
+    void testCrearYEditarComentarioCambianElEtagDelListado() throws Exception {
+        Producto producto = productoRepository.save(new Producto(null, "Perfume editado", 5, 9990.0, null));
+        String vacio = etiqueta("/api/v2/resenas/producto/" + producto.getId());
+
+        Resena resena = resenaService.guardar(new Resena(null, "Buen aroma", 4, producto, 1L, "Ana"));
+        String conUna = etiqueta("/api/v2/resenas/producto/" + producto.getId());
+        assertNotEquals(vacio, conUna);
+
+        resena.setComentario("Buen aroma, dura poco");
+        resenaService.actualizar(resena);
+        String editada = etiqueta("/api/v2/resenas/producto/" + producto.getId());
+        assertNotEquals(conUna, editada);
+
+        mockMvc.perform(get("/api/v2/resenas/producto/" + producto.getId()).header(HttpHeaders.IF_NONE_MATCH, conUna))
+            .andExpect(status().isOk());
+    }
+
+    private String etiqueta(String url) throws Exception {
+        String etiqueta = mockMvc.perform(get(url))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etiqueta);
+        assertEquals('"', etiqueta.charAt(0)); // fuerte, sin W/
+        return etiqueta;
+    }
+
+    private Long crearProducto(int stock) {
+        return productoRepository.save(new Producto(null, "Perfume con ETag", stock, 15990.0, null)).getId();
+    }
+}
@@ -0,0 +1,95 @@
+package com.perfulandia.inventario.ControllerTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.perfulandia.inventario.controller.ExportacionController;
+import com.perfulandia.inventario.model.Producto;
+import com.perfulandia.inventario.model.Resena;
+import com.perfulandia.inventario.repository.ProductoRepository;
+import com.perfulandia.inventario.repository.ResenaRepository;
+
+/* Exportación NDJSON contra la aplicación completa sobre H2 */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+class ExportacionIntegracionTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private ResenaRepository resenaRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void testExportarProductosUnaLineaPorProductoEnOrdenDeId() throws Exception {
+        Producto primero = crear("Perfume Exportado A", 4);
+        Producto segundo = crear("Perfume Exportado B", 9);
+
+        List<JsonNode> filas = exportar("/api/v2/productos/export");
+
+        List<Long> ids = filas.stream().map(fila -> fila.get("id").asLong()).toList();
+        assertEquals(ids.stream().sorted().toList(), ids);
+        JsonNode fila = filas.get(ids.indexOf(segundo.getId()));
+        assertEquals("Perfume Exportado B", fila.get("nombre").asText());
+        assertEquals(9, fila.get("stock").asInt());
+        assertTrue(ids.indexOf(primero.getId()) < ids.indexOf(segundo.getId()));
+    }
+
+    @Test
+    void testExportarResenasConIdDeProducto() throws Exception {
+        Producto producto = crear("Perfume Reseñado", 1);
+        Resena resena = resenaRepository.save(new Resena(null, "Huele delicioso", 5, producto, 7L, "Ana"));
+
+        List<JsonNode> filas = exportar("/api/v2/resenas/export");
+
+        JsonNode fila = filas.stream()
+            .filter(f -> f.get("id").asLong() == resena.getId())
+            .findFirst().orElseThrow();
+        assertEquals(producto.getId(), fila.get("idProducto").asLong());
+        assertEquals("Huele delicioso", fila.get("comentario").asText());
+        assertEquals(5, fila.get("calificacion").asInt());
+    }
+
+    private List<JsonNode> exportar(String url) throws Exception {
+        String cuerpo = mockMvc.perform(get(url))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith(ExportacionController.NDJSON))
+            .andReturn().getResponse().getContentAsString();
+
+        assertTrue(cuerpo.endsWith("\n"));
+        List<JsonNode> filas = new ArrayList<>();
+        for (String linea : cuerpo.split("\n")) {
+            filas.add(objectMapper.readTree(linea));
+        }
+        return filas;
+    }
+
+    private Producto crear(String nombre, int stock) {
+        Producto producto = new Producto();
+        producto.setNombre(nombre);
+        producto.setStock(stock);
+        producto.setPrecio(1000.0);
+        return productoRepository.save(producto);
+    }
+}
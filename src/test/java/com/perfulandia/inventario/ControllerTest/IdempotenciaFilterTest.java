@@ -0,0 +1,64 @@
+package com.perfulandia.inventario.ControllerTest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Test;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.perfulandia.inventario.config.IdempotenciaFilter;
+import com.perfulandia.inventario.service.IdempotenciaService;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+
+/* El cuerpo que el filtro ya leyó se entrega a la cadena tanto por lectura bloqueante como por ReadListener */
+class IdempotenciaFilterTest {
+
+    @Test
+    void testElCuerpoReleidoAvisaAlReadListener() throws Exception {
+        IdempotenciaService idempotencia = mock(IdempotenciaService.class);
+        when(idempotencia.reservar("clave-lector")).thenReturn(Optional.empty());
+        MockHttpServletRequest request = new MockHttpServletRequest("PATCH", "/api/v2/productos/rebajarStock/1");
+        request.addHeader(IdempotenciaFilter.CABECERA, "clave-lector");
+        request.setContent("{\"cantidad\": 3}".getBytes(StandardCharsets.UTF_8));
+
+        List<String> avisos = new ArrayList<>();
+        ByteArrayOutputStream leido = new ByteArrayOutputStream();
+        new IdempotenciaFilter(idempotencia).doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            ServletInputStream entrada = req.getInputStream();
+            entrada.setReadListener(new ReadListener() {
+                @Override
+                public void onDataAvailable() throws IOException {
+                    avisos.add("datos");
+                    byte[] bloque = new byte[4];
+                    int n;
+                    while (entrada.isReady() && !entrada.isFinished() && (n = entrada.read(bloque, 0, bloque.length)) > 0) {
+                        leido.write(bloque, 0, n);
+                    }
+                }
+
+                @Override
+                public void onAllDataRead() {
+                    avisos.add("fin");
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    avisos.add("error");
+                }
+            });
+        });
+
+        assertEquals(List.of("datos", "fin"), avisos);
+        assertEquals("{\"cantidad\": 3}", leido.toString(StandardCharsets.UTF_8));
+    }
+}
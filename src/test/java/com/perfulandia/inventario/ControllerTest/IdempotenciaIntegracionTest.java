@@ -0,0 +1,119 @@
+package com.perfulandia.inventario.ControllerTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Test;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.verifyNoInteractions;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.perfulandia.inventario.ProductosDePrueba;
+import com.perfulandia.inventario.repository.ProductoRepository;
+
+/* Reintentos con Idempotency-Key contra la aplicación completa sobre H2 */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+@DirtiesContext
+class IdempotenciaIntegracionTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoSpyBean
+    private ProductoRepository repository;
+
+    @Test
+    void testReintentoDeRebajaRepiteLaRespuestaSinTocarElStock() throws Exception {
+        Long id = ProductosDePrueba.crear(repository, 10);
+
+        MvcResult primera = mockMvc.perform(patch("/api/v2/productos/rebajarStock/" + id)
+                .header("Idempotency-Key", "rebaja-" + id)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"cantidad\": 3}"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+        clearInvocations(repository);
+
+        MvcResult reintento = mockMvc.perform(patch("/api/v2/productos/rebajarStock/" + id)
+                .header("Idempotency-Key", "rebaja-" + id)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"cantidad\": 3}"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("Idempotency-Replayed", "true"))
+            .andReturn();
+
+        verifyNoInteractions(repository);
+        assertEquals(primera.getResponse().getContentAsString(), reintento.getResponse().getContentAsString());
+        assertEquals(7, repository.findById(id).orElseThrow().getStock());
+    }
+
+    @Test
+    void testReintentoDeReposicionNoRepone() throws Exception {
+        Long id = ProductosDePrueba.crear(repository, 10);
+
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(patch("/api/v2/productos/reponer/" + id)
+                    .header("Idempotency-Key", "reponer-" + id)
+                    .param("cantidad", "5"))
+                .andExpect(status().isOk());
+        }
+
+        assertEquals(15, repository.findById(id).orElseThrow().getStock());
+    }
+
+    @Test
+    void testRechazoTambienSeRepite() throws Exception {
+        Long id = ProductosDePrueba.crear(repository, 2);
+
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(patch("/api/v2/productos/rebajarStock/" + id)
+                    .header("Idempotency-Key", "sin-stock-" + id)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"cantidad\": 5}"))
+                .andExpect(status().isBadRequest());
+        }
+
+        assertEquals(2, repository.findById(id).orElseThrow().getStock());
+    }
+
+    @Test
+    void testMismaClaveConOtraSolicitudDevuelve422() throws Exception {
+        Long id = ProductosDePrueba.crear(repository, 10);
+
+        mockMvc.perform(patch("/api/v2/productos/reponer/" + id)
+                .header("Idempotency-Key", "reusada-" + id)
+                .param("cantidad", "1"))
+            .andExpect(status().isOk());
+
+        mockMvc.perform(patch("/api/v2/productos/reponer/" + id)
+                .header("Idempotency-Key", "reusada-" + id)
+                .param("cantidad", "9"))
+            .andExpect(status().isUnprocessableEntity());
+
+        assertEquals(11, repository.findById(id).orElseThrow().getStock());
+    }
+
+    @Test
+    void testSinClaveSeAplicaCadaVez() throws Exception {
+        Long id = ProductosDePrueba.crear(repository, 10);
+
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(patch("/api/v2/productos/reponer/" + id).param("cantidad", "1"))
+                .andExpect(status().isOk());
+        }
+
+        assertEquals(12, repository.findById(id).orElseThrow().getStock());
+    }
+}
@@ -0,0 +1,66 @@
+package com.perfulandia.inventario.ControllerTest;
+
+import java.io.InputStream;
+
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.perfulandia.inventario.controller.ImportacionProductoController;
+import com.perfulandia.inventario.dto.ResultadoImportacion;
+import com.perfulandia.inventario.service.ImportacionProductoService;
+import com.perfulandia.inventario.service.ImportacionProductoService.Formato;
+
+@WebMvcTest(controllers = ImportacionProductoController.class)
+@Import(ImportacionProductoControllerTest.MockConfig.class)
+class ImportacionProductoControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ImportacionProductoService importacionService;
+
+    @TestConfiguration
+    static class MockConfig {
+        @Bean
+        public ImportacionProductoService importacionProductoService() {
+            return Mockito.mock(ImportacionProductoService.class);
+        }
+    }
+
+    @Test
+    void testImportarNdjson() throws Exception {
+        ResultadoImportacion resultado = new ResultadoImportacion();
+        resultado.setProcesadas(1);
+        resultado.setInsertadas(1);
+        Mockito.when(importacionService.importar(any(InputStream.class), eq(Formato.NDJSON))).thenReturn(resultado);
+
+        mockMvc.perform(post("/api/v2/productos/import")
+                .contentType(ImportacionProductoController.NDJSON)
+                .content("{\"nombre\": \"Perfume\", \"stock\": 1, \"precio\": 990}\n"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.insertadas").value(1));
+    }
+
+    @Test
+    void testImportarCsvSinEncabezado() throws Exception {
+        Mockito.when(importacionService.importar(any(InputStream.class), eq(Formato.CSV)))
+            .thenThrow(new IllegalArgumentException("El encabezado del CSV debe incluir las columnas nombre, stock y precio"));
+
+        mockMvc.perform(post("/api/v2/productos/import")
+                .contentType("text/csv")
+                .content("Perfume,1,990\n"))
+            .andExpect(status().isBadRequest());
+    }
+}
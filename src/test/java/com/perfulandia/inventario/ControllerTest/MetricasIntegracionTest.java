@@ -0,0 +1,113 @@
+package com.perfulandia.inventario.ControllerTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.perfulandia.inventario.model.Producto;
+import com.perfulandia.inventario.repository.ProductoRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/* Métricas de dominio y sentencias por solicitud, etiquetadas por endpoint, contra la aplicación completa sobre H2 */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+class MetricasIntegracionTest {
+
+    private static final String REBAJAR = "PATCH /api/v2/productos/rebajarStock/{id}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry registro;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Test
+    void testRebajarStockMideLatenciaYRechazosPorMotivo() throws Exception {
+        Long id = productoRepository.save(new Producto(null, "Perfume medido", 2, 9990.0, null)).getId();
+        double antes = cantidad(timer("ok"));
+        double insuficientes = rechazos("stock_insuficiente");
+        double inexistentes = rechazos("no_encontrado");
+
+        rebajar(id, 1).andExpect(status().isOk());
+        rebajar(id, 5).andExpect(status().isBadRequest());
+        rebajar(999_999L, 1).andExpect(status().isNotFound());
+
+        assertEquals(antes + 1, cantidad(timer("ok")));
+        assertEquals(insuficientes + 1, rechazos("stock_insuficiente"));
+        assertEquals(inexistentes + 1, rechazos("no_encontrado"));
+    }
+
+    @Test
+    void testCrearResenaYReporteQuedanEtiquetadosPorEndpoint() throws Exception {
+        Long id = productoRepository.save(new Producto(null, "Perfume reseñado", 5, 9990.0, null)).getId();
+
+        mockMvc.perform(post("/api/v2/resenas/crear")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"comentario\":\"Muy rico\",\"calificacion\":5,\"producto\":{\"id\":" + id
+                    + "},\"idUsuario\":1,\"nombreUsuario\":\"Ana\"}"))
+            .andExpect(status().isCreated());
+        mockMvc.perform(get("/api/v2/productos/reporte/resumen")).andExpect(status().isOk());
+
+        Timer escritura = registro.find("inventario.resenas.escritura")
+            .tags("operacion", "guardar", "resultado", "ok", "endpoint", "POST /api/v2/resenas/crear").timer();
+        Timer reporte = registro.find("inventario.reportes")
+            .tags("reporte", "resumen-inventario", "endpoint", "GET /api/v2/productos/reporte/resumen").timer();
+        assertTrue(cantidad(escritura) >= 1);
+        assertTrue(cantidad(reporte) >= 1);
+    }
+
+    @Test
+    void testCuentaSentenciasYEntidadesDeCadaSolicitud() throws Exception {
+        mockMvc.perform(get("/api/v2/productos/all").param("limit", "5"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$._embedded").exists());
+
+        DistributionSummary sentencias = registro.find("inventario.solicitud.sentencias")
+            .tag("endpoint", "GET /api/v2/productos/all").summary();
+        DistributionSummary entidades = registro.find("inventario.solicitud.entidades")
+            .tag("endpoint", "GET /api/v2/productos/all").summary();
+        assertTrue(sentencias != null && sentencias.totalAmount() >= 1);
+        assertTrue(entidades != null && entidades.max() >= 5);
+    }
+
+    private ResultActions rebajar(Long id, int cantidad) throws Exception {
+        return mockMvc.perform(patch("/api/v2/productos/rebajarStock/" + id)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"cantidad\":" + cantidad + "}"));
+    }
+
+    private Timer timer(String resultado) {
+        return registro.find("inventario.stock.operacion")
+            .tags("operacion", "rebajar", "resultado", resultado, "endpoint", REBAJAR).timer();
+    }
+
+    private double rechazos(String motivo) {
+        Counter contador = registro.find("inventario.stock.rechazos")
+            .tags("operacion", "rebajar", "motivo", motivo, "endpoint", REBAJAR).counter();
+        return contador != null ? contador.count() : 0;
+    }
+
+    private static double cantidad(Timer timer) {
+        return timer != null ? timer.count() : 0;
+    }
+}
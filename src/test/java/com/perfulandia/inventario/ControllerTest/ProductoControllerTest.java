@@ -2,6 +2,15 @@ package com.perfulandia.inventario.ControllerTest;
 
 
 import com.perfulandia.inventario.controller.ProductoController;
+import com.perfulandia.inventario.dto.LineaFallida;
+import com.perfulandia.inventario.dto.LineaStock;
+import com.perfulandia.inventario.dto.ReposicionMasivaRequest;
+import com.perfulandia.inventario.dto.ReservaStockRequest;
+import com.perfulandia.inventario.dto.ResumenReposicion;
+import com.perfulandia.inventario.exception.ConflictoVersionException;
+import com.perfulandia.inventario.exception.ReservaRechazadaException;
+import com.perfulandia.inventario.exception.ProductoNoEncontradoException;
+import com.perfulandia.inventario.exception.StockInsuficienteException;
 import com.perfulandia.inventario.model.Producto;
 import com.perfulandia.inventario.service.ProductoService;
 import com.perfulandia.inventario.assemblers.ProductoModelAssembler;
@@ -56,7 +65,7 @@ class ProductoControllerTest {
         producto.setNombre("Perfume");
         producto.setStock(5);
 
-        Mockito.when(productoService.listar()).thenReturn(List.of(producto));
+        Mockito.when(productoService.listarPagina(null, 51)).thenReturn(List.of(producto));
 
         mockMvc.perform(get("/api/v2/productos/all"))
             .andExpect(status().isOk())
@@ -67,14 +76,33 @@ class ProductoControllerTest {
 
     @Test
     void testListarProductosVacio() throws Exception {
-        Mockito.when(productoService.listar()).thenReturn(Collections.emptyList());
+        Mockito.when(productoService.listarPagina(null, 51)).thenReturn(Collections.emptyList());
 
         mockMvc.perform(get("/api/v2/productos/all"))
             .andExpect(status().isOk())
-            .andExpect(jsonPath("$._embedded").doesNotExist());
+            .andExpect(jsonPath("$._embedded").doesNotExist())
+            .andExpect(jsonPath("$._links.next").doesNotExist());
 
     }
 
+    @Test
+    void testListarProductosConSiguientePagina() throws Exception {
+        Mockito.when(productoService.listarPagina(10L, 3)).thenReturn(List.of(
+            new Producto(11L, "Perfume A", 1, 1000.0), new Producto(14L, "Perfume B", 1, 1000.0),
+            new Producto(15L, "Perfume C", 1, 1000.0)));
+
+        mockMvc.perform(get("/api/v2/productos/all").param("after", "10").param("limit", "2"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$._embedded.productoModelList.length()").value(2))
+            .andExpect(jsonPath("$._links.next.href").value("http://localhost/api/v2/productos/all?after=14&limit=2"));
+    }
+
+    @Test
+    void testListarProductosLimiteFueraDeRango() throws Exception {
+        mockMvc.perform(get("/api/v2/productos/all").param("limit", "5000"))
+            .andExpect(status().isBadRequest());
+    }
+
 
     @Test
     void testCrearProducto() throws Exception {
@@ -94,6 +122,16 @@ class ProductoControllerTest {
             .andExpect(jsonPath("$._links.self.href").exists());
     }
 
+    @Test
+    void testCrearProductoConIdInexistente() throws Exception {
+        Mockito.when(productoService.guardar(any(Producto.class))).thenThrow(new ProductoNoEncontradoException(99L));
+
+        mockMvc.perform(post("/api/v2/productos/crear")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(new Producto(99L, "Perfume", 10, 5000.0, 0L))))
+            .andExpect(status().isNotFound());
+    }
+
     @Test
     void testObtenerProductoPorId() throws Exception {
         Producto producto = new Producto();
@@ -119,6 +157,71 @@ class ProductoControllerTest {
             .andExpect(status().isNoContent());
     }
 
+    @Test
+    void testReponerStockMasivo() throws Exception {
+        ResumenReposicion resumen = new ResumenReposicion();
+        resumen.setLineasRecibidas(2);
+        resumen.setProductosRepuestos(2);
+        resumen.setUnidadesRepuestas(36);
+        Mockito.when(productoService.reponerStockMasivo(anyList())).thenReturn(resumen);
+
+        ReposicionMasivaRequest request = new ReposicionMasivaRequest(List.of(new LineaStock(1L, 24), new LineaStock(3L, 12)));
+
+        mockMvc.perform(post("/api/v2/productos/stock/reposiciones")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.unidadesRepuestas", is(36)))
+            .andExpect(jsonPath("$._links").doesNotExist());
+    }
+
+    @Test
+    void testReponerStockMasivoSinLineas() throws Exception {
+        mockMvc.perform(post("/api/v2/productos/stock/reposiciones")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"lineas\": []}"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testActualizarProducto() throws Exception {
+        Producto producto = new Producto(1L, "Perfume Editado", 8, 4500.0, 4L);
+
+        Mockito.when(productoService.actualizar(eq(1L), any(Producto.class), eq(3L), isNull())).thenReturn(producto);
+
+        mockMvc.perform(put("/api/v2/productos/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new Producto(1L, "Perfume Editado", 8, 4500.0, 3L))))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.version", is(4)));
+    }
+
+    @Test
+    void testActualizarProductoConIfMatch() throws Exception {
+        Producto producto = new Producto(1L, "Perfume Editado", 8, 4500.0, 4L);
+
+        Mockito.when(productoService.actualizar(eq(1L), any(Producto.class), isNull(), eq("\"3-5\""))).thenReturn(producto);
+
+        mockMvc.perform(put("/api/v2/productos/1")
+                .header("If-Match", "\"3-5\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new Producto(1L, "Perfume Editado", 8, 4500.0))))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.stock", is(8)));
+    }
+
+    @Test
+    void testActualizarProductoConVersionObsoleta() throws Exception {
+        Mockito.when(productoService.actualizar(eq(1L), any(Producto.class), eq(2L), isNull()))
+               .thenThrow(new ConflictoVersionException(1L, 5L));
+
+        mockMvc.perform(put("/api/v2/productos/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new Producto(1L, "Perfume", 10, 5000.0, 2L))))
+            .andExpect(status().isConflict())
+            .andExpect(jsonPath("$.versionActual", is(5)));
+    }
+
    @Test
     void testRebajarStock() throws Exception {
         Producto producto = new Producto();
@@ -136,6 +239,69 @@ class ProductoControllerTest {
             .andExpect(jsonPath("$.mensaje", is("Stock actualizado correctamente")));
     }
 
+    @Test
+    void testRebajarStockProductoNoEncontrado() throws Exception {
+        Mockito.when(productoService.rebajarStock(eq(99L), eq(2)))
+               .thenThrow(new ProductoNoEncontradoException(99L));
+
+        mockMvc.perform(patch("/api/v2/productos/rebajarStock/99")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of("cantidad", 2))))
+            .andExpect(status().isNotFound())
+            .andExpect(jsonPath("$.error", is("Producto no encontrado con ID: 99")));
+    }
+
+    @Test
+    void testRebajarStockInsuficiente() throws Exception {
+        Mockito.when(productoService.rebajarStock(eq(1L), eq(50)))
+               .thenThrow(new StockInsuficienteException(1L));
+
+        mockMvc.perform(patch("/api/v2/productos/rebajarStock/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of("cantidad", 50))))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error", is("Stock insuficiente para el producto con ID: 1")));
+    }
+
+
+    @Test
+    void testReservarStock() throws Exception {
+        Mockito.when(productoService.reservarStock(anyList()))
+               .thenReturn(List.of(new LineaStock(1L, 2), new LineaStock(3L, 1)));
+
+        ReservaStockRequest request = new ReservaStockRequest(List.of(new LineaStock(3L, 1), new LineaStock(1L, 2)));
+
+        mockMvc.perform(post("/api/v2/productos/stock/reservas")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.totalUnidades", is(3)))
+            .andExpect(jsonPath("$.lineas.length()", is(2)));
+    }
+
+    @Test
+    void testReservarStockRechazada() throws Exception {
+        Mockito.when(productoService.reservarStock(anyList()))
+               .thenThrow(new ReservaRechazadaException(List.of(
+                   new LineaFallida(3L, 1, LineaFallida.STOCK_INSUFICIENTE))));
+
+        ReservaStockRequest request = new ReservaStockRequest(List.of(new LineaStock(1L, 2), new LineaStock(3L, 1)));
+
+        mockMvc.perform(post("/api/v2/productos/stock/reservas")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+            .andExpect(status().isConflict())
+            .andExpect(jsonPath("$.lineasFallidas[0].idProducto", is(3)))
+            .andExpect(jsonPath("$.lineasFallidas[0].motivo", is("STOCK_INSUFICIENTE")));
+    }
+
+    @Test
+    void testReservarStockSinLineas() throws Exception {
+        mockMvc.perform(post("/api/v2/productos/stock/reservas")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"lineas\": []}"))
+            .andExpect(status().isBadRequest());
+    }
 
     @Test
     void testObtenerStockTotal() throws Exception {
@@ -167,6 +333,31 @@ class ProductoControllerTest {
             .andExpect(jsonPath("$.stockTotal", is(50)));
     }
 
+    @Test
+    void testObtenerResumenConPaginaDeProductos() throws Exception {
+        Mockito.when(productoService.obtenerResumenInventario())
+               .thenReturn(Map.of("totalProductos", 3, "totalStock", 3));
+        Mockito.when(productoService.listarPagina(10L, 3)).thenReturn(List.of(
+            new Producto(11L, "Perfume A", 1, 1000.0), new Producto(14L, "Perfume B", 1, 1000.0),
+            new Producto(15L, "Perfume C", 1, 1000.0)));
+
+        mockMvc.perform(get("/api/v2/productos/reporte/resumen")
+                .param("productos", "true").param("after", "10").param("limit", "2"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.totalProductos", is(3)))
+            .andExpect(jsonPath("$.productos.length()", is(2)))
+            .andExpect(jsonPath("$.siguienteAfter", is(14)));
+    }
+
+    @Test
+    void testObtenerResumenSinProductosNoListaNada() throws Exception {
+        Mockito.when(productoService.obtenerResumenInventario()).thenReturn(Map.of("totalProductos", 3));
+
+        mockMvc.perform(get("/api/v2/productos/reporte/resumen"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.productos").doesNotExist());
+    }
+
     @Test
     void testObtenerResumenVacio() throws Exception {
         Mockito.when(productoService.obtenerResumenInventario()).thenReturn(Collections.emptyMap());
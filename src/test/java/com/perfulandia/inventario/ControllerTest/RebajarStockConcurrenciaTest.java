@@ -0,0 +1,93 @@
+package com.perfulandia.inventario.ControllerTest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.perfulandia.inventario.model.Producto;
+import com.perfulandia.inventario.repository.ProductoRepository;
+
+/* Dispara miles de PATCH /rebajarStock/{id} concurrentes contra H2 y verifica que no se pierdan ni se sobrevendan unidades */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("h2")
+class RebajarStockConcurrenciaTest {
+
+    private static final int STOCK_INICIAL = 1200;
+    private static final int SOLICITUDES = 2000;
+    private static final int HILOS = 64;
+
+    @LocalServerPort
+    private int puerto;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Test
+    void testRebajasConcurrentesNoPierdenNiSobrevendenUnidades() throws Exception {
+        Producto producto = new Producto();
+        producto.setNombre("Perfume Concurrencia");
+        producto.setStock(STOCK_INICIAL);
+        producto.setPrecio(9990.0);
+        Long id = productoRepository.save(producto).getId();
+
+        HttpClient cliente = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        URI uri = URI.create("http://localhost:" + puerto + "/api/v2/productos/rebajarStock/" + id);
+
+        AtomicInteger exitosas = new AtomicInteger();
+        AtomicInteger rechazadas = new AtomicInteger();
+        AtomicInteger otras = new AtomicInteger();
+        CountDownLatch largada = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(HILOS);
+        List<Future<?>> tareas = new ArrayList<>();
+        for (int i = 0; i < SOLICITUDES; i++) {
+            tareas.add(pool.submit(() -> {
+                largada.await();
+                HttpRequest request = HttpRequest.newBuilder(uri)
+                    .header("Content-Type", "application/json")
+                    .method("PATCH", HttpRequest.BodyPublishers.ofString("{\"cantidad\": 1}"))
+                    .build();
+                int status = cliente.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                if (status == 200) {
+                    exitosas.incrementAndGet();
+                } else if (status == 400) {
+                    rechazadas.incrementAndGet();
+                } else {
+                    otras.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+
+        largada.countDown();
+        for (Future<?> tarea : tareas) {
+            tarea.get(2, TimeUnit.MINUTES);
+        }
+        pool.shutdown();
+
+        int stockFinal = productoRepository.findById(id).orElseThrow().getStock();
+
+        assertEquals(0, otras.get());
+        assertEquals(STOCK_INICIAL, exitosas.get()); // ninguna unidad perdida
+        assertEquals(SOLICITUDES - STOCK_INICIAL, rechazadas.get()); // el resto se rechaza por stock insuficiente
+        assertEquals(STOCK_INICIAL - exitosas.get(), stockFinal);
+        assertTrue(stockFinal >= 0);
+    }
+}
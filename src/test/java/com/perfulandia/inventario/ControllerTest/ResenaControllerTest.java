@@ -74,7 +74,7 @@ public class ResenaControllerTest {
     void testListarResenas() throws Exception {
         Resena r1 = new Resena();
         Resena r2 = new Resena();
-        Mockito.when(resenaService.listar()).thenReturn(List.of(r1, r2));
+        Mockito.when(resenaService.listarPagina(null, 51)).thenReturn(List.of(r1, r2));
 
         mockMvc.perform(get("/api/v2/resenas/all"))
                 .andExpect(status().isOk())
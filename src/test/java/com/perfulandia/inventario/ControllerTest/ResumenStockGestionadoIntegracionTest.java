@@ -0,0 +1,72 @@
+package com.perfulandia.inventario.ControllerTest;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.perfulandia.inventario.model.Producto;
+import com.perfulandia.inventario.repository.ProductoRepository;
+import com.perfulandia.inventario.service.ProductoService;
+import com.perfulandia.inventario.service.StockCalienteService;
+import com.perfulandia.inventario.service.StockFragmentadoService;
+
+/* El resumen del inventario cuenta las ranuras y los deltas calientes sin volcar igual que /stock/total */
+@SpringBootTest(properties = {
+    "inventario.stock-caliente.habilitado=true",
+    "inventario.stock-caliente.flush-ms=3600000",
+    "inventario.stock-caliente.fsync=false",
+    "inventario.stock-caliente.bitacora-dir=target/stock-caliente-${random.uuid}"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+class ResumenStockGestionadoIntegracionTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private ProductoService productoService;
+
+    @Autowired
+    private StockCalienteService stockCaliente;
+
+    @Autowired
+    private StockFragmentadoService fragmentado;
+
+    @Test
+    void testResumenCoincideConElStockTotal() throws Exception {
+        List<Producto> antes = productoRepository.findAll();
+        long stockAntes = antes.stream().mapToLong(Producto::getStock).sum();
+        double valorAntes = antes.stream().mapToDouble(p -> p.getStock() * p.getPrecio()).sum();
+
+        Long fragmentadoId = productoService.guardar(new Producto(null, "Perfume Resumen Ranuras", 9, 1000.0)).getId();
+        fragmentado.fragmentar(fragmentadoId, 3);
+        productoService.rebajarStock(fragmentadoId, 2);
+        Long calienteId = productoService.guardar(new Producto(null, "Perfume Resumen Caliente", 10, 500.0)).getId();
+        stockCaliente.registrar(calienteId);
+        productoService.rebajarStock(calienteId, 4);
+
+        Map<String, Object> resumen = productoService.obtenerResumenInventario();
+        String total = mockMvc.perform(get("/api/v2/productos/stock/total"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+
+        assertEquals(0, productoRepository.findById(fragmentadoId).orElseThrow().getStock());
+        assertEquals(10, productoRepository.findById(calienteId).orElseThrow().getStock()); // sin volcar
+        assertEquals(stockAntes + 7 + 6, resumen.get("totalStock"));
+        assertEquals(Long.parseLong(total), resumen.get("totalStock"));
+        assertEquals(valorAntes + 7 * 1000.0 + 6 * 500.0, (double) resumen.get("valorInventario"), 0.001);
+    }
+}
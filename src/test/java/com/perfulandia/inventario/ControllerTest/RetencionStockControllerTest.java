@@ -0,0 +1,88 @@
+package com.perfulandia.inventario.ControllerTest;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.perfulandia.inventario.controller.RetencionStockController;
+import com.perfulandia.inventario.exception.RetencionNoActivaException;
+import com.perfulandia.inventario.exception.StockInsuficienteException;
+import com.perfulandia.inventario.model.EstadoRetencion;
+import com.perfulandia.inventario.model.RetencionStock;
+import com.perfulandia.inventario.service.RetencionStockService;
+
+@WebMvcTest(controllers = RetencionStockController.class)
+@Import(RetencionStockControllerTest.MockConfig.class)
+class RetencionStockControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private RetencionStockService retencionService;
+
+    @TestConfiguration
+    static class MockConfig {
+        @Bean
+        public RetencionStockService retencionStockService() {
+            return Mockito.mock(RetencionStockService.class);
+        }
+    }
+
+    @Test
+    void testRetener() throws Exception {
+        RetencionStock retencion = new RetencionStock(1L, 10L, 2, EstadoRetencion.ACTIVA,
+            LocalDateTime.now().plusMinutes(15), LocalDateTime.now());
+        Mockito.when(retencionService.retener(eq(10L), eq(2), any())).thenReturn(retencion);
+
+        mockMvc.perform(post("/api/v2/retenciones/crear")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"idProducto\": 10, \"cantidad\": 2}"))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.estado").value("ACTIVA"));
+    }
+
+    @Test
+    void testRetenerSinDisponible() throws Exception {
+        Mockito.when(retencionService.retener(eq(10L), eq(50), any())).thenThrow(new StockInsuficienteException(10L));
+
+        mockMvc.perform(post("/api/v2/retenciones/crear")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"idProducto\": 10, \"cantidad\": 50}"))
+            .andExpect(status().isConflict());
+    }
+
+    @Test
+    void testConfirmarRetencionNoActiva() throws Exception {
+        Mockito.when(retencionService.confirmar(7L)).thenThrow(new RetencionNoActivaException(7L, EstadoRetencion.EXPIRADA));
+
+        mockMvc.perform(patch("/api/v2/retenciones/7/confirmar"))
+            .andExpect(status().isConflict());
+    }
+
+    @Test
+    void testDisponible() throws Exception {
+        Mockito.when(retencionService.consultarDisponible(10L))
+               .thenReturn(Map.of("idProducto", 10L, "stock", 5, "retenido", 2, "disponible", 3));
+
+        mockMvc.perform(get("/api/v2/retenciones/disponible/10"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.disponible").value(3));
+    }
+}
@@ -0,0 +1,68 @@
+package com.perfulandia.inventario.ControllerTest;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.perfulandia.inventario.controller.StockFragmentadoController;
+import com.perfulandia.inventario.exception.ProductoNoEncontradoException;
+import com.perfulandia.inventario.model.RanuraStock;
+import com.perfulandia.inventario.service.StockFragmentadoService;
+
+@WebMvcTest(controllers = StockFragmentadoController.class)
+@Import(StockFragmentadoControllerTest.MockConfig.class)
+class StockFragmentadoControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private StockFragmentadoService stockFragmentadoService;
+
+    @TestConfiguration
+    static class MockConfig {
+        @Bean
+        public StockFragmentadoService stockFragmentadoService() {
+            return Mockito.mock(StockFragmentadoService.class);
+        }
+    }
+
+    @Test
+    void testFragmentar() throws Exception {
+        Mockito.when(stockFragmentadoService.fragmentar(1L, 2)).thenReturn(List.of(
+            new RanuraStock(1L, 1L, 0, 5), new RanuraStock(2L, 1L, 1, 4)));
+
+        mockMvc.perform(post("/api/v2/productos/stock/ranuras/1").param("ranuras", "2"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.ranuras").value(2))
+            .andExpect(jsonPath("$.stock").value(9));
+    }
+
+    @Test
+    void testFragmentarRanurasFueraDeRango() throws Exception {
+        Mockito.when(stockFragmentadoService.fragmentar(1L, 500))
+            .thenThrow(new IllegalArgumentException("La cantidad de ranuras debe estar entre 1 y 64"));
+
+        mockMvc.perform(post("/api/v2/productos/stock/ranuras/1").param("ranuras", "500"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testUnificarProductoInexistente() throws Exception {
+        Mockito.when(stockFragmentadoService.unificar(99L)).thenThrow(new ProductoNoEncontradoException(99L));
+
+        mockMvc.perform(delete("/api/v2/productos/stock/ranuras/99"))
+            .andExpect(status().isNotFound());
+    }
+}
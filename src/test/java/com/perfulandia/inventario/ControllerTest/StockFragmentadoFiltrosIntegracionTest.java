@@ -0,0 +1,64 @@
+package com.perfulandia.inventario.ControllerTest;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.perfulandia.inventario.model.Producto;
+import com.perfulandia.inventario.repository.ProductoRepository;
+import com.perfulandia.inventario.service.ProductoService;
+import com.perfulandia.inventario.service.StockFragmentadoService;
+
+/* /sin-stock y /con-stock con las consultas sobre la tabla: un producto fragmentado tiene 0 en la columna y se filtra por sus ranuras */
+@SpringBootTest(properties = "inventario.catalogo-columnar.habilitado=false")
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+class StockFragmentadoFiltrosIntegracionTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private ProductoService productoService;
+
+    @Autowired
+    private StockFragmentadoService fragmentado;
+
+    @Test
+    void testFragmentadoConUnidadesEnRanurasNoFiguraSinStock() throws Exception {
+        Long id = productoRepository.save(new Producto(null, "Perfume Filtro Ranuras", 6, 9990.0)).getId();
+        fragmentado.fragmentar(id, 3);
+
+        mockMvc.perform(get("/api/v2/productos/sin-stock"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[?(@.id == " + id + ")]", empty()));
+        mockMvc.perform(get("/api/v2/productos/con-stock"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[?(@.id == " + id + ")].stock", contains(6)));
+    }
+
+    @Test
+    void testFragmentadoAgotadoFiguraSinStock() throws Exception {
+        Long id = productoRepository.save(new Producto(null, "Perfume Filtro Agotado", 4, 9990.0)).getId();
+        fragmentado.fragmentar(id, 2);
+        productoService.rebajarStock(id, 4);
+
+        mockMvc.perform(get("/api/v2/productos/sin-stock"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[?(@.id == " + id + ")].stock", contains(0)));
+        mockMvc.perform(get("/api/v2/productos/con-stock"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[?(@.id == " + id + ")]", empty()));
+    }
+}
@@ -0,0 +1,29 @@
+package com.perfulandia.inventario;
+
+import com.perfulandia.inventario.model.Producto;
+import com.perfulandia.inventario.repository.ProductoRepository;
+
+/*
+ * Productos que crean las pruebas de integración, guardados directo en la tabla (sin pasar por los modos de stock).
+ * Las clases que los dejan fragmentados, en el diario o con stock alterado llevan @DirtiesContext: el contexto
+ * (base H2 y estado en memoria) se descarta al terminar la clase y no se filtra a otras que comparten contexto.
+ */
+public final class ProductosDePrueba {
+
+    public static final double PRECIO = 1000.0;
+
+    private ProductosDePrueba() {
+    }
+
+    public static Long crear(ProductoRepository repository, int stock) {
+        return crear(repository, "Perfume de Prueba", stock);
+    }
+
+    public static Long crear(ProductoRepository repository, String nombre, int stock) {
+        Producto producto = new Producto();
+        producto.setNombre(nombre);
+        producto.setStock(stock);
+        producto.setPrecio(PRECIO);
+        return repository.save(producto).getId();
+    }
+}
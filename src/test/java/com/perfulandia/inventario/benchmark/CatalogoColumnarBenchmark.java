@@ -0,0 +1,113 @@
+package com.perfulandia.inventario.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.perfulandia.inventario.InventarioServiceApplication;
+import com.perfulandia.inventario.model.Producto;
+import com.perfulandia.inventario.repository.ProductoRepository;
+import com.perfulandia.inventario.service.CatalogoColumnarService;
+
+/*
+ * Filtros por stock y precio y stock total: consultas de ProductoRepository contra el catálogo columnar
+ * en memoria, con 100 mil y 1 millón de productos (stock al azar entre 0 y 999, precio entre 1.000 y
+ * 100.000; los filtros devuelven alrededor del 0,5 % y el 1 % del catálogo).
+ * Por defecto contra H2 embebida, donde la consulta no paga red; contra MySQL:
+ *   mvn -Pbenchmark test-compile exec:exec -Djmh.incluir="CatalogoColumnar -jvmArgsAppend -Dspring.datasource.url=jdbc:mysql://..."
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class CatalogoColumnarBenchmark {
+
+    private static final int STOCK_BAJO = 5;
+    private static final double PRECIO_MAXIMO = 2000.0;
+
+    @Param({"100000", "1000000"})
+    public int productos;
+
+    private ConfigurableApplicationContext contexto;
+    private ProductoRepository productoRepository;
+    private CatalogoColumnarService catalogo;
+
+    @Setup(Level.Trial)
+    public void iniciar() {
+        contexto = new SpringApplicationBuilder(InventarioServiceApplication.class)
+            .web(WebApplicationType.NONE)
+            .run("--spring.profiles.active=h2",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN");
+        productoRepository = contexto.getBean(ProductoRepository.class);
+        catalogo = contexto.getBean(CatalogoColumnarService.class);
+
+        JdbcTemplate jdbcTemplate = contexto.getBean(JdbcTemplate.class);
+        Random azar = new Random(42);
+        List<Object[]> lote = new ArrayList<>();
+        for (int i = 0; i < productos; i++) {
+            lote.add(new Object[] {"Perfume " + i, azar.nextInt(1000), 1000 + azar.nextInt(99_000) + 0.99});
+            if (lote.size() == 10_000 || i == productos - 1) {
+                jdbcTemplate.batchUpdate("INSERT INTO producto (nombre, stock, precio, version) VALUES (?, ?, ?, 0)", lote);
+                lote.clear();
+            }
+        }
+        catalogo.recargar();
+    }
+
+    @TearDown(Level.Trial)
+    public void detener() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public List<Producto> stockBajoRepositorio() {
+        return productoRepository.findByStockLessThan(STOCK_BAJO);
+    }
+
+    @Benchmark
+    public List<Producto> stockBajoCatalogo() {
+        return catalogo.stockMenorA(STOCK_BAJO);
+    }
+
+    @Benchmark
+    public List<Producto> precioMenorRepositorio() {
+        return productoRepository.findByPrecioLessThan(PRECIO_MAXIMO);
+    }
+
+    @Benchmark
+    public List<Producto> precioMenorCatalogo() {
+        return catalogo.precioMenorA(PRECIO_MAXIMO);
+    }
+
+    @Benchmark
+    public Integer stockTotalRepositorio() {
+        return productoRepository.obtenerStockTotal();
+    }
+
+    @Benchmark
+    public long stockTotalCatalogo() {
+        return catalogo.stockTotal();
+    }
+}
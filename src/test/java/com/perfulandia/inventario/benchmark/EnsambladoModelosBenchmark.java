@@ -0,0 +1,93 @@
+package com.perfulandia.inventario.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import com.perfulandia.inventario.assemblers.ProductoModelAssembler;
+import com.perfulandia.inventario.controller.ProductoController;
+import com.perfulandia.inventario.dto.ProductoModel;
+import com.perfulandia.inventario.model.Producto;
+
+/*
+ * Ensamblado de una página de 10 mil ProductoModel con sus enlaces, como en un listado: "antes" arma los
+ * dos enlaces con linkTo(methodOn(...)) por elemento; "plantillas" usa ProductoModelAssembler, que los
+ * resuelve una vez por solicitud. Cada invocación es una solicitud nueva, así que la resolución de las
+ * plantillas entra en la medición. Para ver asignaciones: -prof gc
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EnsambladoModelosBenchmark {
+
+    private static final int MODELOS = 10_000;
+
+    private final ProductoModelAssembler assembler = new ProductoModelAssembler();
+    private List<Producto> productos;
+
+    @Setup(Level.Trial)
+    public void iniciar() {
+        productos = new ArrayList<>(MODELOS);
+        for (long id = 1; id <= MODELOS; id++) {
+            productos.add(new Producto(id, "Perfume " + id, (int) (id % 100), 19990.0, 0L));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void detener() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Benchmark
+    public List<ProductoModel> antes() {
+        nuevaSolicitud();
+        List<ProductoModel> modelos = new ArrayList<>(MODELOS);
+        for (Producto producto : productos) {
+            ProductoModel model = new ProductoModel();
+            model.setId(producto.getId());
+            model.setNombre(producto.getNombre());
+            model.setStock(producto.getStock());
+            model.setPrecio(producto.getPrecio());
+            model.setVersion(producto.getVersion());
+            model.add(linkTo(methodOn(ProductoController.class).obtenerProductoPorId(producto.getId(), null)).withSelfRel());
+            model.add(linkTo(methodOn(ProductoController.class).listarProductos(null, null)).withRel("todos-los-productos"));
+            modelos.add(model);
+        }
+        return modelos;
+    }
+
+    @Benchmark
+    public List<ProductoModel> plantillas() {
+        nuevaSolicitud();
+        List<ProductoModel> modelos = new ArrayList<>(MODELOS);
+        for (Producto producto : productos) {
+            modelos.add(assembler.toModel(producto));
+        }
+        return modelos;
+    }
+
+    private static void nuevaSolicitud() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+    }
+}
@@ -0,0 +1,202 @@
+package com.perfulandia.inventario.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.MediaTypes;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.perfulandia.inventario.InventarioServiceApplication;
+import com.perfulandia.inventario.assemblers.ProductoModelAssembler;
+import com.perfulandia.inventario.assemblers.ResenaModelAssembler;
+import com.perfulandia.inventario.controller.ProductoController;
+import com.perfulandia.inventario.dto.ProductoModel;
+import com.perfulandia.inventario.dto.ResenaModel;
+import com.perfulandia.inventario.model.Producto;
+import com.perfulandia.inventario.model.Resena;
+import com.perfulandia.inventario.repository.ProductoRepository;
+import com.perfulandia.inventario.repository.ResenaRepository;
+import com.perfulandia.inventario.service.AgregadoResenaService;
+import com.perfulandia.inventario.service.ProductoService;
+import com.perfulandia.inventario.service.ResenaService;
+
+/*
+ * Rutas de lectura más usadas, contra la aplicación completa sobre H2 embebida con un catálogo sembrado:
+ * el resumen del inventario y la cantidad de reseñas por producto (recorren todo el catálogo), los dos
+ * ensambladores sobre una página y la serialización HAL de una página de productos con el ObjectMapper
+ * que usa Spring MVC para application/hal+json. Cada ensamblado es una solicitud nueva.
+ * Tamaños y resultados (JSON en target/jmh-result.json):
+ *   mvn -Pbenchmark test-compile exec:exec -Djmh.incluir="RutasCalientes -p productos=100000 -p resenasPorProducto=5"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class RutasCalientesBenchmark {
+
+    private static final String[] COMENTARIOS = {
+        "Muy buen aroma, dura todo el día", "No me gustó, se evapora rápido", "Excelente relación precio calidad",
+        "El frasco llegó dañado", "Lo volvería a comprar", "Notas dulces y amaderadas"
+    };
+
+    @Param({"1000", "10000"})
+    public int productos;
+
+    @Param({"3"})
+    public int resenasPorProducto;
+
+    // Tamaño de la página para ensambladores y serialización (500 es el máximo de los listados paginados)
+    @Param({"500"})
+    public int pagina;
+
+    private ConfigurableApplicationContext contexto;
+    private ProductoService productoService;
+    private ResenaService resenaService;
+    private ProductoModelAssembler productoAssembler;
+    private ResenaModelAssembler resenaAssembler;
+    private ObjectMapper mapperHal;
+    private List<Producto> paginaProductos;
+    private List<Resena> paginaResenas;
+    private CollectionModel<ProductoModel> coleccion;
+
+    @Setup(Level.Trial)
+    public void iniciar() throws JsonProcessingException {
+        contexto = new SpringApplicationBuilder(InventarioServiceApplication.class)
+            .run("--spring.profiles.active=h2",
+                "--server.port=0",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN");
+        productoService = contexto.getBean(ProductoService.class);
+        resenaService = contexto.getBean(ResenaService.class);
+        productoAssembler = contexto.getBean(ProductoModelAssembler.class);
+        resenaAssembler = contexto.getBean(ResenaModelAssembler.class);
+        mapperHal = mapperHal(contexto.getBean(RequestMappingHandlerAdapter.class));
+
+        sembrar(contexto.getBean(JdbcTemplate.class));
+        contexto.getBean(AgregadoResenaService.class).reconstruir();
+
+        paginaProductos = contexto.getBean(ProductoRepository.class).findByIdGreaterThanOrderByIdAsc(0L, Limit.of(pagina));
+        paginaResenas = contexto.getBean(ResenaRepository.class).findByIdGreaterThanOrderByIdAsc(0L, Limit.of(pagina));
+        nuevaSolicitud();
+        coleccion = CollectionModel.of(paginaProductos.stream().map(productoAssembler::toModel).toList(),
+            linkTo(methodOn(ProductoController.class).listarProductos(null, pagina)).withSelfRel());
+        if (!new String(mapperHal.writeValueAsBytes(coleccion), StandardCharsets.UTF_8).contains("\"_links\"")) {
+            throw new IllegalStateException("El ObjectMapper elegido no serializa en HAL");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void detener() {
+        RequestContextHolder.resetRequestAttributes();
+        contexto.close();
+    }
+
+    @Benchmark
+    public Map<String, Object> resumenInventario() {
+        return productoService.obtenerResumenInventario();
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> cantidadResenasPorProducto() {
+        return resenaService.obtenerCantidadResenasPorProducto();
+    }
+
+    @Benchmark
+    public List<ProductoModel> ensambladoProductos() {
+        nuevaSolicitud();
+        List<ProductoModel> modelos = new ArrayList<>(paginaProductos.size());
+        for (Producto producto : paginaProductos) {
+            modelos.add(productoAssembler.toModel(producto));
+        }
+        return modelos;
+    }
+
+    @Benchmark
+    public List<ResenaModel> ensambladoResenas() {
+        nuevaSolicitud();
+        List<ResenaModel> modelos = new ArrayList<>(paginaResenas.size());
+        for (Resena resena : paginaResenas) {
+            modelos.add(resenaAssembler.toModel(resena));
+        }
+        return modelos;
+    }
+
+    @Benchmark
+    public byte[] serializacionPaginaProductos() throws JsonProcessingException {
+        return mapperHal.writeValueAsBytes(coleccion);
+    }
+
+    private void sembrar(JdbcTemplate jdbcTemplate) {
+        Random azar = new Random(42);
+        Long primero = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) + 1 FROM producto", Long.class);
+        List<Object[]> lote = new ArrayList<>();
+        for (int i = 0; i < productos; i++) {
+            lote.add(new Object[] {"Perfume " + i, azar.nextInt(1000), 1000 + azar.nextInt(99_000) + 0.99});
+            if (lote.size() == 10_000 || i == productos - 1) {
+                jdbcTemplate.batchUpdate("INSERT INTO producto (nombre, stock, precio, version) VALUES (?, ?, ?, 0)", lote);
+                lote.clear();
+            }
+        }
+        for (long id = primero; id < primero + productos; id++) {
+            for (int j = 0; j < resenasPorProducto; j++) {
+                lote.add(new Object[] {COMENTARIOS[azar.nextInt(COMENTARIOS.length)], 1 + azar.nextInt(5), id, 1 + azar.nextInt(5000), "Cliente"});
+            }
+            if (lote.size() >= 10_000 || id == primero + productos - 1) {
+                jdbcTemplate.batchUpdate(
+                    "INSERT INTO resena (comentario, calificacion, id_producto, id_usuario, nombre_usuario) VALUES (?, ?, ?, ?, ?)", lote);
+                lote.clear();
+            }
+        }
+    }
+
+    // Spring HATEOAS registra en el convertidor de Jackson un ObjectMapper propio para los RepresentationModel
+    // en application/hal+json; es el que responde los listados, no el ObjectMapper de la aplicación
+    private static ObjectMapper mapperHal(RequestMappingHandlerAdapter adapter) {
+        for (HttpMessageConverter<?> convertidor : adapter.getMessageConverters()) {
+            if (convertidor instanceof MappingJackson2HttpMessageConverter jackson) {
+                ObjectMapper mapper = jackson.getObjectMappersForType(CollectionModel.class).get(MediaTypes.HAL_JSON);
+                if (mapper != null) {
+                    return mapper;
+                }
+            }
+        }
+        throw new IllegalStateException("No hay convertidor para " + MediaTypes.HAL_JSON);
+    }
+
+    private static void nuevaSolicitud() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+    }
+}
@@ -0,0 +1,105 @@
+package com.perfulandia.inventario.benchmark;
+
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.perfulandia.inventario.InventarioServiceApplication;
+import com.perfulandia.inventario.model.Producto;
+import com.perfulandia.inventario.repository.ProductoRepository;
+import com.perfulandia.inventario.service.EjecutorReintentos;
+import com.perfulandia.inventario.service.ProductoService;
+import com.perfulandia.inventario.service.StockCalienteService;
+
+/*
+ * Rebajas por segundo sobre un mismo SKU con varios hilos, contra H2 embebida:
+ *  - JPA_SAVE: la rebaja original (findById + setStock + save por llamada); con @Version en Producto los
+ *    hilos que chocan sobre la fila se releen y reintentan con EjecutorReintentos, como reponerStock
+ *  - UPDATE_CONDICIONAL: el UPDATE ... WHERE stock >= ? de ProductoService
+ *  - CALIENTE: el contador en memoria con bitácora y volcado diferido
+ *  - DIARIO: un INSERT en movimiento_stock por rebaja, compactado en lotes a producto.stock
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+@Threads(8)
+public class StockCalienteBenchmark {
+
+    @Param({"JPA_SAVE", "UPDATE_CONDICIONAL", "CALIENTE", "DIARIO"})
+    public String modo;
+
+    @Param({"true"})
+    public boolean fsync;
+
+    private ConfigurableApplicationContext contexto;
+    private ProductoService productoService;
+    private ProductoRepository productoRepository;
+    private EjecutorReintentos reintentos;
+    private Long idProducto;
+
+    @Setup(Level.Trial)
+    public void iniciar() throws Exception {
+        contexto = new SpringApplicationBuilder(InventarioServiceApplication.class)
+            .web(WebApplicationType.NONE)
+            // como argumentos de línea de comandos para que prevalezcan sobre application.properties
+            .run("--spring.profiles.active=h2",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN",
+                "--inventario.stock-caliente.habilitado=true",
+                "--inventario.movimientos.habilitado=" + "DIARIO".equals(modo),
+                "--inventario.stock-caliente.fsync=" + fsync,
+                // con 8 hilos sobre una fila los conflictos encadenados superan los 5 intentos por defecto
+                "--inventario.reintentos.max-intentos=100",
+                "--inventario.stock-caliente.bitacora-dir=" + Files.createTempDirectory("bitacora-bench"));
+        productoService = contexto.getBean(ProductoService.class);
+        productoRepository = contexto.getBean(ProductoRepository.class);
+        reintentos = contexto.getBean(EjecutorReintentos.class);
+
+        Producto producto = new Producto();
+        producto.setNombre("Perfume Benchmark");
+        producto.setStock(Integer.MAX_VALUE / 2);
+        producto.setPrecio(19990.0);
+        idProducto = productoRepository.save(producto).getId();
+
+        if ("CALIENTE".equals(modo)) {
+            contexto.getBean(StockCalienteService.class).registrar(idProducto);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void detener() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public Object rebajar() {
+        if ("JPA_SAVE".equals(modo)) {
+            return reintentos.ejecutar(() -> {
+                Producto producto = productoRepository.findById(idProducto).orElseThrow();
+                producto.setStock(producto.getStock() - 1);
+                return productoRepository.save(producto);
+            });
+        }
+        return productoService.rebajarStock(idProducto, 1);
+    }
+}
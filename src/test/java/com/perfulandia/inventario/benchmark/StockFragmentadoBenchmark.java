@@ -0,0 +1,88 @@
+package com.perfulandia.inventario.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.perfulandia.inventario.InventarioServiceApplication;
+import com.perfulandia.inventario.model.Producto;
+import com.perfulandia.inventario.repository.ProductoRepository;
+import com.perfulandia.inventario.service.StockFragmentadoService;
+
+/*
+ * Contención sobre un SKU de venta flash: rebajas por segundo con 16 hilos según la cantidad
+ * de ranuras (0 = sin fragmentar, el UPDATE condicional sobre la fila de producto).
+ * Por defecto corre contra H2 embebida; la mejora solo se ve con varios núcleos y con una base donde
+ * el bloqueo de fila dure un viaje de red, p. ej. MySQL:
+ *   mvn -Pbenchmark test-compile exec:exec -Djmh.incluir="StockFragmentado -jvmArgsAppend -Dspring.datasource.url=jdbc:mysql://..."
+ * (las propiedades de sistema prevalecen sobre application-h2.properties)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+@Threads(16)
+public class StockFragmentadoBenchmark {
+
+    @Param({"0", "1", "4", "16"})
+    public int ranuras;
+
+    private ConfigurableApplicationContext contexto;
+    private ProductoRepository productoRepository;
+    private StockFragmentadoService stockFragmentado;
+    private Long idProducto;
+
+    @Setup(Level.Trial)
+    public void iniciar() {
+        // como argumentos de línea de comandos para que prevalezcan sobre application.properties
+        contexto = new SpringApplicationBuilder(InventarioServiceApplication.class)
+            .web(WebApplicationType.NONE)
+            .run("--spring.profiles.active=h2",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN");
+        productoRepository = contexto.getBean(ProductoRepository.class);
+        stockFragmentado = contexto.getBean(StockFragmentadoService.class);
+
+        Producto producto = new Producto();
+        producto.setNombre("Perfume Venta Flash");
+        producto.setStock(Integer.MAX_VALUE / 2);
+        producto.setPrecio(19990.0);
+        idProducto = productoRepository.save(producto).getId();
+
+        if (ranuras > 0) {
+            stockFragmentado.fragmentar(idProducto, ranuras);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void detener() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public void rebajar() {
+        if (ranuras == 0) {
+            productoRepository.rebajarStockSiDisponible(idProducto, 1, 0);
+        } else {
+            stockFragmentado.rebajar(idProducto, 1, 0);
+        }
+    }
+}
@@ -0,0 +1,379 @@
+package com.perfulandia.inventario.carga;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.perfulandia.inventario.InventarioServiceApplication;
+import com.perfulandia.inventario.service.GeneradorDatosService;
+import com.perfulandia.inventario.service.ProductoService;
+
+/*
+ * Prueba de carga local: levanta la aplicación completa con H2 embebida en modo MySQL (perfil h2, puerto al
+ * azar), la siembra con GeneradorDatosService y la somete a clientes virtuales concurrentes que mezclan
+ * GET /productos/{id}, GET /productos/buscar, PATCH /rebajarStock/{id} y POST /resenas/crear. Los productos
+ * se eligen con Zipf, así unos pocos concentran el tráfico y las rebajas compiten por las mismas filas.
+ *
+ * Informa por operación cantidad, rechazos, errores, solicitudes por segundo y percentiles de latencia
+ * (sin contar el calentamiento), y al final verifica invariantes contra la base: el stock de cada producto
+ * es el inicial menos las rebajas confirmadas, ninguno queda negativo, el stock total en memoria coincide
+ * con la tabla y las reseñas y sus agregados cuadran. Termina con código 1 si alguna no se cumple.
+ * Todo corre en la misma máquina y sin herramientas externas:
+ *   mvn -Pcarga test-compile exec:exec -Dcarga.argumentos="--clientes=64 --duracion=60 --productos=100000"
+ * Opciones (--clave=valor): clientes, duracion y calentamiento (segundos), productos, resenas, zipf, semilla,
+ * mezcla (porcentajes de lecturas,busquedas,rebajas,resenas) y resultado (JSON con el informe).
+ */
+public class PruebaCarga {
+
+    private static final String[] TERMINOS = {
+        "rosa", "vainilla", "oud", "sandalo", "bergamota", "noir", "intense", "eau de parfum", "vainila", "jazmin blanc"
+    };
+    private static final String[] COMENTARIOS = {
+        "Muy buen aroma y buena duración", "Se evapora rápido", "Excelente, dura todo el día", "Esperaba más por el precio"
+    };
+
+    private enum Operacion { LECTURA, BUSQUEDA, REBAJA, RESENA }
+
+    private final Map<String, String> opciones;
+    private final int clientes;
+    private final int duracion;
+    private final int calentamiento;
+    private final int productos;
+    private final long resenas;
+    private final double zipf;
+    private final long semilla;
+    private final int[] mezcla;
+
+    private HttpClient http;
+    private String base;
+    private long primerId;
+    private double[] acumuladaZipf;
+    private AtomicIntegerArray rebajadas;
+    private AtomicIntegerArray indeterminadas;
+    private final AtomicLong resenasCreadas = new AtomicLong();
+    private final AtomicLong resenasIndeterminadas = new AtomicLong();
+
+    PruebaCarga(Map<String, String> opciones) {
+        this.opciones = opciones;
+        this.clientes = Integer.parseInt(opciones.getOrDefault("clientes", "32"));
+        this.duracion = Integer.parseInt(opciones.getOrDefault("duracion", "30"));
+        this.calentamiento = Integer.parseInt(opciones.getOrDefault("calentamiento", "5"));
+        this.productos = Integer.parseInt(opciones.getOrDefault("productos", "10000"));
+        this.resenas = Long.parseLong(opciones.getOrDefault("resenas", "100000"));
+        this.zipf = Double.parseDouble(opciones.getOrDefault("zipf", "1.1"));
+        this.semilla = Long.parseLong(opciones.getOrDefault("semilla", "42"));
+        this.mezcla = Arrays.stream(opciones.getOrDefault("mezcla", "60,15,20,5").split(",")).mapToInt(Integer::parseInt).toArray();
+        if (mezcla.length != Operacion.values().length) {
+            throw new IllegalArgumentException("mezcla lleva un porcentaje por operación: lecturas,busquedas,rebajas,resenas");
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opciones = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                opciones.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        System.exit(new PruebaCarga(opciones).ejecutar() ? 0 : 1);
+    }
+
+    boolean ejecutar() throws Exception {
+        ConfigurableApplicationContext contexto = new SpringApplicationBuilder(InventarioServiceApplication.class)
+            .run("--spring.profiles.active=h2",
+                "--server.port=0",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN");
+        try {
+            JdbcTemplate jdbcTemplate = contexto.getBean(JdbcTemplate.class);
+            System.out.printf("Sembrando %d productos y %d reseñas...%n", productos, resenas);
+            primerId = contexto.getBean(GeneradorDatosService.class).generar(productos, resenas, zipf, semilla).primerIdProducto();
+            int[] stockInicial = stockPorProducto(jdbcTemplate);
+            long resenasIniciales = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM resena", Long.class);
+
+            base = "http://localhost:" + ((WebServerApplicationContext) contexto).getWebServer().getPort();
+            http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).connectTimeout(Duration.ofSeconds(5)).build();
+            acumuladaZipf = acumuladaZipf(productos, zipf);
+            rebajadas = new AtomicIntegerArray(productos);
+            indeterminadas = new AtomicIntegerArray(productos);
+
+            System.out.printf("%d clientes durante %d s (+%d s de calentamiento) contra %s%n", clientes, duracion, calentamiento, base);
+            List<Registro> registros = cargar();
+
+            Map<String, Object> informe = new LinkedHashMap<>();
+            informe.put("configuracion", Map.of("clientes", clientes, "duracionSegundos", duracion, "productos", productos,
+                "resenas", resenas, "zipf", zipf, "mezcla", mezcla));
+            informe.put("operaciones", resumir(registros));
+            Map<String, Boolean> invariantes = verificar(contexto, jdbcTemplate, stockInicial, resenasIniciales);
+            informe.put("invariantes", invariantes);
+
+            File resultado = new File(opciones.getOrDefault("resultado", "target/carga-resultado.json"));
+            if (resultado.getParentFile() != null) {
+                resultado.getParentFile().mkdirs();
+            }
+            new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(resultado, informe);
+            System.out.println("Informe en " + resultado.getPath());
+            return !invariantes.containsValue(false);
+        } finally {
+            contexto.close();
+        }
+    }
+
+    private List<Registro> cargar() throws Exception {
+        long inicioMedicion = System.nanoTime() + calentamiento * 1_000_000_000L;
+        long fin = inicioMedicion + duracion * 1_000_000_000L;
+        ExecutorService ejecutor = Executors.newFixedThreadPool(clientes);
+        try {
+            List<Future<Registro>> tareas = new ArrayList<>();
+            for (int c = 0; c < clientes; c++) {
+                SplittableRandom azar = new SplittableRandom(semilla * 31 + c);
+                int usuario = 1_000_000 + c;
+                tareas.add(ejecutor.submit(() -> cliente(azar, usuario, inicioMedicion, fin)));
+            }
+            List<Registro> registros = new ArrayList<>();
+            for (Future<Registro> tarea : tareas) {
+                registros.add(tarea.get());
+            }
+            return registros;
+        } finally {
+            ejecutor.shutdownNow();
+        }
+    }
+
+    private Registro cliente(SplittableRandom azar, int usuario, long inicioMedicion, long fin) {
+        Registro registro = new Registro();
+        long ahora;
+        while ((ahora = System.nanoTime()) < fin) {
+            Operacion operacion = elegirOperacion(azar);
+            int indice = elegirProducto(azar);
+            long id = primerId + indice;
+            int cantidad = 1 + azar.nextInt(3);
+            Resultado resultado;
+            long inicio = System.nanoTime();
+            try {
+                HttpResponse<Void> respuesta = http.send(solicitud(operacion, id, cantidad, usuario, azar),
+                    HttpResponse.BodyHandlers.discarding());
+                resultado = clasificar(operacion, respuesta.statusCode());
+                if (resultado == Resultado.OK && operacion == Operacion.REBAJA) {
+                    rebajadas.addAndGet(indice, cantidad);
+                } else if (resultado == Resultado.OK && operacion == Operacion.RESENA) {
+                    resenasCreadas.incrementAndGet();
+                }
+            } catch (IOException | InterruptedException e) {
+                // No se sabe si el servidor la aplicó: la verificación final la tolera
+                resultado = Resultado.ERROR;
+                if (operacion == Operacion.REBAJA) {
+                    indeterminadas.addAndGet(indice, cantidad);
+                } else if (operacion == Operacion.RESENA) {
+                    resenasIndeterminadas.incrementAndGet();
+                }
+                if (e instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            if (ahora >= inicioMedicion) {
+                registro.anotar(operacion, resultado, System.nanoTime() - inicio);
+            }
+        }
+        return registro;
+    }
+
+    private HttpRequest solicitud(Operacion operacion, long id, int cantidad, int usuario, SplittableRandom azar) {
+        HttpRequest.Builder solicitud = HttpRequest.newBuilder().timeout(Duration.ofSeconds(30));
+        return switch (operacion) {
+            case LECTURA -> solicitud.uri(URI.create(base + "/api/v2/productos/" + id)).GET().build();
+            case BUSQUEDA -> solicitud.uri(URI.create(base + "/api/v2/productos/buscar?nombre="
+                + URLEncoder.encode(TERMINOS[azar.nextInt(TERMINOS.length)], StandardCharsets.UTF_8))).GET().build();
+            case REBAJA -> solicitud.uri(URI.create(base + "/api/v2/productos/rebajarStock/" + id))
+                .header("Content-Type", "application/json")
+                .method("PATCH", HttpRequest.BodyPublishers.ofString("{\"cantidad\": " + cantidad + "}"))
+                .build();
+            case RESENA -> solicitud.uri(URI.create(base + "/api/v2/resenas/crear"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"comentario\": \"" + COMENTARIOS[azar.nextInt(COMENTARIOS.length)]
+                    + "\", \"calificacion\": " + (1 + azar.nextInt(5)) + ", \"producto\": {\"id\": " + id
+                    + "}, \"idUsuario\": " + usuario + ", \"nombreUsuario\": \"Cliente " + usuario + "\"}"))
+                .build();
+        };
+    }
+
+    // Una rebaja rechazada por falta de stock (400) es una respuesta esperada, no un error
+    private static Resultado clasificar(Operacion operacion, int estado) {
+        if (estado >= 200 && estado < 300) {
+            return Resultado.OK;
+        }
+        return operacion == Operacion.REBAJA && estado == 400 ? Resultado.RECHAZADA : Resultado.ERROR;
+    }
+
+    private Operacion elegirOperacion(SplittableRandom azar) {
+        int valor = azar.nextInt(Arrays.stream(mezcla).sum());
+        for (Operacion operacion : Operacion.values()) {
+            valor -= mezcla[operacion.ordinal()];
+            if (valor < 0) {
+                return operacion;
+            }
+        }
+        return Operacion.LECTURA;
+    }
+
+    private int elegirProducto(SplittableRandom azar) {
+        int posicion = Arrays.binarySearch(acumuladaZipf, azar.nextDouble());
+        return Math.min(productos - 1, posicion >= 0 ? posicion : -posicion - 1);
+    }
+
+    private static double[] acumuladaZipf(int productos, double zipf) {
+        double[] acumulada = new double[productos];
+        double total = 0;
+        for (int r = 0; r < productos; r++) {
+            total += Math.pow(r + 1, -zipf);
+            acumulada[r] = total;
+        }
+        for (int r = 0; r < productos; r++) {
+            acumulada[r] /= total;
+        }
+        return acumulada;
+    }
+
+    private int[] stockPorProducto(JdbcTemplate jdbcTemplate) {
+        int[] stock = new int[productos];
+        jdbcTemplate.query("SELECT id, stock FROM producto WHERE id >= ? AND id < ?",
+            fila -> {
+                stock[(int) (fila.getLong("id") - primerId)] = fila.getInt("stock");
+            },
+            primerId, primerId + productos);
+        return stock;
+    }
+
+    private Map<String, Object> resumir(List<Registro> registros) {
+        Map<String, Object> operaciones = new LinkedHashMap<>();
+        System.out.printf("%n%-9s %9s %9s %9s %8s %9s %9s %9s %9s %9s%n",
+            "operación", "total", "rechazos", "errores", "sol/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "máx ms");
+        long total = 0;
+        for (Operacion operacion : Operacion.values()) {
+            long[] latencias = registros.stream().map(r -> r.latencias(operacion)).flatMapToLong(Arrays::stream).sorted().toArray();
+            long rechazos = registros.stream().mapToLong(r -> r.rechazos[operacion.ordinal()]).sum();
+            long errores = registros.stream().mapToLong(r -> r.errores[operacion.ordinal()]).sum();
+            double porSegundo = latencias.length / (double) duracion;
+            total += latencias.length;
+
+            Map<String, Object> fila = new LinkedHashMap<>();
+            fila.put("total", latencias.length);
+            fila.put("rechazos", rechazos);
+            fila.put("errores", errores);
+            fila.put("porSegundo", porSegundo);
+            fila.put("p50Ms", percentil(latencias, 0.50));
+            fila.put("p90Ms", percentil(latencias, 0.90));
+            fila.put("p99Ms", percentil(latencias, 0.99));
+            fila.put("p999Ms", percentil(latencias, 0.999));
+            fila.put("maxMs", percentil(latencias, 1.0));
+            operaciones.put(operacion.name().toLowerCase(), fila);
+            System.out.printf("%-9s %9d %9d %9d %8.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n", operacion.name().toLowerCase(),
+                latencias.length, rechazos, errores, porSegundo, fila.get("p50Ms"), fila.get("p90Ms"), fila.get("p99Ms"),
+                fila.get("p999Ms"), fila.get("maxMs"));
+        }
+        System.out.printf("Total: %d solicitudes, %.1f sol/s%n%n", total, total / (double) duracion);
+        operaciones.put("solicitudesPorSegundo", total / (double) duracion);
+        return operaciones;
+    }
+
+    private static double percentil(long[] ordenadas, double fraccion) {
+        if (ordenadas.length == 0) {
+            return 0;
+        }
+        int posicion = (int) Math.ceil(fraccion * ordenadas.length) - 1;
+        return ordenadas[Math.max(0, posicion)] / 1_000_000.0;
+    }
+
+    private Map<String, Boolean> verificar(ConfigurableApplicationContext contexto, JdbcTemplate jdbcTemplate,
+                                           int[] stockInicial, long resenasIniciales) {
+        Map<String, Boolean> invariantes = new LinkedHashMap<>();
+        int[] stockFinal = stockPorProducto(jdbcTemplate);
+        int descuadrados = 0;
+        for (int i = 0; i < productos; i++) {
+            int esperado = stockInicial[i] - rebajadas.get(i);
+            int diferencia = esperado - stockFinal[i]; // > 0 solo por rebajas cuyo resultado no se conoce
+            if (diferencia < 0 || diferencia > indeterminadas.get(i)) {
+                descuadrados++;
+            }
+        }
+        invariantes.put("stockConservado", anotar("Stock inicial - rebajas confirmadas = stock final",
+            descuadrados == 0, descuadrados + " productos descuadrados"));
+
+        Long negativos = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM producto WHERE stock < 0", Long.class);
+        invariantes.put("sinStockNegativo", anotar("Ningún producto con stock negativo", negativos == 0, negativos + " negativos"));
+
+        Long enTabla = jdbcTemplate.queryForObject("SELECT COALESCE(SUM(stock), 0) FROM producto", Long.class);
+        Integer enServicio = contexto.getBean(ProductoService.class).obtenerStockTotal();
+        invariantes.put("stockTotalCoincide", anotar("Stock total del servicio = suma de la tabla",
+            enServicio != null && enServicio.longValue() == enTabla, enServicio + " vs " + enTabla));
+
+        long nuevas = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM resena", Long.class) - resenasIniciales;
+        long faltantes = nuevas - resenasCreadas.get();
+        invariantes.put("resenasRegistradas", anotar("Reseñas nuevas = creaciones confirmadas",
+            faltantes >= 0 && faltantes <= resenasIndeterminadas.get(), nuevas + " nuevas, " + resenasCreadas.get() + " confirmadas"));
+
+        Long agregadosDescuadrados = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM agregado_resena a "
+            + "WHERE a.cantidad <> (SELECT COUNT(*) FROM resena r WHERE r.id_producto = a.id_producto)", Long.class);
+        invariantes.put("agregadosCuadran", anotar("Agregados de reseñas = conteo de la tabla",
+            agregadosDescuadrados == 0, agregadosDescuadrados + " productos descuadrados"));
+        return invariantes;
+    }
+
+    private static boolean anotar(String descripcion, boolean cumple, String detalle) {
+        System.out.printf("[%s] %s (%s)%n", cumple ? "OK" : "FALLA", descripcion, detalle);
+        return cumple;
+    }
+
+    private enum Resultado { OK, RECHAZADA, ERROR }
+
+    // Latencias (ns) y conteos de un cliente; solo lo escribe su hilo
+    private static final class Registro {
+
+        private final long[][] latencias = new long[Operacion.values().length][1024];
+        private final int[] cantidades = new int[Operacion.values().length];
+        private final long[] rechazos = new long[Operacion.values().length];
+        private final long[] errores = new long[Operacion.values().length];
+
+        void anotar(Operacion operacion, Resultado resultado, long nanos) {
+            int o = operacion.ordinal();
+            if (cantidades[o] == latencias[o].length) {
+                latencias[o] = Arrays.copyOf(latencias[o], cantidades[o] * 2);
+            }
+            latencias[o][cantidades[o]++] = nanos;
+            if (resultado == Resultado.RECHAZADA) {
+                rechazos[o]++;
+            } else if (resultado == Resultado.ERROR) {
+                errores[o]++;
+            }
+        }
+
+        long[] latencias(Operacion operacion) {
+            return Arrays.copyOf(latencias[operacion.ordinal()], cantidades[operacion.ordinal()]);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.perfulandia.inventario.serviceTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.perfulandia.inventario.model.AgregadoResena;
+import com.perfulandia.inventario.model.Producto;
+import com.perfulandia.inventario.model.Resena;
+import com.perfulandia.inventario.repository.AgregadoResenaRepository;
+import com.perfulandia.inventario.repository.ProductoRepository;
+import com.perfulandia.inventario.repository.ResenaRepository;
+import com.perfulandia.inventario.service.ResenaService;
+
+/* Agregados de reseñas mantenidos al escribir y reconstruidos por tramos, contra H2 */
+@SpringBootTest(properties = "inventario.agregados-resena.lote=2")
+@ActiveProfiles("h2")
+class AgregadoResenaIntegracionTest {
+
+    @Autowired
+    private ResenaService service;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private AgregadoResenaRepository agregadoRepository;
+
+    @Autowired
+    private ResenaRepository resenaRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionTemplate transaccion;
+
+    @Autowired
+    void setTransactionManager(PlatformTransactionManager transactionManager) {
+        this.transaccion = new TransactionTemplate(transactionManager);
+    }
+
+    @Test
+    void testGuardarActualizarYEliminarMantienenElAgregado() {
+        Producto producto = crearProducto();
+        service.guardar(new Resena(null, "Rico", 5, producto, 1L, "Ana"));
+        Resena segunda = service.guardar(new Resena(null, "Regular", 2, producto, 2L, "Luis"));
+
+        assertEquals(3.5, service.obtenerPromedioCalificacion(producto.getId()));
+
+        segunda.setCalificacion(4);
+        service.actualizar(segunda);
+        AgregadoResena agregado = agregadoRepository.findById(producto.getId()).orElseThrow();
+        assertEquals(2, agregado.getCantidad());
+        assertEquals(9, agregado.getSuma());
+        assertEquals(0, agregado.getEstrellas2());
+        assertEquals(1, agregado.getEstrellas4());
+
+        service.eliminar(segunda.getId());
+        assertEquals(5.0, service.obtenerPromedioCalificacion(producto.getId()));
+    }
+
+    @Test
+    void testActualizarEntidadYaModificadaEnLaSesionUsaLaCalificacionGuardada() {
+        Producto producto = crearProducto();
+        Long id = service.guardar(new Resena(null, "Rico", 5, producto, 1L, "Ana")).getId();
+
+        // como en el PUT: la entidad administrada se modifica antes de llamar al servicio
+        transaccion.executeWithoutResult(status -> {
+            Resena existente = resenaRepository.findById(id).orElseThrow();
+            existente.setCalificacion(1);
+            service.actualizar(existente);
+        });
+
+        AgregadoResena agregado = agregadoRepository.findById(producto.getId()).orElseThrow();
+        assertEquals(1, agregado.getCantidad());
+        assertEquals(0, agregado.getEstrellas5());
+        assertEquals(1, agregado.getEstrellas1());
+    }
+
+    @Test
+    void testReconstruirCorrigeAgregadosDesalineados() {
+        Producto producto = crearProducto();
+        service.guardar(new Resena(null, "Rico", 5, producto, 1L, "Ana"));
+        // reseña escrita por fuera del servicio, como las de data.sql
+        jdbcTemplate.update("INSERT INTO resena (comentario, calificacion, id_producto, id_usuario, nombre_usuario) "
+            + "VALUES ('Suelta', 1, ?, 3, 'Marta')", producto.getId());
+        Producto sinResenas = crearProducto();
+        jdbcTemplate.update("INSERT INTO agregado_resena VALUES (?, 4, 8, 4, 0, 0, 0, 0, 0)", sinResenas.getId());
+
+        service.reconstruirAgregados();
+
+        AgregadoResena agregado = agregadoRepository.findById(producto.getId()).orElseThrow();
+        assertEquals(2, agregado.getCantidad());
+        assertEquals(1, agregado.getEstrellas1());
+        assertEquals(1, agregado.getEstrellas5());
+        assertEquals(3.0, service.obtenerPromedioCalificacion(producto.getId()));
+        assertNull(service.obtenerPromedioCalificacion(sinResenas.getId()));
+    }
+
+    private Producto crearProducto() {
+        Producto producto = new Producto();
+        producto.setNombre("Perfume Reseñado");
+        producto.setStock(1);
+        producto.setPrecio(1000.0);
+        return productoRepository.save(producto);
+    }
+}
@@ -0,0 +1,48 @@
+package com.perfulandia.inventario.serviceTest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.perfulandia.inventario.model.Producto;
+import com.perfulandia.inventario.service.ProductoService;
+
+/* El índice de nombres sigue a las altas, ediciones y bajas hechas por ProductoService, contra H2 */
+@SpringBootTest
+@ActiveProfiles("h2")
+class BusquedaProductoIntegracionTest {
+
+    @Autowired
+    private ProductoService service;
+
+    @Test
+    void testBuscarIncluyeDatosCargadosAlArrancar() {
+        // data.sql carga "Perfume Citrico"
+        assertTrue(service.buscarPorNombre("cítrico").stream()
+            .anyMatch(producto -> producto.getNombre().equals("Perfume Citrico")));
+    }
+
+    @Test
+    void testBuscarSigueAltaEdicionYBaja() {
+        Producto creado = service.guardar(new Producto(null, "Esencia Vainilla Bourbon", 4, 15990.0));
+        assertEquals(List.of(creado.getId()), ids(service.buscarPorNombre("vainila bourbon")));
+
+        Producto leido = service.buscarPorId(creado.getId());
+        service.actualizar(creado.getId(),
+            new Producto(creado.getId(), "Esencia Pachulí Nocturna", 4, 15990.0), leido.getVersion());
+        assertTrue(service.buscarPorNombre("vainilla bourbon").isEmpty());
+        assertEquals(List.of(creado.getId()), ids(service.buscarPorNombre("pachuli nocturna")));
+
+        service.eliminar(creado.getId());
+        assertTrue(service.buscarPorNombre("pachuli nocturna").isEmpty());
+    }
+
+    private static List<Long> ids(List<Producto> productos) {
+        return productos.stream().map(Producto::getId).toList();
+    }
+}
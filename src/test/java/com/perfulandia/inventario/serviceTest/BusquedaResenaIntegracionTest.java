@@ -0,0 +1,57 @@
+package com.perfulandia.inventario.serviceTest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.perfulandia.inventario.model.Producto;
+import com.perfulandia.inventario.model.Resena;
+import com.perfulandia.inventario.repository.ProductoRepository;
+import com.perfulandia.inventario.service.ResenaService;
+
+/* El índice de comentarios sigue a las altas, ediciones y bajas hechas por ResenaService, contra H2 */
+@SpringBootTest
+@ActiveProfiles("h2")
+class BusquedaResenaIntegracionTest {
+
+    @Autowired
+    private ResenaService service;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Test
+    void testBuscarIncluyeDatosCargadosAlArrancar() {
+        // data.sql carga "Muy buen aroma" para el producto 1
+        assertTrue(service.buscarEnComentarios("aromas", 1L, null, 10).stream()
+            .anyMatch(resena -> resena.getComentario().equals("Muy buen aroma")));
+    }
+
+    @Test
+    void testBuscarSigueAltaEdicionYBaja() {
+        Producto producto = productoRepository.save(new Producto(null, "Perfume Reseñado", 1, 1000.0));
+        Resena creada = service.guardar(new Resena(null, "Fragancia amaderada con notas de sándalo", 4,
+            producto, 900L, "Prueba"));
+        assertEquals(List.of(creada.getId()), ids(service.buscarEnComentarios("sandalo", null, null, 10)));
+        assertEquals(List.of(creada.getId()), ids(service.buscarEnComentarios("sandalo", producto.getId(), 4, 10)));
+        assertTrue(service.buscarEnComentarios("sandalo", null, 5, 10).isEmpty());
+
+        Resena leida = service.buscarPorId(creada.getId()).orElseThrow();
+        leida.setComentario("Fragancia de vetiver, muy seca");
+        service.actualizar(leida);
+        assertTrue(service.buscarEnComentarios("sandalo", null, null, 10).isEmpty());
+        assertEquals(List.of(creada.getId()), ids(service.buscarEnComentarios("vetiver", null, null, 10)));
+
+        service.eliminar(creada.getId());
+        assertTrue(service.buscarEnComentarios("vetiver", null, null, 10).isEmpty());
+    }
+
+    private static List<Long> ids(List<Resena> resenas) {
+        return resenas.stream().map(Resena::getId).toList();
+    }
+}
@@ -0,0 +1,93 @@
+package com.perfulandia.inventario.serviceTest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import com.perfulandia.inventario.ProductosDePrueba;
+import com.perfulandia.inventario.dto.LineaStock;
+import com.perfulandia.inventario.model.Producto;
+import com.perfulandia.inventario.repository.ProductoRepository;
+import com.perfulandia.inventario.service.ProductoService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/* Verifica contra H2 que las lecturas por ID salen de la caché y que cada escritura descarta la entrada */
+@SpringBootTest
+@ActiveProfiles("h2")
+@DirtiesContext
+class CacheProductoIntegracionTest {
+
+    @Autowired
+    private ProductoService service;
+
+    @Autowired
+    private MeterRegistry metricas;
+
+    @MockitoSpyBean
+    private ProductoRepository repository;
+
+    @Test
+    void testLecturasRepetidasNoLleganALaBase() {
+        Long id = ProductosDePrueba.crear(repository, 10);
+        clearInvocations(repository);
+        double aciertosAntes = aciertos();
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(10, service.buscarPorId(id).getStock());
+        }
+
+        verify(repository, times(1)).findById(id);
+        assertTrue(aciertos() - aciertosAntes >= 4);
+    }
+
+    @Test
+    void testRebajaYReposicionDescartanLaEntrada() {
+        Long id = ProductosDePrueba.crear(repository, 10);
+        service.buscarPorId(id);
+
+        service.rebajarStock(id, 3);
+        assertEquals(7, service.buscarPorId(id).getStock());
+
+        service.reponerStock(id, 5);
+        assertEquals(12, service.buscarPorId(id).getStock());
+    }
+
+    @Test
+    void testReservaDescartaLaEntradaAlConfirmarse() {
+        Long id = ProductosDePrueba.crear(repository, 10);
+        service.buscarPorId(id);
+
+        service.reservarStock(List.of(new LineaStock(id, 4)));
+
+        assertEquals(6, service.buscarPorId(id).getStock());
+    }
+
+    @Test
+    void testEdicionYEliminacionDescartanLaEntrada() {
+        Long id = ProductosDePrueba.crear(repository, 10);
+        Producto leido = service.buscarPorId(id);
+
+        service.actualizar(id, new Producto(id, "Perfume Cache Editado", 10, 2000.0), null);
+        Producto editado = service.buscarPorId(id);
+        assertEquals("Perfume Cache Editado", editado.getNombre());
+        assertEquals(leido.getVersion() + 1, editado.getVersion());
+
+        service.eliminar(id);
+        assertEquals(null, service.buscarPorId(id));
+    }
+
+    private double aciertos() {
+        return metricas.get("cache.gets").tag("cache", "productos").tag("result", "hit").functionCounter().count();
+    }
+}
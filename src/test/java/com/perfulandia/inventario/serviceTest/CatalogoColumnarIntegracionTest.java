@@ -0,0 +1,83 @@
+package com.perfulandia.inventario.serviceTest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.perfulandia.inventario.model.Producto;
+import com.perfulandia.inventario.repository.ProductoRepository;
+import com.perfulandia.inventario.service.CatalogoColumnarService;
+import com.perfulandia.inventario.service.ProductoService;
+import com.perfulandia.inventario.service.StockFragmentadoService;
+
+/* El catálogo columnar responde lo mismo que las consultas sobre la tabla, sigue a las escrituras de ProductoService y usa el stock efectivo de los SKU gestionados, contra H2 */
+@SpringBootTest
+@ActiveProfiles("h2")
+class CatalogoColumnarIntegracionTest {
+
+    @Autowired
+    private ProductoService service;
+
+    @Autowired
+    private CatalogoColumnarService catalogo;
+
+    @Autowired
+    private ProductoRepository repository;
+
+    @Autowired
+    private StockFragmentadoService fragmentado;
+
+    @Test
+    void testFiltrosCoincidenConLasConsultas() {
+        catalogo.recargar(); // otras pruebas escriben con el repositorio, sin avisar
+        // Las columnas sin stock efectivo: el servicio además corrige los SKU gestionados de otras pruebas
+        assertEquals(ids(repository.findByStockLessThan(5)), ids(catalogo.stockMenorA(5)));
+        assertEquals(ids(repository.findByStockGreaterThan(0)), ids(catalogo.stockMayorA(0)));
+        assertEquals(ids(repository.findByPrecioLessThan(20000)), ids(service.listarPorPrecioMenorA(20000)));
+        assertEquals(repository.obtenerStockTotal().longValue(), catalogo.stockTotal());
+    }
+
+    @Test
+    void testSigueAltaRebajaYBaja() {
+        Producto creado = service.guardar(new Producto(null, "Perfume Columnar", 2, 999.5));
+        assertTrue(ids(service.listarPorPrecioMenorA(1000)).contains(creado.getId()));
+        assertFalse(ids(service.listarSinStock()).contains(creado.getId()));
+
+        service.rebajarStock(creado.getId(), 2);
+        assertTrue(ids(service.listarSinStock()).contains(creado.getId()));
+        assertFalse(ids(service.listarConStock()).contains(creado.getId()));
+
+        service.eliminar(creado.getId());
+        assertFalse(ids(service.listarSinStock()).contains(creado.getId()));
+        assertFalse(ids(service.listarPorPrecioMenorA(1000)).contains(creado.getId()));
+    }
+
+    @Test
+    void testFragmentadoSeFiltraYSumaPorSusRanuras() {
+        Producto creado = service.guardar(new Producto(null, "Perfume Columnar Ranuras", 5, 1500.0));
+        int totalAntes = service.obtenerStockTotal();
+        long columnaAntes = catalogo.stockTotal();
+
+        fragmentado.fragmentar(creado.getId(), 2); // producto.stock queda en 0
+        assertEquals(columnaAntes - 5, catalogo.stockTotal());
+        assertEquals(totalAntes, service.obtenerStockTotal());
+        assertFalse(ids(service.listarSinStock()).contains(creado.getId()));
+        assertEquals(List.of(5), service.listarConStock().stream()
+            .filter(p -> p.getId().equals(creado.getId())).map(Producto::getStock).toList());
+
+        service.rebajarStock(creado.getId(), 5);
+        assertEquals(totalAntes - 5, service.obtenerStockTotal());
+        assertTrue(ids(service.listarSinStock()).contains(creado.getId()));
+        assertFalse(ids(service.listarConStock()).contains(creado.getId()));
+    }
+
+    private static List<Long> ids(List<Producto> productos) {
+        return productos.stream().map(Producto::getId).sorted().toList();
+    }
+}
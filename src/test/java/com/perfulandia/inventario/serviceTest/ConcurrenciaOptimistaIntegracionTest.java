@@ -0,0 +1,113 @@
+package com.perfulandia.inventario.serviceTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.perfulandia.inventario.ProductosDePrueba;
+import com.perfulandia.inventario.exception.ConflictoVersionException;
+import com.perfulandia.inventario.model.Producto;
+import com.perfulandia.inventario.repository.ProductoRepository;
+import com.perfulandia.inventario.service.ProductoService;
+import com.perfulandia.inventario.service.StockFragmentadoService;
+
+/* Verifica contra H2 que una edición con versión vieja, sin versión o con un ETag viejo no pisa una rebaja confirmada entre medio */
+@SpringBootTest(properties = "inventario.reintentos.max-intentos=20")
+@ActiveProfiles("h2")
+@DirtiesContext
+class ConcurrenciaOptimistaIntegracionTest {
+
+    @Autowired
+    private ProductoService service;
+
+    @Autowired
+    private ProductoRepository repository;
+
+    @Autowired
+    private StockFragmentadoService fragmentado;
+
+    @Test
+    void testEdicionConVersionObsoletaNoPisaLaRebaja() {
+        Long id = ProductosDePrueba.crear(repository, 10);
+        Producto leido = service.buscarPorId(id);
+
+        service.rebajarStock(id, 3); // otra compra se confirma mientras el cliente edita
+
+        Producto edicion = new Producto(id, "Perfume Editado", leido.getStock(), 1500.0, leido.getVersion());
+        ConflictoVersionException e = assertThrows(ConflictoVersionException.class, () ->
+            service.actualizar(id, edicion, leido.getVersion()));
+
+        assertEquals(leido.getVersion() + 1, e.getVersionActual());
+        assertEquals(7, repository.findById(id).orElseThrow().getStock());
+    }
+
+    @Test
+    void testEdicionConVersionVigenteIncrementaLaVersion() {
+        Long id = ProductosDePrueba.crear(repository, 10);
+        Producto leido = service.buscarPorId(id);
+
+        Producto actualizado = service.actualizar(id,
+            new Producto(id, "Perfume Editado", 12, 1500.0, leido.getVersion()), leido.getVersion());
+
+        assertEquals(12, actualizado.getStock());
+        assertEquals(leido.getVersion() + 1, repository.obtenerVersionPorId(id).orElseThrow());
+    }
+
+    @Test
+    void testEdicionSinVersionNoEscribeElStock() {
+        Long id = ProductosDePrueba.crear(repository, 10);
+        Producto leido = service.buscarPorId(id);
+
+        service.rebajarStock(id, 3);
+        Producto actualizado = service.actualizar(id, new Producto(id, "Perfume Editado", leido.getStock(), 1500.0), null);
+
+        assertEquals("Perfume Editado", actualizado.getNombre());
+        assertEquals(7, repository.findById(id).orElseThrow().getStock());
+    }
+
+    @Test
+    void testStockDeUnFragmentadoSoloSeEditaConElEtagVigente() {
+        Long id = ProductosDePrueba.crear(repository, 10);
+        fragmentado.fragmentar(id, 2);
+        String leida = service.etiquetaPorId(id);
+        Producto edicion = new Producto(id, "Perfume Editado", 12, 1500.0);
+
+        service.rebajarStock(id, 3); // la rebaja va a las ranuras y no sube la versión
+        assertThrows(ConflictoVersionException.class, () -> service.actualizar(id, edicion, null, leida));
+        service.actualizar(id, edicion, repository.obtenerVersionPorId(id).orElseThrow());
+        assertEquals(7, service.buscarPorId(id).getStock());
+
+        service.actualizar(id, edicion, null, service.etiquetaPorId(id));
+        assertEquals(12, service.buscarPorId(id).getStock());
+        assertEquals("Perfume Editado", service.buscarPorId(id).getNombre());
+    }
+
+    @Test
+    void testReposicionesConcurrentesNoSePierden() throws Exception {
+        Long id = ProductosDePrueba.crear(repository, 0);
+        ExecutorService hilos = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> tareas = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                tareas.add(hilos.submit(() -> service.reponerStock(id, 1)));
+            }
+            for (Future<?> tarea : tareas) {
+                tarea.get();
+            }
+        } finally {
+            hilos.shutdown();
+        }
+
+        assertEquals(20, repository.findById(id).orElseThrow().getStock());
+    }
+}
@@ -0,0 +1,110 @@
+package com.perfulandia.inventario.serviceTest;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.perfulandia.inventario.service.AgregadoResenaService;
+import com.perfulandia.inventario.service.GeneradorDatosService;
+import com.perfulandia.inventario.service.GeneradorDatosService.ResultadoGeneracion;
+import com.perfulandia.inventario.service.ResenaService;
+
+/* Generador de datos sintéticos contra H2: tamaños exactos, distribución sesgada y misma salida con la misma semilla */
+@SpringBootTest
+@ActiveProfiles("h2")
+class GeneradorDatosIntegracionTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private AgregadoResenaService agregados;
+
+    @Autowired
+    private ApplicationEventPublisher eventos;
+
+    @Autowired
+    private ResenaService resenaService;
+
+    @Test
+    void testGeneraLasCantidadesPedidasConResenasSesgadas() {
+        ResultadoGeneracion resultado = generador(250, 4).generar(2000, 30_000, 1.1, 42);
+        long desde = resultado.primerIdProducto();
+        long hasta = desde + 2000;
+
+        assertEquals(2000, contar("SELECT COUNT(*) FROM producto WHERE id >= ? AND id < ?", desde, hasta));
+        assertEquals(30_000, contar("SELECT COUNT(*) FROM resena WHERE id_producto >= ? AND id_producto < ?", desde, hasta));
+
+        int[] porProducto = jdbcTemplate.queryForList(
+                "SELECT COUNT(*) FROM resena WHERE id_producto >= ? AND id_producto < ? GROUP BY id_producto", Long.class, desde, hasta)
+            .stream().mapToInt(Long::intValue).sorted().toArray();
+        int mayor = porProducto[porProducto.length - 1];
+        int mediana = porProducto[porProducto.length / 2];
+        assertTrue(mayor > 20 * Math.max(1, mediana), "mayor " + mayor + ", mediana " + mediana);
+
+        List<Map<String, Object>> productos = jdbcTemplate.queryForList(
+            "SELECT stock, precio FROM producto WHERE id >= ? AND id < ?", desde, hasta);
+        assertTrue(productos.stream().anyMatch(fila -> ((Number) fila.get("stock")).intValue() == 0));
+        assertTrue(productos.stream().allMatch(fila -> {
+            double precio = ((Number) fila.get("precio")).doubleValue();
+            return precio >= 3990 && precio <= 499_990 && precio % 1000 == 990;
+        }));
+    }
+
+    @Test
+    void testMismaSemillaMismasFilasConDistintosHilos() {
+        ResultadoGeneracion uno = generador(100, 1).generar(300, 2000, 1.2, 7);
+        ResultadoGeneracion otro = generador(100, 4).generar(300, 2000, 1.2, 7);
+
+        assertEquals(filas(uno), filas(otro));
+        assertFalse(filas(uno).equals(filas(generador(100, 2).generar(300, 2000, 1.2, 8))));
+    }
+
+    @Test
+    void testActualizaAgregadosEIndiceDeComentarios() {
+        ResultadoGeneracion resultado = generador(500, 2).generar(500, 5000, 1.1, 99);
+        Long masResenado = jdbcTemplate.queryForObject(
+            "SELECT id_producto FROM resena WHERE id_producto >= ? GROUP BY id_producto ORDER BY COUNT(*) DESC LIMIT 1",
+            Long.class, resultado.primerIdProducto());
+
+        assertNotNull(resenaService.obtenerPromedioCalificacion(masResenado));
+        assertFalse(resenaService.buscarEnComentarios("aroma", masResenado, null, 5).isEmpty());
+    }
+
+    private GeneradorDatosService generador(int lote, int hilos) {
+        return new GeneradorDatosService(jdbcTemplate, transactionManager, agregados, eventos, lote, hilos);
+    }
+
+    // Filas generadas con el ID relativo al primero de la corrida
+    private String filas(ResultadoGeneracion resultado) {
+        long desde = resultado.primerIdProducto();
+        List<String> productos = jdbcTemplate.query(
+            "SELECT id, nombre, stock, precio FROM producto WHERE id >= ? AND id < ? ORDER BY id",
+            (fila, n) -> (fila.getLong("id") - desde) + "|" + fila.getString("nombre") + "|" + fila.getInt("stock") + "|" + fila.getDouble("precio"),
+            desde, desde + resultado.productos());
+        List<String> resenas = jdbcTemplate.query(
+            "SELECT id_producto, comentario, calificacion, nombre_usuario FROM resena WHERE id_producto >= ? AND id_producto < ? ORDER BY id",
+            (fila, n) -> (fila.getLong("id_producto") - desde) + "|" + fila.getString("comentario") + "|"
+                + fila.getInt("calificacion") + "|" + fila.getString("nombre_usuario"),
+            desde, desde + resultado.productos());
+        return String.join("\n", productos) + "\n" + String.join("\n", resenas);
+    }
+
+    private long contar(String sql, Object... parametros) {
+        return jdbcTemplate.queryForObject(sql, Long.class, parametros);
+    }
+}
@@ -0,0 +1,105 @@
+package com.perfulandia.inventario.serviceTest;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.anyString;
+import org.mockito.Mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.MockitoAnnotations;
+
+import com.perfulandia.inventario.model.RespuestaIdempotente;
+import com.perfulandia.inventario.repository.RespuestaIdempotenteRepository;
+import com.perfulandia.inventario.service.IdempotenciaService;
+
+class IdempotenciaServiceTest {
+
+    @Mock
+    private RespuestaIdempotenteRepository repository;
+
+    private IdempotenciaService service;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(repository.findById(anyString())).thenReturn(Optional.empty());
+        service = new IdempotenciaService(repository, 2, 3600, 5000);
+    }
+
+    @Test
+    void testRespuestaGuardadaSeSirveDesdeMemoria() {
+        assertTrue(service.reservar("a").isEmpty());
+        RespuestaIdempotente respuesta = respuesta("a", LocalDateTime.now());
+        service.completar("a", respuesta);
+
+        assertSame(respuesta, service.reservar("a").orElseThrow());
+        verify(repository).save(respuesta);
+        verify(repository).findById("a"); // solo la búsqueda previa a la primera ejecución
+    }
+
+    @Test
+    void testMemoriaAcotadaRecurreALaTabla() {
+        for (String clave : new String[] {"a", "b", "c"}) {
+            service.reservar(clave);
+            service.completar(clave, respuesta(clave, LocalDateTime.now()));
+        }
+        RespuestaIdempotente persistida = respuesta("a", LocalDateTime.now());
+        when(repository.findById("a")).thenReturn(Optional.of(persistida));
+
+        assertEquals(2, service.cantidadEnMemoria());
+        assertSame(persistida, service.reservar("a").orElseThrow());
+    }
+
+    @Test
+    void testRespuestaVencidaNoSeReproduce() {
+        when(repository.findById("viejo")).thenReturn(Optional.of(respuesta("viejo", LocalDateTime.now().minusHours(2))));
+
+        assertTrue(service.reservar("viejo").isEmpty());
+    }
+
+    @Test
+    void testSinRespuestaGuardableSeLiberaLaClave() {
+        service.reservar("a");
+        service.completar("a", null);
+
+        assertTrue(service.reservar("a").isEmpty());
+        verify(repository, never()).save(org.mockito.ArgumentMatchers.any());
+    }
+
+    @Test
+    void testReintentoConcurrenteEsperaAlPrimero() throws Exception {
+        ExecutorService hilos = Executors.newSingleThreadExecutor();
+        try {
+            assertTrue(service.reservar("a").isEmpty());
+            CountDownLatch esperando = new CountDownLatch(1);
+            Future<Optional<RespuestaIdempotente>> reintento = hilos.submit(() -> {
+                esperando.countDown();
+                return service.reservar("a");
+            });
+            esperando.await();
+            Thread.sleep(50);
+
+            RespuestaIdempotente respuesta = respuesta("a", LocalDateTime.now());
+            service.completar("a", respuesta);
+
+            assertSame(respuesta, reintento.get().orElseThrow());
+        } finally {
+            hilos.shutdownNow();
+        }
+    }
+
+    private static RespuestaIdempotente respuesta(String clave, LocalDateTime creadaEn) {
+        return new RespuestaIdempotente(clave, "huella", 200, "application/json", "{}", creadaEn);
+    }
+}
@@ -0,0 +1,108 @@
+package com.perfulandia.inventario.serviceTest;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.perfulandia.inventario.dto.ResultadoImportacion;
+import com.perfulandia.inventario.model.Producto;
+import com.perfulandia.inventario.repository.ProductoRepository;
+import com.perfulandia.inventario.service.ImportacionProductoService;
+import com.perfulandia.inventario.service.ImportacionProductoService.Formato;
+import com.perfulandia.inventario.service.ProductoService;
+import com.perfulandia.inventario.service.StockFragmentadoService;
+
+/* Verifica contra H2 la importación por lotes: altas, actualización por nombre y filas rechazadas */
+@SpringBootTest(properties = "inventario.importacion.lote=2")
+@ActiveProfiles("h2")
+class ImportacionProductoIntegracionTest {
+
+    @Autowired
+    private ImportacionProductoService service;
+
+    @Autowired
+    private ProductoRepository repository;
+
+    @Autowired
+    private ProductoService productoService;
+
+    @Autowired
+    private StockFragmentadoService fragmentado;
+
+    @Test
+    void testCsvInsertaActualizaYRechaza() {
+        Producto existente = new Producto();
+        existente.setNombre("Perfume Importado A");
+        existente.setStock(1);
+        existente.setPrecio(100.0);
+        repository.save(existente);
+
+        String csv = "precio,nombre,stock\n"
+            + "2500,Perfume Importado A,40\n"
+            + "3000,\"Perfume Importado, B\",7\n"
+            + "abc,Perfume Importado C,3\n"
+            + "\n"
+            + "1200,Perfume Importado D,-1\n"
+            + "1500,Perfume Importado E,9\n";
+
+        ResultadoImportacion resultado = service.importar(entrada(csv), Formato.CSV);
+
+        assertEquals(5, resultado.getProcesadas());
+        assertEquals(2, resultado.getInsertadas());
+        assertEquals(1, resultado.getActualizadas());
+        assertEquals(2, resultado.getRechazadas());
+        assertEquals(4L, resultado.getErrores().get(0).getLinea());
+        assertEquals(6L, resultado.getErrores().get(1).getLinea());
+
+        Producto actualizado = repository.findById(existente.getId()).orElseThrow();
+        assertEquals(40, actualizado.getStock());
+        assertEquals(2500.0, actualizado.getPrecio());
+        assertEquals(1, repository.findByNombreContainingIgnoreCase("Perfume Importado, B").size());
+    }
+
+    @Test
+    void testNdjsonConNombreRepetidoGanaLaUltimaFila() {
+        String ndjson = "{\"nombre\": \"Perfume Ndjson\", \"stock\": 5, \"precio\": 990}\n"
+            + "{\"nombre\": \"Perfume Ndjson\", \"stock\": 8, \"precio\": 1090}\n"
+            + "{\"nombre\": \"Perfume Ndjson Roto\", \"stock\": \n";
+
+        ResultadoImportacion resultado = service.importar(entrada(ndjson), Formato.NDJSON);
+
+        assertEquals(1, resultado.getInsertadas());
+        assertEquals(1, resultado.getActualizadas());
+        assertEquals(1, resultado.getRechazadas());
+        List<Producto> productos = repository.findByNombreContainingIgnoreCase("Perfume Ndjson");
+        assertEquals(1, productos.size());
+        assertEquals(8, productos.get(0).getStock());
+    }
+
+    @Test
+    void testFragmentadoTomaElStockDelArchivo() {
+        Producto existente = repository.save(new Producto(null, "Perfume Importado Ranuras", 6, 100.0));
+        fragmentado.fragmentar(existente.getId(), 2);
+        productoService.rebajarStock(existente.getId(), 1);
+
+        ResultadoImportacion resultado = service.importar(entrada("nombre,stock,precio\nPerfume Importado Ranuras,20,150\n"), Formato.CSV);
+
+        assertEquals(1, resultado.getActualizadas());
+        assertEquals(20, productoService.buscarPorId(existente.getId()).getStock());
+        assertEquals(150.0, productoService.buscarPorId(existente.getId()).getPrecio());
+    }
+
+    @Test
+    void testCsvSinEncabezadoValidoSeRechaza() {
+        assertThrows(IllegalArgumentException.class, () ->
+            service.importar(entrada("nombre,cantidad\nPerfume,1\n"), Formato.CSV));
+    }
+
+    private static ByteArrayInputStream entrada(String contenido) {
+        return new ByteArrayInputStream(contenido.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,87 @@
+package com.perfulandia.inventario.serviceTest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.perfulandia.inventario.service.IndiceNombresProductoService;
+import com.perfulandia.inventario.service.ProductosModificadosEvento;
+
+class IndiceNombresProductoServiceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private IndiceNombresProductoService indice;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        indice = new IndiceNombresProductoService(jdbcTemplate, 0.4);
+        indice.indexar(1L, "Perfume Floral", 0);
+        indice.indexar(2L, "Perfume Cítrico", 0);
+        indice.indexar(3L, "Colonia Floral Intensa", 0);
+        indice.indexar(4L, "Perfume Amaderado", 0);
+    }
+
+    @Test
+    void testNormalizarQuitaTildesYSignos() {
+        assertEquals("perfume citrico n 5", IndiceNombresProductoService.normalizar("  Perfume CÍTRICO, N° 5!"));
+    }
+
+    @Test
+    void testBuscarSinTildesEncuentraNombreConTilde() {
+        assertEquals(List.of(2L), indice.buscar("citrico", 10));
+    }
+
+    @Test
+    void testBuscarToleraErrorDeTipeo() {
+        assertEquals(1L, indice.buscar("perfume florla", 10).get(0));
+    }
+
+    @Test
+    void testBuscarOrdenaPorRelevancia() {
+        // Ambos contienen "floral"; el nombre más corto comparte más proporción de trigramas
+        assertEquals(List.of(1L, 3L), indice.buscar("floral", 10));
+    }
+
+    @Test
+    void testUltimaPalabraValeComoPrefijo() {
+        assertEquals(List.of(4L), indice.buscar("amad", 10));
+    }
+
+    @Test
+    void testBuscarRespetaElLimite() {
+        assertEquals(2, indice.buscar("perfume", 2).size());
+    }
+
+    @Test
+    void testRenombrarYQuitarActualizanElIndice() {
+        indice.indexar(1L, "Perfume Oriental", 1);
+        indice.quitar(2L);
+
+        assertEquals(List.of(3L), indice.buscar("floral", 10));
+        assertTrue(indice.buscar("citrico", 10).isEmpty());
+        assertEquals(List.of(1L), indice.buscar("oriental", 10));
+        assertEquals(3, indice.tamano());
+    }
+
+    @Test
+    void testVersionAnteriorNoPisaLaIndexada() {
+        indice.indexar(1L, "Perfume Oriental", 5);
+        indice.indexar(1L, "Perfume Floral", 4);
+
+        assertEquals(List.of(1L), indice.buscar("oriental", 10));
+    }
+
+    @Test
+    void testEventoDeStockNoRelee() {
+        indice.sincronizar(ProductosModificadosEvento.stock(List.of(1L, 2L)));
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+}
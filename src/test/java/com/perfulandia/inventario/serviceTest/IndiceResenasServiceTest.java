@@ -0,0 +1,94 @@
+package com.perfulandia.inventario.serviceTest;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.Mockito.mock;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.perfulandia.inventario.service.IndiceResenasService;
+import com.perfulandia.inventario.service.IndiceResenasService.Coincidencia;
+
+class IndiceResenasServiceTest {
+
+    private IndiceResenasService indice;
+
+    @BeforeEach
+    void setUp() {
+        indice = new IndiceResenasService(mock(JdbcTemplate.class));
+        indice.indexar(1L, "Excelente duración, dura todo el día", 5, 10L);
+        indice.indexar(2L, "Aroma dulce pero poca duración", 3, 10L);
+        indice.indexar(3L, "Las duraciones varían según la piel", 4, 20L);
+        indice.indexar(4L, "Aromas dulces y florales", 5, 20L);
+        indice.indexar(5L, "No me gustó el envase", 1, 30L);
+    }
+
+    @Test
+    void testTerminosSinPalabrasVaciasYReducidos() {
+        assertEquals(Map.of("arom", 1, "dulc", 1, "flor", 1),
+            Map.copyOf(IndiceResenasService.terminos("Aromas dulces y de flores")));
+        assertEquals(IndiceResenasService.terminos("duración"), IndiceResenasService.terminos("DURACIONES"));
+    }
+
+    @Test
+    void testBuscarIgnoraTildesYPlurales() {
+        assertEquals(List.of(1L, 2L, 3L), ids(indice.buscar("duraciones", null, null, 10)).stream().sorted().toList());
+    }
+
+    @Test
+    void testBuscarOrdenaPorPuntaje() {
+        // La 4 tiene "aroma" y "dulce"; la 2 solo comparte "aroma" y "dulce" con un comentario más largo
+        List<Coincidencia> resultado = indice.buscar("aroma dulce", null, null, 10);
+        assertEquals(List.of(4L, 2L), ids(resultado));
+        assertTrue(resultado.get(0).puntaje() > resultado.get(1).puntaje());
+    }
+
+    @Test
+    void testBuscarFiltraPorProductoYCalificacion() {
+        assertEquals(List.of(1L, 2L), ids(indice.buscar("duracion", 10L, null, 10)).stream().sorted().toList());
+        assertEquals(List.of(3L), ids(indice.buscar("duracion", null, 4, 10)));
+        assertTrue(indice.buscar("duracion", 30L, null, 10).isEmpty());
+        assertTrue(indice.buscar("duracion", 99L, null, 10).isEmpty());
+    }
+
+    @Test
+    void testBuscarRespetaElLimite() {
+        assertEquals(2, indice.buscar("duracion", null, null, 2).size());
+    }
+
+    @Test
+    void testSoloPalabrasVaciasNoDevuelveNada() {
+        assertTrue(indice.buscar("de la y", null, null, 10).isEmpty());
+    }
+
+    @Test
+    void testReindexarYQuitar() {
+        indice.indexar(5L, "Envase elegante, buena duración", 4, 30L);
+        assertTrue(ids(indice.buscar("duracion", 30L, null, 10)).contains(5L));
+        assertTrue(indice.buscar("gusto", null, null, 10).isEmpty());
+
+        indice.quitar(5L);
+        assertTrue(indice.buscar("envase", null, null, 10).isEmpty());
+        assertEquals(4, indice.tamano());
+    }
+
+    @Test
+    void testCompactaTrasMuchasBajasSinPerderVigentes() {
+        for (long id = 100; id < 3100; id++) {
+            indice.indexar(id, "Comentario de relleno " + id, 3, 40L);
+        }
+        for (long id = 100; id < 3100; id++) {
+            indice.quitar(id);
+        }
+        assertEquals(5, indice.tamano());
+        assertEquals(List.of(5L), ids(indice.buscar("envase", null, null, 10)));
+    }
+
+    private static List<Long> ids(List<Coincidencia> coincidencias) {
+        return coincidencias.stream().map(Coincidencia::id).toList();
+    }
+}
@@ -0,0 +1,146 @@
+package com.perfulandia.inventario.serviceTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.perfulandia.inventario.ProductosDePrueba;
+import com.perfulandia.inventario.dto.LineaStock;
+import com.perfulandia.inventario.exception.ReservaRechazadaException;
+import com.perfulandia.inventario.exception.StockInsuficienteException;
+import com.perfulandia.inventario.model.MovimientoStock;
+import com.perfulandia.inventario.model.Producto;
+import com.perfulandia.inventario.model.TipoMovimiento;
+import com.perfulandia.inventario.repository.MovimientoStockRepository;
+import com.perfulandia.inventario.repository.ProductoRepository;
+import com.perfulandia.inventario.service.MovimientoStockService;
+import com.perfulandia.inventario.service.ProductoService;
+import com.perfulandia.inventario.service.StockFragmentadoService;
+
+/* Diario de movimientos contra H2: las rebajas insertan, el stock vigente suma la cola y el compactador la incorpora */
+@SpringBootTest(properties = {
+    "inventario.movimientos.habilitado=true",
+    "inventario.movimientos.compactar-ms=3600000",
+    "inventario.movimientos.lote=2"
+})
+@ActiveProfiles("h2")
+@DirtiesContext
+class MovimientoStockIntegracionTest {
+
+    @Autowired
+    private ProductoService productoService;
+
+    @Autowired
+    private MovimientoStockService movimientos;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private MovimientoStockRepository movimientoRepository;
+
+    @Autowired
+    private StockFragmentadoService fragmentado;
+
+    @Test
+    void testRebajaYReposicionSoloInsertanMovimientos() {
+        Long id = ProductosDePrueba.crear(productoRepository, 10);
+
+        productoService.rebajarStock(id, 3);
+        productoService.reponerStock(id, 1);
+
+        assertEquals(10, productoRepository.findById(id).orElseThrow().getStock()); // el snapshot no cambia
+        assertEquals(8, productoService.buscarPorId(id).getStock());
+        assertEquals(8, movimientos.stockPorProducto().get(id)); // snapshot + cola, para los filtros por stock
+        List<MovimientoStock> diario = movimientos.listar(id, 10);
+        assertEquals(List.of(1, -3), diario.stream().map(MovimientoStock::getCantidad).toList());
+        assertEquals(TipoMovimiento.REPOSICION, diario.get(0).getTipo());
+        assertThrows(StockInsuficienteException.class, () -> productoService.rebajarStock(id, 9));
+    }
+
+    @Test
+    void testCompactarIncorporaLaColaEnLotes() {
+        Long a = ProductosDePrueba.crear(productoRepository, 10);
+        Long b = ProductosDePrueba.crear(productoRepository, 5);
+        productoService.rebajarStock(a, 2);
+        productoService.rebajarStock(b, 1);
+        productoService.rebajarStock(a, 3);
+
+        movimientos.compactar();
+
+        assertEquals(5, productoRepository.findById(a).orElseThrow().getStock());
+        assertEquals(4, productoRepository.findById(b).orElseThrow().getStock());
+        assertEquals(5, productoService.buscarPorId(a).getStock());
+        assertTrue(movimientos.listar(a, 10).stream().allMatch(MovimientoStock::isCompactado));
+        assertEquals(0, movimientos.pendienteTotal());
+    }
+
+    @Test
+    void testReservaRechazadaRevierteMovimientosYContador() {
+        Long conStock = ProductosDePrueba.crear(productoRepository, 10);
+        Long sinStock = ProductosDePrueba.crear(productoRepository, 1);
+        long antes = movimientoRepository.count();
+
+        assertThrows(ReservaRechazadaException.class, () ->
+            productoService.reservarStock(List.of(new LineaStock(conStock, 4), new LineaStock(sinStock, 2))));
+
+        assertEquals(antes, movimientoRepository.count());
+        assertEquals(10, productoService.buscarPorId(conStock).getStock());
+    }
+
+    @Test
+    void testEditarElStockRegistraUnAjuste() {
+        Long id = ProductosDePrueba.crear(productoRepository, 10);
+        productoService.rebajarStock(id, 4);
+
+        Producto editado = productoService.buscarPorId(id);
+        editado.setNombre("Perfume Diario Editado");
+        editado.setStock(20);
+        // El stock del diario cambia sin tocar la versión: solo el ETag vigente autoriza a escribirlo
+        Producto guardado = productoService.actualizar(id, editado, null, productoService.etiquetaPorId(id));
+
+        assertEquals(20, guardado.getStock());
+        assertEquals("Perfume Diario Editado", guardado.getNombre());
+        assertEquals(TipoMovimiento.AJUSTE, movimientos.listar(id, 1).get(0).getTipo());
+        assertEquals(14, movimientos.listar(id, 1).get(0).getCantidad());
+    }
+
+    @Test
+    void testFragmentarConRebajasEnCursoNoDejaMovimientosFueraDeLasRanuras() throws Exception {
+        Long id = ProductosDePrueba.crear(productoRepository, 400);
+        AtomicInteger rebajadas = new AtomicInteger();
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<?>> tareas = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            tareas.add(pool.submit(() -> {
+                productoService.rebajarStock(id, 1);
+                rebajadas.incrementAndGet();
+                return null;
+            }));
+        }
+        fragmentado.fragmentar(id, 4); // en medio de las rebajas: unas van al diario y otras a las ranuras
+        for (Future<?> tarea : tareas) {
+            tarea.get(1, TimeUnit.MINUTES);
+        }
+        pool.shutdown();
+        movimientos.compactar(); // una fila que quedara en la cola sumaria a producto.stock, fuera de las ranuras
+
+        assertEquals(300, rebajadas.get());
+        assertEquals(0, productoRepository.findById(id).orElseThrow().getStock());
+        assertEquals(100, productoService.buscarPorId(id).getStock());
+    }
+}
@@ -0,0 +1,54 @@
+package com.perfulandia.inventario.serviceTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.perfulandia.inventario.model.Producto;
+import com.perfulandia.inventario.repository.ProductoRepository;
+import com.perfulandia.inventario.service.ProductoService;
+
+/* Recorre el catálogo en H2 página a página siguiendo el cursor, sin saltos ni repetidos */
+@SpringBootTest
+@ActiveProfiles("h2")
+class PaginacionCursorIntegracionTest {
+
+    @Autowired
+    private ProductoService service;
+
+    @Autowired
+    private ProductoRepository repository;
+
+    @Test
+    void testRecorridoPorCursorDevuelveCadaProductoUnaVez() {
+        List<Long> creados = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            Producto producto = new Producto();
+            producto.setNombre("Perfume Paginado " + i);
+            producto.setStock(i);
+            producto.setPrecio(1000.0);
+            creados.add(repository.save(producto).getId());
+        }
+        Long desde = creados.get(0) - 1;
+
+        List<Long> recorridos = new ArrayList<>();
+        Long cursor = desde;
+        List<Producto> pagina;
+        do {
+            pagina = service.listarPagina(cursor, 3);
+            assertTrue(pagina.size() <= 3);
+            for (Producto producto : pagina) {
+                recorridos.add(producto.getId());
+                cursor = producto.getId();
+            }
+        } while (pagina.size() == 3);
+
+        assertEquals(creados, recorridos.subList(0, creados.size()));
+    }
+}
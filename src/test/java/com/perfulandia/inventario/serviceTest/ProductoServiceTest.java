@@ -1,35 +1,115 @@
 package com.perfulandia.inventario.serviceTest;
 
+import com.perfulandia.inventario.dto.LineaFallida;
+import com.perfulandia.inventario.dto.LineaStock;
+import com.perfulandia.inventario.dto.TotalesInventario;
+import com.perfulandia.inventario.exception.ConflictoVersionException;
+import com.perfulandia.inventario.exception.ProductoNoEncontradoException;
+import com.perfulandia.inventario.exception.ReservaRechazadaException;
+import com.perfulandia.inventario.exception.StockInsuficienteException;
 import com.perfulandia.inventario.model.Producto;
 import com.perfulandia.inventario.repository.ProductoRepository;
+import com.perfulandia.inventario.service.CacheProductoService;
+import com.perfulandia.inventario.service.CatalogoColumnarService;
+import com.perfulandia.inventario.service.EjecutorReintentos;
+import com.perfulandia.inventario.service.IndiceNombresProductoService;
+import com.perfulandia.inventario.service.MetricasInventarioService;
 import com.perfulandia.inventario.service.ProductoService;
+import com.perfulandia.inventario.service.RetencionStockService;
+import com.perfulandia.inventario.service.MovimientoStockService;
+import com.perfulandia.inventario.service.StockCalienteService;
+import com.perfulandia.inventario.service.StockFragmentadoService;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 
 import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
 
-import org.mockito.InjectMocks;
+import org.mockito.InOrder;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 import static org.mockito.ArgumentMatchers.any;
 
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
 
 @ExtendWith(MockitoExtension.class) //Activacion de Mockito en Junit 5
 class ProductoServiceTest {
 
 
+    @Mock
+    private IndiceNombresProductoService indiceNombres;
+
+    @Mock
+    private CatalogoColumnarService catalogo;
+
     @Mock
     private ProductoRepository productoRepository;
 
-    @InjectMocks
+    @Mock
+    private RetencionStockService retenciones;
+
+    @Mock
+    private StockCalienteService stockCaliente;
+
+    @Mock
+    private StockFragmentadoService stockFragmentado;
+
+    @Mock
+    private MovimientoStockService movimientos;
+
+    private SimpleMeterRegistry registro = new SimpleMeterRegistry();
+
+    private MetricasInventarioService metricas = new MetricasInventarioService(registro);
+
+    @Spy
+    private EjecutorReintentos reintentos = new EjecutorReintentos(3, 0, 0, metricas);
+
+    @Mock
+    private ApplicationEventPublisher eventos;
+
     private ProductoService service;
 
+    @BeforeEach
+    void setUp() {
+        // Cache real sobre el repositorio simulado; sin JdbcTemplate: la reposicion masiva se prueba
+        // contra H2 (ReposicionMasivaIntegracionTest)
+        CacheProductoService cache = new CacheProductoService(productoRepository,
+                                                              new ConcurrentMapCacheManager(CacheProductoService.CACHE));
+        service = new ProductoService(productoRepository, retenciones, stockCaliente, stockFragmentado,
+                                      movimientos, reintentos, cache, indiceNombres, catalogo, metricas, eventos, null, null, 500, 50);
+        // Mockito devuelve 0 para Integer; null indica que el producto no esta en modo caliente
+        lenient().when(stockCaliente.rebajar(anyLong(), anyInt(), anyInt())).thenReturn(null);
+        lenient().when(stockCaliente.reponer(anyLong(), anyInt())).thenReturn(null);
+        lenient().when(stockCaliente.stockActual(anyLong())).thenReturn(null);
+        lenient().when(stockFragmentado.stockActual(anyLong())).thenReturn(null);
+        lenient().when(stockCaliente.excluyendoRegistro(any())).thenAnswer(invocacion -> {
+            Supplier<?> movimiento = invocacion.getArgument(0);
+            return movimiento.get();
+        });
+        lenient().when(stockFragmentado.excluyendoFragmentar(any())).thenAnswer(invocacion -> {
+            Supplier<?> movimiento = invocacion.getArgument(0);
+            return movimiento.get();
+        });
+        // El candado de las retenciones se simula ejecutando la rebaja con el retenido simulado
+        lenient().when(retenciones.conRetenido(anyLong(), any())).thenAnswer(invocacion -> {
+            IntFunction<?> rebaja = invocacion.getArgument(1);
+            return rebaja.apply(retenciones.retenido(invocacion.getArgument(0)));
+        });
+    }
+
     @Test
     void testGuardarProducto() {
         Producto producto = new Producto();
@@ -44,6 +124,44 @@ class ProductoServiceTest {
         verify(productoRepository, times(1)).save(producto);
     }
 
+    @Test
+    void testActualizarConVersionObsoletaLanzaConflicto() {
+        when(productoRepository.findById(1L)).thenReturn(Optional.of(new Producto(1L, "Perfume", 10, 5000.0, 7L)));
+
+        ConflictoVersionException e = assertThrows(ConflictoVersionException.class, () ->
+            service.actualizar(1L, new Producto(1L, "Perfume", 12, 5000.0, 6L), 6L));
+
+        assertEquals(7L, e.getVersionActual());
+        verify(productoRepository, never()).save(any());
+    }
+
+    @Test
+    void testActualizarSinVersionReintentaAnteConflicto() {
+        Producto existente = new Producto(1L, "Perfume", 10, 5000.0, 3L);
+        when(productoRepository.findById(1L)).thenReturn(Optional.of(existente));
+        when(productoRepository.save(existente))
+            .thenThrow(new ObjectOptimisticLockingFailureException(Producto.class, 1L))
+            .thenReturn(existente);
+
+        Producto resultado = service.actualizar(1L, new Producto(1L, "Perfume Editado", 12, 5000.0), null);
+
+        assertEquals("Perfume Editado", resultado.getNombre());
+        assertEquals(10, resultado.getStock()); // sin version el stock del cuerpo no se escribe
+        verify(productoRepository, times(2)).findById(1L);
+        assertEquals(1.0, registro.get("inventario.reintentos").counter().count());
+    }
+
+    @Test
+    void testActualizarSinVersionSeRindeTrasElMaximoDeIntentos() {
+        Producto existente = new Producto(1L, "Perfume", 10, 5000.0, 3L);
+        when(productoRepository.findById(1L)).thenReturn(Optional.of(existente));
+        when(productoRepository.save(existente)).thenThrow(new ObjectOptimisticLockingFailureException(Producto.class, 1L));
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () ->
+            service.actualizar(1L, new Producto(1L, "Perfume", 12, 5000.0), null));
+        verify(productoRepository, times(3)).save(existente);
+    }
+
     @Test
     void testListarProductos() {
         Producto p1 = new Producto();
@@ -100,6 +218,21 @@ class ProductoServiceTest {
         verify(productoRepository).findByStockLessThan(1);
     }
 
+    @Test
+    void testFiltrosUsanElCatalogoColumnarSiEstaHabilitado() {
+        Producto p1 = new Producto(1L, "Perfume A", 0, 5000.0);
+        when(catalogo.isHabilitado()).thenReturn(true);
+        when(catalogo.stockMenorA(eq(1), anyMap())).thenReturn(List.of(p1));
+        when(catalogo.precioMenorA(6000)).thenReturn(List.of(p1));
+        when(catalogo.stockTotal(anyMap())).thenReturn(42L);
+
+        assertEquals(List.of(p1), service.listarSinStock());
+        assertEquals(List.of(p1), service.listarPorPrecioMenorA(6000));
+        assertEquals(42, service.obtenerStockTotal());
+        verify(productoRepository, never()).findByStockLessThan(anyInt());
+        verify(productoRepository, never()).findByPrecioLessThan(anyDouble());
+        verify(productoRepository, never()).obtenerStockTotal();
+    }
 
     @Test
     void testEliminarProducto() {
@@ -115,31 +248,138 @@ class ProductoServiceTest {
     void testRebajarStockCorrectamente() {
         Producto producto = new Producto();
         producto.setId(1L);
-        producto.setStock(10);
+        producto.setStock(5);
 
+        when(productoRepository.rebajarStockSiDisponible(1L, 5, 0)).thenReturn(1);
         when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
-        when(productoRepository.save(any(Producto.class))).thenReturn(producto);
 
         Producto actualizado = service.rebajarStock(1L, 5);
 
         assertEquals(5, actualizado.getStock());
+        verify(productoRepository, never()).save(any(Producto.class));
     }
 
     @Test
     void testRebajarStockInsuficiente() {
-        Producto producto = new Producto();
-        producto.setId(1L);
-        producto.setStock(3);
+        when(productoRepository.rebajarStockSiDisponible(1L, 10, 0)).thenReturn(0);
+        when(productoRepository.existsById(1L)).thenReturn(true);
 
-        when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
-
-        RuntimeException ex = assertThrows(RuntimeException.class, () -> {
+        StockInsuficienteException ex = assertThrows(StockInsuficienteException.class, () -> {
             service.rebajarStock(1L, 10);
         });
 
         assertEquals("Stock insuficiente para el producto con ID: 1", ex.getMessage());
     }
 
+    @Test
+    void testRebajarStockProductoNoEncontrado() {
+        when(productoRepository.rebajarStockSiDisponible(99L, 1, 0)).thenReturn(0);
+        when(productoRepository.existsById(99L)).thenReturn(false);
+
+        ProductoNoEncontradoException ex = assertThrows(ProductoNoEncontradoException.class, () -> {
+            service.rebajarStock(99L, 1);
+        });
+
+        assertEquals("Producto no encontrado con ID: 99", ex.getMessage());
+        assertEquals(1.0, registro.get("inventario.stock.rechazos")
+            .tags("operacion", "rebajar", "motivo", "no_encontrado", "endpoint", MetricasInventarioService.SIN_ENDPOINT)
+            .counter().count());
+    }
+
+    @Test
+    void testRebajarStockRespetaUnidadesRetenidas() {
+        when(retenciones.retenido(1L)).thenReturn(4);
+        when(productoRepository.rebajarStockSiDisponible(1L, 2, 4)).thenReturn(0);
+        when(productoRepository.existsById(1L)).thenReturn(true);
+
+        assertThrows(StockInsuficienteException.class, () -> service.rebajarStock(1L, 2));
+    }
+
+    @Test
+    void testRebajarStockCalienteNoTocaLaTabla() {
+        Producto producto = new Producto(1L, "Perfume", 10, 5000.0);
+        when(stockCaliente.rebajar(1L, 2, 0)).thenReturn(8);
+        when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
+
+        Producto actualizado = service.rebajarStock(1L, 2);
+
+        assertEquals(8, actualizado.getStock());
+        assertEquals(10, producto.getStock()); // la entidad administrada no se modifica
+        verify(productoRepository, never()).rebajarStockSiDisponible(anyLong(), anyInt(), anyInt());
+    }
+
+    @Test
+    void testReservarStockCompensaLineasCalientesSiElPedidoFalla() {
+        when(stockCaliente.rebajar(1L, 2, 0)).thenReturn(5);
+        when(productoRepository.rebajarStockSiDisponible(2L, 9, 0)).thenReturn(0);
+        when(productoRepository.existsById(2L)).thenReturn(true);
+
+        assertThrows(ReservaRechazadaException.class, () ->
+            service.reservarStock(List.of(new LineaStock(1L, 2), new LineaStock(2L, 9))));
+
+        verify(stockCaliente).reponer(1L, 2);
+    }
+
+    @Test
+    void testRebajarStockCantidadInvalida() {
+        assertThrows(IllegalArgumentException.class, () -> service.rebajarStock(1L, 0));
+
+        verify(productoRepository, never()).rebajarStockSiDisponible(anyLong(), anyInt(), anyInt());
+    }
+
+    @Test
+    void testReservarStockAplicaLineasOrdenadasPorId() {
+        when(productoRepository.rebajarStockSiDisponible(anyLong(), anyInt(), anyInt())).thenReturn(1);
+
+        List<LineaStock> aplicadas = service.reservarStock(List.of(
+            new LineaStock(7L, 1), new LineaStock(2L, 3), new LineaStock(7L, 2)));
+
+        assertEquals(List.of(new LineaStock(2L, 3), new LineaStock(7L, 3)), aplicadas);
+        InOrder orden = inOrder(productoRepository);
+        orden.verify(productoRepository).rebajarStockSiDisponible(2L, 3, 0);
+        orden.verify(productoRepository).rebajarStockSiDisponible(7L, 3, 0);
+    }
+
+    @Test
+    void testReservarStockInformaTodasLasLineasFallidas() {
+        when(productoRepository.rebajarStockSiDisponible(1L, 2, 0)).thenReturn(1);
+        when(productoRepository.rebajarStockSiDisponible(2L, 50, 0)).thenReturn(0);
+        when(productoRepository.rebajarStockSiDisponible(3L, 1, 0)).thenReturn(0);
+        when(productoRepository.existsById(2L)).thenReturn(true);
+        when(productoRepository.existsById(3L)).thenReturn(false);
+
+        ReservaRechazadaException ex = assertThrows(ReservaRechazadaException.class, () ->
+            service.reservarStock(List.of(
+                new LineaStock(3L, 1), new LineaStock(1L, 2), new LineaStock(2L, 50), new LineaStock(4L, 0))));
+
+        assertEquals(List.of(
+            new LineaFallida(3L, 1, LineaFallida.PRODUCTO_NO_ENCONTRADO),
+            new LineaFallida(2L, 50, LineaFallida.STOCK_INSUFICIENTE),
+            new LineaFallida(4L, 0, LineaFallida.CANTIDAD_INVALIDA)), ex.getLineasFallidas());
+    }
+
+    @Test
+    void testReservarStockValidaCadaLineaAntesDeSumarlas() {
+        when(productoRepository.rebajarStockSiDisponible(anyLong(), anyInt(), anyInt())).thenReturn(1);
+
+        ReservaRechazadaException ex = assertThrows(ReservaRechazadaException.class, () ->
+            service.reservarStock(List.of(new LineaStock(1L, 5), new LineaStock(1L, -3))));
+
+        assertEquals(List.of(new LineaFallida(1L, -3, LineaFallida.CANTIDAD_INVALIDA)), ex.getLineasFallidas());
+        verify(productoRepository).rebajarStockSiDisponible(1L, 5, 0); // la linea valida no se descuenta de la invalida
+    }
+
+    @Test
+    void testReservarStockInformaLasLineasOriginalesSiLaSumaSeDesborda() {
+        ReservaRechazadaException ex = assertThrows(ReservaRechazadaException.class, () ->
+            service.reservarStock(List.of(new LineaStock(1L, Integer.MAX_VALUE), new LineaStock(1L, 2))));
+
+        assertEquals(List.of(
+            new LineaFallida(1L, Integer.MAX_VALUE, LineaFallida.CANTIDAD_INVALIDA),
+            new LineaFallida(1L, 2, LineaFallida.CANTIDAD_INVALIDA)), ex.getLineasFallidas());
+        verify(productoRepository, never()).rebajarStockSiDisponible(anyLong(), anyInt(), anyInt());
+    }
+
     @Test
     void testReponerStock() {
         Producto producto = new Producto();
@@ -156,44 +396,39 @@ class ProductoServiceTest {
 
     @Test
     void testObtenerResumenInventario() {
-        Producto p1 = new Producto();
-        p1.setStock(2);
-        p1.setPrecio(5000);
-
-        Producto p2 = new Producto();
-        p2.setStock(3);
-        p2.setPrecio(10000);
-
-        when(productoRepository.findAll()).thenReturn(Arrays.asList(p1, p2));
+        when(productoRepository.obtenerTotales()).thenReturn(new TotalesInventario(2L, 5L, 2*5000 + 3*10000.0));
 
         var resumen = service.obtenerResumenInventario();
 
-        assertEquals(2, ((List<?>) resumen.get("productos")).size());
-        assertEquals(5, resumen.get("totalStock"));
+        assertEquals(2L, resumen.get("totalProductos"));
+        assertEquals(5L, resumen.get("totalStock"));
         assertEquals(2*5000 + 3*10000, (double) resumen.get("valorInventario"));
+        assertFalse(resumen.containsKey("productos"));
+        verify(productoRepository, never()).findAll();
     }
 
     @Test
     void testBuscarPorNombre() {
-        Producto p1 = new Producto();
-        p1.setNombre("Perfume Rosado");
+        Producto p1 = new Producto(1L, "Perfume Rosado", 3, 9990.0);
 
-        when(productoRepository.findByNombreContainingIgnoreCase("rosado")).thenReturn(Arrays.asList(p1));
+        when(indiceNombres.buscar("rosado", 50)).thenReturn(List.of(1L));
+        when(productoRepository.findById(1L)).thenReturn(Optional.of(p1));
 
         List<Producto> resultado = service.buscarPorNombre("rosado");
 
         assertEquals(1, resultado.size());
-        verify(productoRepository).findByNombreContainingIgnoreCase("rosado");
+        assertEquals("Perfume Rosado", resultado.get(0).getNombre());
+        verify(productoRepository, never()).findByNombreContainingIgnoreCase(anyString());
     }
      
     @Test
     void testBuscarPorNombreNoEncontrado() {
-        when(productoRepository.findByNombreContainingIgnoreCase("noexiste")).thenReturn(Arrays.asList());
+        when(indiceNombres.buscar("noexiste", 50)).thenReturn(List.of());
 
         List<Producto> resultado = service.buscarPorNombre("noexiste");
 
         assertEquals(0, resultado.size());
-        verify(productoRepository).findByNombreContainingIgnoreCase("noexiste");
+        verify(productoRepository, never()).findById(anyLong());
     }
 
 }
@@ -0,0 +1,83 @@
+package com.perfulandia.inventario.serviceTest;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import com.perfulandia.inventario.dto.ResumenConsulta;
+import com.perfulandia.inventario.service.RegistroConsultasService;
+
+class RegistroConsultasServiceTest {
+
+    private final RegistroConsultasService registro = new RegistroConsultasService(200, 0, 100);
+
+    @Test
+    void testHuellaSinLiteralesNiEspaciosRepetidos() {
+        assertEquals("select p1_0.id from producto p1_0 where p1_0.nombre=? and p1_0.stock>?",
+            RegistroConsultasService.huella("select p1_0.id\n  from producto p1_0\n where p1_0.nombre='Eau d''été' and p1_0.stock>10"));
+        assertEquals("update producto set stock=stock-? where id=? and version=?",
+            RegistroConsultasService.huella("update producto set stock=stock-? where id=? and version=?"));
+    }
+
+    @Test
+    void testListasInDeDistintoLargoDanLaMismaHuella() {
+        String una = RegistroConsultasService.huella("select * from resena where id in (?)");
+        assertEquals(una, RegistroConsultasService.huella("select * from resena where id in (?, ?, ?)"));
+        assertEquals(una, RegistroConsultasService.huella("select * from resena where id in (1,2,3)"));
+    }
+
+    @Test
+    void testAcumulaPorHuellaConP99() {
+        for (int i = 0; i < 99; i++) {
+            registro.registrar("select * from producto where id=" + i, TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        registro.registrar("select * from producto where id=500", TimeUnit.MILLISECONDS.toNanos(100));
+
+        ResumenConsulta resumen = registro.principales("total", 10).get(0);
+        assertEquals("select * from producto where id=?", resumen.getHuella());
+        assertEquals(100, resumen.getCantidad());
+        assertEquals(199, resumen.getTotalMs(), 0.001);
+        assertEquals(100, resumen.getMaximoMs(), 0.001);
+        assertTrue(resumen.getP99Ms() >= 1 && resumen.getP99Ms() < 1.25, "p99 " + resumen.getP99Ms());
+    }
+
+    @Test
+    void testHuellaPrecalculadaSeAcumulaConLaDelSql() {
+        String sql = "select * from producto where id=?";
+        registro.registrar(sql, RegistroConsultasService.huella(sql), 1000);
+        registro.registrar("select * from producto where id=7", 1000);
+
+        List<ResumenConsulta> principales = registro.principales("cantidad", 10);
+        assertEquals(1, principales.size());
+        assertEquals(2, principales.get(0).getCantidad());
+    }
+
+    @Test
+    void testOrdenaPorElCriterioPedido() {
+        registro.registrar("select * from producto", TimeUnit.MILLISECONDS.toNanos(50));
+        for (int i = 0; i < 10; i++) {
+            registro.registrar("select * from resena", TimeUnit.MILLISECONDS.toNanos(10));
+        }
+
+        assertEquals("select * from resena", registro.principales("total", 1).get(0).getHuella());
+        assertEquals("select * from producto", registro.principales("maximo", 1).get(0).getHuella());
+        assertEquals("select * from resena", registro.principales("cantidad", 1).get(0).getHuella());
+        assertThrows(IllegalArgumentException.class, () -> registro.principales("nombre", 1));
+    }
+
+    @Test
+    void testLaTablaQuedaAcotada() {
+        for (int i = 0; i < 1000; i++) {
+            registro.registrar("select * from tabla_" + i, 1000);
+        }
+        List<ResumenConsulta> todas = registro.principales("cantidad", 10_000);
+        assertTrue(todas.size() <= 100, "huellas " + todas.size());
+
+        registro.limpiar();
+        assertTrue(registro.principales("total", 10).isEmpty());
+    }
+}
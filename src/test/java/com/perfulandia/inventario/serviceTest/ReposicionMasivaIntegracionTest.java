@@ -0,0 +1,54 @@
+package com.perfulandia.inventario.serviceTest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.perfulandia.inventario.ProductosDePrueba;
+import com.perfulandia.inventario.dto.LineaFallida;
+import com.perfulandia.inventario.dto.LineaStock;
+import com.perfulandia.inventario.dto.ResumenReposicion;
+import com.perfulandia.inventario.repository.ProductoRepository;
+import com.perfulandia.inventario.service.ProductoService;
+
+/* Verifica contra H2 la reposición masiva en tramos, con líneas repetidas, inválidas y productos inexistentes */
+@SpringBootTest(properties = "inventario.reposicion.lote=2")
+@ActiveProfiles("h2")
+@DirtiesContext
+class ReposicionMasivaIntegracionTest {
+
+    @Autowired
+    private ProductoService service;
+
+    @Autowired
+    private ProductoRepository repository;
+
+    @Test
+    void testReponeEnTramosEInformaLasLineasFallidas() {
+        Long a = ProductosDePrueba.crear(repository, 1);
+        Long b = ProductosDePrueba.crear(repository, 2);
+        Long c = ProductosDePrueba.crear(repository, 3);
+        long versionA = repository.obtenerVersionPorId(a).orElseThrow();
+
+        ResumenReposicion resumen = service.reponerStockMasivo(List.of(
+            new LineaStock(c, 5), new LineaStock(a, 10), new LineaStock(999_999L, 4),
+            new LineaStock(b, 0), new LineaStock(a, 2)));
+
+        assertEquals(5, resumen.getLineasRecibidas());
+        assertEquals(2, resumen.getProductosRepuestos());
+        assertEquals(17, resumen.getUnidadesRepuestas());
+        assertEquals(2, resumen.getFallidas().size());
+        assertEquals(LineaFallida.CANTIDAD_INVALIDA, resumen.getFallidas().get(0).getMotivo());
+        assertEquals(LineaFallida.PRODUCTO_NO_ENCONTRADO, resumen.getFallidas().get(1).getMotivo());
+
+        assertEquals(13, repository.findById(a).orElseThrow().getStock());
+        assertEquals(2, repository.findById(b).orElseThrow().getStock());
+        assertEquals(8, repository.findById(c).orElseThrow().getStock());
+        assertEquals(versionA + 1, repository.obtenerVersionPorId(a).orElseThrow());
+    }
+}
@@ -10,15 +10,27 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import com.perfulandia.inventario.dto.ResenaExportada;
+import com.perfulandia.inventario.model.AgregadoResena;
 import com.perfulandia.inventario.model.Producto;
 import com.perfulandia.inventario.model.Resena;
+import com.perfulandia.inventario.repository.ProductoRepository;
 import com.perfulandia.inventario.repository.ResenaRepository;
+import com.perfulandia.inventario.service.AgregadoResenaService;
+import com.perfulandia.inventario.service.IndiceResenasService;
+import com.perfulandia.inventario.service.MetricasInventarioService;
 import com.perfulandia.inventario.service.ResenaService;
+import com.perfulandia.inventario.service.ResenasModificadasEvento;
 
 
 class ResenaServiceTest {
@@ -26,6 +38,21 @@ class ResenaServiceTest {
     @Mock
     private ResenaRepository repository;
 
+    @Mock
+    private ProductoRepository productoRepository;
+
+    @Mock
+    private AgregadoResenaService agregados;
+
+    @Mock
+    private IndiceResenasService indice;
+
+    @Spy
+    private MetricasInventarioService metricas = new MetricasInventarioService(new SimpleMeterRegistry());
+
+    @Mock
+    private ApplicationEventPublisher eventos;
+
     @InjectMocks
     private ResenaService service;
 
@@ -38,6 +65,7 @@ class ResenaServiceTest {
 
         Producto producto = new Producto();
         producto.setId(10L); // ID simulado del producto
+        when(productoRepository.getReferenceById(10L)).thenReturn(producto);
 
         resenaEjemplo = new Resena();
         resenaEjemplo.setId(1L);
@@ -56,6 +84,7 @@ class ResenaServiceTest {
 
         assertEquals(resenaEjemplo, resultado);
         verify(repository).save(resenaEjemplo);
+        verify(agregados).registrar(10L, 5, 1);
     }
 
     @Test
@@ -102,23 +131,41 @@ class ResenaServiceTest {
     void testEliminar() {
         doNothing().when(repository).deleteById(1L);
 
+        when(repository.buscarGuardada(1L)).thenReturn(Optional.of(new ResenaExportada(1L, "Muy bueno", 5, 10L, 100L, "Juan")));
+
         service.eliminar(1L);
 
         verify(repository).deleteById(1L);
+        verify(agregados).registrar(10L, 5, -1);
     }
 
     @Test
     void testActualizar() {
         when(repository.save(resenaEjemplo)).thenReturn(resenaEjemplo);
 
+        when(repository.buscarGuardada(1L)).thenReturn(Optional.of(new ResenaExportada(1L, "Muy bueno", 3, 10L, 100L, "Juan")));
+
         Resena resultado = service.actualizar(resenaEjemplo);
 
         assertEquals(resenaEjemplo, resultado);
+        verify(agregados).registrar(10L, 3, -1);
+        verify(agregados).registrar(10L, 5, 1);
+    }
+
+    @Test
+    void testActualizarSinCambiarCalificacionNoTocaAgregados() {
+        when(repository.save(resenaEjemplo)).thenReturn(resenaEjemplo);
+        when(repository.buscarGuardada(1L)).thenReturn(Optional.of(new ResenaExportada(1L, "Antes", 5, 10L, 100L, "Juan")));
+
+        service.actualizar(resenaEjemplo);
+
+        verify(agregados, never()).registrar(10L, 5, 1);
+        verify(agregados).registrarEdicion(10L);
     }
 
     @Test
     void testObtenerPromedioCalificacion() {
-        when(repository.promedioCalificacionPorProducto(10L)).thenReturn(4.5);
+        when(agregados.promedio(10L)).thenReturn(4.5);
 
         Double promedio = service.obtenerPromedioCalificacion(10L);
 
@@ -127,10 +174,9 @@ class ResenaServiceTest {
 
     @Test
     void testObtenerCantidadResenasPorProducto() {
-        Object[] fila1 = {10L, 3L};
-        Object[] fila2 = {11L, 5L};
-
-        when(repository.cantidadResenasPorProducto()).thenReturn(List.of(fila1, fila2));
+        when(agregados.conResenas()).thenReturn(List.of(
+            new AgregadoResena(10L, 3, 12, 0, 0, 1, 1, 1, 3),
+            new AgregadoResena(11L, 5, 20, 0, 1, 1, 1, 2, 5)));
 
         List<Map<String, Object>> resultado = service.obtenerCantidadResenasPorProducto();
 
@@ -140,4 +186,27 @@ class ResenaServiceTest {
         assertEquals(5L, resultado.get(1).get("cantidadResenas"));
         assertEquals(11L, resultado.get(1).get("idProducto"));
     }
+
+    @Test
+    void testBuscarEnComentariosRespetaElOrdenDelIndice() {
+        Resena otra = new Resena(2L, "Buena duracion", 4, resenaEjemplo.getProducto(), 101L, "Ana");
+        when(indice.buscar("duracion", null, null, 10)).thenReturn(List.of(
+            new IndiceResenasService.Coincidencia(2L, 1.8), new IndiceResenasService.Coincidencia(1L, 0.9)));
+        when(repository.findAllById(List.of(2L, 1L))).thenReturn(List.of(resenaEjemplo, otra));
+
+        List<Resena> resultado = service.buscarEnComentarios("duracion", null, null, 10);
+
+        assertEquals(List.of(otra, resenaEjemplo), resultado);
+    }
+
+    @Test
+    void testGuardarAvisaAlIndiceDeComentarios() {
+        resenaEjemplo.setId(null);
+        Resena guardada = new Resena(7L, "Muy bueno", 5, resenaEjemplo.getProducto(), 100L, "Juan");
+        when(repository.save(resenaEjemplo)).thenReturn(guardada);
+
+        service.guardar(resenaEjemplo);
+
+        verify(eventos).publishEvent(ResenasModificadasEvento.de(7L));
+    }
 }
@@ -0,0 +1,146 @@
+package com.perfulandia.inventario.serviceTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.perfulandia.inventario.ProductosDePrueba;
+import com.perfulandia.inventario.dto.LineaStock;
+import com.perfulandia.inventario.exception.ReservaRechazadaException;
+import com.perfulandia.inventario.exception.StockInsuficienteException;
+import com.perfulandia.inventario.repository.ProductoRepository;
+import com.perfulandia.inventario.service.ProductoService;
+import com.perfulandia.inventario.service.RetencionStockService;
+
+/* Verifica contra H2 que una reserva rechazada no deja descuentos parciales y que las rebajas respetan las retenciones */
+@SpringBootTest
+@ActiveProfiles("h2")
+@DirtiesContext
+class ReservaStockIntegracionTest {
+
+    @Autowired
+    private ProductoService service;
+
+    @Autowired
+    private ProductoRepository repository;
+
+    @Autowired
+    private RetencionStockService retenciones;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void testReservaRechazadaNoDejaDescuentosParciales() {
+        Long conStock = ProductosDePrueba.crear(repository, "Perfume Reserva A", 10);
+        Long sinStock = ProductosDePrueba.crear(repository, "Perfume Reserva B", 1);
+
+        assertThrows(ReservaRechazadaException.class, () ->
+            service.reservarStock(List.of(new LineaStock(conStock, 4), new LineaStock(sinStock, 2))));
+
+        assertEquals(10, repository.findById(conStock).orElseThrow().getStock());
+        assertEquals(1, repository.findById(sinStock).orElseThrow().getStock());
+    }
+
+    @Test
+    void testReservaAceptadaDescuentaTodasLasLineas() {
+        Long a = ProductosDePrueba.crear(repository, "Perfume Reserva C", 10);
+        Long b = ProductosDePrueba.crear(repository, "Perfume Reserva D", 3);
+
+        service.reservarStock(List.of(new LineaStock(b, 3), new LineaStock(a, 4)));
+
+        assertEquals(6, repository.findById(a).orElseThrow().getStock());
+        assertEquals(0, repository.findById(b).orElseThrow().getStock());
+    }
+
+    @Test
+    void testRetencionesYRebajasConcurrentesNoConsumenUnidadesRetenidas() throws Exception {
+        Long id = ProductosDePrueba.crear(repository, "Perfume Reserva E", 60);
+        AtomicInteger retenidas = new AtomicInteger();
+        AtomicInteger rebajadas = new AtomicInteger();
+        CountDownLatch largada = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        List<Future<?>> tareas = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            boolean retener = i % 2 == 0;
+            tareas.add(pool.submit(() -> {
+                largada.await();
+                try {
+                    if (retener) {
+                        retenciones.retener(id, 1, null);
+                        retenidas.incrementAndGet();
+                    } else {
+                        service.rebajarStock(id, 1);
+                        rebajadas.incrementAndGet();
+                    }
+                } catch (StockInsuficienteException e) {
+                    // sin disponible: se rechaza
+                }
+                return null;
+            }));
+        }
+        largada.countDown();
+        for (Future<?> tarea : tareas) {
+            tarea.get(1, TimeUnit.MINUTES);
+        }
+        pool.shutdown();
+
+        int stock = repository.findById(id).orElseThrow().getStock();
+        assertEquals(60, retenidas.get() + rebajadas.get());
+        assertEquals(60 - rebajadas.get(), stock);
+        assertEquals(retenidas.get(), retenciones.retenido(id)); // todo lo retenido sigue cubierto por el stock
+        assertTrue(stock >= retenciones.retenido(id));
+    }
+
+    @Test
+    void testRetenerEsperaElCommitDeUnaReservaEnCurso() throws Exception {
+        Long id = ProductosDePrueba.crear(repository, "Perfume Reserva F", 5);
+        CountDownLatch reservado = new CountDownLatch(1);
+        CountDownLatch confirmar = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        // El pedido descuenta todo el stock y tarda en confirmar: su UPDATE aun no es visible para retener
+        Future<?> pedido = pool.submit(() -> {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                service.reservarStock(List.of(new LineaStock(id, 5)));
+                reservado.countDown();
+                try {
+                    confirmar.await(1, TimeUnit.MINUTES);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            return null;
+        });
+        reservado.await(1, TimeUnit.MINUTES);
+        Future<?> retencion = pool.submit(() -> retenciones.retener(id, 1, null));
+
+        Thread.sleep(200);
+        assertFalse(retencion.isDone()); // espera el candado que el pedido tiene hasta el final
+        confirmar.countDown();
+        pedido.get(1, TimeUnit.MINUTES);
+
+        Exception e = assertThrows(Exception.class, () -> retencion.get(1, TimeUnit.MINUTES));
+        assertTrue(e.getCause() instanceof StockInsuficienteException);
+        pool.shutdown();
+        assertEquals(0, retenciones.retenido(id));
+    }
+}
@@ -0,0 +1,39 @@
+package com.perfulandia.inventario.serviceTest;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.perfulandia.inventario.model.Producto;
+import com.perfulandia.inventario.repository.ProductoRepository;
+import com.perfulandia.inventario.service.ProductoService;
+
+/* Los totales que suma la base coinciden con sumar producto por producto, contra H2 */
+@SpringBootTest
+@ActiveProfiles("h2")
+class ResumenInventarioIntegracionTest {
+
+    @Autowired
+    private ProductoService service;
+
+    @Autowired
+    private ProductoRepository repository;
+
+    @Test
+    void testTotalesCoincidenConLosProductos() {
+        repository.save(new Producto(null, "Perfume Resumido", 7, 12500.5));
+        List<Producto> productos = repository.findAll();
+
+        Map<String, Object> resumen = service.obtenerResumenInventario();
+
+        assertEquals((long) productos.size(), resumen.get("totalProductos"));
+        assertEquals(productos.stream().mapToLong(Producto::getStock).sum(), resumen.get("totalStock"));
+        assertEquals(productos.stream().mapToDouble(p -> p.getStock() * p.getPrecio()).sum(),
+            (double) resumen.get("valorInventario"), 0.001);
+    }
+}
@@ -0,0 +1,175 @@
+package com.perfulandia.inventario.serviceTest;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import org.mockito.Mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.perfulandia.inventario.exception.RetencionNoActivaException;
+import com.perfulandia.inventario.exception.StockInsuficienteException;
+import com.perfulandia.inventario.model.EstadoRetencion;
+import com.perfulandia.inventario.model.RetencionStock;
+import com.perfulandia.inventario.repository.ProductoRepository;
+import com.perfulandia.inventario.repository.RetencionStockRepository;
+import com.perfulandia.inventario.service.RetencionStockService;
+import com.perfulandia.inventario.service.MovimientoStockService;
+import com.perfulandia.inventario.service.StockCalienteService;
+import com.perfulandia.inventario.service.StockFragmentadoService;
+
+class RetencionStockServiceTest {
+
+    @Mock
+    private RetencionStockRepository retencionRepository;
+
+    @Mock
+    private ProductoRepository productoRepository;
+
+    @Mock
+    private StockCalienteService stockCaliente;
+
+    @Mock
+    private StockFragmentadoService stockFragmentado;
+
+    @Mock
+    private MovimientoStockService movimientos;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private RetencionStockService service;
+
+    private long siguienteId = 1;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        service = new RetencionStockService(retencionRepository, productoRepository, stockCaliente, stockFragmentado, movimientos, transactionManager,
+            evento -> { }, 900);
+        // Mockito devuelve 0 para Integer; null indica que el producto no esta en modo caliente
+        when(stockCaliente.rebajar(anyLong(), anyInt(), anyInt())).thenReturn(null);
+        when(stockCaliente.stockActual(anyLong())).thenReturn(null);
+        when(stockFragmentado.stockActual(anyLong())).thenReturn(null);
+        when(stockFragmentado.excluyendoFragmentar(any())).thenAnswer(invocacion -> {
+            Supplier<?> movimiento = invocacion.getArgument(0);
+            return movimiento.get();
+        });
+
+        when(retencionRepository.save(any(RetencionStock.class))).thenAnswer(invocacion -> {
+            RetencionStock retencion = invocacion.getArgument(0);
+            retencion.setId(siguienteId++);
+            return retencion;
+        });
+        when(productoRepository.obtenerStockPorId(10L)).thenReturn(Optional.of(5));
+    }
+
+    @Test
+    void testRetenerDescuentaDelDisponible() {
+        service.retener(10L, 3, null);
+
+        assertEquals(3, service.retenido(10L));
+        assertEquals(2, service.consultarDisponible(10L).get("disponible"));
+    }
+
+    @Test
+    void testRetenerSinDisponibleLanzaExcepcion() {
+        service.retener(10L, 4, null);
+
+        assertThrows(StockInsuficienteException.class, () -> service.retener(10L, 2, null));
+        assertEquals(4, service.retenido(10L));
+    }
+
+    @Test
+    void testConfirmarRebajaStockYSueltaElRetenido() {
+        RetencionStock retencion = service.retener(10L, 2, null);
+        when(retencionRepository.cambiarEstado(retencion.getId(), EstadoRetencion.ACTIVA, EstadoRetencion.CONFIRMADA)).thenReturn(1);
+        when(productoRepository.rebajarStockSiDisponible(10L, 2, 0)).thenReturn(1);
+        when(retencionRepository.findById(retencion.getId())).thenReturn(Optional.of(retencion));
+
+        service.confirmar(retencion.getId());
+
+        verify(productoRepository).rebajarStockSiDisponible(10L, 2, 0);
+        assertEquals(0, service.retenido(10L));
+    }
+
+    @Test
+    void testConfirmarFallidoSigueVenciendoAunqueElBarridoPaseEntreMedio() {
+        RetencionStock retencion = service.retener(10L, 2, Duration.ofMillis(20));
+        when(retencionRepository.cambiarEstado(retencion.getId(), EstadoRetencion.ACTIVA, EstadoRetencion.CONFIRMADA)).thenReturn(1);
+        // Mientras se confirma vence el plazo y corre un barrido: la retención no está en el mapa y su vencimiento sale de la cola
+        when(productoRepository.rebajarStockSiDisponible(10L, 2, 0)).thenAnswer(invocacion -> {
+            Thread.sleep(30);
+            assertEquals(0, service.expirarVencidas());
+            return 0;
+        });
+
+        assertThrows(StockInsuficienteException.class, () -> service.confirmar(retencion.getId()));
+        assertEquals(1, service.cantidadActivas());
+        assertEquals(2, service.retenido(10L));
+
+        assertEquals(1, service.expirarVencidas());
+        assertEquals(0, service.cantidadActivas());
+        assertEquals(0, service.retenido(10L));
+    }
+
+    @Test
+    void testLiberarNoTocaElStock() {
+        RetencionStock retencion = service.retener(10L, 2, null);
+        when(retencionRepository.findById(retencion.getId())).thenReturn(Optional.of(retencion));
+
+        service.liberar(retencion.getId());
+
+        verify(retencionRepository).cambiarEstado(retencion.getId(), EstadoRetencion.ACTIVA, EstadoRetencion.LIBERADA);
+        verify(productoRepository, never()).rebajarStockSiDisponible(anyLong(), anyInt(), anyInt());
+        assertEquals(0, service.retenido(10L));
+        assertEquals(0, service.cantidadProductosConRetenido()); // el producto en 0 sale del mapa
+    }
+
+    @Test
+    void testLiberarDosVecesLanzaNoActiva() {
+        RetencionStock retencion = service.retener(10L, 2, null);
+        when(retencionRepository.findById(retencion.getId())).thenReturn(Optional.of(retencion));
+        service.liberar(retencion.getId());
+        retencion.setEstado(EstadoRetencion.LIBERADA);
+
+        assertThrows(RetencionNoActivaException.class, () -> service.liberar(retencion.getId()));
+    }
+
+    @Test
+    void testBarridoExpiraSoloLasVencidas() {
+        RetencionStock vencida = service.retener(10L, 1, Duration.ZERO);
+        service.retener(10L, 2, Duration.ofMinutes(10));
+
+        int expiradas = service.expirarVencidas();
+
+        assertEquals(1, expiradas);
+        assertEquals(2, service.retenido(10L));
+        assertEquals(1, service.cantidadActivas());
+        verify(retencionRepository).cambiarEstadoEnLote(List.of(vencida.getId()), EstadoRetencion.ACTIVA, EstadoRetencion.EXPIRADA);
+    }
+
+    @Test
+    void testCargarActivasRecuperaRetencionesAlArrancar() {
+        RetencionStock pendiente = new RetencionStock(50L, 10L, 3, EstadoRetencion.ACTIVA,
+            LocalDateTime.now().plusMinutes(5), LocalDateTime.now());
+        when(retencionRepository.findByEstado(EstadoRetencion.ACTIVA)).thenReturn(List.of(pendiente));
+
+        service.cargarActivas();
+
+        assertEquals(3, service.retenido(10L));
+    }
+}
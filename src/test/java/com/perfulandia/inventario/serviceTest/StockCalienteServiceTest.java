@@ -0,0 +1,185 @@
+package com.perfulandia.inventario.serviceTest;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import org.mockito.Mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.perfulandia.inventario.exception.StockInsuficienteException;
+import com.perfulandia.inventario.model.PuntoControlStock;
+import com.perfulandia.inventario.repository.ProductoRepository;
+import com.perfulandia.inventario.repository.PuntoControlStockRepository;
+import com.perfulandia.inventario.service.MovimientoStockService;
+import com.perfulandia.inventario.service.StockCalienteService;
+
+class StockCalienteServiceTest {
+
+    @Mock
+    private ProductoRepository productoRepository;
+
+    @Mock
+    private PuntoControlStockRepository puntoControlRepository;
+
+    @Mock
+    private MovimientoStockService movimientos;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path directorio;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(productoRepository.obtenerStockPorId(1L)).thenReturn(Optional.of(10));
+    }
+
+    private StockCalienteService crear(boolean habilitado) throws Exception {
+        return crear(habilitado, false);
+    }
+
+    private StockCalienteService crear(boolean habilitado, boolean fsync) throws Exception {
+        StockCalienteService service = new StockCalienteService(productoRepository, puntoControlRepository, movimientos,
+            jdbcTemplate, transactionManager, evento -> { }, habilitado, directorio.toString(), fsync);
+        service.iniciar();
+        return service;
+    }
+
+    @Test
+    void testRegistrarDeshabilitadoLanzaExcepcion() throws Exception {
+        StockCalienteService service = crear(false);
+
+        assertThrows(IllegalStateException.class, () -> service.registrar(1L));
+    }
+
+    @Test
+    void testRebajarEnMemoriaSinTocarLaTabla() throws Exception {
+        StockCalienteService service = crear(true);
+        service.registrar(1L);
+
+        assertEquals(7, service.rebajar(1L, 3, 0));
+        assertEquals(7, service.stockActual(1L));
+        assertEquals(-3, service.pendienteTotal());
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), any(List.class));
+    }
+
+    @Test
+    void testRebajarRespetaRetenidoYProductosNoRegistrados() throws Exception {
+        StockCalienteService service = crear(true);
+        service.registrar(1L);
+
+        assertThrows(StockInsuficienteException.class, () -> service.rebajar(1L, 5, 6));
+        assertEquals(10, service.stockActual(1L));
+        assertNull(service.rebajar(2L, 1, 0)); // no es caliente, lo resuelve la tabla
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void testVolcarAplicaDeltasNetosYAvanzaElPuntoDeControl() throws Exception {
+        StockCalienteService service = crear(true);
+        service.registrar(1L);
+        service.rebajar(1L, 3, 0);
+        service.rebajar(1L, 2, 0);
+        service.reponer(1L, 1);
+
+        service.volcar();
+
+        ArgumentCaptor<List<Object[]>> filas = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), filas.capture());
+        assertEquals(-4, filas.getValue().get(0)[0]);
+        verify(puntoControlRepository).save(new PuntoControlStock("stock-caliente", 3));
+        assertEquals(0, service.pendienteTotal());
+        assertEquals(0, Files.list(directorio).count()); // segmentos volcados se eliminan
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void testArranqueReaplicaSoloLoAnotadoDespuesDelPuntoDeControl() throws Exception {
+        Files.writeString(directorio.resolve("stock-caliente-00000000000000000001.log"),
+            "1;1;-2\n2;1;-3\n3;5;4\n4;1;-");
+        when(puntoControlRepository.findById("stock-caliente"))
+            .thenReturn(Optional.of(new PuntoControlStock("stock-caliente", 1)));
+
+        crear(true);
+
+        ArgumentCaptor<List<Object[]>> filas = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), filas.capture());
+        assertEquals(2, filas.getValue().size());
+        assertEquals(-3, filas.getValue().get(0)[0]); // la seq 1 ya estaba volcada, la 4 quedó truncada
+        assertEquals(4, filas.getValue().get(1)[0]);
+        verify(puntoControlRepository).save(new PuntoControlStock("stock-caliente", 3));
+        assertTrue(Files.list(directorio).findAny().isEmpty());
+    }
+
+    @Test
+    void testRegistrarDeNuevoCuentaLosDeltasQueAunNoLleganALaColumna() throws Exception {
+        StockCalienteService service = crear(true);
+        service.registrar(1L);
+        service.rebajar(1L, 3, 0);
+        // el volcado de desregistrar falla: los -3 quedan pendientes y la columna sigue en 10
+        when(jdbcTemplate.batchUpdate(anyString(), any(List.class))).thenThrow(new IllegalStateException("sin conexión"));
+        service.desregistrar(1L);
+
+        assertEquals(7, service.registrar(1L));
+        assertEquals(-3, service.pendienteTotal());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void testBitacoraConFsyncAgrupadoNoPierdeAnotacionesConcurrentes() throws Exception {
+        when(productoRepository.obtenerStockPorId(1L)).thenReturn(Optional.of(1000));
+        StockCalienteService service = crear(true, true);
+        service.registrar(1L);
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<?>> tareas = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            tareas.add(pool.submit(() -> {
+                for (int j = 0; j < 50; j++) {
+                    service.rebajar(1L, 1, 0);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> tarea : tareas) {
+            tarea.get(1, TimeUnit.MINUTES);
+        }
+        pool.shutdown();
+        assertEquals(600, service.stockActual(1L));
+
+        // Un arranque sin volcar reaplica lo anotado por todos los hilos
+        crear(true, true);
+
+        ArgumentCaptor<List<Object[]>> filas = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), filas.capture());
+        assertEquals(-400, filas.getValue().get(0)[0]);
+        verify(puntoControlRepository).save(new PuntoControlStock("stock-caliente", 400));
+    }
+}
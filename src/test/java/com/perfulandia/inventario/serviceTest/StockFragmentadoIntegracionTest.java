@@ -0,0 +1,114 @@
+package com.perfulandia.inventario.serviceTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.perfulandia.inventario.ProductosDePrueba;
+import com.perfulandia.inventario.exception.StockInsuficienteException;
+import com.perfulandia.inventario.model.RanuraStock;
+import com.perfulandia.inventario.repository.ProductoRepository;
+import com.perfulandia.inventario.repository.RanuraStockRepository;
+import com.perfulandia.inventario.service.ProductoService;
+import com.perfulandia.inventario.service.StockFragmentadoService;
+
+/* Stock repartido en ranuras contra H2: reparto, rebajas concurrentes y vuelta a una sola fila */
+@SpringBootTest
+@ActiveProfiles("h2")
+@DirtiesContext
+class StockFragmentadoIntegracionTest {
+
+    @Autowired
+    private StockFragmentadoService fragmentado;
+
+    @Autowired
+    private ProductoService productoService;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private RanuraStockRepository ranuraRepository;
+
+    @Test
+    void testFragmentarReparteParejoYElProductoSumaLasRanuras() {
+        Long id = ProductosDePrueba.crear(productoRepository, 10);
+
+        List<RanuraStock> ranuras = fragmentado.fragmentar(id, 4);
+
+        assertEquals(List.of(3, 3, 2, 2), ranuras.stream().map(RanuraStock::getStock).toList());
+        assertEquals(0, productoRepository.findById(id).orElseThrow().getStock());
+        assertEquals(10, productoService.buscarPorId(id).getStock());
+    }
+
+    @Test
+    void testRebajaQueNingunaRanuraCubreSolaSeTomaDeVarias() {
+        Long id = ProductosDePrueba.crear(productoRepository, 8);
+        fragmentado.fragmentar(id, 4); // 2 por ranura
+
+        productoService.rebajarStock(id, 7);
+
+        assertEquals(1, productoService.buscarPorId(id).getStock());
+        assertThrows(StockInsuficienteException.class, () -> productoService.rebajarStock(id, 2));
+    }
+
+    @Test
+    void testRebajasConcurrentesNoSobrevenden() throws Exception {
+        Long id = ProductosDePrueba.crear(productoRepository, 300);
+        fragmentado.fragmentar(id, 8);
+
+        ExecutorService hilos = Executors.newFixedThreadPool(16);
+        try {
+            List<Callable<Boolean>> tareas = new ArrayList<>();
+            for (int i = 0; i < 400; i++) {
+                tareas.add(() -> {
+                    try {
+                        productoService.rebajarStock(id, 1);
+                        return true;
+                    } catch (StockInsuficienteException e) {
+                        return false;
+                    }
+                });
+            }
+            int exitos = 0;
+            for (Future<Boolean> resultado : hilos.invokeAll(tareas)) {
+                if (resultado.get()) {
+                    exitos++;
+                }
+            }
+
+            assertEquals(300, exitos);
+            assertEquals(0, productoService.buscarPorId(id).getStock());
+            assertTrue(ranuraRepository.findByIdProductoOrderByRanura(id).stream().allMatch(r -> r.getStock() == 0));
+        } finally {
+            hilos.shutdownNow();
+        }
+    }
+
+    @Test
+    void testUnificarDevuelveElStockAlProducto() {
+        Long id = ProductosDePrueba.crear(productoRepository, 20);
+        fragmentado.fragmentar(id, 5);
+        productoService.rebajarStock(id, 3);
+        productoService.reponerStock(id, 1);
+
+        assertEquals(18, fragmentado.unificar(id));
+
+        assertEquals(18, productoRepository.findById(id).orElseThrow().getStock());
+        assertTrue(ranuraRepository.findByIdProductoOrderByRanura(id).isEmpty());
+        productoService.rebajarStock(id, 18); // vuelve al UPDATE condicional sobre la fila del producto
+        assertEquals(0, productoService.buscarPorId(id).getStock());
+    }
+}